@@ -24,6 +24,7 @@ public class DTNHost implements Comparable<DTNHost> {
 
 	private Coord location; 	// where is the host
 	private Coord destination;	// where is it going
+	private Coord nextWaypoint;	// reused for the destinations
 
 	private MessageRouter router;
 	private MovementModel movement;
@@ -31,10 +32,14 @@ public class DTNHost implements Comparable<DTNHost> {
 	private double speed;
 	private double nextTimeToMove;
 	private String name;
+	private String groupId;
 	private List<MessageListener> msgListeners;
 	private List<MovementListener> movListeners;
 	private List<NetworkInterface> net;
 	private ModuleCommunicationBus comBus;
+	/** engine moving this host (null if the host moves itself) */
+	private MobilityEngine mobilityEngine;
+	private int mobilityEngineIndex;
 
 	static {
 		DTNSim.registerForReset(DTNHost.class.getCanonicalName());
@@ -59,6 +64,7 @@ public class DTNHost implements Comparable<DTNHost> {
 		this.location = new Coord(0,0);
 		this.address = getNextAddress();
 		this.name = groupId+address;
+		this.groupId = groupId;
 		this.net = new ArrayList<NetworkInterface>();
 
 		for (NetworkInterface i : interf) {
@@ -151,6 +157,14 @@ public class DTNHost implements Comparable<DTNHost> {
 		return this.address;
 	}
 
+	/**
+	 * Returns the ID of the group this host belongs to
+	 * @return the group ID
+	 */
+	public String getGroupId() {
+		return this.groupId;
+	}
+
 	/**
 	 * Returns this hosts's ModuleCommunicationBus
 	 * @return this hosts's ModuleCommunicationBus
@@ -203,6 +217,48 @@ public class DTNHost implements Comparable<DTNHost> {
 		return this.path;
 	}
 
+	/**
+	 * Returns the movement model of this host
+	 * @return The movement model
+	 */
+	MovementModel getMovement() {
+		return this.movement;
+	}
+
+	/**
+	 * Returns the destination (next waypoint) of this host. The host reuses
+	 * the same object for its later destinations.
+	 * @return The destination or null if the host has no destination
+	 */
+	Coord getDestination() {
+		return this.destination;
+	}
+
+	/**
+	 * Returns the speed towards the destination
+	 * @return The speed
+	 */
+	double getSpeed() {
+		return this.speed;
+	}
+
+	/**
+	 * Returns the time when the host moves next time if it is waiting
+	 * @return The time of the next move
+	 */
+	double getNextTimeToMove() {
+		return this.nextTimeToMove;
+	}
+
+	/**
+	 * Sets the mobility engine that moves this host
+	 * @param engine The engine
+	 * @param index The index of this host in the engine
+	 */
+	void setMobilityEngine(MobilityEngine engine, int index) {
+		this.mobilityEngine = engine;
+		this.mobilityEngineIndex = index;
+	}
 
 	/**
 	 * Sets the Node's location overriding any location set by movement model
@@ -210,6 +266,9 @@ public class DTNHost implements Comparable<DTNHost> {
 	 */
 	public void setLocation(Coord location) {
 		this.location = location.clone();
+		if (this.mobilityEngine != null) {
+			this.mobilityEngine.load(this.mobilityEngineIndex);
+		}
 	}
 
 	/**
@@ -338,12 +397,17 @@ public class DTNHost implements Comparable<DTNHost> {
 			return;
 		}
 
+		long start; /* profiler timer (see SimProfiler.startTimer()) */
 		if (simulateConnections) {
 			for (NetworkInterface i : net) {
+				start = SimProfiler.startTimer();
 				i.update();
+				SimProfiler.stopTimer(SimProfiler.PHASE_INTERFACES, i, start);
 			}
 		}
+		start = SimProfiler.startTimer();
 		this.router.update();
+		SimProfiler.stopTimer(SimProfiler.PHASE_ROUTERS, this.router, start);
 	}
 
 	/**
@@ -408,6 +472,66 @@ public class DTNHost implements Comparable<DTNHost> {
 		this.location.translate(dx, dy);
 	}
 
+	/**
+	 * Moves the node analytically for the given time, starting from the
+	 * current simulation time. Instead of moving in update interval steps,
+	 * the node moves whole path legs and waits the wait times exactly (the
+	 * waits aren't rounded up to update intervals), so the time needed
+	 * depends on the number of waypoints and not on the update interval.
+	 * Should be used only if the movement model supports it (see
+	 * {@link MovementModel#canFastForward()}). The simulation clock is
+	 * advanced while the node moves (so that the movement model sees the
+	 * right times) and restored after the move.
+	 * @param time How long time the node moves
+	 */
+	public void fastForward(double time) {
+		SimClock clock = SimClock.getInstance();
+		double startTime = SimClock.getTime();
+		double now = startTime;
+		double endTime = startTime + time;
+
+		while (now < endTime) {
+			if (this.destination == null) {
+				if (now < this.nextTimeToMove) {
+					now = this.nextTimeToMove; /* wait */
+					continue;
+				}
+				clock.setTime(now);
+				if (!setNextWaypoint()) {
+					if (this.nextTimeToMove <= now) {
+						break; /* no path and no wait time; can't proceed */
+					}
+					continue;
+				}
+			}
+
+			double distance = this.location.distance(this.destination);
+			double legTime = distance == 0 ? 0 : distance / this.speed;
+			if (now + legTime > endTime) {
+				/* move towards the destination for the rest of the time */
+				double possibleMovement = (endTime - now) * this.speed;
+				this.location.translate(
+						(possibleMovement/distance) * (this.destination.getX() -
+								this.location.getX()),
+						(possibleMovement/distance) * (this.destination.getY() -
+								this.location.getY()));
+				break;
+			}
+
+			now += legTime;
+			this.location.setLocation(this.destination);
+			clock.setTime(now);
+			if (!setNextWaypoint()) {
+				this.destination = null;
+			}
+		}
+
+		clock.setTime(startTime);
+		if (this.mobilityEngine != null) {
+			this.mobilityEngine.load(this.mobilityEngineIndex);
+		}
+	}
+
 	/**
 	 * Sets the next destination and speed to correspond the next waypoint
 	 * on the path.
@@ -425,12 +549,18 @@ public class DTNHost implements Comparable<DTNHost> {
 			return false;
 		}
 
-		this.destination = path.getNextWaypoint();
+		if (this.nextWaypoint == null) {
+			this.nextWaypoint = new Coord(0, 0);
+		}
+		path.getNextWaypoint(this.nextWaypoint);
+		this.destination = this.nextWaypoint;
 		this.speed = path.getSpeed();
 
-		if (this.movListeners != null) {
+		if (this.movListeners != null && !this.movListeners.isEmpty()) {
+			/* the listeners may keep the destination; give them a copy */
+			Coord dest = this.destination.clone();
 			for (MovementListener l : this.movListeners) {
-				l.newDestination(this, this.destination, this.speed);
+				l.newDestination(this, dest, this.speed);
 			}
 		}
 
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import movement.MovementModel;
+import routing.MessageRouter;
+
+/**
+ * Creates the hosts of a scenario one host group at a time. For every group
+ * the movement model, router, interface and application prototypes are
+ * created once (class and constructor lookups are cached by
+ * {@link Settings}) and all the hosts of the group are then created in bulk
+ * from those prototypes. Time spent in both phases is recorded so that
+ * the startup cost of large scenarios can be reported.
+ * <P>Hosts are created in address order in the calling thread: the
+ * replicate methods of the prototypes draw values from the shared
+ * random number generators and thus their order must stay the same for
+ * the same settings.</P>
+ */
+public class HostFactory {
+	/** package where to look for movement models */
+	private static final String MM_PACKAGE = "movement.";
+	/** package where to look for router classes */
+	private static final String ROUTING_PACKAGE = "routing.";
+	/** package where to look for interface classes */
+	private static final String INTTYPE_PACKAGE = "interfaces.";
+	/** package where to look for application classes */
+	private static final String APP_PACKAGE = "applications.";
+
+	private List<MessageListener> messageListeners;
+	private List<MovementListener> movementListeners;
+	private List<ConnectionListener> connectionListeners;
+	private List<ApplicationListener> appListeners;
+
+	/** nanoseconds spent creating group prototypes */
+	private long prototypeNanos;
+	/** nanoseconds spent replicating the prototypes to hosts */
+	private long hostNanos;
+
+	/**
+	 * Creates a new host factory that gives the listeners to all the hosts
+	 * (and their interfaces and applications) it creates
+	 * @param msgLs Message listeners
+	 * @param movLs Movement listeners
+	 * @param conLs Connection listeners
+	 * @param appLs Application listeners
+	 */
+	public HostFactory(List<MessageListener> msgLs,
+			List<MovementListener> movLs, List<ConnectionListener> conLs,
+			List<ApplicationListener> appLs) {
+		this.messageListeners = msgLs;
+		this.movementListeners = movLs;
+		this.connectionListeners = conLs;
+		this.appListeners = appLs;
+		this.prototypeNanos = 0;
+		this.hostNanos = 0;
+	}
+
+	/**
+	 * Creates the prototypes of a host group based on the group's settings
+	 * @param groupIndex Index of the group (starting from 1)
+	 * @return The host group
+	 */
+	public HostGroup createGroup(int groupIndex) {
+		long start = System.nanoTime();
+		HostGroup group = new HostGroup(groupIndex);
+		prototypeNanos += System.nanoTime() - start;
+		return group;
+	}
+
+	/**
+	 * Creates all the hosts of a group and adds them to the given list
+	 * @param group The group whose hosts are created
+	 * @param hosts The list where the new hosts are added to
+	 */
+	public void createHosts(HostGroup group, List<DTNHost> hosts) {
+		long start = System.nanoTime();
+
+		if (hosts instanceof ArrayList) {
+			((ArrayList<DTNHost>)hosts).ensureCapacity(hosts.size() +
+					group.nrofHosts);
+		}
+
+		for (int j=0; j<group.nrofHosts; j++) {
+			ModuleCommunicationBus comBus = new ModuleCommunicationBus();
+
+			// prototypes are given to new DTNHost which replicates
+			// new instances of movement model and message router
+			DTNHost host = new DTNHost(this.messageListeners,
+					this.movementListeners,	group.groupId, group.interfaces,
+					comBus, group.mmProto, group.routerProto);
+			hosts.add(host);
+		}
+
+		hostNanos += System.nanoTime() - start;
+	}
+
+	/**
+	 * Returns the total time spent creating group prototypes
+	 * @return Time in seconds
+	 */
+	public double getPrototypeTime() {
+		return prototypeNanos / 1e9;
+	}
+
+	/**
+	 * Returns the total time spent creating hosts from the prototypes
+	 * @return Time in seconds
+	 */
+	public double getHostCreationTime() {
+		return hostNanos / 1e9;
+	}
+
+	/**
+	 * Prototypes and settings of a single host group
+	 */
+	public class HostGroup {
+		private String groupId;
+		private int nrofHosts;
+		private MovementModel mmProto;
+		private MessageRouter routerProto;
+		private List<NetworkInterface> interfaces;
+
+		/**
+		 * Reads the group settings and creates the prototypes
+		 * @param groupIndex Index of the group (starting from 1)
+		 */
+		private HostGroup(int groupIndex) {
+			Settings s = new Settings(SimScenario.GROUP_NS + groupIndex);
+			s.setSecondaryNamespace(SimScenario.GROUP_NS);
+			this.groupId = s.getSetting(SimScenario.GROUP_ID_S);
+			this.nrofHosts = s.getInt(SimScenario.NROF_HOSTS_S);
+			int nrofInterfaces = s.getInt(SimScenario.NROF_INTERF_S);
+			int appCount;
+
+			// creates prototypes of MessageRouter and MovementModel
+			this.mmProto = (MovementModel)s.createIntializedObject(
+					MM_PACKAGE + s.getSetting(SimScenario.MOVEMENT_MODEL_S));
+			this.routerProto = (MessageRouter)s.createIntializedObject(
+					ROUTING_PACKAGE + s.getSetting(SimScenario.ROUTER_S));
+
+			/* checks that these values are positive (throws Error if not) */
+			s.ensurePositiveValue(nrofHosts, SimScenario.NROF_HOSTS_S);
+			s.ensurePositiveValue(nrofInterfaces, SimScenario.NROF_INTERF_S);
+
+			// setup interfaces
+			this.interfaces = new ArrayList<NetworkInterface>(nrofInterfaces);
+			for (int j=1;j<=nrofInterfaces;j++) {
+				String intName = s.getSetting(SimScenario.INTERFACENAME_S + j);
+				Settings intSettings = new Settings(intName);
+				NetworkInterface iface =
+					(NetworkInterface)intSettings.createIntializedObject(
+						INTTYPE_PACKAGE +
+						intSettings.getSetting(SimScenario.INTTYPE_S));
+				iface.setClisteners(connectionListeners);
+				iface.setGroupSettings(s);
+				interfaces.add(iface);
+			}
+
+			// setup applications
+			if (s.contains(SimScenario.APPCOUNT_S)) {
+				appCount = s.getInt(SimScenario.APPCOUNT_S);
+			} else {
+				appCount = 0;
+			}
+			for (int j=1; j<=appCount; j++) {
+				String appname = null;
+				Application protoApp = null;
+				try {
+					// Get name of the application for this group
+					appname = s.getSetting(SimScenario.GAPPNAME_S+j);
+					// Get settings for the given application
+					Settings t = new Settings(appname);
+					// Load an instance of the application
+					protoApp = (Application)t.createIntializedObject(
+							APP_PACKAGE + t.getSetting(SimScenario.APPTYPE_S));
+					// Set application listeners
+					protoApp.setAppListeners(appListeners);
+					// Set the proto application in proto router
+					routerProto.addApplication(protoApp);
+				} catch (SettingsError se) {
+					// Failed to create an application for this group
+					System.err.println("Failed to setup an application: " + se);
+					System.err.println("Caught at " + se.getStackTrace()[0]);
+					System.exit(-1);
+				}
+			}
+		}
+
+		/**
+		 * Returns the movement model prototype of this group
+		 * @return the movement model prototype
+		 */
+		public MovementModel getMovementModelPrototype() {
+			return this.mmProto;
+		}
+	}
+}
@@ -46,6 +46,12 @@ public class Message implements Comparable<Message> {
 	 * copy of the properties is made when replicating messages */
 	private Map<String, Object> properties;
 
+	/** Values of the message slots (see {@link MessageSlot}); doubles are
+	 * stored as their raw long bits. Null until a value is set. */
+	private long[] slotValues;
+	/** Bit mask of the slots that have a value */
+	private long slotsSet;
+
 	/** Application ID of the application that created the message */
 	private String	appID;
 
@@ -76,6 +82,8 @@ public class Message implements Comparable<Message> {
 		this.responseSize = 0;
 		this.requestMsg = null;
 		this.properties = null;
+		this.slotValues = null;
+		this.slotsSet = 0;
 		this.appID = null;
 
 		Message.nextUniqueId++;
@@ -269,6 +277,11 @@ public class Message implements Comparable<Message> {
 				updateProperty(key, m.getProperty(key));
 			}
 		}
+
+		if (m.slotValues != null) {
+			this.slotValues = m.slotValues.clone();
+			this.slotsSet = m.slotsSet;
+		}
 	}
 
 	/**
@@ -321,6 +334,101 @@ public class Message implements Comparable<Message> {
 		this.properties.put(key, value);
 	}
 
+	/**
+	 * Returns true if a value has been set for the given slot
+	 * @param slot The slot
+	 * @return true if the slot has a value
+	 */
+	public boolean hasValue(MessageSlot slot) {
+		return (this.slotsSet & (1L << slot.getIndex())) != 0;
+	}
+
+	/**
+	 * Returns the value of an int slot
+	 * @param slot The slot
+	 * @return The value or 0 if no value has been set
+	 */
+	public int getInt(MessageSlot slot) {
+		assert slot.getType() == MessageSlot.INT : "Not an int slot: " + slot;
+		return (int)getSlotValue(slot);
+	}
+
+	/**
+	 * Sets the value of an int slot
+	 * @param slot The slot
+	 * @param value The new value
+	 */
+	public void setInt(MessageSlot slot, int value) {
+		assert slot.getType() == MessageSlot.INT : "Not an int slot: " + slot;
+		setSlotValue(slot, value);
+	}
+
+	/**
+	 * Returns the value of a long slot
+	 * @param slot The slot
+	 * @return The value or 0 if no value has been set
+	 */
+	public long getLong(MessageSlot slot) {
+		assert slot.getType() == MessageSlot.LONG : "Not a long slot: " + slot;
+		return getSlotValue(slot);
+	}
+
+	/**
+	 * Sets the value of a long slot
+	 * @param slot The slot
+	 * @param value The new value
+	 */
+	public void setLong(MessageSlot slot, long value) {
+		assert slot.getType() == MessageSlot.LONG : "Not a long slot: " + slot;
+		setSlotValue(slot, value);
+	}
+
+	/**
+	 * Returns the value of a double slot
+	 * @param slot The slot
+	 * @return The value or 0 if no value has been set
+	 */
+	public double getDouble(MessageSlot slot) {
+		assert slot.getType() == MessageSlot.DOUBLE :
+			"Not a double slot: " + slot;
+		return Double.longBitsToDouble(getSlotValue(slot));
+	}
+
+	/**
+	 * Sets the value of a double slot
+	 * @param slot The slot
+	 * @param value The new value
+	 */
+	public void setDouble(MessageSlot slot, double value) {
+		assert slot.getType() == MessageSlot.DOUBLE :
+			"Not a double slot: " + slot;
+		setSlotValue(slot, Double.doubleToRawLongBits(value));
+	}
+
+	private long getSlotValue(MessageSlot slot) {
+		int i = slot.getIndex();
+		if (this.slotValues == null || i >= this.slotValues.length) {
+			return 0;
+		}
+		return this.slotValues[i];
+	}
+
+	private void setSlotValue(MessageSlot slot, long value) {
+		int i = slot.getIndex();
+		if (this.slotValues == null || i >= this.slotValues.length) {
+			/* lazy creation like with the properties; slots registered
+			   after this message was created need a bigger array */
+			long[] values = new long[MessageSlot.getNrofSlots()];
+			if (this.slotValues != null) {
+				System.arraycopy(this.slotValues, 0, values, 0,
+						this.slotValues.length);
+			}
+			this.slotValues = values;
+		}
+		this.slotValues[i] = value;
+		this.slotsSet |= 1L << i;
+	}
+
 	/**
 	 * Returns a replicate of this message (identical except for the unique id)
 	 * @return A replicate of the message
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package core;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Handle to a typed, primitive metadata slot of messages. Slots are
+ * registered once (typically to a static final field when the class using
+ * the slot is loaded) and the values are then accessed with the typed
+ * getters and setters of {@link Message} (e.g.,
+ * {@link Message#getInt(MessageSlot)}). Unlike the generic message
+ * properties, slot values are stored in a primitive array of the message,
+ * so no boxing or hashing is needed. At most {@link #MAX_SLOTS} slots can be
+ * registered.
+ */
+public class MessageSlot {
+	/** Maximum number of slots ({@value}) */
+	public static final int MAX_SLOTS = 64;
+	/** Type of slots holding int values */
+	public static final int INT = 0;
+	/** Type of slots holding long values */
+	public static final int LONG = 1;
+	/** Type of slots holding double values */
+	public static final int DOUBLE = 2;
+	private static final String[] TYPE_NAMES = {"int", "long", "double"};
+
+	/** all registered slots by their name */
+	private static Map<String, MessageSlot> slots =
+		new HashMap<String, MessageSlot>();
+
+	private String name;
+	private int type;
+	private int index;
+
+	private MessageSlot(String name, int type, int index) {
+		this.name = name;
+		this.type = type;
+		this.index = index;
+	}
+
+	/**
+	 * Registers a slot for int values
+	 * @param name Name of the slot. Should be such that no other class
+	 * accidentally uses the same name (e.g., prefixed with the class name).
+	 * @return The slot
+	 * @throws SimError if a slot of other type was registered with the
+	 * same name or too many slots are registered
+	 */
+	public static MessageSlot intSlot(String name) {
+		return register(name, INT);
+	}
+
+	/**
+	 * Registers a slot for long values
+	 * @param name Name of the slot
+	 * @return The slot
+	 * @throws SimError if a slot of other type was registered with the
+	 * same name or too many slots are registered
+	 * @see #intSlot(String)
+	 */
+	public static MessageSlot longSlot(String name) {
+		return register(name, LONG);
+	}
+
+	/**
+	 * Registers a slot for double values
+	 * @param name Name of the slot
+	 * @return The slot
+	 * @throws SimError if a slot of other type was registered with the
+	 * same name or too many slots are registered
+	 * @see #intSlot(String)
+	 */
+	public static MessageSlot doubleSlot(String name) {
+		return register(name, DOUBLE);
+	}
+
+	private static synchronized MessageSlot register(String name, int type) {
+		MessageSlot slot = slots.get(name);
+		if (slot != null) {
+			if (slot.type != type) {
+				throw new SimError("Message slot " + name + " is already " +
+						"registered for " + TYPE_NAMES[slot.type] + " values");
+			}
+			return slot; /* same slot registered again */
+		}
+		if (slots.size() == MAX_SLOTS) {
+			throw new SimError("Can't register message slot " + name +
+					"; all " + MAX_SLOTS + " slots are in use");
+		}
+
+		slot = new MessageSlot(name, type, slots.size());
+		slots.put(name, slot);
+		return slot;
+	}
+
+	/**
+	 * Returns the number of registered slots
+	 * @return The number of slots
+	 */
+	static int getNrofSlots() {
+		return slots.size();
+	}
+
+	/**
+	 * Returns the name of the slot
+	 * @return The name
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Returns the type of the slot's values
+	 * @return {@link #INT}, {@link #LONG} or {@link #DOUBLE}
+	 */
+	public int getType() {
+		return this.type;
+	}
+
+	/**
+	 * Returns the index of the slot in the messages' slot arrays
+	 * @return The index
+	 */
+	int getIndex() {
+		return this.index;
+	}
+
+	public String toString() {
+		return TYPE_NAMES[type] + " slot " + name;
+	}
+}
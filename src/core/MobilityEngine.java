@@ -0,0 +1,188 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package core;
+
+import java.util.List;
+
+import movement.ClusterMovement;
+import movement.LinearMovement;
+import movement.MovementModel;
+import movement.RandomDirection;
+import movement.RandomWalk;
+import movement.RandomWaypoint;
+
+/**
+ * Mobility engine that moves the hosts of simple movement models
+ * (see {@link #isSupported(MovementModel)}) in bulk. The locations,
+ * destinations and speeds of those hosts are kept in primitive arrays and
+ * the movement along the current path legs is done in a tight loop over the
+ * arrays. The hosts' location objects are kept up to date as views of the
+ * arrays. Only when a host reaches its destination (or doesn't have one)
+ * the host moves itself with {@link DTNHost#move(double)}; these moves are
+ * done in the hosts' address order, so the movement models' random number
+ * draws happen in the same order and the trajectories are exactly the same
+ * as without the engine.
+ * <P>The engine is enabled with the {@link World#MOBILITY_ENGINE_S}
+ * setting.</P>
+ */
+public class MobilityEngine {
+	/** all hosts of the world in the movement order */
+	private DTNHost[] hosts;
+	/** index of each host in the engine's arrays (-1 if not in the engine) */
+	private int[] indexes;
+	/** the hosts in the engine */
+	private DTNHost[] engineHosts;
+
+	private double[] x;
+	private double[] y;
+	private double[] destX;
+	private double[] destY;
+	private double[] speed;
+	private double[] nextTimeToMove;
+	private boolean[] hasDestination;
+	/** true for the hosts that were moved by the kernel in this round */
+	private boolean[] moved;
+
+	/**
+	 * Constructor. Hosts whose movement model is supported by the engine
+	 * are moved by the engine and the rest move themselves.
+	 * @param hosts All the hosts of the world
+	 */
+	public MobilityEngine(List<DTNHost> hosts) {
+		int n = hosts.size();
+		this.hosts = hosts.toArray(new DTNHost[n]);
+		this.indexes = new int[n];
+
+		int count = 0;
+		for (int i=0; i<n; i++) {
+			if (isSupported(this.hosts[i].getMovement())) {
+				indexes[i] = count++;
+			} else {
+				indexes[i] = -1;
+			}
+		}
+
+		this.engineHosts = new DTNHost[count];
+		this.x = new double[count];
+		this.y = new double[count];
+		this.destX = new double[count];
+		this.destY = new double[count];
+		this.speed = new double[count];
+		this.nextTimeToMove = new double[count];
+		this.hasDestination = new boolean[count];
+		this.moved = new boolean[count];
+
+		for (int i=0; i<n; i++) {
+			int index = indexes[i];
+			if (index >= 0) {
+				engineHosts[index] = this.hosts[i];
+				this.hosts[i].setMobilityEngine(this, index);
+				load(index);
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the movement model's hosts can be moved by the engine.
+	 * Supported models are the ones whose paths are simple (one or few legs
+	 * with a constant speed): {@link RandomWaypoint},
+	 * {@link ClusterMovement}, {@link RandomWalk}, {@link RandomDirection}
+	 * and {@link LinearMovement}. Subclasses of these models are not
+	 * supported.
+	 * @param mm The movement model
+	 * @return true if the model is supported
+	 */
+	public static boolean isSupported(MovementModel mm) {
+		Class<?> c = mm.getClass();
+		return c == RandomWaypoint.class || c == ClusterMovement.class ||
+			c == RandomWalk.class || c == RandomDirection.class ||
+			c == LinearMovement.class;
+	}
+
+	/**
+	 * Returns the number of hosts moved by the engine
+	 * @return The number of hosts
+	 */
+	public int getNrofHosts() {
+		return this.engineHosts.length;
+	}
+
+	/**
+	 * Moves all the hosts of the world for the given time
+	 * @param timeIncrement How long time the hosts move
+	 */
+	public void move(double timeIncrement) {
+		double time = SimClock.getTime();
+		int n = engineHosts.length;
+
+		/* which hosts can continue on their current leg */
+		for (int i=0; i<n; i++) {
+			moved[i] = hasDestination[i] && time >= nextTimeToMove[i] &&
+				engineHosts[i].isMovementActive();
+		}
+
+		/* the same arithmetic as in DTNHost.move for hosts that don't reach
+		 * their destination during this move */
+		for (int i=0; i<n; i++) {
+			if (!moved[i]) {
+				continue;
+			}
+			double possibleMovement = timeIncrement * speed[i];
+			double dx = x[i] - destX[i];
+			double dy = y[i] - destY[i];
+			double distance = Math.sqrt(dx*dx + dy*dy);
+			if (possibleMovement >= distance) {
+				moved[i] = false; /* reaches the destination */
+				continue;
+			}
+			x[i] += (possibleMovement/distance) * (destX[i] - x[i]);
+			y[i] += (possibleMovement/distance) * (destY[i] - y[i]);
+		}
+
+		/* update the views and let the rest of the hosts move themselves in
+		 * the normal order */
+		for (int i=0, nrofHosts=hosts.length; i<nrofHosts; i++) {
+			int index = indexes[i];
+			if (index < 0) {
+				hosts[i].move(timeIncrement);
+			} else if (moved[index]) {
+				hosts[i].getLocation().setLocation(x[index], y[index]);
+			} else {
+				hosts[i].move(timeIncrement);
+				load(index);
+			}
+		}
+	}
+
+	/**
+	 * Reloads the movement states of all the engine's hosts from the hosts
+	 */
+	void loadAll() {
+		for (int i=0; i<engineHosts.length; i++) {
+			load(i);
+		}
+	}
+
+	/**
+	 * Reloads the movement state of a host from the host. Must be called
+	 * whenever the host's location or destination changes outside the
+	 * engine.
+	 * @param index Index of the host in the engine
+	 */
+	void load(int index) {
+		DTNHost host = engineHosts[index];
+		Coord location = host.getLocation();
+		Coord destination = host.getDestination();
+		x[index] = location.getX();
+		y[index] = location.getY();
+		hasDestination[index] = destination != null;
+		if (destination != null) {
+			destX[index] = destination.getX();
+			destY[index] = destination.getY();
+		}
+		speed[index] = host.getSpeed();
+		nextTimeToMove[index] = host.getNextTimeToMove();
+	}
+}
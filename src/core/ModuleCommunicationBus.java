@@ -13,6 +13,10 @@ import java.util.List;
  * post data, subscribe to data changes and also poll for data values.
  * This is fairly similar to Message class' property interface, but these
  * values are shared for a node instead of message.
+ * <P>Values that are updated often can be stored in typed, primitive
+ * channels (see {@link #addDoubleChannel(String, double, boolean)} and
+ * {@link ModuleCommunicationChannel}) that are also accessible through the
+ * key based methods.</P>
  */
 public class ModuleCommunicationBus {
 	/** Initial capacity for the listener lists (instead of 10) */
@@ -21,6 +25,10 @@ public class ModuleCommunicationBus {
 	private HashMap<String, Object> values;
 	/** Subscribed listeners (or null if none)*/
 	private HashMap<String, List<ModuleCommunicationListener>> listeners;
+	/** Typed channels (or null if none) */
+	private HashMap<String, ModuleCommunicationChannel> channels;
+	/** Coalesced channels with undelivered notifications (or null) */
+	private List<ModuleCommunicationChannel> pendingChannels;
 
 	/**
 	 * Constructor.
@@ -28,6 +36,105 @@ public class ModuleCommunicationBus {
 	public ModuleCommunicationBus() {
 		this.values = null; /* use lazy creation  */
 		this.listeners = null;
+		this.channels = null;
+		this.pendingChannels = null;
+	}
+
+	/**
+	 * Adds a new double channel for this node
+	 * @param key The key of the value (see {@link #addProperty})
+	 * @param value The initial value
+	 * @param coalesced If true, the listeners are notified of the changes
+	 * only when {@link #notifyPendingChanges()} is called
+	 * @return The channel
+	 * @throws SimError if there is already a value for the given key
+	 */
+	public ModuleCommunicationChannel addDoubleChannel(String key,
+			double value, boolean coalesced) throws SimError {
+		return addChannel(key, ModuleCommunicationChannel.DOUBLE, value,
+				coalesced);
+	}
+
+	/**
+	 * Adds a new int channel for this node
+	 * @param key The key of the value (see {@link #addProperty})
+	 * @param value The initial value
+	 * @param coalesced If true, the listeners are notified of the changes
+	 * only when {@link #notifyPendingChanges()} is called
+	 * @return The channel
+	 * @throws SimError if there is already a value for the given key
+	 */
+	public ModuleCommunicationChannel addIntChannel(String key,
+			int value, boolean coalesced) throws SimError {
+		return addChannel(key, ModuleCommunicationChannel.INT, value,
+				coalesced);
+	}
+
+	private ModuleCommunicationChannel addChannel(String key, int type,
+			double value, boolean coalesced) {
+		if (containsProperty(key)) {
+			throw new SimError("A value for the key " + key +
+					" already exists");
+		}
+		if (this.channels == null) {
+			this.channels = new HashMap<String, ModuleCommunicationChannel>();
+		}
+
+		ModuleCommunicationChannel channel = new ModuleCommunicationChannel(
+				this, key, type, value, coalesced);
+		this.channels.put(key, channel);
+
+		/* move the existing subscriptions to the channel */
+		if (this.listeners != null) {
+			List<ModuleCommunicationListener> list =
+				this.listeners.remove(key);
+			if (list != null) {
+				for (ModuleCommunicationListener l : list) {
+					channel.addListener(l);
+				}
+			}
+		}
+		return channel;
+	}
+
+	/**
+	 * Returns the channel of the given key
+	 * @param key The key
+	 * @return The channel or null if the key has no channel
+	 */
+	public ModuleCommunicationChannel getChannel(String key) {
+		if (this.channels == null) {
+			return null;
+		}
+		return this.channels.get(key);
+	}
+
+	/**
+	 * Called by coalesced channels when they have a change to notify
+	 * @param channel The changed channel
+	 */
+	void channelChanged(ModuleCommunicationChannel channel) {
+		if (this.pendingChannels == null) {
+			this.pendingChannels =
+				new ArrayList<ModuleCommunicationChannel>(INIT_CAPACITY);
+		}
+		this.pendingChannels.add(channel);
+	}
+
+	/**
+	 * Notifies the listeners of coalesced channels of the latest values of
+	 * the channels that have changed since the previous call. Called by the
+	 * {@link World} at the end of every update round.
+	 */
+	public void notifyPendingChanges() {
+		if (this.pendingChannels == null || this.pendingChannels.isEmpty()) {
+			return;
+		}
+		for (int i=0; i<pendingChannels.size(); i++) {
+			/* listeners may change channels; those are notified too */
+			pendingChannels.get(i).notifyListeners();
+		}
+		this.pendingChannels.clear();
 	}
 
 	/**
@@ -56,6 +163,10 @@ public class ModuleCommunicationBus {
 	 * @return The stored object or null if it isn't found
 	 */
 	public Object getProperty(String key) {
+		ModuleCommunicationChannel channel = getChannel(key);
+		if (channel != null) {
+			return channel.getValue();
+		}
 		if (this.values == null) {
 			return null;
 		}
@@ -68,6 +179,9 @@ public class ModuleCommunicationBus {
 	 * @return true if the value exists, false if not
 	 */
 	public boolean containsProperty(String key) {
+		if (getChannel(key) != null) {
+			return true;
+		}
 		if (this.values == null) {
 			return false;
 		}
@@ -82,6 +196,11 @@ public class ModuleCommunicationBus {
 	 * @param value The new value to store
 	 */
 	public void updateProperty(String key, Object value) throws SimError {
+		ModuleCommunicationChannel channel = getChannel(key);
+		if (channel != null) {
+			channel.setValue(value);
+			return;
+		}
 		if (this.values == null) {
 			/* lazy creation to prevent performance overhead for classes
 			   that don't use the property feature  */
@@ -100,6 +219,13 @@ public class ModuleCommunicationBus {
 	 * @throws SimError if the value with the given key was not a Double
 	 */
 	public double updateDouble(String key, double delta) throws SimError {
+		ModuleCommunicationChannel channel = getChannel(key);
+		if (channel != null) {
+			if (channel.getType() != ModuleCommunicationChannel.DOUBLE) {
+				throw new SimError("No Double value for key " + key);
+			}
+			return channel.addDouble(delta);
+		}
 		double current;
 		try {
 			current = (Double)getProperty(key);
@@ -123,6 +249,13 @@ public class ModuleCommunicationBus {
 	 * @throws SimError if the value with the given key was not a Double
 	 */
 	public double getDouble(String key, double naValue) throws SimError {
+		ModuleCommunicationChannel channel = getChannel(key);
+		if (channel != null) {
+			if (channel.getType() != ModuleCommunicationChannel.DOUBLE) {
+				throw new SimError("No Double value for key " + key);
+			}
+			return channel.getDouble();
+		}
 		Object value = this.getProperty(key);
 		if (value == null) {
 			return naValue;
@@ -143,6 +276,13 @@ public class ModuleCommunicationBus {
 	 * @throws SimError if the value with the given key was not an Integer
 	 */
 	public int getInt(String key, int naValue) throws SimError {
+		ModuleCommunicationChannel channel = getChannel(key);
+		if (channel != null) {
+			if (channel.getType() != ModuleCommunicationChannel.INT) {
+				throw new SimError("No Integer value for key " + key);
+			}
+			return channel.getInt();
+		}
 		Object value = this.getProperty(key);
 		if (value == null) {
 			return naValue;
@@ -161,6 +301,11 @@ public class ModuleCommunicationBus {
 	 * @param module The module to subscribe.
 	 */
 	public void subscribe(String key, ModuleCommunicationListener module) {
+		ModuleCommunicationChannel channel = getChannel(key);
+		if (channel != null) {
+			channel.addListener(module);
+			return;
+		}
 		if (this.listeners == null) {
 			/* first listener for the whole node */
 			this.listeners =
@@ -184,7 +329,12 @@ public class ModuleCommunicationBus {
 	 */
 	public void unsubscribe(String key, ModuleCommunicationListener module) {
 		List<ModuleCommunicationListener> list;
+		ModuleCommunicationChannel channel = getChannel(key);
 
+		if (channel != null) {
+			channel.removeListener(module);
+			return;
+		}
 		if (this.listeners == null) {
 			return; /* no subscriptions */
 		}
@@ -224,6 +374,7 @@ public class ModuleCommunicationBus {
 	@Override
 	public String toString() {
 		return "ComBus with mapping: " + (this.values != null ?
-				this.values.toString() : "n/a");
+				this.values.toString() : "n/a") + (this.channels != null ?
+				" and channels: " + this.channels.toString() : "");
 	}
 }
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package core;
+
+/**
+ * Typed, primitive value of a {@link ModuleCommunicationBus}. Modules that
+ * update a value often (e.g., the energy level) can keep a reference to the
+ * channel and read and write the value without boxing or map lookups. The
+ * value is still visible through the bus' key based methods.
+ * <P>The listeners subscribed to the channel's key are normally notified on
+ * every change. If the channel is <I>coalesced</I>, the listeners are
+ * notified of the latest value only when the bus' pending notifications are
+ * delivered (see {@link ModuleCommunicationBus#notifyPendingChanges()}).
+ * The {@link World} delivers them once at the end of every update round
+ * (after all the hosts have been updated), so a listener gets at most one
+ * notification per host per round. Between the deliveries, the listeners'
+ * view of the value can be stale; modules that need the current value
+ * should read it from the channel (or with the bus' get methods).</P>
+ */
+public class ModuleCommunicationChannel {
+	/** Type of channels with double values */
+	public static final int DOUBLE = 0;
+	/** Type of channels with int values */
+	public static final int INT = 1;
+
+	private static final ModuleCommunicationListener[] NO_LISTENERS =
+		new ModuleCommunicationListener[0];
+
+	private final ModuleCommunicationBus bus;
+	private final String key;
+	private final int type;
+	private final boolean coalesced;
+	/** the value (int values are stored exactly as doubles) */
+	private double value;
+	private ModuleCommunicationListener[] listeners;
+	/** true if the listeners haven't been notified of the latest change */
+	private boolean pending;
+
+	/**
+	 * Constructor. Channels are created by the bus.
+	 * @param bus The bus the channel belongs to
+	 * @param key Key of the value
+	 * @param type Type of the value ({@link #DOUBLE} or {@link #INT})
+	 * @param value Initial value
+	 * @param coalesced If true, notifications are coalesced
+	 */
+	ModuleCommunicationChannel(ModuleCommunicationBus bus, String key,
+			int type, double value, boolean coalesced) {
+		this.bus = bus;
+		this.key = key;
+		this.type = type;
+		this.value = value;
+		this.coalesced = coalesced;
+		this.listeners = NO_LISTENERS;
+	}
+
+	/**
+	 * Returns the key of the channel's value
+	 * @return The key
+	 */
+	public String getKey() {
+		return this.key;
+	}
+
+	/**
+	 * Returns the type of the channel's value
+	 * @return {@link #DOUBLE} or {@link #INT}
+	 */
+	public int getType() {
+		return this.type;
+	}
+
+	/**
+	 * Returns true if the notifications of the channel are coalesced
+	 * @return true for coalesced notifications
+	 */
+	public boolean isCoalesced() {
+		return this.coalesced;
+	}
+
+	/**
+	 * Returns the value of a double channel
+	 * @return The value
+	 */
+	public double getDouble() {
+		assert type == DOUBLE : "Not a double channel: " + key;
+		return this.value;
+	}
+
+	/**
+	 * Returns the value of an int channel
+	 * @return The value
+	 */
+	public int getInt() {
+		assert type == INT : "Not an int channel: " + key;
+		return (int)this.value;
+	}
+
+	/**
+	 * Sets the value of a double channel
+	 * @param value The new value
+	 */
+	public void setDouble(double value) {
+		assert type == DOUBLE : "Not a double channel: " + key;
+		this.value = value;
+		changed();
+	}
+
+	/**
+	 * Sets the value of an int channel
+	 * @param value The new value
+	 */
+	public void setInt(int value) {
+		assert type == INT : "Not an int channel: " + key;
+		this.value = value;
+		changed();
+	}
+
+	/**
+	 * Adds to the value of a double channel
+	 * @param delta Value added to the old value
+	 * @return The new value
+	 */
+	public double addDouble(double delta) {
+		assert type == DOUBLE : "Not a double channel: " + key;
+		this.value = this.value + delta;
+		changed();
+		return this.value;
+	}
+
+	/**
+	 * Returns the value as an object (Double or Integer)
+	 * @return The boxed value
+	 */
+	public Object getValue() {
+		if (type == INT) {
+			return Integer.valueOf((int)this.value);
+		}
+		return Double.valueOf(this.value);
+	}
+
+	/**
+	 * Sets the value from an object
+	 * @param value The new value (Double for double channels, Integer for
+	 * int channels)
+	 * @throws SimError if the value is not of the channel's type
+	 */
+	public void setValue(Object value) throws SimError {
+		if (type == DOUBLE && value instanceof Double) {
+			setDouble((Double)value);
+		} else if (type == INT && value instanceof Integer) {
+			setInt((Integer)value);
+		} else {
+			throw new SimError("Invalid value " + value + " for " +
+					(type == INT ? "Integer" : "Double") + " channel " + key);
+		}
+	}
+
+	/**
+	 * Adds a listener for the changes of the value
+	 * @param l The listener
+	 */
+	void addListener(ModuleCommunicationListener l) {
+		ModuleCommunicationListener[] larger =
+			new ModuleCommunicationListener[listeners.length + 1];
+		System.arraycopy(listeners, 0, larger, 0, listeners.length);
+		larger[listeners.length] = l;
+		this.listeners = larger;
+	}
+
+	/**
+	 * Removes a listener (the first occurrence if subscribed many times)
+	 * @param l The listener
+	 */
+	void removeListener(ModuleCommunicationListener l) {
+		for (int i=0; i<listeners.length; i++) {
+			if (listeners[i] == l) {
+				ModuleCommunicationListener[] smaller =
+					new ModuleCommunicationListener[listeners.length - 1];
+				System.arraycopy(listeners, 0, smaller, 0, i);
+				System.arraycopy(listeners, i + 1, smaller, i,
+						listeners.length - i - 1);
+				this.listeners = smaller;
+				return;
+			}
+		}
+	}
+
+	private void changed() {
+		if (listeners.length == 0) {
+			return;
+		}
+		if (!coalesced) {
+			notifyListeners();
+		} else if (!pending) {
+			pending = true;
+			bus.channelChanged(this);
+		}
+	}
+
+	/**
+	 * Notifies the listeners of the current value
+	 */
+	void notifyListeners() {
+		this.pending = false;
+		if (listeners.length == 0) {
+			return;
+		}
+		Object boxed = getValue();
+		for (ModuleCommunicationListener l : listeners) {
+			l.moduleValueChanged(key, boxed);
+		}
+	}
+
+	public String toString() {
+		return String.valueOf(getValue());
+	}
+}
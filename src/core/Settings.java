@@ -8,11 +8,15 @@ import java.io.*;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.SortedMap;
 import java.util.Stack;
+import java.util.TreeMap;
 
 import util.Range;
 
@@ -52,6 +56,10 @@ public class Settings {
 	/** Stream where all read settings are written to */
 	private static PrintStream out = null;
 	private static Set<String> writtenSettings = new HashSet<String>();
+	/** Constructors resolved by {@link #loadObject(String, Class[], Object[])}
+	 * keyed by class name and argument signature */
+	private static Map<String, Constructor<?>> constructorCache =
+		new HashMap<String, Constructor<?>>();
 
 	/** run index for run-specific settings */
 	private static int runIndex = 0;
@@ -99,6 +107,15 @@ public class Settings {
 		writtenSettings.clear();
 	}
 
+	/**
+	 * Returns the current run index
+	 * @return The run index or a negative value if run indexing is disabled
+	 * @see #setRunIndex(int)
+	 */
+	public static int getRunIndex() {
+		return runIndex;
+	}
+
 	/**
 	 * Checks that the given integer array contains a valid range. I.e.,
 	 * the length of the array must be two and
@@ -435,6 +452,28 @@ public class Settings {
 		}
 	}
 
+	/**
+	 * Returns the settings that have a run array value and their values for
+	 * the current run index
+	 * @return The full names and the current values of the run-specific
+	 * settings in alphabetical order of the names (empty if run indexing is
+	 * disabled)
+	 */
+	public static SortedMap<String, String> getRunSettings() {
+		SortedMap<String, String> runSettings = new TreeMap<String, String>();
+		if (props == null) {
+			init(null);
+		}
+		for (String name : props.stringPropertyNames()) {
+			String value = props.getProperty(name).trim();
+			String runValue = parseRunSetting(value);
+			if (!runValue.equals(value)) {
+				runSettings.put(name, runValue);
+			}
+		}
+		return runSettings;
+	}
+
 	/**
 	 * Parses run-specific settings from a String value
 	 * @param value The String to parse
@@ -868,16 +907,15 @@ public class Settings {
 	private Object loadObject(String className, Class<?>[] argsClass,
 			Object[] args) {
 		Object o = null;
-		Class<?> objClass = getClass(className);
 		Constructor<?> constructor;
 
 		try {
+			constructor = getConstructor(className, argsClass);
 			if (argsClass != null) { // use a specific constructor
-				constructor = objClass.getConstructor((Class[])argsClass);
 				o = constructor.newInstance(args);
 			}
 			else { // call empty constructor
-				o = objClass.newInstance();
+				o = constructor.newInstance();
 			}
 		} catch (SecurityException e) {
 			e.printStackTrace();
@@ -909,6 +947,41 @@ public class Settings {
 		return o;
 	}
 
+	/**
+	 * Returns the constructor of a class that accepts the given argument
+	 * types. Constructors are looked up only once per class and signature
+	 * and cached for the subsequent calls.
+	 * @param className Full name of the class
+	 * @param argsClass Class(es) of the argument(s) or null for the
+	 * no-argument constructor
+	 * @return The constructor
+	 * @throws NoSuchMethodException if there is no such constructor
+	 * @throws SettingsError if the class wasn't found
+	 */
+	private static synchronized Constructor<?> getConstructor(String className,
+			Class<?>[] argsClass) throws NoSuchMethodException {
+		String key = className;
+		if (argsClass != null) {
+			for (Class<?> c : argsClass) {
+				key += "," + c.getName();
+			}
+		}
+
+		Constructor<?> constructor = constructorCache.get(key);
+		if (constructor == null) {
+			Class<?> objClass = getClass(className);
+			if (argsClass != null) {
+				constructor = objClass.getConstructor((Class[])argsClass);
+			}
+			else {
+				constructor = objClass.getConstructor();
+			}
+			constructorCache.put(key, constructor);
+		}
+
+		return constructor;
+	}
+
 	/**
 	 * Returns a Class object for the name of class of throws SettingsError
 	 * if such class wasn't found.
@@ -916,7 +989,7 @@ public class Settings {
 	 * @return A Class object of that class
 	 * @throws SettingsError if such class wasn't found or couldn't be loaded
 	 */
-	private Class<?> getClass(String name) {
+	private static Class<?> getClass(String name) {
 		String className = name;
 		Class<?> c;
 
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package core;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Low-overhead profiler of the simulation's hot paths. Collects monotonic
+ * real-time (nanosecond) counters for every phase of
+ * {@link World#update()}, per router, interface and update listener class,
+ * and counts some of the key simulation events. Profiling is disabled by
+ * default; the instrumented code times its phases with
+ * {@link #startTimer()} and {@link #stopTimer(int, Object, long)}, which
+ * only check {@link #isEnabled()} and skip all time keeping when it returns
+ * false. Profiling can be enabled with the
+ * {@link #ENABLED_S} setting or by loading a report that uses the profiler
+ * (see report.ProfilerReport). With the {@link #JMX_S} setting the counters
+ * are also published as a JMX MBean.
+ */
+public class SimProfiler implements SimProfilerMBean {
+	/** name space of the profiler settings ({@value}) */
+	public static final String PROFILER_NS = "Profiler";
+	/** Profiling enabled -setting id ({@value}). Boolean. Default = false */
+	public static final String ENABLED_S = "enabled";
+	/** Publish the profiler as a JMX MBean -setting id ({@value}).
+	 * Boolean. Default = false. Enables also profiling. */
+	public static final String JMX_S = "jmx";
+	/** Object name of the profiler MBean ({@value}) */
+	public static final String MBEAN_NAME = "core:type=SimProfiler";
+
+	/** external event processing phase */
+	public static final int PHASE_EVENTS = 0;
+	/** host movement phase */
+	public static final int PHASE_MOVEMENT = 1;
+	/** network interface update phase */
+	public static final int PHASE_INTERFACES = 2;
+	/** router update phase */
+	public static final int PHASE_ROUTERS = 3;
+	/** update listener phase */
+	public static final int PHASE_LISTENERS = 4;
+	/** names of the phases in phase index order */
+	public static final String[] PHASE_NAMES = {"events", "movement",
+		"interfaces", "routers", "listeners"};
+
+	private static boolean enabled;
+	private static SimProfiler instance;
+	private static ObjectName registeredName;
+
+	/** cumulative nanoseconds per phase */
+	private long[] phaseNanos;
+	/** cumulative {phase, nanoseconds, calls} per class */
+	private Map<Class<?>, long[]> classNanos;
+	private long updateRounds;
+	private long connectionsCreated;
+	private long transfersStarted;
+	private long messagesDropped;
+
+	static {
+		DTNSim.registerForReset(SimProfiler.class.getCanonicalName());
+		reset();
+	}
+
+	private SimProfiler() {
+		this.phaseNanos = new long[PHASE_NAMES.length];
+		this.classNanos = new LinkedHashMap<Class<?>, long[]>();
+	}
+
+	/**
+	 * Disables the profiler, drops the collected values and unregisters
+	 * the MBean (if it was registered)
+	 */
+	public static void reset() {
+		if (registeredName != null) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(
+						registeredName);
+			} catch (Exception e) {
+				/* already gone; nothing to clean */
+			}
+			registeredName = null;
+		}
+		enabled = false;
+		instance = null;
+	}
+
+	/**
+	 * Enables the profiler if it is requested in the settings
+	 * ({@link #ENABLED_S} or {@link #JMX_S})
+	 */
+	public static void initSettings() {
+		Settings s = new Settings(PROFILER_NS);
+		boolean jmx = s.getBoolean(JMX_S, false);
+
+		if (jmx || s.getBoolean(ENABLED_S, false)) {
+			setEnabled(true);
+		}
+		if (jmx) {
+			registerMBean();
+		}
+	}
+
+	/**
+	 * Returns true if profiling is enabled
+	 * @return true if profiling is enabled
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Enables or disables profiling. Values collected so far are kept.
+	 * @param enable True to enable profiling, false to disable
+	 */
+	public static void setEnabled(boolean enable) {
+		if (enable) {
+			getInstance();
+		}
+		enabled = enable;
+	}
+
+	/**
+	 * Returns the profiler instance and creates one if it doesn't exist yet
+	 * @return the profiler instance
+	 */
+	public static SimProfiler getInstance() {
+		if (instance == null) {
+			instance = new SimProfiler();
+		}
+		return instance;
+	}
+
+	/**
+	 * Registers the profiler instance to the platform MBean server
+	 */
+	private static void registerMBean() {
+		if (registeredName != null) {
+			return;
+		}
+
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(MBEAN_NAME);
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+			server.registerMBean(getInstance(), name);
+			registeredName = name;
+		} catch (Exception e) {
+			throw new SimError("Couldn't register profiler MBean: " + e, e);
+		}
+	}
+
+	/**
+	 * Starts timing a phase
+	 * @return The current time in nanoseconds or 0 if profiling is disabled
+	 */
+	public static long startTimer() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Stops timing a phase and adds the elapsed time to the phase if
+	 * profiling is enabled
+	 * @param phase Index of the phase (e.g. {@link #PHASE_MOVEMENT})
+	 * @param start The value returned by {@link #startTimer()} when the
+	 * phase started
+	 */
+	public static void stopTimer(int phase, long start) {
+		if (enabled && start != 0) { /* 0: profiling was off at the start */
+			instance.addTime(phase, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Stops timing a phase and adds the elapsed time to the phase and to the
+	 * class of the object that used the time, if profiling is enabled
+	 * @param phase Index of the phase (e.g. {@link #PHASE_ROUTERS})
+	 * @param o The object whose class the time is accounted to
+	 * @param start The value returned by {@link #startTimer()} when the
+	 * phase started
+	 */
+	public static void stopTimer(int phase, Object o, long start) {
+		if (enabled && start != 0) {
+			instance.addTime(phase, o, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Adds time to a phase
+	 * @param phase Index of the phase (e.g. {@link #PHASE_MOVEMENT})
+	 * @param nanos Nanoseconds to add
+	 */
+	public void addTime(int phase, long nanos) {
+		this.phaseNanos[phase] += nanos;
+	}
+
+	/**
+	 * Adds time to a phase and to the class of the object that used the time
+	 * @param phase Index of the phase (e.g. {@link #PHASE_ROUTERS})
+	 * @param o The object whose class the time is accounted to
+	 * @param nanos Nanoseconds to add
+	 */
+	public void addTime(int phase, Object o, long nanos) {
+		this.phaseNanos[phase] += nanos;
+
+		long[] values = this.classNanos.get(o.getClass());
+		if (values == null) {
+			values = new long[] {phase, 0, 0};
+			this.classNanos.put(o.getClass(), values);
+		}
+		values[1] += nanos;
+		values[2]++;
+	}
+
+	/**
+	 * Counts a completed update round of the world if profiling is enabled
+	 */
+	public static void updateDone() {
+		if (enabled) {
+			instance.updateRounds++;
+		}
+	}
+
+	/**
+	 * Counts a created connection if profiling is enabled
+	 */
+	public static void connectionCreated() {
+		if (enabled) {
+			instance.connectionsCreated++;
+		}
+	}
+
+	/**
+	 * Counts a started message transfer if profiling is enabled
+	 */
+	public static void transferStarted() {
+		if (enabled) {
+			instance.transfersStarted++;
+		}
+	}
+
+	/**
+	 * Counts a dropped message if profiling is enabled
+	 */
+	public static void messageDropped() {
+		if (enabled) {
+			instance.messagesDropped++;
+		}
+	}
+
+	/**
+	 * Returns the cumulative time of a phase
+	 * @param phase Index of the phase
+	 * @return Time in nanoseconds
+	 */
+	public long getPhaseNanos(int phase) {
+		return this.phaseNanos[phase];
+	}
+
+	public double getSimTime() {
+		return SimClock.getTime();
+	}
+
+	public long getUpdateRounds() {
+		return this.updateRounds;
+	}
+
+	public long getExternalEventsNanos() {
+		return this.phaseNanos[PHASE_EVENTS];
+	}
+
+	public long getMovementNanos() {
+		return this.phaseNanos[PHASE_MOVEMENT];
+	}
+
+	public long getInterfaceNanos() {
+		return this.phaseNanos[PHASE_INTERFACES];
+	}
+
+	public long getRouterNanos() {
+		return this.phaseNanos[PHASE_ROUTERS];
+	}
+
+	public long getUpdateListenerNanos() {
+		return this.phaseNanos[PHASE_LISTENERS];
+	}
+
+	public long getConnectionsCreated() {
+		return this.connectionsCreated;
+	}
+
+	public long getTransfersStarted() {
+		return this.transfersStarted;
+	}
+
+	public long getMessagesDropped() {
+		return this.messagesDropped;
+	}
+
+	public String[] getClassTimes() {
+		String[] times = new String[this.classNanos.size()];
+		int i = 0;
+		for (Map.Entry<Class<?>, long[]> e : this.classNanos.entrySet()) {
+			long[] values = e.getValue();
+			times[i++] = PHASE_NAMES[(int)values[0]] + " " +
+				e.getKey().getName() + " " + values[1] + " " + values[2];
+		}
+		return times;
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package core;
+
+/**
+ * JMX management interface of the {@link SimProfiler}. All times are
+ * cumulative real-time nanoseconds since the start of the simulation run.
+ */
+public interface SimProfilerMBean {
+
+	/** @return current simulation time */
+	public double getSimTime();
+
+	/** @return number of completed world update rounds */
+	public long getUpdateRounds();
+
+	/** @return time spent processing external events */
+	public long getExternalEventsNanos();
+
+	/** @return time spent moving hosts */
+	public long getMovementNanos();
+
+	/** @return time spent updating network interfaces */
+	public long getInterfaceNanos();
+
+	/** @return time spent updating routers */
+	public long getRouterNanos();
+
+	/** @return time spent in update listeners */
+	public long getUpdateListenerNanos();
+
+	/** @return number of connections created */
+	public long getConnectionsCreated();
+
+	/** @return number of message transfers started */
+	public long getTransfersStarted();
+
+	/** @return number of messages dropped */
+	public long getMessagesDropped();
+
+	/**
+	 * Returns the per-class times as "class nanos calls" strings
+	 * @return the per-class times
+	 */
+	public String[] getClassTimes();
+}
@@ -14,7 +14,6 @@ import java.util.List;
 import movement.MapBasedMovement;
 import movement.MovementModel;
 import movement.map.SimMap;
-import routing.MessageRouter;
 
 /**
  * A simulation scenario used for getting and storing the settings of a
@@ -71,17 +70,6 @@ public class SimScenario implements Serializable {
 	/** application name in the group -setting id ({@value})*/
 	public static final String GAPPNAME_S = "application";
 
-	/** package where to look for movement models */
-	private static final String MM_PACKAGE = "movement.";
-	/** package where to look for router classes */
-	private static final String ROUTING_PACKAGE = "routing.";
-
-	/** package where to look for interface classes */
-	private static final String INTTYPE_PACKAGE = "interfaces.";
-
-	/** package where to look for application classes */
-	private static final String APP_PACKAGE = "applications.";
-
 	/** The world instance */
 	private World world;
 	/** List of hosts in this simulation */
@@ -106,6 +94,8 @@ public class SimScenario implements Serializable {
 	private boolean simulateConnections;
 	/** Map used for host movement (if any) */
 	private SimMap simMap;
+	/** Factory used for creating the hosts */
+	private HostFactory hostFactory;
 
 	/** Global connection event listeners */
 	private List<ConnectionListener> connectionListeners;
@@ -320,89 +310,31 @@ public class SimScenario implements Serializable {
 	 */
 	protected void createHosts() {
 		this.hosts = new ArrayList<DTNHost>();
+		this.hostFactory = new HostFactory(this.messageListeners,
+				this.movementListeners, this.connectionListeners,
+				this.appListeners);
 
 		for (int i=1; i<=nrofGroups; i++) {
-			List<NetworkInterface> interfaces =
-				new ArrayList<NetworkInterface>();
-			Settings s = new Settings(GROUP_NS+i);
-			s.setSecondaryNamespace(GROUP_NS);
-			String gid = s.getSetting(GROUP_ID_S);
-			int nrofHosts = s.getInt(NROF_HOSTS_S);
-			int nrofInterfaces = s.getInt(NROF_INTERF_S);
-			int appCount;
-
-			// creates prototypes of MessageRouter and MovementModel
-			MovementModel mmProto =
-				(MovementModel)s.createIntializedObject(MM_PACKAGE +
-						s.getSetting(MOVEMENT_MODEL_S));
-			MessageRouter mRouterProto =
-				(MessageRouter)s.createIntializedObject(ROUTING_PACKAGE +
-						s.getSetting(ROUTER_S));
-
-			/* checks that these values are positive (throws Error if not) */
-			s.ensurePositiveValue(nrofHosts, NROF_HOSTS_S);
-			s.ensurePositiveValue(nrofInterfaces, NROF_INTERF_S);
-
-			// setup interfaces
-			for (int j=1;j<=nrofInterfaces;j++) {
-				String intName = s.getSetting(INTERFACENAME_S + j);
-				Settings intSettings = new Settings(intName);
-				NetworkInterface iface =
-					(NetworkInterface)intSettings.createIntializedObject(
-							INTTYPE_PACKAGE +intSettings.getSetting(INTTYPE_S));
-				iface.setClisteners(connectionListeners);
-				iface.setGroupSettings(s);
-				interfaces.add(iface);
-			}
-
-			// setup applications
-			if (s.contains(APPCOUNT_S)) {
-				appCount = s.getInt(APPCOUNT_S);
-			} else {
-				appCount = 0;
-			}
-			for (int j=1; j<=appCount; j++) {
-				String appname = null;
-				Application protoApp = null;
-				try {
-					// Get name of the application for this group
-					appname = s.getSetting(GAPPNAME_S+j);
-					// Get settings for the given application
-					Settings t = new Settings(appname);
-					// Load an instance of the application
-					protoApp = (Application)t.createIntializedObject(
-							APP_PACKAGE + t.getSetting(APPTYPE_S));
-					// Set application listeners
-					protoApp.setAppListeners(this.appListeners);
-					// Set the proto application in proto router
-					//mRouterProto.setApplication(protoApp);
-					mRouterProto.addApplication(protoApp);
-				} catch (SettingsError se) {
-					// Failed to create an application for this group
-					System.err.println("Failed to setup an application: " + se);
-					System.err.println("Caught at " + se.getStackTrace()[0]);
-					System.exit(-1);
-				}
-			}
+			HostFactory.HostGroup group = hostFactory.createGroup(i);
+			MovementModel mmProto = group.getMovementModelPrototype();
 
 			if (mmProto instanceof MapBasedMovement) {
 				this.simMap = ((MapBasedMovement)mmProto).getMap();
 			}
 
 			// creates hosts of ith group
-			for (int j=0; j<nrofHosts; j++) {
-				ModuleCommunicationBus comBus = new ModuleCommunicationBus();
-
-				// prototypes are given to new DTNHost which replicates
-				// new instances of movement model and message router
-				DTNHost host = new DTNHost(this.messageListeners,
-						this.movementListeners,	gid, interfaces, comBus,
-						mmProto, mRouterProto);
-				hosts.add(host);
-			}
+			hostFactory.createHosts(group, this.hosts);
 		}
 	}
 
+	/**
+	 * Returns the factory that created the hosts of this scenario
+	 * @return the host factory
+	 */
+	public HostFactory getHostFactory() {
+		return this.hostFactory;
+	}
+
 	/**
 	 * Returns the list of nodes for this scenario.
 	 * @return the list of nodes for this scenario.
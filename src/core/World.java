@@ -13,6 +13,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 
+import movement.MovementModel;
+
 /**
  * World contains all the nodes and is responsible for updating their
  * location and connections.
@@ -48,6 +50,13 @@ public class World {
 	 */
 	public static final String SIMULATE_CON_ONCE_S = "simulateConnectionsOnce";
 
+	/**
+	 * Should the hosts of simple movement models be moved with the
+	 * {@link MobilityEngine} -setting id ({@value}). Boolean (true/false)
+	 * variable. Default = false.
+	 */
+	public static final String MOBILITY_ENGINE_S = "mobilityEngine";
+
 	private int sizeX;
 	private int sizeY;
 	private List<EventQueue> eventQueues;
@@ -67,6 +76,10 @@ public class World {
 	/** Queue of scheduled update requests */
 	private ScheduledUpdatesQueue scheduledUpdates;
 	private boolean simulateConOnce;
+	/** engine moving the hosts or null if the hosts move themselves */
+	private MobilityEngine mobilityEngine;
+	/** should the warm-up be fast-forwarded when possible */
+	private boolean fastForwardWarmup;
 	
 	private boolean realtimeSimulation;
 	private long simStartRealtime;
@@ -107,6 +120,16 @@ public class World {
 		
 		this.realtimeSimulation = s.getBoolean(REALTIME_SIM_S ,false);
 
+		SimProfiler.initSettings();
+
+		if (s.getBoolean(MOBILITY_ENGINE_S, false)) {
+			this.mobilityEngine = new MobilityEngine(this.hosts);
+		}
+
+		Settings mms = new Settings(MovementModel.MOVEMENT_MODEL_NS);
+		this.fastForwardWarmup = mms.getBoolean(
+				MovementModel.WARMUP_FAST_FORWARD_S, false);
+
 		if(randomizeUpdates) {
 			// creates the update order array that can be shuffled
 			this.updateOrder = new ArrayList<DTNHost>(this.hosts);
@@ -127,6 +150,11 @@ public class World {
 			return;
 		}
 
+		if (this.fastForwardWarmup) {
+			fastForwardWarmup(time);
+			return;
+		}
+
 		while(SimClock.getTime() < -updateInterval) {
 			moveHosts(updateInterval);
 			simClock.advance(updateInterval);
@@ -138,6 +166,41 @@ public class World {
 		simClock.setTime(0);
 	}
 
+	/**
+	 * Does the movement model warm-up by fast-forwarding the hosts that
+	 * support it (see {@link DTNHost#fastForward(double)}). Rest of the
+	 * hosts are moved in update interval steps.
+	 * @param time The total time (seconds) to move
+	 */
+	private void fastForwardWarmup(double time) {
+		List<DTNHost> steppedHosts = new ArrayList<DTNHost>();
+		for (DTNHost host : this.hosts) {
+			if (host.getMovement().canFastForward()) {
+				host.fastForward(time);
+			} else {
+				steppedHosts.add(host);
+			}
+		}
+
+		if (!steppedHosts.isEmpty()) {
+			while(SimClock.getTime() < -updateInterval) {
+				for (DTNHost host : steppedHosts) {
+					host.move(updateInterval);
+				}
+				simClock.advance(updateInterval);
+			}
+
+			double finalStep = -SimClock.getTime();
+			for (DTNHost host : steppedHosts) {
+				host.move(finalStep);
+			}
+			if (this.mobilityEngine != null) {
+				this.mobilityEngine.loadAll(); /* hosts moved themselves */
+			}
+		}
+		simClock.setTime(0);
+	}
+
 	/**
 	 * Goes through all event Queues and sets the
 	 * event queue that has the next event.
@@ -183,27 +246,37 @@ public class World {
 			}
 		}
 		
+		long start; /* profiler timer (see SimProfiler.startTimer()) */
+
 		setNextEventQueue();
 
 		/* process all events that are due until next interval update */
 		while (this.nextQueueEventTime <= runUntil) {
 			simClock.setTime(this.nextQueueEventTime);
 			ExternalEvent ee = this.nextEventQueue.nextEvent();
+			start = SimProfiler.startTimer();
 			ee.processEvent(this);
+			SimProfiler.stopTimer(SimProfiler.PHASE_EVENTS, ee, start);
 			updateHosts(); // update all hosts after every event
 			setNextEventQueue();
 		}
 
+		start = SimProfiler.startTimer();
 		moveHosts(this.updateInterval);
+		SimProfiler.stopTimer(SimProfiler.PHASE_MOVEMENT, start);
 		simClock.setTime(runUntil);
 
 		updateHosts();
+		notifyPendingChanges();
 
 		/* inform all update listeners */
 		for (UpdateListener ul : this.updateListeners) {
+			start = SimProfiler.startTimer();
 			ul.updated(this.hosts);
+			SimProfiler.stopTimer(SimProfiler.PHASE_LISTENERS, ul, start);
 		}
-		
+
+		SimProfiler.updateDone();
 	}
 
 	/**
@@ -238,11 +311,27 @@ public class World {
 		}
 	}
 
+	/**
+	 * Delivers the coalesced module communication bus changes of all hosts
+	 * (see {@link ModuleCommunicationBus#notifyPendingChanges()}). Called
+	 * once per update round, so the listeners of a coalesced value get at
+	 * most one notification per host per round.
+	 */
+	private void notifyPendingChanges() {
+		for (int i=0, n = hosts.size(); i<n; i++) {
+			hosts.get(i).getComBus().notifyPendingChanges();
+		}
+	}
+
 	/**
 	 * Moves all hosts in the world for a given amount of time
 	 * @param timeIncrement The time how long all nodes should move
 	 */
 	private void moveHosts(double timeIncrement) {
+		if (this.mobilityEngine != null) {
+			this.mobilityEngine.move(timeIncrement);
+			return;
+		}
 		for (int i=0,n = hosts.size(); i<n; i++) {
 			DTNHost host = hosts.get(i);
 			host.move(timeIncrement);
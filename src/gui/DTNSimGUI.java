@@ -74,6 +74,7 @@ public class DTNSimGUI extends DTNSimUI {
 		if (scen.getMap() != null ) {
 			field.setMap(scen.getMap());
 		}
+		field.captureSnapshot(true);
 
 		// if user closes the main window, call closeSim()
 		this.main.addWindowListener(new WindowAdapter() {
@@ -182,7 +183,8 @@ public class DTNSimGUI extends DTNSimUI {
 	}
 
     /**
-     * Updates the GUI
+     * Updates the GUI. Takes a new snapshot of the hosts for the play field
+     * (if the frame rate allows it) but doesn't wait for the drawing.
      */
     public void update(boolean forcedUpdate) {
 	double guiUpdateInterval = guiControls.getUpdateInterval();
@@ -193,17 +195,14 @@ public class DTNSimGUI extends DTNSimUI {
 			return;
 		}
 
-		try {
-			// run update in EDT, TODO: optimize threading
-			SwingUtilities.invokeAndWait(new Runnable() {
+		if (this.field.captureSnapshot(forcedUpdate)) {
+			final double simTime = SimClock.getTime();
+			this.lastUpdate = simTime;
+			SwingUtilities.invokeLater(new Runnable() {
 			    public void run() {
-					updateView();
+					guiControls.setSimTime(simTime);
 			    }
 			});
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-		} catch (InvocationTargetException e) {
-			e.printStackTrace();
 		}
 
 	// wait a while if we don't want to run simulation at full speed
@@ -10,6 +10,8 @@ import java.awt.GridLayout;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.File;
+import java.util.List;
 import java.util.Vector;
 
 import javax.swing.BorderFactory;
@@ -19,15 +21,21 @@ import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.Timer;
 
+import input.EventJournal;
 import core.ConnectionListener;
 import core.DTNHost;
 import core.Message;
 import core.MessageListener;
 import core.Settings;
 import core.SimClock;
+import core.SimScenario;
 
 /**
- * Event log panel where log entries are displayed.
+ * Event log panel where log entries are displayed. The Swing components of
+ * an entry are created only when the entry is shown, so events that are
+ * pushed out of the log between view updates are cheap. Instead of the
+ * events of the running simulation, the panel can show the events of an
+ * {@link EventJournal} (see {@link #JOURNAL_S}).
  */
 @SuppressWarnings("serial")
 public class EventLogPanel extends JPanel
@@ -45,6 +53,12 @@ public class EventLogPanel extends JPanel
 	 * events are not shown */
 	public static final String EVENTS_RE_S = "REfilter";
 
+	/** Event journal -setting id ({@value}). Path of an event journal file
+	 * (see {@link report.EventJournalReport}) whose events are shown in the
+	 * log (as the simulation time advances) instead of the events of the
+	 * running simulation. */
+	public static final String JOURNAL_S = "journal";
+
 	private static final String PANEL_TITLE = "Event log";
 	/** format of a single log entry */
 	private static final String ENTRY_FORMAT = "% 9.1f: %s ";
@@ -69,7 +83,11 @@ public class EventLogPanel extends JPanel
 
 	private Font font;	// font used in log entries
 	private DTNSimGUI gui;
-	private Vector<JPanel> eventPanes;
+	private Vector<LogEntry> entries;
+	/** journal whose events are shown (or null) */
+	private EventJournal journal;
+	/** true if the journal's current event has not been shown yet */
+	private boolean journalEventPending;
 	private GridLayout layout;
 
 	private EventLogControlPanel controls;
@@ -105,10 +123,15 @@ public class EventLogPanel extends JPanel
 		this.setBorder(BorderFactory.createTitledBorder(
 				getBorder(), title));
 
-		this.eventPanes = new Vector<JPanel>(maxNrofEvents);
+		this.entries = new Vector<LogEntry>(maxNrofEvents);
 		this.font = new Font(FONT_TYPE,Font.PLAIN, FONT_SIZE);
 		this.controls = createControls();
 
+		if (s.contains(JOURNAL_S)) {
+			this.journal = new EventJournal(new File(s.getSetting(JOURNAL_S)));
+			this.journalEventPending = false;
+		}
+
 		// set log view to update every LOG_UP_INTERVAL milliseconds
 		// also ensures that the update is done in Swing's EDT
 		ActionListener taskPerformer = new ActionListener() {
@@ -150,56 +173,75 @@ public class EventLogPanel extends JPanel
 
 	/**
 	 * Adds a new event to the event log panel
+	 * @param time Simulation time of the event
 	 * @param description Textual description of the event
 	 * @param host1 Host that caused the event or null if there was not any
 	 * @param host2 Another host that was involved in the event (or null)
 	 * @param message Message that was involved in the event (or null)
 	 * @param highlight If true, the log entry is highlighted
 	 */
-	private void addEvent(String description, DTNHost host1,
-			DTNHost host2, Message message, boolean highlight) {
+	private void addEvent(double time, String description, Object host1,
+			Object host2, Object message, boolean highlight) {
+		entries.add(new LogEntry(time, description, host1, host2, message,
+				highlight));
+
+		// if the log is full, remove oldest entries first
+		if (this.entries.size() > maxNrofEvents) {
+			entries.remove(0);
+		}
+	}
+
+	/**
+	 * Creates the Swing components of a log entry
+	 * @param entry The entry
+	 * @return The panel of the entry
+	 */
+	private JPanel createEventPane(LogEntry entry) {
 		JPanel eventPane = new JPanel();
 		eventPane.setLayout(new BoxLayout(eventPane,BoxLayout.LINE_AXIS));
 
 		String text = String.format(ENTRY_FORMAT,
-				SimClock.getTime(),description);
+				entry.time, entry.description);
 		JLabel label = new JLabel(text);
 		label.setFont(font);
 		eventPane.add(label);
 
-		if (host1 != null) {
-			addInfoButton(eventPane,host1,HOST_PROP);
+		if (entry.host1 != null) {
+			addInfoButton(eventPane,entry.host1,HOST_PROP);
 		}
-		if (host2 != null) {
+		if (entry.host2 != null) {
 			JLabel betweenLabel = new JLabel(HOST_DELIM);
 			betweenLabel.setFont(font);
 			eventPane.add(betweenLabel);
-			addInfoButton(eventPane,host2,HOST_PROP);
+			addInfoButton(eventPane,entry.host2,HOST_PROP);
 		}
-		if (message != null) {
-			addInfoButton(eventPane, message, MSG_PROP);
+		if (entry.message != null) {
+			addInfoButton(eventPane, entry.message, MSG_PROP);
 		}
 
-		if (highlight) {
+		if (entry.highlight) {
 			eventPane.setBackground(HIGHLIGHT_BG_COLOR);
 		}
 
-		eventPanes.add(eventPane);
-
-		// if the log is full, remove oldest entries first
-		if (this.eventPanes.size() > maxNrofEvents) {
-			eventPanes.remove(0);
-		}
+		return eventPane;
 	}
 
 	/**
 	 * Updates the log view
 	 */
 	private void updateLogView() {
+		if (journal != null) {
+			readJournal();
+		}
+
 		//TODO Optimization: Check if update is really necessary
 		this.removeAll();
-		for (int i=0; i< this.eventPanes.size(); i++) {
-			this.add(eventPanes.get(i));
+		for (int i=0; i< this.entries.size(); i++) {
+			LogEntry entry = entries.get(i);
+			if (entry.pane == null) {
+				entry.pane = createEventPane(entry);
+			}
+			this.add(entry.pane);
 		}
 		revalidate();
 	}
@@ -207,12 +249,20 @@ public class EventLogPanel extends JPanel
 
 	/**
 	 * Adds a new button to a log entry panel and attaches a client
-	 * property into it
+	 * property into it. Objects that are not hosts or messages of the
+	 * simulation (e.g., names from an event journal) are added as labels.
 	 * @param panel Panel where to add the button
 	 * @param o Client property object to add
 	 * @param clientProp Client property key to use for the object
 	 */
 	private void addInfoButton(JPanel panel, Object o, String clientProp) {
+		if (!(o instanceof DTNHost || o instanceof Message)) {
+			JLabel label = new JLabel(o.toString());
+			label.setFont(font);
+			panel.add(label);
+			return;
+		}
+
 		JButton hButton;
 		hButton = new JButton(o.toString());
 		hButton.putClientProperty(clientProp, o);
@@ -234,6 +284,25 @@ public class EventLogPanel extends JPanel
 	 */
 	private void processEvent(EventLogControl check, final String name,
 			final DTNHost host1, final DTNHost host2, final Message message) {
+		if (journal != null) {
+			return; // showing the journal's events instead
+		}
+		processEvent(check, SimClock.getTime(), name, host1, host2, message);
+	}
+
+	/**
+	 * Processes a log event of the simulation or a journal
+	 * @param check EventLogControls used to check if this entry type should
+	 * be shown and/or paused upon
+	 * @param time Simulation time of the event
+	 * @param name Text description of the event
+	 * @param host1 First host involved in the event (if any, can be null)
+	 * @param host2 Second host involved in the event (if any, can be null)
+	 * @param message The message involved in the event (if any, can be null)
+	 */
+	private void processEvent(EventLogControl check, double time,
+			final String name, final Object host1, final Object host2,
+			final Object message) {
 		String descString;	// String format description of the event
 
 		if (!check.showEvent()) {
@@ -251,12 +320,96 @@ public class EventLogPanel extends JPanel
 
 		if (check.pauseOnEvent()) {
 			gui.setPaused(true);
-			if (host1 != null) {
-				gui.setFocus(host1);
+			if (host1 instanceof DTNHost) {
+				gui.setFocus((DTNHost)host1);
 			}
 		}
 
-	addEvent(name, host1, host2, message, check.pauseOnEvent());
+		addEvent(time, name, host1, host2, message, check.pauseOnEvent());
+	}
+
+	/**
+	 * Adds the journal's events that have happened by the current
+	 * simulation time to the log
+	 */
+	private void readJournal() {
+		double now = SimClock.getTime();
+		while (journalEventPending || journal.next()) {
+			if (journal.getTime() > now) {
+				journalEventPending = true;
+				return;
+			}
+			journalEventPending = false;
+
+			Object host1 = journalHost(journal.getHost1());
+			Object host2 = journalHost(journal.getHost2());
+			String message = (journal.getMessage() == EventJournal.NONE ?
+					null : journal.getMessageId(journal.getMessage()));
+			double time = journal.getTime();
+
+			switch (journal.getType()) {
+			case EventJournal.CONNECTION_UP:
+				processEvent(conUpCheck, time, "Connection UP", host1, host2,
+						null);
+				break;
+			case EventJournal.CONNECTION_DOWN:
+				processEvent(conDownCheck, time, "Connection DOWN", host1,
+						host2, null);
+				break;
+			case EventJournal.MESSAGE_CREATED:
+				processEvent(msgCreateCheck, time, "Message created", host1,
+						null, message);
+				break;
+			case EventJournal.TRANSFER_STARTED:
+				processEvent(msgTransferStartCheck, time,
+						"Message relay started", host1, host2, message);
+				break;
+			case EventJournal.TRANSFER_ABORTED:
+				processEvent(msgAbortCheck, time, "Message relay aborted",
+						host1, host2, message);
+				break;
+			case EventJournal.MESSAGE_RELAYED:
+				processEvent(msgRelayCheck, time, "Message relayed", host1,
+						host2, message);
+				break;
+			case EventJournal.MESSAGE_DELIVERED:
+				processEvent(msgDeliveredCheck, time, "Message delivered",
+						host1, host2, message);
+				break;
+			case EventJournal.MESSAGE_DELIVERED_AGAIN:
+				processEvent(msgDeliveredCheck, time,
+						"Message delivered again", host1, host2, message);
+				break;
+			case EventJournal.MESSAGE_DROPPED:
+				processEvent(msgDropCheck, time, "Message dropped", host1,
+						null, message);
+				break;
+			case EventJournal.MESSAGE_REMOVED:
+				processEvent(msgRemoveCheck, time, "Message removed", host1,
+						null, message);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Returns the host of the simulation that has the address (and name) of
+	 * a host in the journal, or the name of the host if there is no such
+	 * host in the simulation
+	 * @param address Address of the host in the journal
+	 * @return The host, its name, or null for {@link EventJournal#NONE}
+	 */
+	private Object journalHost(int address) {
+		if (address == EventJournal.NONE) {
+			return null;
+		}
+		String name = journal.getHostName(address);
+		List<DTNHost> hosts = SimScenario.getInstance().getHosts();
+		if (address < hosts.size() &&
+				hosts.get(address).toString().equals(name)) {
+			return hosts.get(address);
+		}
+		return name;
 	}
 
 	// Implementations of ConnectionListener and MessageListener interfaces
@@ -327,7 +480,31 @@ public class EventLogPanel extends JPanel
 
 	public String toString() {
 		return this.getClass().getSimpleName() + " with " +
-			this.eventPanes.size() + " events";
+			this.entries.size() + " events";
+	}
+
+	/**
+	 * An entry of the log. The panel of the entry is created when the entry
+	 * is shown the first time.
+	 */
+	private static class LogEntry {
+		private double time;
+		private String description;
+		private Object host1;
+		private Object host2;
+		private Object message;
+		private boolean highlight;
+		private JPanel pane;
+
+		public LogEntry(double time, String description, Object host1,
+				Object host2, Object message, boolean highlight) {
+			this.time = time;
+			this.description = description;
+			this.host1 = host1;
+			this.host2 = host2;
+			this.message = message;
+			this.highlight = highlight;
+		}
 	}
 
 }
@@ -8,31 +8,39 @@ import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Vector;
 
+import javax.swing.AbstractListModel;
 import javax.swing.BorderFactory;
-import javax.swing.BoxLayout;
-import javax.swing.JButton;
 import javax.swing.JComboBox;
+import javax.swing.JList;
 import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
 import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 import gui.nodefilter.*;
 import gui.playfield.NodeGraphic;
 import core.DTNHost;
 import core.Settings;
+import core.SimScenario;
 
 /**
- * Node chooser panel
+ * Node chooser panel. Nodes can be searched by group, name prefix or
+ * address range (e.g., "10-20") using the {@link NodeIndex}, and the
+ * shown nodes can be further limited by node filters (see
+ * {@link NodeFilterSet}). The nodes are shown in a list that draws only the
+ * visible rows.
  */
 @SuppressWarnings("serial")
-public class NodeChooser extends JPanel implements ActionListener {
+public class NodeChooser extends JPanel implements ActionListener,
+	DocumentListener {
 	private DTNSimGUI gui;
-	/** the maximum number of allNodes to show in the list per page */
-	public static final int MAX_NODE_COUNT = 500;
 	private Timer refreshTimer;
 	/** how often auto refresh is performed */
 	private static final int AUTO_REFRESH_DELAY = 100;
@@ -41,36 +49,42 @@ public class NodeChooser extends JPanel implements ActionListener {
 	 * list of message IDs from which the default filter set is created. */
 	public static final String NODE_MESSAGE_FILTERS_S = "nodeMessageFilters";
 
-	private static final String HOST_KEY = "host";
-	private List<DTNHost> allNodes;
+	private static final String ALL_GROUPS = "all groups";
+	private static final String SEARCH_TIP = "name prefix or address range " +
+		"(e.g., 10-20)";
+
+	private NodeIndex index;
+	private NodeFilterSet filters;
 	private List<DTNHost> shownNodes;
 
 	private JComboBox<String> groupChooser;
-	private JPanel nodesPanel;
+	private JTextField searchField;
+	private JList<DTNHost> nodeList;
+	private NodeListModel listModel;
 	private JPanel chooserPanel;
-	private Vector<NodeFilter> filters;
-
 
 	public NodeChooser(List<DTNHost> nodes,	DTNSimGUI gui) {
 		Settings s = new Settings(MainWindow.GUI_NS);
-		// create a replicate to not interfere with original's ordering
-		this.allNodes = new ArrayList<DTNHost>(nodes);
-		this.shownNodes = allNodes;
+		this.index = new NodeIndex(nodes);
+		this.shownNodes = index.getAll();
 		this.gui = gui;
-		this.filters = new Vector<NodeFilter>();
+		this.filters = new NodeFilterSet(index.getAll());
+		SimScenario.getInstance().addMessageListener(filters);
+		SimScenario.getInstance().addConnectionListener(filters);
 
 		if (s.contains(NODE_MESSAGE_FILTERS_S)) {
 			String[] filterIds = s.getCsvSetting(NODE_MESSAGE_FILTERS_S);
 			for (String id : filterIds) {
-				this.filters.add(new NodeMessageFilter(id));
-				this.refreshTimer = new Timer(AUTO_REFRESH_DELAY, this);
-				this.refreshTimer.start();
+				this.filters.addFilter(new NodeMessageFilter(id));
 			}
 		}
 
-		Collections.sort(this.allNodes);
-
 		init();
+
+		if (!filters.isEmpty()) {
+			filtersChanged();
+			startRefresh();
+		}
 	}
 
 	/**
@@ -78,135 +92,207 @@ public class NodeChooser extends JPanel implements ActionListener {
 	 * @param f The filter to add
 	 */
 	public void addFilter(NodeFilter f) {
-		this.filters.add(f);
-		updateShownNodes();
-		if (this.refreshTimer == null) {
-			this.refreshTimer = new Timer(AUTO_REFRESH_DELAY, this);
-			this.refreshTimer.start();
-		}
+		this.filters.addFilter(f);
+		filtersChanged();
+		startRefresh();
 	}
 
 	/**
 	 * Clears all node filters
 	 */
 	public void clearFilters() {
-		this.filters = new Vector<NodeFilter>();
-		this.shownNodes = allNodes;
+		this.filters.clear();
 		if (this.refreshTimer != null) {
 			this.refreshTimer.stop();
 		}
 		this.refreshTimer = null;
 
 		NodeGraphic.setHighlightedNodes(null);
-		updateList();
+		updateShownNodes();
 	}
 
-	private void updateList() {
-		setNodes(0);
-		if (this.groupChooser != null) {
-			this.groupChooser.setSelectedIndex(0);
+	/**
+	 * Starts the periodic refresh of the filtered nodes (if not running yet)
+	 */
+	private void startRefresh() {
+		if (this.refreshTimer == null) {
+			this.refreshTimer = new Timer(AUTO_REFRESH_DELAY, this);
+			this.refreshTimer.start();
 		}
 	}
 
+	/**
+	 * Updates the node list and highlighting after the filter matches have
+	 * changed
+	 */
+	private void filtersChanged() {
+		NodeGraphic.setHighlightedNodes(filters.getMatches());
+		updateShownNodes();
+	}
 
+	/**
+	 * Updates the shown nodes to match the group, search and filter
+	 * selections
+	 */
 	private void updateShownNodes() {
-		List<DTNHost> oldShownNodes = shownNodes;
-		List<DTNHost>nodes = new Vector<DTNHost>();
-
-		for (DTNHost node : allNodes) {
-			for (NodeFilter f : this.filters) {
-				if (f.filterNode(node)) {
-					nodes.add(node);
-					break;
+		List<DTNHost> nodes = search();
+
+		if (!filters.isEmpty()) {
+			List<DTNHost> filtered = new ArrayList<DTNHost>();
+			for (DTNHost node : nodes) {
+				if (filters.matches(node.getAddress())) {
+					filtered.add(node);
 				}
 			}
+			nodes = filtered;
 		}
 
-		if (nodes.size() == oldShownNodes.size() &&
-			oldShownNodes.containsAll(nodes)) {
-			return; /* nothing to update */
+		this.shownNodes = nodes;
+		listModel.changed();
+	}
+
+	/**
+	 * Returns the nodes that match the selected group and search text
+	 * @return the matching nodes
+	 */
+	private List<DTNHost> search() {
+		String group = (String)groupChooser.getSelectedItem();
+		String text = searchField.getText().trim();
+		List<DTNHost> nodes;
+
+		if (text.length() == 0) {
+			nodes = index.getAll();
+		} else if (text.matches("\\d+(\\s*-\\s*\\d+)?")) {
+			String[] limits = text.split("-");
+			int min = Integer.parseInt(limits[0].trim());
+			int max = (limits.length > 1 ?
+					Integer.parseInt(limits[1].trim()) : min);
+			nodes = index.findByAddressRange(min, max);
 		} else {
-			this.shownNodes = nodes;
-			updateList();
-			NodeGraphic.setHighlightedNodes(nodes);
+			nodes = index.findByNamePrefix(text);
+		}
+
+		if (group == null || group.equals(ALL_GROUPS)) {
+			return nodes;
+		}
+		if (text.length() == 0) {
+			return index.findByGroup(group);
 		}
 
+		List<DTNHost> inGroup = new ArrayList<DTNHost>();
+		for (DTNHost node : nodes) {
+			if (node.getGroupId().equals(group)) {
+				inGroup.add(node);
+			}
+		}
+		return inGroup;
 	}
 
 	/**
 	 * Initializes the node chooser panels
 	 */
 	private void init() {
-		nodesPanel = new JPanel();
 		chooserPanel = new JPanel();
 
 		this.setLayout(new GridBagLayout());
 		GridBagConstraints c = new GridBagConstraints();
 		c.anchor = GridBagConstraints.FIRST_LINE_START;
+		c.fill = GridBagConstraints.HORIZONTAL;
+		c.weightx = 1;
 
-		nodesPanel.setLayout(new BoxLayout(nodesPanel,BoxLayout.Y_AXIS));
-		nodesPanel.setBorder(BorderFactory.createTitledBorder(getBorder(),
-				"Nodes"));
+		List<String> groups = new ArrayList<String>();
+		groups.add(ALL_GROUPS);
+		groups.addAll(index.getGroupIds());
+		groupChooser = new JComboBox<String>(
+				groups.toArray(new String[groups.size()]));
+		groupChooser.addActionListener(this);
+		chooserPanel.add(groupChooser);
 
-		if (shownNodes.size() > MAX_NODE_COUNT) {
-			String[] groupNames = new String[(shownNodes.size()-1)
-			                                 / MAX_NODE_COUNT+1];
-			int last = 0;
-			for (int i=0, n=shownNodes.size();
-				i <= (n-1) / MAX_NODE_COUNT; i++) {
-				int next = MAX_NODE_COUNT * (i+1) - 1;
-				if (next > n) {
-					next = n-1;
+		searchField = new JTextField(8);
+		searchField.setToolTipText(SEARCH_TIP);
+		searchField.getDocument().addDocumentListener(this);
+		chooserPanel.add(searchField);
+
+		listModel = new NodeListModel();
+		nodeList = new JList<DTNHost>(listModel);
+		nodeList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		nodeList.setBorder(BorderFactory.createTitledBorder(getBorder(),
+				"Nodes"));
+		if (!shownNodes.isEmpty()) {
+			/* all rows are as high as the first; no need to measure all */
+			nodeList.setPrototypeCellValue(shownNodes.get(0));
+		}
+		nodeList.addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent e) {
+				int i = nodeList.locationToIndex(e.getPoint());
+				if (i >= 0 && i < shownNodes.size()) {
+					gui.setFocus(shownNodes.get(i));
 				}
-				groupNames[i] = (last + "..." + next);
-				last = next + 1;
 			}
-			groupChooser = new JComboBox<String>(groupNames);
-			groupChooser.addActionListener(this);
-			chooserPanel.add(groupChooser);
-		}
+		});
 
-		setNodes(0);
 		c.gridy = 0;
 		this.add(chooserPanel, c);
 		c.gridy = 1;
-		this.add(nodesPanel, c);
+		this.add(nodeList, c);
 	}
 
 	/**
-	 * Sets the right set of allNodes to display
-	 * @param offset Index of the first node to show
+	 * Action listener method for node group chooser and refresh timer
 	 */
-	private void setNodes(int offset) {
-		nodesPanel.removeAll();
-
-		for (int i=offset; i< shownNodes.size() &&
-			i < offset + MAX_NODE_COUNT; i++) {
-			DTNHost h = shownNodes.get(i);
-			JButton jb = new JButton(h.toString());
-			jb.putClientProperty(HOST_KEY, h);
-			jb.addActionListener(this);
-			nodesPanel.add(jb);
+	public void actionPerformed(ActionEvent e) {
+		if (e.getSource() == this.groupChooser) {
+			updateShownNodes();
 		}
+		else if (e.getSource() == this.refreshTimer) {
+			if (filters.refresh()) {
+				filtersChanged();
+			}
+		}
+	}
+
+	public void insertUpdate(DocumentEvent e) {
+		updateShownNodes();
+	}
+
+	public void removeUpdate(DocumentEvent e) {
+		updateShownNodes();
+	}
 
-		revalidate();
-		repaint();
+	public void changedUpdate(DocumentEvent e) {
+		updateShownNodes();
 	}
 
 	/**
-	 * Action listener method for buttons and node set chooser
+	 * List model that shows the currently shown nodes
 	 */
-	public void actionPerformed(ActionEvent e) {
-		if (e.getSource() instanceof JButton) {
-			JButton source = (JButton)e.getSource();
-			DTNHost host = (DTNHost)source.getClientProperty(HOST_KEY);
-			gui.setFocus(host);
+	private class NodeListModel extends AbstractListModel<DTNHost> {
+		private int lastSize = shownNodes.size();
+
+		public int getSize() {
+			return shownNodes.size();
 		}
-		else if (e.getSource() == this.groupChooser) {
-			setNodes(groupChooser.getSelectedIndex() * MAX_NODE_COUNT);
+
+		public DTNHost getElementAt(int i) {
+			return shownNodes.get(i);
 		}
-		else if (e.getSource() == this.refreshTimer) {
-			updateShownNodes();
+
+		/**
+		 * Informs the list that the shown nodes have changed
+		 */
+		private void changed() {
+			int size = shownNodes.size();
+			if (lastSize > size) {
+				fireIntervalRemoved(this, size, lastSize - 1);
+			}
+			if (size > 0) {
+				fireContentsChanged(this, 0, size - 1);
+			}
+			if (size > lastSize) {
+				fireIntervalAdded(this, lastSize, size - 1);
+			}
+			lastSize = size;
 		}
 	}
 
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2011 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+
+package gui.nodefilter;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Vector;
+
+import core.ConnectionListener;
+import core.DTNHost;
+import core.Message;
+import core.MessageListener;
+
+/**
+ * A set of node filters whose matching nodes are kept up to date
+ * incrementally. The set listens to message and connection events and
+ * re-evaluates the filters only for the nodes that were involved in some
+ * event since the previous {@link #refresh()}, instead of running all the
+ * filters over all the nodes. A node is matched if any of the filters
+ * accepts it.
+ * <P>The event methods are called from the simulation thread and
+ * {@link #refresh()} from the GUI thread.</P>
+ */
+public class NodeFilterSet implements MessageListener, ConnectionListener {
+	private Vector<NodeFilter> filters;
+	/** nodes indexed by address */
+	private List<DTNHost> nodes;
+	/** addresses of the matching nodes */
+	private BitSet matches;
+	/** addresses of the nodes that need re-evaluation */
+	private BitSet dirty;
+
+	/**
+	 * Creates an empty filter set
+	 * @param nodes All nodes, indexed by their address
+	 */
+	public NodeFilterSet(List<DTNHost> nodes) {
+		this.nodes = nodes;
+		this.filters = new Vector<NodeFilter>();
+		this.matches = new BitSet(nodes.size());
+		this.dirty = new BitSet(nodes.size());
+	}
+
+	/**
+	 * Adds a new filter and evaluates it for all the nodes
+	 * @param f The filter to add
+	 */
+	public void addFilter(NodeFilter f) {
+		this.filters.add(f);
+		for (int i=0, n=nodes.size(); i<n; i++) {
+			if (!matches.get(i) && f.filterNode(nodes.get(i))) {
+				matches.set(i);
+			}
+		}
+	}
+
+	/**
+	 * Removes all the filters
+	 */
+	public void clear() {
+		this.filters.clear();
+		this.matches.clear();
+		synchronized (this) {
+			this.dirty.clear();
+		}
+	}
+
+	/**
+	 * Returns true if there are no filters in this set
+	 * @return true if there are no filters in this set
+	 */
+	public boolean isEmpty() {
+		return this.filters.isEmpty();
+	}
+
+	/**
+	 * Re-evaluates the filters for the nodes involved in events since the
+	 * last refresh
+	 * @return True if the set of matching nodes changed
+	 */
+	public boolean refresh() {
+		BitSet toCheck;
+		synchronized (this) {
+			if (dirty.isEmpty()) {
+				return false;
+			}
+			toCheck = this.dirty;
+			this.dirty = new BitSet(nodes.size());
+		}
+
+		if (filters.isEmpty()) {
+			return false;
+		}
+
+		boolean changed = false;
+		for (int i = toCheck.nextSetBit(0); i >= 0;
+				i = toCheck.nextSetBit(i+1)) {
+			boolean match = false;
+			for (NodeFilter f : filters) {
+				if (f.filterNode(nodes.get(i))) {
+					match = true;
+					break;
+				}
+			}
+			if (match != matches.get(i)) {
+				matches.set(i, match);
+				changed = true;
+			}
+		}
+
+		return changed;
+	}
+
+	/**
+	 * Returns true if the node with the given address matches some filter
+	 * @param address Address of the node
+	 * @return true if the node matches
+	 */
+	public boolean matches(int address) {
+		return this.matches.get(address);
+	}
+
+	/**
+	 * Returns the matching nodes in address order
+	 * @return the matching nodes
+	 */
+	public List<DTNHost> getMatches() {
+		List<DTNHost> list = new ArrayList<DTNHost>(matches.cardinality());
+		for (int i = matches.nextSetBit(0); i >= 0;
+				i = matches.nextSetBit(i+1)) {
+			list.add(nodes.get(i));
+		}
+		return list;
+	}
+
+	private synchronized void changed(DTNHost host) {
+		this.dirty.set(host.getAddress());
+	}
+
+	public void newMessage(Message m) {
+		changed(m.getFrom());
+	}
+
+	public void messageTransferStarted(Message m, DTNHost from, DTNHost to) {
+		changed(to);
+	}
+
+	public void messageDeleted(Message m, DTNHost where, boolean dropped) {
+		changed(where);
+	}
+
+	public void messageTransferAborted(Message m, DTNHost from, DTNHost to) {
+		changed(to);
+	}
+
+	public void messageTransferred(Message m, DTNHost from, DTNHost to,
+			boolean firstDelivery) {
+		changed(from);
+		changed(to);
+	}
+
+	public void hostsConnected(DTNHost host1, DTNHost host2) {
+		changed(host1);
+		changed(host2);
+	}
+
+	public void hostsDisconnected(DTNHost host1, DTNHost host2) {
+		changed(host1);
+		changed(host2);
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2011 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+
+package gui.nodefilter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import core.DTNHost;
+
+/**
+ * Index of nodes for searching them by name prefix, address range and
+ * group. The index is built once; all queries are binary searches and
+ * return read-only views instead of copies of the node lists.
+ */
+public class NodeIndex {
+	/** nodes sorted by address */
+	private List<DTNHost> byAddress;
+	/** nodes sorted by name */
+	private List<DTNHost> byName;
+	/** names of the nodes in {@link #byName} order */
+	private String[] names;
+	/** nodes of each group in address order */
+	private Map<String, List<DTNHost>> byGroup;
+
+	/**
+	 * Creates an index of the given nodes
+	 * @param nodes The nodes to index
+	 */
+	public NodeIndex(List<DTNHost> nodes) {
+		DTNHost[] sorted = nodes.toArray(new DTNHost[nodes.size()]);
+		Arrays.sort(sorted);
+		this.byAddress = Collections.unmodifiableList(Arrays.asList(sorted));
+
+		this.byGroup = new LinkedHashMap<String, List<DTNHost>>();
+		for (DTNHost node : sorted) {
+			List<DTNHost> group = byGroup.get(node.getGroupId());
+			if (group == null) {
+				group = new ArrayList<DTNHost>();
+				byGroup.put(node.getGroupId(), group);
+			}
+			group.add(node);
+		}
+
+		DTNHost[] nameSorted = sorted.clone();
+		Arrays.sort(nameSorted, new Comparator<DTNHost>() {
+			public int compare(DTNHost h1, DTNHost h2) {
+				return h1.toString().compareTo(h2.toString());
+			}
+		});
+		this.byName = Collections.unmodifiableList(Arrays.asList(nameSorted));
+		this.names = new String[nameSorted.length];
+		for (int i=0; i < nameSorted.length; i++) {
+			names[i] = nameSorted[i].toString();
+		}
+	}
+
+	/**
+	 * Returns all the nodes in address order
+	 * @return all the nodes
+	 */
+	public List<DTNHost> getAll() {
+		return this.byAddress;
+	}
+
+	/**
+	 * Returns the IDs of the groups of the indexed nodes
+	 * @return the group IDs in the order of the groups' first addresses
+	 */
+	public Set<String> getGroupIds() {
+		return this.byGroup.keySet();
+	}
+
+	/**
+	 * Returns the nodes of a group
+	 * @param groupId ID of the group
+	 * @return The nodes of the group in address order (empty list if there
+	 * is no such group)
+	 */
+	public List<DTNHost> findByGroup(String groupId) {
+		List<DTNHost> group = this.byGroup.get(groupId);
+		if (group == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(group);
+	}
+
+	/**
+	 * Returns the nodes whose address is in the given range
+	 * @param min The smallest address (inclusive)
+	 * @param max The largest address (inclusive)
+	 * @return The nodes in address order
+	 */
+	public List<DTNHost> findByAddressRange(int min, int max) {
+		int from = addressIndex(min);
+		int to = addressIndex(max + 1);
+		if (from >= to) {
+			return Collections.emptyList();
+		}
+		return this.byAddress.subList(from, to);
+	}
+
+	/**
+	 * Returns the nodes whose name starts with the given prefix
+	 * @param prefix The prefix
+	 * @return The nodes in name order
+	 */
+	public List<DTNHost> findByNamePrefix(String prefix) {
+		int from = nameIndex(prefix);
+		int to = from;
+		while (to < names.length && names[to].startsWith(prefix)) {
+			to++;
+		}
+		return this.byName.subList(from, to);
+	}
+
+	/**
+	 * Returns the index of the first node whose address is at least the
+	 * given address
+	 * @param address The address
+	 * @return Index in {@link #byAddress}
+	 */
+	private int addressIndex(int address) {
+		int low = 0;
+		int high = byAddress.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (byAddress.get(mid).getAddress() < address) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the index of the first name that is not smaller than the given
+	 * string
+	 * @param name The string
+	 * @return Index in {@link #names}
+	 */
+	private int nameIndex(String name) {
+		int low = 0;
+		int high = names.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (names[mid].compareTo(name) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+}
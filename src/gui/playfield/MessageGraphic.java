@@ -11,32 +11,32 @@ import java.awt.Polygon;
 import core.DTNHost;
 
 /**
- * Visualization of a message
- *
+ * Visualization of a message. The locations of the hosts are captured when
+ * the graphic is created, so drawing doesn't read the hosts' state while the
+ * simulation is running.
  */
 public class MessageGraphic extends PlayFieldGraphic {
 	private Color msgColor = Color.RED;
 
-	private DTNHost from;
-	private DTNHost to;
+	private double fromX;
+	private double fromY;
+	private double toX;
+	private double toY;
 
 	public MessageGraphic(DTNHost from, DTNHost to) {
-		this.to = to;
-		this.from = from;
+		this.fromX = from.getLocation().getX();
+		this.fromY = from.getLocation().getY();
+		this.toX = to.getLocation().getX();
+		this.toY = to.getLocation().getY();
 	}
 
 	@Override
 	public void draw(Graphics2D g2) {
 		g2.setColor(msgColor);
 
-		int fromX = scale(from.getLocation().getX());
-		int fromY = scale(from.getLocation().getY());
-		int toX = scale(to.getLocation().getX());
-		int toY = scale(to.getLocation().getY());
-
 		// line from "from host" to "to host"
-		Polygon p = new Polygon(new int[] {fromX, toX},
-				new int[] {fromY,toY}, 2);
+		Polygon p = new Polygon(new int[] {scale(fromX), scale(toX)},
+				new int[] {scale(fromY), scale(toY)}, 2);
 
 		g2.draw(p);
 	}
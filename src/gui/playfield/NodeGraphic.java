@@ -7,24 +7,24 @@ package gui.playfield;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.geom.Ellipse2D;
-import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
-import core.Connection;
-import core.Coord;
 import core.DTNHost;
-import core.NetworkInterface;
 
 /**
- * Visualization of a DTN Node
- *
+ * Visualization of a DTN Node. Nodes are drawn from a {@link WorldSnapshot}
+ * so that drawing never reads the hosts that the simulation is updating.
+ * The same graphic object is reused for all nodes of a snapshot by changing
+ * the index of the node to draw.
  */
 public class NodeGraphic extends PlayFieldGraphic {
 	private static boolean drawCoverage;
 	private static boolean drawNodeName;
 	private static boolean drawConnections;
 	private static boolean drawBuffer;
-	private static List<DTNHost> highlightedNodes;
+	private static Set<DTNHost> highlightedNodes;
 
 	private static Color rangeColor = Color.GREEN;
 	private static Color conColor = Color.BLACK;
@@ -35,11 +35,26 @@ public class NodeGraphic extends PlayFieldGraphic {
 	private static Color msgColor3 = Color.RED;
 
 	private static Color highlightedNodeColor = Color.MAGENTA;
+	private static Color aggregateColor = Color.BLUE;
 
-	private DTNHost node;
+	private WorldSnapshot snapshot;
+	private int index;
 
-	public NodeGraphic(DTNHost node) {
-		this.node = node;
+	/**
+	 * Creates a graphic for the nodes of a snapshot
+	 * @param snapshot The snapshot
+	 */
+	public NodeGraphic(WorldSnapshot snapshot) {
+		this.snapshot = snapshot;
+		this.index = 0;
+	}
+
+	/**
+	 * Sets the index of the node (in the snapshot) that is drawn next
+	 * @param index The index of the node
+	 */
+	public void setIndex(int index) {
+		this.index = index;
 	}
 
 	@Override
@@ -57,70 +72,115 @@ public class NodeGraphic extends PlayFieldGraphic {
 		if (highlightedNodes == null) {
 			return false;
 		} else {
-			return highlightedNodes.contains(node);
+			return highlightedNodes.contains(snapshot.getHost(index));
 		}
 	}
 
 	/**
-	 * Visualize node's location, radio ranges and connections
+	 * Visualize node's location and radio ranges
 	 * @param g2 The graphic context to draw to
 	 */
 	private void drawHost(Graphics2D g2) {
-		Coord loc = node.getLocation();
-
-		if (drawCoverage && node.isRadioActive()) {
-			ArrayList<NetworkInterface> interfaces =
-				new ArrayList<NetworkInterface>();
-			interfaces.addAll(node.getInterfaces());
-			for (NetworkInterface ni : interfaces) {
-				double range = ni.getTransmitRange();
+		double x = snapshot.getX(index);
+		double y = snapshot.getY(index);
+
+		if (drawCoverage && snapshot.isRadioActive(index)) {
+			g2.setColor(rangeColor);
+			for (int i=0, n=snapshot.getNrofRanges(index); i<n; i++) {
+				double range = snapshot.getRange(index, i);
 				Ellipse2D.Double coverage;
 
-				coverage = new Ellipse2D.Double(scale(loc.getX()-range),
-						scale(loc.getY()-range), scale(range * 2),
+				coverage = new Ellipse2D.Double(scale(x-range),
+						scale(y-range), scale(range * 2),
 						scale(range * 2));
 
 				// draw the "range" circle
-				g2.setColor(rangeColor);
 				g2.draw(coverage);
 			}
 		}
 
-		if (drawConnections) {
-			g2.setColor(conColor);
-			Coord c1 = node.getLocation();
-			ArrayList<Connection> conList = new ArrayList<Connection>();
-			// create a copy to prevent concurrent modification exceptions
-			conList.addAll(node.getConnections());
-			for (Connection c : conList) {
-				DTNHost otherNode = c.getOtherNode(node);
-				Coord c2;
-
-				if (otherNode == null) {
-					continue; /* disconnected before drawn */
-				}
-				c2 = otherNode.getLocation();
-				g2.drawLine(scale(c1.getX()), scale(c1.getY()),
-						scale(c2.getX()), scale(c2.getY()));
-			}
-		}
-
-
 		/* draw node rectangle */
 		g2.setColor(hostColor);
-		g2.drawRect(scale(loc.getX()-1),scale(loc.getY()-1),
+		g2.drawRect(scale(x-1),scale(y-1),
 		scale(2),scale(2));
 
 		if (isHighlighted()) {
 			g2.setColor(highlightedNodeColor);
-			g2.fillRect(scale(loc.getX()) - 3 ,scale(loc.getY()) - 3, 6, 6);
+			g2.fillRect(scale(x) - 3 ,scale(y) - 3, 6, 6);
 		}
 
 		if (drawNodeName) {
 			g2.setColor(hostNameColor);
 			// Draw node's address next to it
-			g2.drawString(node.toString(), scale(loc.getX()),
-					scale(loc.getY()));
+			g2.drawString(snapshot.getHost(index).toString(), scale(x),
+					scale(y));
+		}
+	}
+
+	/**
+	 * Draws the connections of the snapshot (if connection drawing is
+	 * enabled)
+	 * @param g2 The graphic context to draw to
+	 * @param snapshot The snapshot whose connections are drawn
+	 */
+	public static void drawConnections(Graphics2D g2,
+			WorldSnapshot snapshot) {
+		if (!drawConnections) {
+			return;
+		}
+
+		g2.setColor(conColor);
+		for (int c=0, n=snapshot.getNrofConnections(); c<n; c++) {
+			int from = snapshot.getConnectionEnd(c, 0);
+			int to = snapshot.getConnectionEnd(c, 1);
+			g2.drawLine(scale(snapshot.getX(from)), scale(snapshot.getY(from)),
+					scale(snapshot.getX(to)), scale(snapshot.getY(to)));
+		}
+	}
+
+	/**
+	 * Draws an aggregated view of the nodes: the nodes inside the same
+	 * square of the given size (pixels) are drawn as one filled square
+	 * whose darkness grows with the number of nodes in it
+	 * @param g2 The graphic context to draw to
+	 * @param snapshot The snapshot to draw
+	 * @param minX Smallest x coordinate (pixels) of the drawn area
+	 * @param minY Smallest y coordinate (pixels) of the drawn area
+	 * @param cols Number of squares in the x direction
+	 * @param rows Number of squares in the y direction
+	 * @param cellSize Size of the squares (pixels)
+	 */
+	public static void drawAggregated(Graphics2D g2, WorldSnapshot snapshot,
+			int minX, int minY, int cols, int rows, int cellSize) {
+		int[] counts = new int[cols * rows];
+		int max = 0;
+
+		for (int i=0, n=snapshot.getNrofHosts(); i<n; i++) {
+			int col = (scale(snapshot.getX(i)) - minX) / cellSize;
+			int row = (scale(snapshot.getY(i)) - minY) / cellSize;
+			if (col < 0 || row < 0 || col >= cols || row >= rows) {
+				continue;
+			}
+			int count = ++counts[row * cols + col];
+			if (count > max) {
+				max = count;
+			}
+		}
+
+		double logMax = Math.log(max + 1);
+		for (int row=0; row < rows; row++) {
+			for (int col=0; col < cols; col++) {
+				int count = counts[row * cols + col];
+				if (count == 0) {
+					continue;
+				}
+				int alpha = 64 + (int)(191 * Math.log(count + 1) / logMax);
+				g2.setColor(new Color(aggregateColor.getRed(),
+						aggregateColor.getGreen(), aggregateColor.getBlue(),
+						alpha));
+				g2.fillRect(minX + col * cellSize, minY + row * cellSize,
+						cellSize, cellSize);
+			}
 		}
 	}
 
@@ -156,8 +216,16 @@ public class NodeGraphic extends PlayFieldGraphic {
 		drawBuffer = draw;
 	}
 
+	/**
+	 * Sets the nodes that are highlighted
+	 * @param nodes The nodes to highlight or null for no highlighting
+	 */
 	public static void setHighlightedNodes(List<DTNHost> nodes) {
-		highlightedNodes = nodes;
+		if (nodes == null) {
+			highlightedNodes = null;
+		} else {
+			highlightedNodes = new HashSet<DTNHost>(nodes);
+		}
 	}
 
 	/**
@@ -165,21 +233,24 @@ public class NodeGraphic extends PlayFieldGraphic {
 	 * @param g2 The graphic context to draw to
 	 */
 	private void drawMessages(Graphics2D g2) {
-		int nrofMessages = node.getNrofMessages();
-		Coord loc = node.getLocation();
+		int nrofMessages = snapshot.getNrofMessages(index);
+		double x = snapshot.getX(index);
+		double y = snapshot.getY(index);
 
-		drawBar(g2,loc, nrofMessages % 10, 1);
-		drawBar(g2,loc, nrofMessages / 10, 2);
+		drawBar(g2, x, y, nrofMessages % 10, 1);
+		drawBar(g2, x, y, nrofMessages / 10, 2);
 	}
 
 	/**
 	 * Draws a bar (stack of squares) next to a location
 	 * @param g2 The graphic context to draw to
-	 * @param loc The location where to draw
+	 * @param x The x coordinate of the location where to draw
+	 * @param y The y coordinate of the location where to draw
 	 * @param nrof How many squares in the stack
 	 * @param col Which column
 	 */
-	private void drawBar(Graphics2D g2, Coord loc, int nrof, int col) {
+	private void drawBar(Graphics2D g2, double x, double y, int nrof,
+			int col) {
 		final int BAR_HEIGHT = 5;
 		final int BAR_WIDTH = 5;
 		final int BAR_DISPLACEMENT = 2;
@@ -198,8 +269,8 @@ public class NodeGraphic extends PlayFieldGraphic {
 				}
 			}
 
-			g2.fillRect(scale(loc.getX()-BAR_DISPLACEMENT-(BAR_WIDTH*col)),
-					scale(loc.getY()- BAR_DISPLACEMENT- i* BAR_HEIGHT),
+			g2.fillRect(scale(x-BAR_DISPLACEMENT-(BAR_WIDTH*col)),
+					scale(y- BAR_DISPLACEMENT- i* BAR_HEIGHT),
 					scale(BAR_WIDTH), scale(BAR_HEIGHT));
 		}
 
@@ -6,27 +6,30 @@ package gui.playfield;
 
 import java.awt.Color;
 import java.awt.Graphics2D;
-import java.util.List;
 
 import movement.Path;
-import core.Coord;
 
 /**
- * Visualization of a Path
- *
+ * Visualization of a Path. The coordinates of the path are copied when the
+ * graphic is created, so drawing doesn't read the path while the simulation
+ * is running.
  */
 public class PathGraphic extends PlayFieldGraphic {
 	private final static Color PATH_COLOR = Color.RED;
-	private List<Coord> coords;
+	private double[] xs;
+	private double[] ys;
 
 	public PathGraphic(Path path) {
 		if (path == null) {
-			this.coords = null;
+			return;
 		}
-		else {
-			this.coords = path.getCoords();
-			assert this.coords != null && this.coords.size() > 0 :
-			"No coordinates in the path (" + path + ")";
+		int n = path.getNrofWaypoints();
+		assert n > 0 : "No coordinates in the path (" + path + ")";
+		this.xs = new double[n];
+		this.ys = new double[n];
+		for (int i=0; i<n; i++) {
+			xs[i] = path.getX(i);
+			ys[i] = path.getY(i);
 		}
 	}
 
@@ -36,18 +39,20 @@ public class PathGraphic extends PlayFieldGraphic {
 	 */
 	@Override
 	public void draw(Graphics2D g2) {
-		if (coords == null) {
+		if (xs == null) {
 			return;
 		}
 
 		g2.setColor(PATH_COLOR);
-		Coord prev = coords.get(0);
-
-		for (int i=1, n=coords.size(); i < n; i++) {
-			Coord next = coords.get(i);
-			g2.drawLine(scale(prev.getX()), scale(prev.getY()),
-					scale(next.getX()), scale(next.getY()));
-			prev = next;
+		int prevX = scale(xs[0]);
+		int prevY = scale(ys[0]);
+
+		for (int i=1; i < xs.length; i++) {
+			int nextX = scale(xs[i]);
+			int nextY = scale(ys[i]);
+			g2.drawLine(prevX, prevY, nextX, nextY);
+			prevX = nextX;
+			prevY = nextY;
 		}
 	}
 
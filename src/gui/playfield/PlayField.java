@@ -10,6 +10,7 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.geom.AffineTransform;
@@ -24,16 +25,44 @@ import movement.Path;
 import movement.map.SimMap;
 import core.Coord;
 import core.DTNHost;
+import core.Settings;
+import core.SimClock;
 import core.World;
 
 /**
  * The canvas where node graphics and message visualizations are drawn.
- *
+ * Nodes are drawn from {@link WorldSnapshot}s that the simulation thread
+ * captures at most {@link #FRAME_RATE_S} times per second (see
+ * {@link #captureSnapshot(boolean)}), so the simulation never waits for
+ * painting. Only the nodes inside the visible area are drawn and if there
+ * are more of them than there are {@link #AGGREGATE_CELL_S} sized squares
+ * in the area, nodes are drawn aggregated per square.
+ * <P>The overlay graphics (message transfers and paths) copy the locations
+ * they need when they are added, and a clicked node is looked up from the
+ * latest snapshot. The state of the focused node (its location, path and
+ * the info panel) is still read from the live host in the event dispatch
+ * thread, so it may be inconsistent if the simulation is running.</P>
  */
 @SuppressWarnings("serial")
 public class PlayField extends JPanel {
 	public static final int PLAYFIELD_OFFSET = 10;
 
+	/** Namespace of the play field settings ({@value}) */
+	public static final String PLAYFIELD_NS = "GUI.PlayField";
+	/** Maximum number of snapshots to take per (real) second -setting id
+	 * ({@value}). Default = {@value #DEF_FRAME_RATE} */
+	public static final String FRAME_RATE_S = "frameRate";
+	/** Default value for the {@link #FRAME_RATE_S} setting */
+	public static final double DEF_FRAME_RATE = 25;
+	/** Size (pixels) of the squares used for drawing aggregated node
+	 * graphics -setting id ({@value}). Default = {@value #DEF_AGGREGATE_CELL}*/
+	public static final String AGGREGATE_CELL_S = "aggregateCellSize";
+	/** Default value for the {@link #AGGREGATE_CELL_S} setting */
+	public static final int DEF_AGGREGATE_CELL = 8;
+	/** Extra space (pixels) around the visible area where nodes are still
+	 * drawn so that names and buffers of nodes at the edges are shown */
+	private static final int CULL_MARGIN = 60;
+
 	private World w;
 	private DTNSimGUI gui;
 
@@ -52,6 +81,11 @@ public class PlayField extends JPanel {
 	private double underlayImgDx;
 	private double underlayImgDy;
 
+	private SnapshotBuffer snapshots;
+	private long frameIntervalNanos;
+	private long lastCaptureNanos;
+	private int aggregateCellSize;
+
 	/**
 	 * Creates a playfield
 	 * @param w The world that contains the actors to be drawn
@@ -70,6 +104,14 @@ public class PlayField extends JPanel {
         this.imageTransform = null;
         this.autoClearOverlay = true;
 
+        Settings s = new Settings(PLAYFIELD_NS);
+        this.frameIntervalNanos = (long)(1e9 / s.getDouble(FRAME_RATE_S,
+		DEF_FRAME_RATE));
+        this.aggregateCellSize = s.getInt(AGGREGATE_CELL_S,
+		DEF_AGGREGATE_CELL);
+        this.snapshots = new SnapshotBuffer();
+        this.lastCaptureNanos = 0;
+
         this.addMouseListener(new MouseAdapter() {
 			@Override
 			public void mouseClicked(MouseEvent e) {
@@ -87,6 +129,29 @@ public class PlayField extends JPanel {
 		this.repaint();
 	}
 
+	/**
+	 * Takes a snapshot of the hosts' state and schedules the play field to
+	 * be drawn, if enough real time has passed since the previous snapshot.
+	 * Must be called from the thread that runs the simulation; the call
+	 * doesn't wait for the drawing.
+	 * @param forced If true, the snapshot is taken regardless of the time
+	 * since the previous snapshot
+	 * @return True if a new snapshot was taken, false if not
+	 */
+	public boolean captureSnapshot(boolean forced) {
+		long now = System.nanoTime();
+		if (!forced && now - lastCaptureNanos < frameIntervalNanos) {
+			return false;
+		}
+		this.lastCaptureNanos = now;
+
+		WorldSnapshot snapshot = snapshots.acquire();
+		snapshot.capture(w.getHosts(), SimClock.getTime());
+		snapshots.publish(snapshot);
+		this.repaint();
+		return true;
+	}
+
 	/**
 	 * Sets an image to show under the host graphics
 	 * @param image The image to set or null to remove the image
@@ -192,8 +257,9 @@ public class PlayField extends JPanel {
 		}
 
 		// draw hosts
-		for (DTNHost h : w.getHosts()) {
-			new NodeGraphic(h).draw(g2);
+		WorldSnapshot snapshot = snapshots.getLatest();
+		if (snapshot != null) {
+			drawHosts(g2, snapshot);
 		}
 
 		// draw overlay graphics
@@ -206,6 +272,54 @@ public class PlayField extends JPanel {
 	}
 
 
+	/**
+	 * Draws the hosts of a snapshot that are inside the clip area of the
+	 * graphics context (or all hosts if there's no clip)
+	 * @param g2 The graphics context (translated by the play field offset)
+	 * @param snapshot The snapshot to draw
+	 */
+	private void drawHosts(Graphics2D g2, WorldSnapshot snapshot) {
+		Rectangle clip = g2.getClipBounds();
+		if (clip == null) {
+			clip = new Rectangle(0, 0, getWidth(), getHeight());
+		}
+		int minX = clip.x - CULL_MARGIN;
+		int minY = clip.y - CULL_MARGIN;
+		int maxX = clip.x + clip.width + CULL_MARGIN;
+		int maxY = clip.y + clip.height + CULL_MARGIN;
+		int n = snapshot.getNrofHosts();
+
+		int visible = 0;
+		int[] visibleNodes = new int[n];
+		for (int i=0; i<n; i++) {
+			int x = PlayFieldGraphic.scale(snapshot.getX(i));
+			int y = PlayFieldGraphic.scale(snapshot.getY(i));
+			if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+				visibleNodes[visible++] = i;
+			}
+		}
+
+		/* the part of the world that is visible */
+		Rectangle area = clip.intersection(new Rectangle(0, 0,
+				PlayFieldGraphic.scale(w.getSizeX()) + 1,
+				PlayFieldGraphic.scale(w.getSizeY()) + 1));
+		int cols = area.width / aggregateCellSize + 1;
+		int rows = area.height / aggregateCellSize + 1;
+		if (!area.isEmpty() && visible > cols * rows) {
+			/* too dense to draw node by node */
+			NodeGraphic.drawAggregated(g2, snapshot, area.x, area.y,
+					cols, rows, aggregateCellSize);
+			return;
+		}
+
+		NodeGraphic.drawConnections(g2, snapshot);
+		NodeGraphic node = new NodeGraphic(snapshot);
+		for (int i=0; i<visible; i++) {
+			node.setIndex(visibleNodes[i]);
+			node.draw(g2);
+		}
+	}
+
 	/**
 	 * Removes all overlay graphics stored to be drawn
 	 */
@@ -214,7 +328,8 @@ public class PlayField extends JPanel {
 	}
 
 	/**
-	 * Adds graphics for message transfer
+	 * Adds graphics for message transfer. The hosts' current locations are
+	 * drawn, so this should be called from the simulation thread.
 	 * @param from Who the message was from
 	 * @param to Who the message was to
 	 */
@@ -291,21 +406,27 @@ public class PlayField extends JPanel {
 	 * @param y The Y coordinate
 	 */
 	private void focusClosestNode(int x, int y) {
-		DTNHost closest = w.getHosts().get(0);
+		WorldSnapshot snapshot = snapshots.getLatest();
+		if (snapshot == null || snapshot.getNrofHosts() == 0) {
+			return;
+		}
+		int closest = 0;
 		double closestDist = Double.MAX_VALUE;
 		double dist;
 
 		Coord clickLoc = getWorldPosition(new Coord(x,y));
 
-		for (DTNHost h : w.getHosts()) {
-			dist = h.getLocation().distance(clickLoc);
+		for (int i=0, n=snapshot.getNrofHosts(); i<n; i++) {
+			double dx = snapshot.getX(i) - clickLoc.getX();
+			double dy = snapshot.getY(i) - clickLoc.getY();
+			dist = Math.sqrt(dx*dx + dy*dy);
 
 			if (dist < closestDist) {
-				closest = h;
+				closest = i;
 				closestDist = dist;
 			}
 		}
 
-		gui.setFocus(closest);
+		gui.setFocus(snapshot.getHost(closest));
 	}
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package gui.playfield;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free exchange of {@link WorldSnapshot}s between the simulation thread
+ * (the writer) and the event dispatch thread (the reader). Neither side ever
+ * waits for the other: the writer always fills a snapshot that the reader is
+ * not using and the reader always draws the latest published snapshot.
+ * At most three snapshots are in use at any time.
+ */
+public class SnapshotBuffer {
+	/** latest published snapshot not yet taken by the reader */
+	private final AtomicReference<WorldSnapshot> latest;
+	/** snapshot that neither side is using */
+	private final AtomicReference<WorldSnapshot> free;
+	/** snapshot the reader is drawing (accessed only by the reader) */
+	private WorldSnapshot current;
+
+	public SnapshotBuffer() {
+		this.latest = new AtomicReference<WorldSnapshot>();
+		this.free = new AtomicReference<WorldSnapshot>();
+		this.current = null;
+	}
+
+	/**
+	 * Returns a snapshot the writer can fill. The snapshot must be given
+	 * back with {@link #publish(WorldSnapshot)}.
+	 * @return A snapshot that is not in use
+	 */
+	public WorldSnapshot acquire() {
+		WorldSnapshot s = free.getAndSet(null);
+		return (s != null ? s : new WorldSnapshot());
+	}
+
+	/**
+	 * Publishes a filled snapshot for the reader
+	 * @param s The snapshot
+	 */
+	public void publish(WorldSnapshot s) {
+		WorldSnapshot unread = latest.getAndSet(s);
+		if (unread != null) { /* reader skipped this one; recycle it */
+			free.set(unread);
+		}
+	}
+
+	/**
+	 * Returns the latest published snapshot for drawing. Must be called
+	 * only from the reader's thread.
+	 * @return The latest snapshot or null if nothing has been published yet
+	 */
+	public WorldSnapshot getLatest() {
+		WorldSnapshot s = latest.getAndSet(null);
+		if (s != null) {
+			if (current != null) {
+				free.set(current);
+			}
+			current = s;
+		}
+		return current;
+	}
+}
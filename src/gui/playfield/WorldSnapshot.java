@@ -0,0 +1,216 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package gui.playfield;
+
+import java.util.List;
+
+import core.Connection;
+import core.DTNHost;
+import core.NetworkInterface;
+
+/**
+ * Snapshot of the drawable state of all hosts at one moment of the
+ * simulation. The simulation thread fills snapshots with
+ * {@link #capture(List, double)} and the event dispatch thread draws them
+ * without touching the (changing) host objects. Snapshot objects are
+ * recycled, so the arrays grow only when the world gets more hosts or
+ * connections.
+ */
+public class WorldSnapshot {
+	private double simTime;
+	private int nrofHosts;
+	private DTNHost[] hosts;
+	private double[] x;
+	private double[] y;
+	private int[] nrofMessages;
+	private boolean[] radioActive;
+	/** index of the first range in {@link #ranges} for each host; the
+	 * ranges of host i are in [rangeStart[i], rangeStart[i+1]) */
+	private int[] rangeStart;
+	private double[] ranges;
+	/** host indexes of connection end points as consecutive pairs */
+	private int[] conEnds;
+	private int nrofCons;
+
+	/**
+	 * Creates an empty snapshot
+	 */
+	public WorldSnapshot() {
+		this.hosts = new DTNHost[0];
+		this.x = new double[0];
+		this.y = new double[0];
+		this.nrofMessages = new int[0];
+		this.radioActive = new boolean[0];
+		this.rangeStart = new int[1];
+		this.ranges = new double[0];
+		this.conEnds = new int[0];
+	}
+
+	/**
+	 * Copies the current state of the hosts to this snapshot. Must be called
+	 * from the thread that runs the simulation.
+	 * @param hostList The hosts (indexed by their address)
+	 * @param time Simulation time of the snapshot
+	 */
+	public void capture(List<DTNHost> hostList, double time) {
+		int n = hostList.size();
+		if (hosts.length < n) {
+			hosts = new DTNHost[n];
+			x = new double[n];
+			y = new double[n];
+			nrofMessages = new int[n];
+			radioActive = new boolean[n];
+			rangeStart = new int[n + 1];
+		}
+
+		int nrofRanges = 0;
+		int cons = 0;
+		for (int i=0; i<n; i++) {
+			DTNHost h = hostList.get(i);
+			hosts[i] = h;
+			x[i] = h.getLocation().getX();
+			y[i] = h.getLocation().getY();
+			nrofMessages[i] = h.getNrofMessages();
+			radioActive[i] = h.isRadioActive();
+			rangeStart[i] = nrofRanges;
+
+			for (NetworkInterface ni : h.getInterfaces()) {
+				if (nrofRanges == ranges.length) {
+					ranges = grow(ranges);
+				}
+				ranges[nrofRanges++] = ni.getTransmitRange();
+
+				for (Connection c : ni.getConnections()) {
+					DTNHost other = c.getOtherNode(h);
+					if (other == null || other.getAddress() < h.getAddress()) {
+						continue; /* down already or added by the other end */
+					}
+					if (cons * 2 + 1 >= conEnds.length) {
+						conEnds = grow(conEnds);
+					}
+					conEnds[cons * 2] = i;
+					conEnds[cons * 2 + 1] = other.getAddress();
+					cons++;
+				}
+			}
+		}
+		rangeStart[n] = nrofRanges;
+
+		this.nrofHosts = n;
+		this.nrofCons = cons;
+		this.simTime = time;
+	}
+
+	private static double[] grow(double[] array) {
+		double[] bigger = new double[array.length * 2 + 16];
+		System.arraycopy(array, 0, bigger, 0, array.length);
+		return bigger;
+	}
+
+	private static int[] grow(int[] array) {
+		int[] bigger = new int[array.length * 2 + 16];
+		System.arraycopy(array, 0, bigger, 0, array.length);
+		return bigger;
+	}
+
+	/**
+	 * Returns the simulation time when the snapshot was taken
+	 * @return the simulation time of the snapshot
+	 */
+	public double getSimTime() {
+		return this.simTime;
+	}
+
+	/**
+	 * Returns the number of hosts in the snapshot
+	 * @return the number of hosts
+	 */
+	public int getNrofHosts() {
+		return this.nrofHosts;
+	}
+
+	/**
+	 * Returns the host with the given index. Only the immutable properties
+	 * (e.g., name) of the host should be used while drawing.
+	 * @param i Index of the host
+	 * @return The host
+	 */
+	public DTNHost getHost(int i) {
+		return this.hosts[i];
+	}
+
+	/**
+	 * Returns the x coordinate of host i
+	 * @param i Index of the host
+	 * @return the x coordinate
+	 */
+	public double getX(int i) {
+		return this.x[i];
+	}
+
+	/**
+	 * Returns the y coordinate of host i
+	 * @param i Index of the host
+	 * @return the y coordinate
+	 */
+	public double getY(int i) {
+		return this.y[i];
+	}
+
+	/**
+	 * Returns the number of messages host i was carrying
+	 * @param i Index of the host
+	 * @return the number of messages
+	 */
+	public int getNrofMessages(int i) {
+		return this.nrofMessages[i];
+	}
+
+	/**
+	 * Returns true if host i had an active radio
+	 * @param i Index of the host
+	 * @return true if the radio was active
+	 */
+	public boolean isRadioActive(int i) {
+		return this.radioActive[i];
+	}
+
+	/**
+	 * Returns the number of interface transmit ranges of host i
+	 * @param i Index of the host
+	 * @return the number of ranges
+	 */
+	public int getNrofRanges(int i) {
+		return this.rangeStart[i + 1] - this.rangeStart[i];
+	}
+
+	/**
+	 * Returns a transmit range of host i
+	 * @param i Index of the host
+	 * @param j Index of the interface
+	 * @return The transmit range
+	 */
+	public double getRange(int i, int j) {
+		return this.ranges[this.rangeStart[i] + j];
+	}
+
+	/**
+	 * Returns the number of connections
+	 * @return the number of connections
+	 */
+	public int getNrofConnections() {
+		return this.nrofCons;
+	}
+
+	/**
+	 * Returns the index of one end of a connection
+	 * @param c Index of the connection
+	 * @param end 0 for the first end, 1 for the second
+	 * @return Index of the host at that end
+	 */
+	public int getConnectionEnd(int c, int end) {
+		return this.conEnds[c * 2 + end];
+	}
+}
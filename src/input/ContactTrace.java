@@ -0,0 +1,415 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package input;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import core.SimError;
+
+/**
+ * Indexed store of contacts written by {@link ContactTraceWriter} (e.g.,
+ * using the {@link report.ContactTraceReport}). Contacts can be queried per
+ * node and per time range without reading the whole trace, and the trace
+ * can be replayed as connection events with {@link ContactTraceEventsReader}.
+ * <P>The contacts are partitioned into time windows by their end times.
+ * Each non-empty window is a block that contains, for each host pair with
+ * contacts in the window, the pair's up and down periods run-length coded
+ * as variable length integers (in units of the trace's time resolution),
+ * and an index of the records of each host. A directory of the blocks is at
+ * the end of the file.</P>
+ * <P>File format (big-endian):
+ * <pre>
+ * int MAGIC, int VERSION, double window size, double time resolution
+ * blocks:
+ *   int length of the records
+ *   records: var address1, var address2, var n, zigzag var first start
+ *     relative to window start, var duration, (n-1) times: var down time
+ *     since the previous end, var duration
+ *   int nrof hosts, nrof hosts times: int address, int first offset index,
+ *     int nrof offsets
+ *   int offsets (relative to the start of the records) of the hosts' records
+ * int nrof blocks, nrof blocks times: long block offset, long block length,
+ *   long window number, long minimum start time, long nrof contacts
+ * long offset of the directory
+ * </pre></P>
+ */
+public class ContactTrace {
+	/** Identifier in the beginning of contact trace files */
+	public static final int MAGIC = 0x4F4E4543;
+	/** Version of the file format */
+	public static final int VERSION = 1;
+	/** Extension of contact trace files */
+	public static final String TRACE_EXT = ".ctrace";
+
+	private RandomAccessFile file;
+	private double windowSize;
+	private double resolution;
+
+	private long[] blockOffset;
+	private int[] blockLength;
+	private long[] blockWindow;
+	private long[] blockMinStart;
+	private int[] blockContacts;
+
+	/** the most recently read block */
+	private int cachedBlock;
+	private ByteBuffer cachedData;
+
+	/**
+	 * Opens a contact trace file
+	 * @param traceFile The file
+	 */
+	public ContactTrace(File traceFile) {
+		try {
+			this.file = new RandomAccessFile(traceFile, "r");
+		} catch (IOException e) {
+			throw new SimError("Can't open contact trace " + traceFile, e);
+		}
+		try {
+			readHeader(traceFile);
+		} catch (IOException e) {
+			closeAfterError();
+			throw new SimError("Can't read contact trace " + traceFile, e);
+		} catch (RuntimeException e) {
+			closeAfterError();
+			throw e;
+		}
+		this.cachedBlock = -1;
+	}
+
+	/**
+	 * Reads the header and the block directory of the trace
+	 * @param traceFile The trace file (for error messages)
+	 * @throws IOException If reading the file fails
+	 */
+	private void readHeader(File traceFile) throws IOException {
+		if (file.length() < 32 || file.readInt() != MAGIC) {
+			throw new SimError(traceFile + " is not a contact trace file");
+		}
+		int version = file.readInt();
+		if (version != VERSION) {
+			throw new SimError("Unsupported contact trace version " +
+					version + " in " + traceFile);
+		}
+		this.windowSize = file.readDouble();
+		this.resolution = file.readDouble();
+
+		file.seek(file.length() - 8);
+		file.seek(file.readLong());
+		int nrofBlocks = file.readInt();
+		this.blockOffset = new long[nrofBlocks];
+		this.blockLength = new int[nrofBlocks];
+		this.blockWindow = new long[nrofBlocks];
+		this.blockMinStart = new long[nrofBlocks];
+		this.blockContacts = new int[nrofBlocks];
+		for (int i=0; i<nrofBlocks; i++) {
+			blockOffset[i] = file.readLong();
+			blockLength[i] = (int)file.readLong();
+			blockWindow[i] = file.readLong();
+			blockMinStart[i] = file.readLong();
+			blockContacts[i] = (int)file.readLong();
+		}
+	}
+
+	/**
+	 * Closes the file after a failure in opening the trace. Errors in
+	 * closing are ignored so that they don't hide the original error.
+	 */
+	private void closeAfterError() {
+		try {
+			file.close();
+		} catch (IOException e) {
+			/* the original error is reported instead */
+		}
+	}
+
+	/**
+	 * Returns true if the file looks like a contact trace file
+	 * @param file The file to check
+	 * @return True if the file has the contact trace extension and header
+	 */
+	public static boolean isContactTraceFile(File file) {
+		if (!file.getName().endsWith(TRACE_EXT)) {
+			return false;
+		}
+		try {
+			RandomAccessFile f = new RandomAccessFile(file, "r");
+			try {
+				return f.length() >= 32 && f.readInt() == MAGIC;
+			} finally {
+				f.close();
+			}
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the size of the time windows
+	 * @return the size of the time windows (seconds)
+	 */
+	public double getWindowSize() {
+		return this.windowSize;
+	}
+
+	/**
+	 * Returns the number of non-empty windows in the trace
+	 * @return the number of windows
+	 */
+	public int getNrofWindows() {
+		return this.blockOffset.length;
+	}
+
+	/**
+	 * Returns the start time of a window
+	 * @param window Index of the window (0 ... {@link #getNrofWindows()}-1)
+	 * @return Start time of the window
+	 */
+	public double getWindowStart(int window) {
+		return blockWindow[window] * windowSize;
+	}
+
+	/**
+	 * Returns the number of contacts that ended in a window
+	 * @param window Index of the window
+	 * @return The number of contacts
+	 */
+	public int getNrofContacts(int window) {
+		return blockContacts[window];
+	}
+
+	/**
+	 * Returns the earliest start time of the contacts that ended in a window
+	 * @param window Index of the window
+	 * @return The earliest start time
+	 */
+	public double getMinStartTime(int window) {
+		return blockMinStart[window] * resolution;
+	}
+
+	/**
+	 * Returns all the contacts that ended in a window
+	 * @param window Index of the window
+	 * @return The contacts ordered by host pair and start time
+	 */
+	public List<Contact> getContactsInWindow(int window) {
+		List<Contact> contacts = new ArrayList<Contact>(blockContacts[window]);
+		ByteBuffer data = readBlock(window);
+		int recordsEnd = 4 + data.getInt(0);
+		data.position(4);
+		while (data.position() < recordsEnd) {
+			readRecord(data, window, contacts, -Double.MAX_VALUE,
+					Double.MAX_VALUE);
+		}
+		return contacts;
+	}
+
+	/**
+	 * Returns all contacts that were up at some point of the time range
+	 * @param t1 Start of the time range
+	 * @param t2 End of the time range
+	 * @return The contacts in window order
+	 */
+	public List<Contact> getContacts(double t1, double t2) {
+		List<Contact> contacts = new ArrayList<Contact>();
+		for (int w=0; w<getNrofWindows(); w++) {
+			if (!overlaps(w, t1, t2)) {
+				continue;
+			}
+			ByteBuffer data = readBlock(w);
+			int recordsEnd = 4 + data.getInt(0);
+			data.position(4);
+			while (data.position() < recordsEnd) {
+				readRecord(data, w, contacts, t1, t2);
+			}
+		}
+		return contacts;
+	}
+
+	/**
+	 * Returns the contacts of a host that were up at some point of the time
+	 * range
+	 * @param address Address of the host
+	 * @param t1 Start of the time range
+	 * @param t2 End of the time range
+	 * @return The contacts in window order
+	 */
+	public List<Contact> getContacts(int address, double t1, double t2) {
+		List<Contact> contacts = new ArrayList<Contact>();
+		for (int w=0; w<getNrofWindows(); w++) {
+			if (!overlaps(w, t1, t2)) {
+				continue;
+			}
+			ByteBuffer data = readBlock(w);
+			int indexStart = 4 + data.getInt(0);
+			int nrofHosts = data.getInt(indexStart);
+			int offsetsStart = indexStart + 4 + nrofHosts * 12;
+
+			/* binary search for the host's index entry */
+			int low = 0;
+			int high = nrofHosts - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				int entry = indexStart + 4 + mid * 12;
+				int midAddress = data.getInt(entry);
+				if (midAddress < address) {
+					low = mid + 1;
+				} else if (midAddress > address) {
+					high = mid - 1;
+				} else {
+					int first = data.getInt(entry + 4);
+					int count = data.getInt(entry + 8);
+					for (int i=first; i < first + count; i++) {
+						data.position(4 + data.getInt(offsetsStart + i * 4));
+						readRecord(data, w, contacts, t1, t2);
+					}
+					break;
+				}
+			}
+		}
+		return contacts;
+	}
+
+	/**
+	 * Returns true if some contact of the window may overlap the time range
+	 */
+	private boolean overlaps(int window, double t1, double t2) {
+		double windowEnd = (blockWindow[window] + 1) * windowSize;
+		return windowEnd >= t1 && getMinStartTime(window) <= t2;
+	}
+
+	/**
+	 * Reads a host pair's record from the current position of the data and
+	 * adds the contacts overlapping the time range to the list
+	 */
+	private void readRecord(ByteBuffer data, int window, List<Contact> list,
+			double t1, double t2) {
+		int a = (int)readVarLong(data);
+		int b = (int)readVarLong(data);
+		int n = (int)readVarLong(data);
+		long windowStart = Math.round(blockWindow[window] * windowSize /
+				resolution);
+		long previousEnd = 0;
+
+		for (int i=0; i<n; i++) {
+			long start;
+			if (i == 0) {
+				long zz = readVarLong(data);
+				start = windowStart + ((zz >>> 1) ^ -(zz & 1));
+			} else {
+				start = previousEnd + readVarLong(data);
+			}
+			long end = start + readVarLong(data);
+			previousEnd = end;
+
+			double startTime = start * resolution;
+			double endTime = end * resolution;
+			if (startTime <= t2 && endTime >= t1) {
+				list.add(new Contact(a, b, startTime, endTime));
+			}
+		}
+	}
+
+	private static long readVarLong(ByteBuffer data) {
+		long value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = data.get();
+			value |= (long)(b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	/**
+	 * Returns the contents of a block
+	 */
+	private ByteBuffer readBlock(int window) {
+		if (window == cachedBlock) {
+			return cachedData;
+		}
+		byte[] bytes = new byte[blockLength[window]];
+		try {
+			file.seek(blockOffset[window]);
+			file.readFully(bytes);
+		} catch (IOException e) {
+			throw new SimError(e);
+		}
+		cachedBlock = window;
+		cachedData = ByteBuffer.wrap(bytes);
+		return cachedData;
+	}
+
+	/**
+	 * Closes the trace file
+	 */
+	public void close() {
+		try {
+			file.close();
+		} catch (IOException e) {
+			throw new SimError(e);
+		}
+	}
+
+	/**
+	 * A contact between two hosts
+	 */
+	public static class Contact {
+		private int host1;
+		private int host2;
+		private double start;
+		private double end;
+
+		public Contact(int host1, int host2, double start, double end) {
+			this.host1 = host1;
+			this.host2 = host2;
+			this.start = start;
+			this.end = end;
+		}
+
+		/**
+		 * Returns the address of the host with the smaller address
+		 * @return the address of the host with the smaller address
+		 */
+		public int getHost1() {
+			return this.host1;
+		}
+
+		/**
+		 * Returns the address of the host with the larger address
+		 * @return the address of the host with the larger address
+		 */
+		public int getHost2() {
+			return this.host2;
+		}
+
+		/**
+		 * Returns the time when the contact started
+		 * @return the time when the contact started
+		 */
+		public double getStartTime() {
+			return this.start;
+		}
+
+		/**
+		 * Returns the time when the contact ended
+		 * @return the time when the contact ended
+		 */
+		public double getEndTime() {
+			return this.end;
+		}
+
+		@Override
+		public String toString() {
+			return host1 + "<->" + host2 + " " + start + "-" + end;
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package input;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Reads the contacts of a {@link ContactTrace} as connection up and down
+ * events in time order. The windows of the trace are read only when events
+ * from them may be next, so only the windows with contacts that are up at
+ * the current replay time are kept in memory.
+ */
+public class ContactTraceEventsReader implements ExternalEventsReader {
+	private ContactTrace trace;
+	/** index of the next window to read */
+	private int nextWindow;
+	/** earliest start time of the contacts in each window or any later
+	 * window */
+	private double[] minStartFrom;
+	private PriorityQueue<ConnectionEvent> pending;
+
+	/**
+	 * Constructor.
+	 * @param traceFile The contact trace file
+	 */
+	public ContactTraceEventsReader(File traceFile) {
+		this.trace = new ContactTrace(traceFile);
+		int n = trace.getNrofWindows();
+		this.minStartFrom = new double[n + 1];
+		this.minStartFrom[n] = Double.MAX_VALUE;
+		for (int w = n - 1; w >= 0; w--) {
+			minStartFrom[w] = Math.min(minStartFrom[w + 1],
+					trace.getMinStartTime(w));
+		}
+		this.nextWindow = 0;
+
+		/* in time order; disconnections before connections at the same time */
+		this.pending = new PriorityQueue<ConnectionEvent>(64,
+			new Comparator<ConnectionEvent>() {
+				public int compare(ConnectionEvent e1, ConnectionEvent e2) {
+					int c = e1.compareTo(e2);
+					if (c == 0 && e1.isUp != e2.isUp) {
+						return e1.isUp ? 1 : -1;
+					}
+					return c;
+				}
+			});
+	}
+
+	public List<ExternalEvent> readEvents(int nrof) {
+		List<ExternalEvent> events = new ArrayList<ExternalEvent>(nrof);
+
+		while (events.size() < nrof) {
+			/* an event can be returned only when no unread window can have
+			 * earlier events */
+			while (nextWindow < trace.getNrofWindows() && (pending.isEmpty()
+					|| pending.peek().getTime() >= minStartFrom[nextWindow])) {
+				for (ContactTrace.Contact c :
+						trace.getContactsInWindow(nextWindow)) {
+					pending.add(new ConnectionEvent(c.getHost1(), c.getHost2(),
+							null, true, c.getStartTime()));
+					pending.add(new ConnectionEvent(c.getHost1(), c.getHost2(),
+							null, false, c.getEndTime()));
+				}
+				nextWindow++;
+			}
+			if (pending.isEmpty()) {
+				break;
+			}
+			events.add(pending.poll());
+		}
+
+		return events;
+	}
+
+	public void close() {
+		trace.close();
+	}
+}
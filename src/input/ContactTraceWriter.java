@@ -0,0 +1,241 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package input;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes contacts to a contact trace file that can be queried with
+ * {@link ContactTrace}. The contacts must be added in the order of their
+ * end times. See {@link ContactTrace} for the file format.
+ */
+public class ContactTraceWriter {
+	private DataOutputStream out;
+	/** bytes written so far */
+	private long offset;
+	private double windowSize;
+	private double resolution;
+
+	/** number of the window whose contacts are buffered */
+	private long window;
+	private int nrofContacts;
+	private int[] from;
+	private int[] to;
+	private long[] start;
+	private long[] end;
+
+	/** directory entries of the written windows */
+	private List<long[]> directory;
+
+	/**
+	 * Creates a new contact trace file
+	 * @param file The file to create
+	 * @param windowSize Size of the time windows (seconds)
+	 * @param resolution Resolution of the stored times (seconds)
+	 * @throws IOException if the file can't be created
+	 */
+	public ContactTraceWriter(File file, double windowSize, double resolution)
+		throws IOException {
+		this.out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file)));
+		this.windowSize = windowSize;
+		this.resolution = resolution;
+		this.window = 0;
+		this.nrofContacts = 0;
+		this.from = new int[64];
+		this.to = new int[64];
+		this.start = new long[64];
+		this.end = new long[64];
+		this.directory = new ArrayList<long[]>();
+
+		out.writeInt(ContactTrace.MAGIC);
+		out.writeInt(ContactTrace.VERSION);
+		out.writeDouble(windowSize);
+		out.writeDouble(resolution);
+		offset = 24;
+	}
+
+	/**
+	 * Adds a contact to the trace
+	 * @param host1 Address of one host of the contact
+	 * @param host2 Address of the other host of the contact
+	 * @param startTime Time when the contact started
+	 * @param endTime Time when the contact ended. Must not be smaller than
+	 * the end time of the previously added contact.
+	 * @throws IOException if writing fails
+	 */
+	public void addContact(int host1, int host2, double startTime,
+			double endTime) throws IOException {
+		long w = (long)(endTime / windowSize);
+		if (w < window) {
+			throw new IllegalArgumentException("Contact ending at " + endTime
+					+ " added after window " + window);
+		}
+		if (w > window) {
+			flushWindow();
+			window = w;
+		}
+
+		if (nrofContacts == from.length) {
+			int size = nrofContacts * 2;
+			from = Arrays.copyOf(from, size);
+			to = Arrays.copyOf(to, size);
+			start = Arrays.copyOf(start, size);
+			end = Arrays.copyOf(end, size);
+		}
+		from[nrofContacts] = Math.min(host1, host2);
+		to[nrofContacts] = Math.max(host1, host2);
+		start[nrofContacts] = Math.round(startTime / resolution);
+		end[nrofContacts] = Math.round(endTime / resolution);
+		nrofContacts++;
+	}
+
+	/**
+	 * Writes the buffered contacts and the directory, and closes the file
+	 * @throws IOException if writing fails
+	 */
+	public void close() throws IOException {
+		flushWindow();
+
+		long directoryOffset = offset;
+		out.writeInt(directory.size());
+		for (long[] entry : directory) {
+			for (long value : entry) {
+				out.writeLong(value);
+			}
+		}
+		out.writeLong(directoryOffset);
+		out.close();
+	}
+
+	/**
+	 * Writes the contacts of the current window as a block
+	 */
+	private void flushWindow() throws IOException {
+		if (nrofContacts == 0) {
+			return;
+		}
+
+		/* group the intervals of each host pair together */
+		Integer[] order = new Integer[nrofContacts];
+		for (int i=0; i<nrofContacts; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer i1, Integer i2) {
+				if (from[i1] != from[i2]) {
+					return from[i1] < from[i2] ? -1 : 1;
+				}
+				if (to[i1] != to[i2]) {
+					return to[i1] < to[i2] ? -1 : 1;
+				}
+				return Long.compare(start[i1], start[i2]);
+			}
+		});
+
+		ByteArrayOutputStream records = new ByteArrayOutputStream();
+		Map<Integer, List<Integer>> recordsOf =
+			new TreeMap<Integer, List<Integer>>();
+		long windowStart = Math.round(window * windowSize / resolution);
+		long minStart = Long.MAX_VALUE;
+
+		for (int i=0; i<nrofContacts; ) {
+			int a = from[order[i]];
+			int b = to[order[i]];
+			int n = 1;
+			while (i + n < nrofContacts && from[order[i + n]] == a &&
+					to[order[i + n]] == b) {
+				n++;
+			}
+
+			int recordOffset = records.size();
+			addRecord(recordsOf, a, recordOffset);
+			addRecord(recordsOf, b, recordOffset);
+
+			/* run-length coded up and down periods of the pair */
+			writeVarLong(records, a);
+			writeVarLong(records, b);
+			writeVarLong(records, n);
+			long previousEnd = 0;
+			for (int j=0; j<n; j++) {
+				int c = order[i + j];
+				if (j == 0) {
+					writeVarLong(records, zigZag(start[c] - windowStart));
+				} else {
+					writeVarLong(records, start[c] - previousEnd);
+				}
+				writeVarLong(records, end[c] - start[c]);
+				previousEnd = end[c];
+				minStart = Math.min(minStart, start[c]);
+			}
+			i += n;
+		}
+
+		/* node index: sorted (address, first offset, count) entries
+		 * followed by the record offsets */
+		ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+		DataOutputStream index = new DataOutputStream(indexBytes);
+		index.writeInt(recordsOf.size());
+		int first = 0;
+		for (Map.Entry<Integer, List<Integer>> e : recordsOf.entrySet()) {
+			index.writeInt(e.getKey());
+			index.writeInt(first);
+			index.writeInt(e.getValue().size());
+			first += e.getValue().size();
+		}
+		for (List<Integer> offsets : recordsOf.values()) {
+			for (int recordOffset : offsets) {
+				index.writeInt(recordOffset);
+			}
+		}
+		index.flush();
+
+		int length = 4 + records.size() + indexBytes.size();
+		directory.add(new long[] {offset, length, window, minStart,
+				nrofContacts});
+
+		out.writeInt(records.size());
+		records.writeTo(out);
+		indexBytes.writeTo(out);
+		offset += length;
+		nrofContacts = 0;
+	}
+
+	private static void addRecord(Map<Integer, List<Integer>> recordsOf,
+			int host, int recordOffset) {
+		List<Integer> offsets = recordsOf.get(host);
+		if (offsets == null) {
+			offsets = new ArrayList<Integer>();
+			recordsOf.put(host, offsets);
+		}
+		offsets.add(recordOffset);
+	}
+
+	private static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	/**
+	 * Writes a non-negative value using 7 bits per byte
+	 */
+	private static void writeVarLong(ByteArrayOutputStream out, long value) {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int)((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.write((int)value);
+	}
+}
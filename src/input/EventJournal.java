@@ -0,0 +1,273 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package input;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+
+import core.SimError;
+
+/**
+ * Reader of event journals written by {@link EventJournalWriter} (e.g.,
+ * using the {@link report.EventJournalReport}). The events are read in the
+ * order they were written, one at a time: {@link #next()} moves to the next
+ * event and the getters return the values of the current event.
+ * <P>File format (big-endian):
+ * <pre>
+ * int MAGIC, int VERSION
+ * records (RECORD_SIZE bytes each): double time, int type, int host1
+ *   address, int host2 address (or NONE), int message index (or NONE)
+ * int nrof hosts, nrof hosts times: UTF name of the host with that address
+ * int nrof messages, nrof messages times: UTF message ID
+ * long offset of the host table (i.e., end of the records)
+ * </pre></P>
+ */
+public class EventJournal {
+	/** Identifier in the beginning of event journal files */
+	public static final int MAGIC = 0x4F4E454A;
+	/** Version of the file format */
+	public static final int VERSION = 1;
+	/** Extension of event journal files */
+	public static final String JOURNAL_EXT = ".journal";
+	/** Size of the file header (bytes) */
+	public static final int HEADER_SIZE = 8;
+	/** Size of an event record (bytes) */
+	public static final int RECORD_SIZE = 24;
+	/** Host address or message index of events that don't have one */
+	public static final int NONE = -1;
+
+	/** Event type of connection up events */
+	public static final int CONNECTION_UP = 1;
+	/** Event type of connection down events */
+	public static final int CONNECTION_DOWN = 2;
+	/** Event type of message creation events */
+	public static final int MESSAGE_CREATED = 3;
+	/** Event type of message transfer start events */
+	public static final int TRANSFER_STARTED = 4;
+	/** Event type of message transfer abort events */
+	public static final int TRANSFER_ABORTED = 5;
+	/** Event type of message relayed (to other than final recipient)
+	 * events */
+	public static final int MESSAGE_RELAYED = 6;
+	/** Event type of message delivered (first time) events */
+	public static final int MESSAGE_DELIVERED = 7;
+	/** Event type of message delivered again events */
+	public static final int MESSAGE_DELIVERED_AGAIN = 8;
+	/** Event type of message dropped events */
+	public static final int MESSAGE_DROPPED = 9;
+	/** Event type of message removed events */
+	public static final int MESSAGE_REMOVED = 10;
+
+	/** size of the read buffer (bytes) */
+	private static final int BUFFER_SIZE = 2048 * RECORD_SIZE;
+
+	private FileChannel channel;
+	private ByteBuffer buffer;
+	private long nrofRecords;
+	private long nrofRead;
+
+	private String[] hostNames;
+	private String[] messageIds;
+
+	private double time;
+	private int type;
+	private int host1;
+	private int host2;
+	private int message;
+
+	/**
+	 * Opens an event journal file
+	 * @param journalFile The file
+	 */
+	public EventJournal(File journalFile) {
+		try {
+			FileInputStream in = new FileInputStream(journalFile);
+			this.channel = in.getChannel();
+			long length = channel.size();
+			DataInputStream data = new DataInputStream(in);
+			if (length < HEADER_SIZE + 16 || data.readInt() != MAGIC) {
+				throw new SimError(journalFile +
+						" is not an event journal file");
+			}
+			int version = data.readInt();
+			if (version != VERSION) {
+				throw new SimError("Unsupported event journal version " +
+						version + " in " + journalFile);
+			}
+
+			ByteBuffer offset = ByteBuffer.allocate(8);
+			channel.read(offset, length - 8);
+			long tablesOffset = offset.getLong(0);
+			this.nrofRecords = (tablesOffset - HEADER_SIZE) / RECORD_SIZE;
+
+			channel.position(tablesOffset);
+			DataInputStream tables = new DataInputStream(
+					new BufferedInputStream(Channels.newInputStream(channel)));
+			this.hostNames = new String[tables.readInt()];
+			for (int i=0; i<hostNames.length; i++) {
+				hostNames[i] = tables.readUTF();
+			}
+			this.messageIds = new String[tables.readInt()];
+			for (int i=0; i<messageIds.length; i++) {
+				messageIds[i] = tables.readUTF();
+			}
+			channel.position(HEADER_SIZE);
+		} catch (IOException e) {
+			throw new SimError("Can't read event journal " + journalFile, e);
+		}
+
+		this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		this.buffer.limit(0);
+		this.nrofRead = 0;
+	}
+
+	/**
+	 * Returns true if the file looks like an event journal file
+	 * @param file The file to check
+	 * @return True if the file has the event journal extension and header
+	 */
+	public static boolean isEventJournalFile(File file) {
+		if (!file.getName().endsWith(JOURNAL_EXT)) {
+			return false;
+		}
+		try {
+			DataInputStream in = new DataInputStream(
+					new FileInputStream(file));
+			try {
+				return in.readInt() == MAGIC;
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the number of events in the journal
+	 * @return the number of events
+	 */
+	public long getNrofEvents() {
+		return this.nrofRecords;
+	}
+
+	/**
+	 * Moves to the next event
+	 * @return True if there was a next event, false if all the events have
+	 * been read
+	 */
+	public boolean next() {
+		if (nrofRead == nrofRecords) {
+			return false;
+		}
+		if (buffer.remaining() < RECORD_SIZE) {
+			fill();
+		}
+		time = buffer.getDouble();
+		type = buffer.getInt();
+		host1 = buffer.getInt();
+		host2 = buffer.getInt();
+		message = buffer.getInt();
+		nrofRead++;
+		return true;
+	}
+
+	/**
+	 * Reads the next records to the buffer
+	 */
+	private void fill() {
+		buffer.compact(); /* keeps the start of a partially read record */
+		long left = (nrofRecords - nrofRead) * RECORD_SIZE;
+		if (left < buffer.capacity()) {
+			buffer.limit((int)left);
+		}
+		try {
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0) {
+					throw new SimError("Unexpected end of event journal");
+				}
+			}
+		} catch (IOException e) {
+			throw new SimError(e);
+		}
+		buffer.flip();
+	}
+
+	/**
+	 * Returns the time of the current event
+	 * @return the time of the current event
+	 */
+	public double getTime() {
+		return this.time;
+	}
+
+	/**
+	 * Returns the type of the current event
+	 * @return the type of the current event (e.g., {@link #CONNECTION_UP})
+	 */
+	public int getType() {
+		return this.type;
+	}
+
+	/**
+	 * Returns the address of the first host of the current event
+	 * @return the address of the first host
+	 */
+	public int getHost1() {
+		return this.host1;
+	}
+
+	/**
+	 * Returns the address of the second host of the current event
+	 * @return the address of the second host or {@link #NONE}
+	 */
+	public int getHost2() {
+		return this.host2;
+	}
+
+	/**
+	 * Returns the index of the message of the current event
+	 * @return the index of the message's ID (see {@link #getMessageId(int)})
+	 * or {@link #NONE}
+	 */
+	public int getMessage() {
+		return this.message;
+	}
+
+	/**
+	 * Returns the name of a host
+	 * @param address Address of the host
+	 * @return The name of the host
+	 */
+	public String getHostName(int address) {
+		return this.hostNames[address];
+	}
+
+	/**
+	 * Returns a message ID
+	 * @param index Index of the message ID
+	 * @return The message ID
+	 */
+	public String getMessageId(int index) {
+		return this.messageIds[index];
+	}
+
+	/**
+	 * Closes the journal file
+	 */
+	public void close() {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			throw new SimError(e);
+		}
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package input;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes events to an event journal file that can be read with
+ * {@link EventJournal}. The events are written as fixed-size records
+ * through a buffer, and the names of the hosts and the IDs of the messages
+ * are written only once, in the end of the file. See {@link EventJournal}
+ * for the file format.
+ */
+public class EventJournalWriter {
+	/** size of the write buffer (bytes) */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private FileChannel channel;
+	private ByteBuffer buffer;
+	private long nrofRecords;
+
+	/** names of the hosts by address (null for unknown addresses) */
+	private List<String> hostNames;
+	private Map<String, Integer> messageIndexes;
+	private List<String> messageIds;
+
+	/**
+	 * Creates a new event journal file
+	 * @param file The file to create
+	 * @throws IOException if the file can't be created
+	 */
+	public EventJournalWriter(File file) throws IOException {
+		this.channel = new FileOutputStream(file).getChannel();
+		this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		this.hostNames = new ArrayList<String>();
+		this.messageIndexes = new HashMap<String, Integer>();
+		this.messageIds = new ArrayList<String>();
+
+		buffer.putInt(EventJournal.MAGIC);
+		buffer.putInt(EventJournal.VERSION);
+	}
+
+	/**
+	 * Sets the name of a host. The name of every host whose address is used
+	 * in the events should be set before the journal is closed.
+	 * @param address Address of the host
+	 * @param name Name of the host
+	 */
+	public void setHostName(int address, String name) {
+		while (hostNames.size() <= address) {
+			hostNames.add(null);
+		}
+		hostNames.set(address, name);
+	}
+
+	/**
+	 * Returns true if the name of a host has been set
+	 * @param address Address of the host
+	 * @return True if the name has been set
+	 */
+	public boolean hasHostName(int address) {
+		return address < hostNames.size() && hostNames.get(address) != null;
+	}
+
+	/**
+	 * Returns the index of a message ID, adding the ID to the journal's
+	 * message table if it is not there yet
+	 * @param id The message ID
+	 * @return Index of the ID
+	 */
+	public int getMessageIndex(String id) {
+		Integer index = messageIndexes.get(id);
+		if (index == null) {
+			index = messageIds.size();
+			messageIds.add(id);
+			messageIndexes.put(id, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Adds an event to the journal
+	 * @param time Time of the event
+	 * @param type Type of the event (e.g., {@link EventJournal#CONNECTION_UP})
+	 * @param host1 Address of the first host of the event
+	 * @param host2 Address of the second host of the event (or
+	 * {@link EventJournal#NONE})
+	 * @param message Index of the message's ID (see
+	 * {@link #getMessageIndex(String)}) or {@link EventJournal#NONE}
+	 * @throws IOException if writing fails
+	 */
+	public void addEvent(double time, int type, int host1, int host2,
+			int message) throws IOException {
+		if (buffer.remaining() < EventJournal.RECORD_SIZE) {
+			flush();
+		}
+		buffer.putDouble(time);
+		buffer.putInt(type);
+		buffer.putInt(host1);
+		buffer.putInt(host2);
+		buffer.putInt(message);
+		nrofRecords++;
+	}
+
+	/**
+	 * Returns the number of events added so far
+	 * @return the number of events
+	 */
+	public long getNrofEvents() {
+		return this.nrofRecords;
+	}
+
+	/**
+	 * Writes the host and message tables and closes the file
+	 * @throws IOException if writing fails
+	 */
+	public void close() throws IOException {
+		ByteArrayOutputStream tableBytes = new ByteArrayOutputStream();
+		DataOutputStream tables = new DataOutputStream(tableBytes);
+		tables.writeInt(hostNames.size());
+		for (String name : hostNames) {
+			tables.writeUTF(name != null ? name : "");
+		}
+		tables.writeInt(messageIds.size());
+		for (String id : messageIds) {
+			tables.writeUTF(id);
+		}
+		tables.writeLong(EventJournal.HEADER_SIZE +
+				nrofRecords * EventJournal.RECORD_SIZE);
+		tables.flush();
+
+		flush();
+		channel.write(ByteBuffer.wrap(tableBytes.toByteArray()));
+		channel.close();
+	}
+
+	/**
+	 * Writes the contents of the buffer to the file
+	 */
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
@@ -36,7 +36,8 @@ public class ExternalEventsQueue implements EventQueue {
 	 * Creates a new Queue from a file
 	 * @param filePath Path to the file where the events are read from. If
 	 * file ends with extension defined in {@link BinaryEventsReader#BINARY_EXT}
-	 * the file is assumed to be a binary file.
+	 * the file is assumed to be a binary file. Files with the extension
+	 * {@link ContactTrace#TRACE_EXT} are replayed as connection events.
 	 * @param nrofPreload How many events to preload
 	 * @see BinaryEventsReader#BINARY_EXT
 	 * @see BinaryEventsReader#storeToBinaryFile(String, List)
@@ -80,6 +81,9 @@ public class ExternalEventsQueue implements EventQueue {
 		if (BinaryEventsReader.isBinaryEeFile(eventsFile)) {
 			this.reader = new BinaryEventsReader(eventsFile);
 		}
+		else if (ContactTrace.isContactTraceFile(eventsFile)) {
+			this.reader = new ContactTraceEventsReader(eventsFile);
+		}
 		else {
 			this.reader = new StandardEventsReader(eventsFile);
 		}
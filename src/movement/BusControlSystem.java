@@ -4,10 +4,12 @@
  */
 package movement;
 
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
+import java.util.TreeMap;
 
+import movement.map.MapNode;
 import movement.map.SimMap;
 import core.Coord;
 import core.DTNSim;
@@ -16,6 +18,14 @@ import core.DTNSim;
  * This class controls busses and passengers that can use the bus.
  * There can be many bus BusControlSystems, but a bus or passenger can only
  * belong to one system.
+ * <P>The stops of the system are given integer ids when the busses are set
+ * up (see {@link #setBusStops(List)} and {@link #registerStops(List)}).
+ * The travellers at each stop are kept in a queue, so a stopping bus only
+ * notifies the travellers at its stop. They are notified in the order of
+ * their IDs. For a single control system this is the same order as
+ * iterating over all the system's travellers in the (Integer keyed) hash
+ * map did earlier; with several systems, the travellers of a system don't
+ * have consecutive IDs and the old iteration order could differ.</P>
  *
  * @author Frans Ekman
  */
@@ -27,6 +37,12 @@ public class BusControlSystem {
 	private HashMap<Integer, BusMovement> busses;
 	private HashMap<Integer, BusTravellerMovement> travellers;
 	private List<Coord> busStops;
+	/** ids of the stops */
+	private HashMap<Coord, Integer> stopIds;
+	/** reused key for looking up stop ids by x and y */
+	private Coord stopKey = new Coord(0, 0);
+	/** travellers at each stop by stop id, in the order of traveller IDs */
+	private ArrayList<TreeMap<Integer, BusTravellerMovement>> stopQueues;
 
 	private SimMap simMap;
 
@@ -43,6 +59,8 @@ public class BusControlSystem {
 	private BusControlSystem(int systemID) {
 		busses = new HashMap<Integer, BusMovement>();
 		travellers = new HashMap<Integer, BusTravellerMovement>();
+		stopIds = new HashMap<Coord, Integer>();
+		stopQueues = new ArrayList<TreeMap<Integer, BusTravellerMovement>>();
 	}
 
 	public static void reset() {
@@ -58,23 +76,117 @@ public class BusControlSystem {
 	 * @param nextPath The path to the next stop
 	 */
 	public void busHasStopped(int busID, Coord busStop, Path nextPath) {
-		Iterator<BusTravellerMovement> iterator = travellers.values().
-			iterator();
-		while (iterator.hasNext()) {
-			BusTravellerMovement traveller = (BusTravellerMovement)iterator.
-				next();
-			if (traveller.getLocation() != null) {
-				if ((traveller.getLocation()).equals(busStop)) {
-					if (traveller.getState() == BusTravellerMovement.
-							STATE_WAITING_FOR_BUS) {
-						Path path = new Path(nextPath);
-						traveller.enterBus(path);
-					}
-				}
+		int stopId = getStopId(busStop);
+		if (stopId < 0) {
+			return; /* nobody can be waiting here */
+		}
+		int nextStopId = -1;
+		int nrofWaypoints = nextPath.getNrofWaypoints();
+		if (nrofWaypoints > 0) {
+			nextStopId = getStopId(nextPath.getX(nrofWaypoints - 1),
+					nextPath.getY(nrofWaypoints - 1));
+		}
+		busHasStopped(busID, stopId, nextStopId, nextPath);
+	}
+
+	/**
+	 * Called by busses belonging to this system every time the bus has stopped.
+	 * Calls the enterBus() method of the passengers waiting at the stop (in
+	 * the order of their IDs) so that the passengers can enter the bus if
+	 * they want to.
+	 * @param busID Unique identifier of the bus
+	 * @param stopId Id of the bus stop (see {@link #getStopId(Coord)})
+	 * @param nextStopId Id of the stop where the next path ends or -1 if
+	 * it doesn't end at a stop
+	 * @param nextPath The path to the next stop
+	 */
+	public void busHasStopped(int busID, int stopId, int nextStopId,
+			Path nextPath) {
+		if (stopId < 0) {
+			return;
+		}
+		for (BusTravellerMovement traveller : stopQueues.get(stopId).values()) {
+			if (traveller.getState() == BusTravellerMovement.
+					STATE_WAITING_FOR_BUS) {
+				Path path = new Path(nextPath);
+				traveller.enterBus(path, nextStopId);
 			}
 		}
 	}
 
+	/**
+	 * Returns the id of a stop
+	 * @param location Location of the stop
+	 * @return The stop's id or -1 if the location is not a stop of this
+	 * system
+	 */
+	public int getStopId(Coord location) {
+		Integer id = stopIds.get(location);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Returns the id of the stop at the given coordinates
+	 * @param x The x coordinate of the stop
+	 * @param y The y coordinate of the stop
+	 * @return The stop's id or -1 if the location is not a stop of this
+	 * system
+	 */
+	public int getStopId(double x, double y) {
+		stopKey.setLocation(x, y);
+		return getStopId(stopKey);
+	}
+
+	/**
+	 * Adds a stop to the system if it isn't there already
+	 * @param location Location of the stop
+	 * @return The stop's id
+	 */
+	private int addStop(Coord location) {
+		Integer id = stopIds.get(location);
+		if (id == null) {
+			id = stopQueues.size();
+			stopIds.put(location.clone(), id);
+			stopQueues.add(new TreeMap<Integer, BusTravellerMovement>());
+		}
+		return id;
+	}
+
+	/**
+	 * Adds the stops of a bus route to the system's stops (if they aren't
+	 * there already) and returns their ids
+	 * @param stops The stops of the route
+	 * @return The ids of the stops in the same order
+	 */
+	public int[] registerStops(List<MapNode> stops) {
+		int[] ids = new int[stops.size()];
+		for (int i=0; i<ids.length; i++) {
+			ids[i] = addStop(stops.get(i).getLocation());
+		}
+		return ids;
+	}
+
+	/**
+	 * Moves a traveller from a stop's queue to another's. Must be called
+	 * every time a traveller's location changes. Locations that aren't
+	 * stops (id -1) have no queue.
+	 * @param traveller The traveller
+	 * @param fromStopId Id of the previous location's stop or -1
+	 * @param toStopId Id of the new location's stop or -1
+	 */
+	void travellerMoved(BusTravellerMovement traveller, int fromStopId,
+			int toStopId) {
+		if (fromStopId == toStopId) {
+			return;
+		}
+		if (fromStopId >= 0) {
+			stopQueues.get(fromStopId).remove(traveller.getID());
+		}
+		if (toStopId >= 0) {
+			stopQueues.get(toStopId).put(traveller.getID(), traveller);
+		}
+	}
+
 	/**
 	 * Returns a reference to a BusControlSystem with ID provided as parameter.
 	 * If a system does not already exist with the requested ID, a new one is
@@ -134,11 +246,15 @@ public class BusControlSystem {
 	}
 
 	/**
-	 * Set the bus stops that belong to this system
+	 * Set the bus stops that belong to this system. The stops are also added
+	 * to the stops that have ids (see {@link #getStopId(Coord)}).
 	 * @param busStops
 	 */
 	public void setBusStops(List<Coord> busStops) {
 		this.busStops = busStops;
+		for (Coord c : busStops) {
+			addStop(c);
+		}
 	}
 
 }
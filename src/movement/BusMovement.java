@@ -24,6 +24,8 @@ public class BusMovement extends MapRouteMovement {
 	private static int nextID = 0;
 	private boolean startMode;
 	private List<Coord> stops;
+	/** ids of the route's stops in the control system */
+	private int[] stopIds;
 
 	/**
 	 * Creates a new instance of BusMovement
@@ -43,6 +45,7 @@ public class BusMovement extends MapRouteMovement {
 			stops.add(node.getLocation().clone());
 		}
 		controlSystem.setBusStops(stops);
+		this.stopIds = controlSystem.registerStops(stopNodes);
 	}
 
 	/**
@@ -55,6 +58,7 @@ public class BusMovement extends MapRouteMovement {
 		this.id = nextID++;
 		controlSystem.registerBus(this);
 		startMode = true;
+		this.stopIds = controlSystem.registerStops(getStops());
 	}
 
 	@Override
@@ -64,15 +68,25 @@ public class BusMovement extends MapRouteMovement {
 
 	@Override
 	public Path getPath() {
-		Coord lastLocation = (super.getLastLocation()).clone();
+		int stopIndex = getLastStopIndex();
 		Path path = super.getPath();
 		if (!startMode) {
-			controlSystem.busHasStopped(id, lastLocation, path);
+			controlSystem.busHasStopped(id, stopIds[stopIndex],
+					stopIds[getLastStopIndex()], path);
 		}
 		startMode = false;
 		return path;
 	}
 
+	/**
+	 * Returns false; the travellers are notified at the stops.
+	 * @return false
+	 */
+	@Override
+	public boolean canFastForward() {
+		return false;
+	}
+
 	@Override
 	public BusMovement replicate() {
 		return new BusMovement(this);
@@ -39,7 +39,12 @@ public class BusTravellerMovement extends MapBasedMovement implements
 	private int state;
 	private Path nextPath;
 	private Coord location;
+	/** stop id of the location or -1 if it isn't a stop (or isn't set) */
+	private int stopId = -1;
+	/** stop id of the end of the next path (when entering a bus) */
+	private int nextStopId = -1;
 	private Coord latestBusStop;
+	private int latestBusStopId;
 	private BusControlSystem controlSystem;
 	private int id;
 	private ContinueBusTripDecider cbtd;
@@ -49,6 +54,7 @@ public class BusTravellerMovement extends MapBasedMovement implements
 
 	private Coord startBusStop;
 	private Coord endBusStop;
+	private int endStopId;
 
 	private boolean takeBus;
 
@@ -85,12 +91,12 @@ public class BusTravellerMovement extends MapBasedMovement implements
 		super(proto);
 		state = proto.state;
 		controlSystem = proto.controlSystem;
-		if (proto.location != null) {
-			location = proto.location.clone();
-		}
 		nextPath = proto.nextPath;
 		id = nextID++;
 		controlSystem.registerTraveller(this);
+		if (proto.location != null) {
+			moveTo(proto.location.clone());
+		}
 		probabilities = proto.probabilities;
 		cbtd = new ContinueBusTripDecider(rng, probabilities);
 		pathFinder = proto.pathFinder;
@@ -104,11 +110,11 @@ public class BusTravellerMovement extends MapBasedMovement implements
 		MapNode[] mapNodes = (MapNode[])getMap().getNodes().
 			toArray(new MapNode[0]);
 		int index = rng.nextInt(mapNodes.length - 1);
-		location = mapNodes[index].getLocation().clone();
+		moveTo(mapNodes[index].getLocation().clone());
 
 		List<Coord> allStops = controlSystem.getBusStops();
 		Coord closestToNode = getClosestCoordinate(allStops, location.clone());
-		latestBusStop = closestToNode.clone();
+		setLatestBusStop(closestToNode);
 
 		return location.clone();
 	}
@@ -122,8 +128,9 @@ public class BusTravellerMovement extends MapBasedMovement implements
 			return null;
 		} else if (state == STATE_DECIDED_TO_ENTER_A_BUS) {
 			state = STATE_TRAVELLING_ON_BUS;
-			List<Coord> coords = nextPath.getCoords();
-			location = (coords.get(coords.size() - 1)).clone();
+			int last = nextPath.getNrofWaypoints() - 1;
+			moveTo(new Coord(nextPath.getX(last), nextPath.getY(last)),
+					nextStopId);
 			return nextPath;
 		} else if (state == STATE_WALKING_ELSEWHERE) {
 			// Try to find back to the bus stop
@@ -139,7 +146,7 @@ public class BusTravellerMovement extends MapBasedMovement implements
 			for (MapNode node : nodes) {
 				path.addWaypoint(node.getLocation());
 			}
-			location = latestBusStop.clone();
+			moveTo(latestBusStop.clone(), latestBusStopId);
 			return path;
 		}
 
@@ -162,6 +169,15 @@ public class BusTravellerMovement extends MapBasedMovement implements
 		return 0;
 	}
 
+	/**
+	 * Returns false; the movement depends on the busses.
+	 * @return false
+	 */
+	@Override
+	public boolean canFastForward() {
+		return false;
+	}
+
 	@Override
 	public MapBasedMovement replicate() {
 		return new BusTravellerMovement(this);
@@ -188,11 +204,25 @@ public class BusTravellerMovement extends MapBasedMovement implements
 	 * @param nextPath The next path the bus is going to take
 	 */
 	public void enterBus(Path nextPath) {
+		int last = nextPath.getNrofWaypoints() - 1;
+		enterBus(nextPath, controlSystem.getStopId(nextPath.getX(last),
+				nextPath.getY(last)));
+	}
+
+	/**
+	 * Notifies the node at the bus stop that a bus is there. Nodes inside
+	 * busses are also notified.
+	 * @param nextPath The next path the bus is going to take
+	 * @param nextStopId Id of the stop where the path ends (see
+	 * {@link BusControlSystem#getStopId(Coord)})
+	 */
+	public void enterBus(Path nextPath, int nextStopId) {
+		this.nextStopId = nextStopId;
 
 		if (startBusStop != null && endBusStop != null) {
-			if (location.equals(endBusStop)) {
+			if (stopId == endStopId) {
 				state = STATE_WALKING_ELSEWHERE;
-				latestBusStop = location.clone();
+				setLatestBusStop(location);
 			} else {
 				state = STATE_DECIDED_TO_ENTER_A_BUS;
 				this.nextPath = nextPath;
@@ -207,7 +237,7 @@ public class BusTravellerMovement extends MapBasedMovement implements
 			   for the next bus */
 			if (rng.nextDouble() > probTakeOtherBus) {
 				state = STATE_WALKING_ELSEWHERE;
-				latestBusStop = location.clone();
+				setLatestBusStop(location);
 			}
 		} else {
 			state = STATE_DECIDED_TO_ENTER_A_BUS;
@@ -322,7 +352,8 @@ public class BusTravellerMovement extends MapBasedMovement implements
 
 		this.startBusStop = closestToNode;
 		this.endBusStop = closestToDestination;
-		this.latestBusStop = startBusStop.clone();
+		this.endStopId = controlSystem.getStopId(closestToDestination);
+		setLatestBusStop(startBusStop);
 	}
 
 	/**
@@ -336,7 +367,38 @@ public class BusTravellerMovement extends MapBasedMovement implements
 	 * @see SwitchableMovement
 	 */
 	public void setLocation(Coord lastWaypoint) {
-		location = lastWaypoint.clone();
+		moveTo(lastWaypoint.clone());
+	}
+
+	/**
+	 * Sets the location and moves the traveller to the location's queue in
+	 * the control system
+	 * @param newLocation The new location (not cloned)
+	 */
+	private void moveTo(Coord newLocation) {
+		moveTo(newLocation, controlSystem.getStopId(newLocation));
+	}
+
+	/**
+	 * Sets the location whose stop id is already known and moves the
+	 * traveller to the location's queue in the control system
+	 * @param newLocation The new location (not cloned)
+	 * @param newStopId Stop id of the new location
+	 */
+	private void moveTo(Coord newLocation, int newStopId) {
+		controlSystem.travellerMoved(this, stopId, newStopId);
+		this.location = newLocation;
+		this.stopId = newStopId;
+	}
+
+	/**
+	 * Sets the bus stop where the traveller returns to (a clone of the
+	 * given location)
+	 * @param busStop The bus stop
+	 */
+	private void setLatestBusStop(Coord busStop) {
+		this.latestBusStop = busStop.clone();
+		this.latestBusStopId = controlSystem.getStopId(busStop);
 	}
 
 	/**
@@ -6,6 +6,7 @@ package movement;
 
 import java.util.List;
 
+import movement.map.CachingPathFinder;
 import movement.map.DijkstraPathFinder;
 import movement.map.MapNode;
 import core.Coord;
@@ -30,7 +31,11 @@ public class CarMovement extends MapBasedMovement implements
 	 */
 	public CarMovement(Settings settings) {
 		super(settings);
-		pathFinder = new DijkstraPathFinder(getOkMapNodeTypes());
+		if (settings.getBoolean(WorkingDayMovement.PLAN_AHEAD_S, false)) {
+			pathFinder = new CachingPathFinder(getOkMapNodeTypes());
+		} else {
+			pathFinder = new DijkstraPathFinder(getOkMapNodeTypes());
+		}
 	}
 
 	/**
@@ -52,6 +57,33 @@ public class CarMovement extends MapBasedMovement implements
 		to = nodeDestination.clone();
 	}
 
+	/**
+	 * Starts computing a route that will be taken later, if the paths are
+	 * planned ahead (see {@link WorkingDayMovement#PLAN_AHEAD_S}).
+	 * Otherwise does nothing.
+	 * @param nodeLocation Location where the route starts
+	 * @param nodeDestination Destination of the route
+	 */
+	public void planRoute(Coord nodeLocation, Coord nodeDestination) {
+		if (!(pathFinder instanceof CachingPathFinder)) {
+			return;
+		}
+		MapNode fromNode = getMap().getNodeByCoord(nodeLocation);
+		MapNode toNode = getMap().getNodeByCoord(nodeDestination);
+		if (fromNode != null && toNode != null) {
+			((CachingPathFinder)pathFinder).planPath(fromNode, toNode);
+		}
+	}
+
+	/**
+	 * Returns false; the routes are set by the controlling model.
+	 * @return false
+	 */
+	@Override
+	public boolean canFastForward() {
+		return false;
+	}
+
 	@Override
 	public Path getPath() {
 		Path path = new Path(generateSpeed());
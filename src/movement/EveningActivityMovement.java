@@ -222,6 +222,15 @@ public class EveningActivityMovement extends MapBasedMovement
 		}
 	}
 
+	/**
+	 * Returns false; the movement depends on the other members of the group.
+	 * @return false
+	 */
+	@Override
+	public boolean canFastForward() {
+		return false;
+	}
+
 	@Override
 	public MapBasedMovement replicate() {
 		return new EveningActivityMovement(this);
@@ -212,6 +212,15 @@ public class HomeActivityMovement extends MapBasedMovement
 		}
 	}
 
+	/**
+	 * Returns false; the wait times depend on the time of day.
+	 * @return false
+	 */
+	@Override
+	public boolean canFastForward() {
+		return false;
+	}
+
 	@Override
 	public MapBasedMovement replicate() {
 		return new HomeActivityMovement(this);
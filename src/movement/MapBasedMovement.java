@@ -396,6 +396,11 @@ public class MapBasedMovement extends MovementModel implements SwitchableMovemen
 		return cachedMap;
 	}
 
+	@Override
+	public boolean canFastForward() {
+		return isAlwaysActive();
+	}
+
 	@Override
 	public MapBasedMovement replicate() {
 		return new MapBasedMovement(this);
@@ -4,7 +4,9 @@
  */
 package movement;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import core.SettingsError;
 import movement.map.DijkstraPathFinder;
@@ -39,6 +41,8 @@ public class MapRouteMovement extends MapBasedMovement implements
 
 	/** the Dijkstra shortest path finder */
 	private DijkstraPathFinder pathFinder;
+	/** cached shortest paths between the stops (shared by the group) */
+	private Map<MapNode, Map<MapNode, Path>> routeLegs;
 
 	/** Prototype's reference to all routes read for the group */
 	private List<MapRoute> allRoutes = null;
@@ -61,6 +65,7 @@ public class MapRouteMovement extends MapBasedMovement implements
 		allRoutes = MapRoute.readRoutes(fileName, type, getMap());
 		nextRouteIndex = 0;
 		pathFinder = new DijkstraPathFinder(getOkMapNodeTypes());
+		routeLegs = new HashMap<MapNode, Map<MapNode, Path>>();
 		this.route = this.allRoutes.get(this.nextRouteIndex).replicate();
 		if (this.nextRouteIndex >= this.allRoutes.size()) {
 			this.nextRouteIndex = 0;
@@ -95,6 +100,7 @@ public class MapRouteMovement extends MapBasedMovement implements
 		}
 
 		this.pathFinder = proto.pathFinder;
+		this.routeLegs = proto.routeLegs;
 
 		proto.nextRouteIndex++; // give routes in order
 		if (proto.nextRouteIndex >= proto.allRoutes.size()) {
@@ -104,22 +110,47 @@ public class MapRouteMovement extends MapBasedMovement implements
 
 	@Override
 	public Path getPath() {
-		Path p = new Path(generateSpeed());
+		double speed = generateSpeed();
 		MapNode to = route.nextStop();
 
-		List<MapNode> nodePath = pathFinder.getShortestPath(lastMapNode, to);
+		/* the path shares the waypoints of the cached leg */
+		Path leg = getRouteLeg(lastMapNode, to);
+		lastMapNode = to;
+
+		return new Path(leg, 0, leg.getNrofWaypoints(), speed);
+	}
+
+	/**
+	 * Returns the shortest path between two stops. The path is computed
+	 * only once for every pair of stops.
+	 * @param from The stop where the path starts
+	 * @param to The stop where the path ends
+	 * @return The shortest path (with zero speed)
+	 */
+	private Path getRouteLeg(MapNode from, MapNode to) {
+		Map<MapNode, Path> legs = routeLegs.get(from);
+		if (legs == null) {
+			legs = new HashMap<MapNode, Path>();
+			routeLegs.put(from, legs);
+		}
+		Path leg = legs.get(to);
+		if (leg != null) {
+			return leg;
+		}
+
+		List<MapNode> nodePath = pathFinder.getShortestPath(from, to);
 
 		// this assertion should never fire if the map is checked in read phase
-		assert nodePath.size() > 0 : "No path from " + lastMapNode + " to " +
+		assert nodePath.size() > 0 : "No path from " + from + " to " +
 			to + ". The simulation map isn't fully connected";
 
+		leg = new Path(0);
 		for (MapNode node : nodePath) { // create a Path from the shortest path
-			p.addWaypoint(node.getLocation());
+			leg.addWaypoint(node.getLocation());
 		}
+		legs.put(to, leg);
 
-		lastMapNode = to;
-
-		return p;
+		return leg;
 	}
 
 	/**
@@ -156,4 +187,14 @@ public class MapRouteMovement extends MapBasedMovement implements
 	public List<MapNode> getStops() {
 		return route.getStops();
 	}
+
+	/**
+	 * Returns the index of the stop where the last path ended (or the
+	 * initial stop)
+	 * @return Index of the stop in the list of stops (see
+	 * {@link #getStops()}) or -1 if there is no such stop yet
+	 */
+	protected int getLastStopIndex() {
+		return route.getLastStopIndex();
+	}
 }
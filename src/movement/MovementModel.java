@@ -44,6 +44,15 @@ public abstract class MovementModel {
 	public static final String WORLD_SIZE = "worldSize";
 	/** movement models' rng seed -setting id ({@value})*/
 	public static final String RNG_SEED = "rngSeed";
+	/**
+	 * Fast-forward warm-up -setting id ({@value}). Boolean (true/false)
+	 * variable. If true, the hosts whose movement models support it (see
+	 * {@link #canFastForward()}) are moved through the warm-up period
+	 * analytically instead of in update interval steps. The warm-up is then
+	 * faster, but the hosts' states after the warm-up differ from the stepped
+	 * warm-up. Default = false.
+	 */
+	public static final String WARMUP_FAST_FORWARD_S = "warmupFastForward";
 
 	/** common rng for all movement models in the simulation */
 	protected static Random rng;
@@ -232,6 +241,29 @@ public abstract class MovementModel {
 		return ah.isActive();
 	}
 
+	/**
+	 * Returns true if the model's host can be fast-forwarded, i.e., moved
+	 * analytically path by path instead of in update interval steps (see
+	 * {@link core.DTNHost#fastForward(double)}). Fast-forwarding is possible
+	 * if the paths and wait times don't depend on other hosts or on the
+	 * update interval, and the model always gives a path or a positive wait
+	 * time when asked. The default implementation returns false; models
+	 * fulfilling the requirements should override this method.
+	 * @return true if the movement can be fast-forwarded
+	 */
+	public boolean canFastForward() {
+		return false;
+	}
+
+	/**
+	 * Returns true if the model is active all the time (no active times or
+	 * periods are defined)
+	 * @return true if the model is always active
+	 */
+	protected boolean isAlwaysActive() {
+		return ah.isAlwaysActive();
+	}
+
 	/**
 	 * Returns a sim time when the next path is available. This implementation
 	 * returns a random time in future that is {@link #WAIT_TIME} from now.
@@ -247,6 +247,15 @@ public class OfficeActivityMovement extends MapBasedMovement implements
 		return waitTime;
 	}
 
+	/**
+	 * Returns false; the wait times depend on the time of day.
+	 * @return false
+	 */
+	@Override
+	public boolean canFastForward() {
+		return false;
+	}
+
 	@Override
 	public MapBasedMovement replicate() {
 		return new OfficeActivityMovement(this);
@@ -4,19 +4,44 @@
  */
 package movement;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
 
 import core.Coord;
 
 /**
- * A Path between multiple Coordinates.
+ * A Path between multiple Coordinates. The waypoints and speeds are stored
+ * in primitive arrays. The arrays can be shared between paths (see
+ * {@link #Path(Path)} and {@link #Path(Path, int, int, double)}); a path
+ * copies the arrays before modifying shared ones.
+ * <p>
+ * Since the path doesn't store Coord objects, the list returned by
+ * {@link #getCoords()} is a read-only view: modifying the list throws an
+ * {@link UnsupportedOperationException}, and every
+ * {@link List#get(int)} creates a new Coord whose changes are not
+ * reflected to the path. The same applies to {@link #getNextWaypoint()}.
+ * Code that is called often should use {@link #getNrofWaypoints()} with
+ * {@link #getX(int)} and {@link #getY(int)}, and
+ * {@link #getNextWaypoint(Coord)}, which don't create new objects.
+ * </p>
  */
 public class Path  {
-	/** coordinates of the path */
-	private List<Coord> coords;
+	private static final int DEF_CAPACITY = 8;
+	private static final double[] NO_VALUES = new double[0];
+
+	/** x and y coordinates of the waypoints */
+	private double[] xs;
+	private double[] ys;
+	/** index of the first waypoint of this path in the coordinate arrays */
+	private int start;
+	/** number of waypoints */
+	private int size;
 	/** speeds in the path legs */
-	private List<Double> speeds;
+	private double[] speeds;
+	private int nrofSpeeds;
+	/** true if the arrays may be used by other paths too */
+	private boolean shared;
 	private int nextWpIndex;
 
 	/**
@@ -24,19 +49,49 @@ public class Path  {
 	 */
 	public Path() {
 		this.nextWpIndex = 0;
-		this.coords = new ArrayList<Coord>();
-		this.speeds = new ArrayList<Double>(1);
+		this.xs = NO_VALUES;
+		this.ys = NO_VALUES;
+		this.speeds = NO_VALUES;
 	}
 
 	/**
-	 * Copy constructor. Creates a copy of this path with a shallow copy of
-	 * the coordinates and speeds.
+	 * Copy constructor. Creates a copy of this path that shares the
+	 * coordinates and speeds with the original path until either of them is
+	 * modified.
 	 * @param path The path to create the copy from
 	 */
 	public Path(Path path) {
 		this.nextWpIndex = path.nextWpIndex;
-		this.coords = new ArrayList<Coord>((ArrayList<Coord>)path.coords);
-		this.speeds = new ArrayList<Double>((ArrayList<Double>)path.speeds);
+		this.xs = path.xs;
+		this.ys = path.ys;
+		this.start = path.start;
+		this.size = path.size;
+		this.speeds = path.speeds;
+		this.nrofSpeeds = path.nrofSpeeds;
+		this.shared = true;
+		path.shared = true;
+	}
+
+	/**
+	 * Creates a path with constant speed that shares a slice of another
+	 * path's waypoints (e.g., a leg of a cached route). The waypoints are
+	 * not copied unless either of the paths is modified.
+	 * @param path The path whose waypoints are used
+	 * @param from Index of the first waypoint of the slice
+	 * @param to Index after the last waypoint of the slice
+	 * @param speed The speed on the path
+	 */
+	public Path(Path path, int from, int to, double speed) {
+		assert from >= 0 && from <= to && to <= path.size : "Invalid slice " +
+			from + "-" + to + " of a path with " + path.size + " waypoints";
+		this.nextWpIndex = 0;
+		this.xs = path.xs;
+		this.ys = path.ys;
+		this.start = path.start + from;
+		this.size = to - from;
+		this.shared = true;
+		path.shared = true;
+		setSpeed(speed);
 	}
 
 	/**
@@ -53,16 +108,57 @@ public class Path  {
 	 * is discarded.
 	 */
 	public void setSpeed(double speed) {
-		this.speeds = new ArrayList<Double>(1);
-		speeds.add(speed);
+		this.speeds = new double[] {speed};
+		this.nrofSpeeds = 1;
 	}
 
 	/**
-	 * Returns a reference to the coordinates of this path
+	 * Returns the coordinates of this path. The returned list is a
+	 * read-only view of the path's waypoints and each returned Coord is a
+	 * new copy of the waypoint.
 	 * @return coordinates of the path
 	 */
 	public List<Coord> getCoords() {
-		return this.coords;
+		return new AbstractList<Coord>() {
+			@Override
+			public Coord get(int index) {
+				checkIndex(index, size);
+				return new Coord(xs[start + index], ys[start + index]);
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	/**
+	 * Returns the number of waypoints on this path
+	 * @return the number of waypoints
+	 */
+	public int getNrofWaypoints() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the x coordinate of a waypoint
+	 * @param index Index of the waypoint
+	 * @return the x coordinate of the waypoint
+	 */
+	public double getX(int index) {
+		checkIndex(index, size);
+		return xs[start + index];
+	}
+
+	/**
+	 * Returns the y coordinate of a waypoint
+	 * @param index Index of the waypoint
+	 * @return the y coordinate of the waypoint
+	 */
+	public double getY(int index) {
+		checkIndex(index, size);
+		return ys[start + index];
 	}
 
 	/**
@@ -70,9 +166,9 @@ public class Path  {
 	 * @param wp The waypoint to add
 	 */
 	public void addWaypoint(Coord wp) {
-		assert this.speeds.size() <= 1 : "This method should be used only for" +
+		assert this.nrofSpeeds <= 1 : "This method should be used only for" +
 			" paths with constant speed";
-		this.coords.add(wp);
+		addCoord(wp.getX(), wp.getY());
 	}
 
 	/**
@@ -81,17 +177,51 @@ public class Path  {
 	 * @param speed The speed towards that waypoint
 	 */
 	public void addWaypoint(Coord wp, double speed) {
-		this.coords.add(wp);
-		this.speeds.add(speed);
+		addCoord(wp.getX(), wp.getY());
+		if (nrofSpeeds == speeds.length) {
+			speeds = Arrays.copyOf(speeds, Math.max(DEF_CAPACITY,
+					speeds.length * 2));
+		}
+		speeds[nrofSpeeds++] = speed;
+	}
+
+	private void addCoord(double x, double y) {
+		if (shared || start + size == xs.length) {
+			/* make room (and an own copy of shared arrays) */
+			int capacity = Math.max(DEF_CAPACITY, size * 2);
+			xs = Arrays.copyOfRange(xs, start, start + capacity);
+			ys = Arrays.copyOfRange(ys, start, start + capacity);
+			start = 0;
+			if (shared) {
+				speeds = Arrays.copyOf(speeds, Math.max(nrofSpeeds,
+						DEF_CAPACITY));
+				shared = false;
+			}
+		}
+		xs[start + size] = x;
+		ys[start + size] = y;
+		size++;
 	}
 
 	/**
 	 * Returns the next waypoint on this path
-	 * @return the next waypoint
+	 * @return A new Coord with the location of the next waypoint
 	 */
 	public Coord getNextWaypoint() {
+		Coord wp = new Coord(0, 0);
+		getNextWaypoint(wp);
+		return wp;
+	}
+
+	/**
+	 * Moves to the next waypoint on this path and sets its location to the
+	 * given coordinate.
+	 * @param wp The coordinate to set
+	 */
+	public void getNextWaypoint(Coord wp) {
 		assert hasNext() : "Path didn't have " + (nextWpIndex+1) + ". waypoint";
-		return coords.get(nextWpIndex++);
+		int i = start + nextWpIndex++;
+		wp.setLocation(xs[i], ys[i]);
 	}
 
 	/**
@@ -99,7 +229,7 @@ public class Path  {
 	 * @return true if the path has more waypoints, false if not
 	 */
 	public boolean hasNext() {
-		return nextWpIndex < this.coords.size();
+		return nextWpIndex < this.size;
 	}
 
 	/**
@@ -108,14 +238,14 @@ public class Path  {
 	 * @return the speed towards the next waypoint
 	 */
 	public double getSpeed() {
-		assert speeds.size() != 0 : "No speed set";
+		assert nrofSpeeds != 0 : "No speed set";
 		assert nextWpIndex != 0 : "No waypoint asked";
 
-		if (speeds.size() == 1) {
-			return speeds.get(0);
+		if (nrofSpeeds == 1) {
+			return speeds[0];
 		}
 		else {
-			return speeds.get(nextWpIndex-1);
+			return speeds[nextWpIndex-1];
 		}
 	}
 
@@ -124,18 +254,40 @@ public class Path  {
 	 * @return Path as a string
 	 */
 	public String toString() {
-		String s ="";
-		for (int i=0, n=coords.size(); i<n; i++) {
-			Coord c = coords.get(i);
-			s+= "->" + c;
-			if (speeds.size() > 1) {
-				s += String.format("@%.2f ",speeds.get(i));
+		StringBuilder s = new StringBuilder();
+		for (int i=0; i<size; i++) {
+			s.append("->").append(new Coord(xs[start + i], ys[start + i]));
+			if (nrofSpeeds > 1) {
+				s.append(String.format("@%.2f ",speeds[i]));
 			}
 		}
-		return s;
+		return s.toString();
 	}
 
+	/**
+	 * Returns the speeds of the path legs. The returned list is a read-only
+	 * view of the path's speeds.
+	 * @return the speeds
+	 */
 	public List<Double> getSpeeds() {
-		return this.speeds;
+		return new AbstractList<Double>() {
+			@Override
+			public Double get(int index) {
+				checkIndex(index, nrofSpeeds);
+				return speeds[index];
+			}
+
+			@Override
+			public int size() {
+				return nrofSpeeds;
+			}
+		};
+	}
+
+	private static void checkIndex(int index, int size) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index +
+					", Size: " + size);
+		}
 	}
 }
@@ -58,6 +58,11 @@ extends MovementModel {
         return c;
     }
 
+    @Override
+    public boolean canFastForward() {
+        return isAlwaysActive();
+    }
+
     @Override
     public MovementModel replicate() {
         return new RandomDirection( this );
@@ -62,6 +62,11 @@ public class StationaryMovement extends MovementModel {
 		return Double.MAX_VALUE;	// no new paths available
 	}
 
+	@Override
+	public boolean canFastForward() {
+		return isAlwaysActive();
+	}
+
 	@Override
 	public StationaryMovement replicate() {
 		return new StationaryMovement(this);
@@ -21,6 +21,15 @@ public class WorkingDayMovement extends ExtendedMovementModel {
 	public static final String PROBABILITY_TO_OWN_CAR_SETTING = "ownCarProb";
 	public static final String PROBABILITY_TO_GO_SHOPPING_SETTING =
 		"probGoShoppingAfterWork";
+	/**
+	 * Plan-ahead -setting id ({@value}). Boolean (true/false) variable. If
+	 * true, the car drivers' routes between home and office are computed in
+	 * background threads when the nodes are created and kept for the later
+	 * commutes (see {@link CarMovement#planRoute(Coord, Coord)}). Other paths
+	 * are computed when they are needed. The movement is the same as without
+	 * planning. Default = false.
+	 */
+	public static final String PLAN_AHEAD_S = "planAhead";
 
 	private BusTravellerMovement busTravellerMM;
 	private OfficeActivityMovement workerMM;
@@ -90,6 +99,14 @@ public class WorkingDayMovement extends ExtendedMovementModel {
 
 		setCurrentMovementModel(homeMM);
 		mode = proto.mode;
+
+		if (movementUsedForTransfers == carMM) {
+			/* daily commute (no-op unless the paths are planned ahead) */
+			carMM.planRoute(homeMM.getHomeLocation(),
+					workerMM.getOfficeLocation());
+			carMM.planRoute(workerMM.getOfficeLocation(),
+					homeMM.getHomeLocation());
+		}
 	}
 
 	@Override
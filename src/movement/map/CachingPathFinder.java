@@ -0,0 +1,158 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package movement.map;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+import core.DTNSim;
+import core.SimError;
+
+/**
+ * Shortest path finder that can compute paths ahead. Paths that are known to
+ * be needed later (and possibly many times, like the daily commutes of the
+ * working day movement model) can be planned with
+ * {@link #planPath(MapNode, MapNode)}; they are then computed in background
+ * threads and kept for all the later requests of the same path, which wait
+ * for the computation to finish, if needed. All the other paths are computed
+ * on request and not stored, so the memory use depends only on the number of
+ * planned paths. Since the shortest path depends only on the end nodes and
+ * the allowed node types, the paths are the same as the ones computed by
+ * {@link DijkstraPathFinder}.
+ */
+public class CachingPathFinder extends DijkstraPathFinder {
+	/** threads computing the planned paths (shared by all finders) */
+	private static ExecutorService planner;
+
+	static {
+		DTNSim.registerForReset(CachingPathFinder.class.getCanonicalName());
+		reset();
+	}
+
+	private int[] okMapNodes;
+	/** planned paths by source and destination nodes */
+	private ConcurrentHashMap<MapNode,
+		ConcurrentHashMap<MapNode, FutureTask<List<MapNode>>>> paths;
+
+	/**
+	 * Constructor.
+	 * @param okMapNodes The map node types that are OK for paths or null if
+	 * all nodes are OK
+	 */
+	public CachingPathFinder(int [] okMapNodes) {
+		super(okMapNodes);
+		this.okMapNodes = okMapNodes;
+		this.paths = new ConcurrentHashMap<MapNode,
+			ConcurrentHashMap<MapNode, FutureTask<List<MapNode>>>>();
+	}
+
+	/**
+	 * Stops the planner threads. Paths that were planned but not computed
+	 * are computed when they are requested.
+	 */
+	public static synchronized void reset() {
+		if (planner != null) {
+			planner.shutdownNow();
+			planner = null;
+		}
+	}
+
+	/**
+	 * Returns a shortest path between two map nodes. A planned path is
+	 * returned from the store (in an unmodifiable list) and other paths are
+	 * computed.
+	 * @param from The source of the path
+	 * @param to The destination of the path
+	 * @return a shortest path between the source and destination nodes in
+	 * a list of MapNodes or an empty list if such path is not available
+	 */
+	@Override
+	public List<MapNode> getShortestPath(MapNode from, MapNode to) {
+		ConcurrentHashMap<MapNode, FutureTask<List<MapNode>>> toPaths =
+			paths.get(from);
+		FutureTask<List<MapNode>> task = (toPaths != null ?
+				toPaths.get(to) : null);
+		if (task == null) {
+			return super.getShortestPath(from, to);
+		}
+		task.run(); /* no-op if already computed or being computed */
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			throw new SimError("Interrupted while waiting for path from " +
+					from + " to " + to);
+		} catch (ExecutionException e) {
+			throw new SimError(e);
+		}
+	}
+
+	/**
+	 * Starts computing a shortest path in the background, unless the path
+	 * has already been planned. The path is kept for all the later requests.
+	 * @param from The source of the path
+	 * @param to The destination of the path
+	 */
+	public void planPath(MapNode from, MapNode to) {
+		ConcurrentHashMap<MapNode, FutureTask<List<MapNode>>> toPaths =
+			getPathsFrom(from);
+		if (toPaths.containsKey(to)) {
+			return;
+		}
+		FutureTask<List<MapNode>> task = createTask(from, to);
+		if (toPaths.putIfAbsent(to, task) == null) {
+			getPlanner().execute(task);
+		}
+	}
+
+	private ConcurrentHashMap<MapNode, FutureTask<List<MapNode>>>
+			getPathsFrom(MapNode from) {
+		ConcurrentHashMap<MapNode, FutureTask<List<MapNode>>> toPaths =
+			paths.get(from);
+		if (toPaths == null) {
+			toPaths = new ConcurrentHashMap<MapNode,
+				FutureTask<List<MapNode>>>();
+			ConcurrentHashMap<MapNode, FutureTask<List<MapNode>>> old =
+				paths.putIfAbsent(from, toPaths);
+			if (old != null) {
+				toPaths = old;
+			}
+		}
+		return toPaths;
+	}
+
+	private FutureTask<List<MapNode>> createTask(final MapNode from,
+			final MapNode to) {
+		return new FutureTask<List<MapNode>>(new Callable<List<MapNode>>() {
+			public List<MapNode> call() {
+				/* a new finder for each path; the finders aren't thread safe */
+				DijkstraPathFinder finder = new DijkstraPathFinder(okMapNodes);
+				return Collections.unmodifiableList(
+						finder.getShortestPath(from, to));
+			}
+		});
+	}
+
+	private static synchronized ExecutorService getPlanner() {
+		if (planner == null) {
+			planner = Executors.newFixedThreadPool(
+					Runtime.getRuntime().availableProcessors(),
+					new ThreadFactory() {
+						public Thread newThread(Runnable r) {
+							Thread t = new Thread(r, "PathPlanner");
+							t.setDaemon(true);
+							return t;
+						}
+					});
+		}
+		return planner;
+	}
+}
@@ -31,6 +31,7 @@ public class MapRoute {
 	private List<MapNode> stops;
 	private int type; // type of the route
 	private int index; // index of the previous returned map node
+	private int lastIndex; // index of the map node returned last
 	private boolean comingBack;
 
 	/**
@@ -43,6 +44,7 @@ public class MapRoute {
 		this.type = type;
 		this.stops = stops;
 		this.index = 0;
+		this.lastIndex = -1;
 		this.comingBack = false;
 	}
 
@@ -76,6 +78,7 @@ public class MapRoute {
 	 */
 	public MapNode nextStop() {
 		MapNode next = stops.get(index);
+		lastIndex = index;
 
 		if (comingBack) {
 			index--; // ping-pong coming back
@@ -102,6 +105,15 @@ public class MapRoute {
 		return next;
 	}
 
+	/**
+	 * Returns the index of the stop {@link #nextStop()} returned last
+	 * @return the index of the last returned stop in the list of stops or
+	 * -1 if no stop has been returned yet
+	 */
+	public int getLastStopIndex() {
+		return lastIndex;
+	}
+
 	/**
 	 * Returns a new route with the same settings
 	 * @return a replicate of this route
@@ -25,7 +25,8 @@ import core.Settings;
 import core.SimClock;
 import core.UpdateListener;
 
-public class BufferOccupancyReport extends Report implements UpdateListener {
+public class BufferOccupancyReport extends Report implements UpdateListener,
+	HostMetricSampler.Subscriber {
 
 	/**
 	 * Record occupancy every nth second -setting id ({@value}).
@@ -55,32 +56,40 @@ public class BufferOccupancyReport extends Report implements UpdateListener {
 		if (interval < 0) { /* not found or invalid value -> use default */
 			interval = DEFAULT_BUFFER_REPORT_INTERVAL;
 		}
+
+		HostMetricSampler.getInstance().subscribe(this,
+				HostMetricSampler.BUFFER_OCCUPANCY);
 	}
 
 	public void updated(List<DTNHost> hosts) {
-		if (SimClock.getTime() - lastRecord >= interval) {
-			lastRecord = SimClock.getTime();
-			printLine(hosts);
-		}
+		HostMetricSampler.getInstance().updated(hosts);
+	}
+
+	public boolean isSampleDue(double simTime) {
+		return simTime - lastRecord >= interval;
+	}
+
+	public void sampled(HostMetricSampler sampler) {
+		lastRecord = SimClock.getTime();
+		printLine(sampler.getValues(HostMetricSampler.BUFFER_OCCUPANCY));
 	}
 
 	/**
 	 * Prints a snapshot of the average buffer occupancy
-	 * @param hosts The list of hosts in the simulation
+	 * @param occupancies The buffer occupancies of all the hosts
 	 */
-	private void printLine(List<DTNHost> hosts) {
+	private void printLine(double[] occupancies) {
 		double bufferOccupancy = 0.0;
 		double bo2 = 0.0;
 
-		for (DTNHost h : hosts) {
-			double tmp = h.getBufferOccupancy();
+		for (double tmp : occupancies) {
 			tmp = (tmp<=100.0)?(tmp):(100.0);
 			bufferOccupancy += tmp;
 			bo2 += (tmp*tmp)/100.0;
 		}
 
-		double E_X = bufferOccupancy / hosts.size();
-		double Var_X = bo2 / hosts.size() - (E_X*E_X)/100.0;
+		double E_X = bufferOccupancy / occupancies.length;
+		double Var_X = bo2 / occupancies.length - (E_X*E_X)/100.0;
 
 		String output = format(SimClock.getTime()) + " " + format(E_X) + " " +
 			format(Var_X);
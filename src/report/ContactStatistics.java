@@ -0,0 +1,235 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package report;
+
+import util.SparsePairTable;
+
+/**
+ * Contact statistics engine for the contact time reports. Keeps track of the
+ * contacts that are up (and of the time since the previous contact of host
+ * pairs that are not in contact) in primitive maps keyed by the packed
+ * address pair (see {@link SparsePairTable#unordered(int, int)}), and
+ * records the durations to histograms. Contact and inter-contact times are
+ * recorded only if the engine has a histogram for them, so one engine can
+ * produce both distributions from the same connection events.
+ */
+public class ContactStatistics {
+	private DurationHistogram contactTimes;
+	private DurationHistogram interContactTimes;
+
+	/** start times of the contacts that are up */
+	private PairTimes up;
+	/** end times of the previous contacts of pairs that are not in contact */
+	private PairTimes down;
+	/** sum of the start times of the contacts that are up */
+	private double upStartSum;
+	/** compensation for the rounding errors of upStartSum */
+	private double upStartError;
+
+	/**
+	 * Constructor.
+	 * @param contactTimes Histogram for contact times (or null if contact
+	 * times are not recorded)
+	 * @param interContactTimes Histogram for inter-contact times (or null if
+	 * inter-contact times are not recorded)
+	 */
+	public ContactStatistics(DurationHistogram contactTimes,
+			DurationHistogram interContactTimes) {
+		this.contactTimes = contactTimes;
+		this.interContactTimes = interContactTimes;
+		this.up = new PairTimes();
+		this.down = (interContactTimes != null ? new PairTimes() : null);
+	}
+
+	/**
+	 * Processes a connection up event. Records the inter-contact time if the
+	 * end of the pair's previous contact was recorded, and starts the
+	 * contact if requested.
+	 * @param a Address of one of the hosts
+	 * @param b Address of the other host
+	 * @param time Time of the event
+	 * @param startContact If true, the contact's duration is recorded when
+	 * it ends
+	 * @return The inter-contact time that was recorded, or -1 if none was
+	 */
+	public double connected(int a, int b, double time, boolean startContact) {
+		long key = SparsePairTable.unordered(a, b);
+		double interContactTime = -1;
+		if (down != null && down.contains(key)) {
+			interContactTime = time - down.remove(key);
+			interContactTimes.add(interContactTime);
+		}
+		if (startContact && contactTimes != null) {
+			if (up.contains(key)) { /* shouldn't happen; restart the contact */
+				addToStartSum(-up.remove(key));
+			}
+			up.put(key, time);
+			addToStartSum(time);
+		}
+		return interContactTime;
+	}
+
+	/**
+	 * Processes a connection down event. Records the contact time if the
+	 * contact was started, and starts counting the inter-contact time if
+	 * requested.
+	 * @param a Address of one of the hosts
+	 * @param b Address of the other host
+	 * @param time Time of the event
+	 * @param startInterContact If true, the time until the pair's next
+	 * contact is recorded
+	 * @return The contact time that was recorded, or -1 if none was
+	 */
+	public double disconnected(int a, int b, double time,
+			boolean startInterContact) {
+		long key = SparsePairTable.unordered(a, b);
+		double contactTime = -1;
+		if (up.contains(key)) {
+			double start = up.remove(key);
+			addToStartSum(-start);
+			contactTime = time - start;
+			contactTimes.add(contactTime);
+		}
+		if (startInterContact && down != null) {
+			down.put(key, time);
+		}
+		return contactTime;
+	}
+
+	/**
+	 * Returns true if the contact of a host pair is up and its duration will
+	 * be recorded
+	 * @param a Address of one of the hosts
+	 * @param b Address of the other host
+	 * @return True if the contact is up
+	 */
+	public boolean isUp(int a, int b) {
+		return up.contains(SparsePairTable.unordered(a, b));
+	}
+
+	/**
+	 * Returns true if the time until the next contact of a host pair will be
+	 * recorded
+	 * @param a Address of one of the hosts
+	 * @param b Address of the other host
+	 * @return True if the inter-contact time is being counted
+	 */
+	public boolean isDown(int a, int b) {
+		return down != null && down.contains(SparsePairTable.unordered(a, b));
+	}
+
+	/**
+	 * Returns the number of recorded contacts that are up
+	 * @return The number of contacts
+	 */
+	public int getNrofOpenContacts() {
+		return up.size();
+	}
+
+	/**
+	 * Returns the total time the recorded contacts that are still up have
+	 * lasted so far
+	 * @param time The current time
+	 * @return The sum of the open contacts' durations
+	 */
+	public double getOpenContactTime(double time) {
+		if (up.size() == 0) {
+			upStartSum = 0; /* no accumulated rounding errors */
+			upStartError = 0;
+			return 0;
+		}
+		return up.size() * time - (upStartSum + upStartError);
+	}
+
+	/**
+	 * Adds a value to the sum of the start times using compensated
+	 * (Kahan-Babuska) summation so that the rounding errors don't accumulate
+	 * over long runs of contacts going up and down.
+	 * @param value The value to add
+	 */
+	private void addToStartSum(double value) {
+		double sum = upStartSum + value;
+		if (Math.abs(upStartSum) >= Math.abs(value)) {
+			upStartError += (upStartSum - sum) + value;
+		} else {
+			upStartError += (value - sum) + upStartSum;
+		}
+		upStartSum = sum;
+	}
+
+	/**
+	 * Returns the contact time histogram
+	 * @return The histogram (or null)
+	 */
+	public DurationHistogram getContactTimes() {
+		return this.contactTimes;
+	}
+
+	/**
+	 * Returns the inter-contact time histogram
+	 * @return The histogram (or null)
+	 */
+	public DurationHistogram getInterContactTimes() {
+		return this.interContactTimes;
+	}
+
+	/**
+	 * Times of host pairs, stored in an array that is indexed by a
+	 * {@link SparsePairTable}
+	 */
+	private static class PairTimes {
+		private SparsePairTable index;
+		private double[] times;
+		/** unused indexes of times */
+		private int[] free;
+		private int nrofFree;
+		private int nrofUsed;
+
+		public PairTimes() {
+			this.index = new SparsePairTable();
+			this.times = new double[64];
+			this.free = new int[64];
+		}
+
+		public boolean contains(long key) {
+			return index.contains(key);
+		}
+
+		public int size() {
+			return index.size();
+		}
+
+		public void put(long key, double time) {
+			int i;
+			if (index.contains(key)) {
+				i = index.get(key);
+			} else {
+				if (nrofFree > 0) {
+					i = free[--nrofFree];
+				} else {
+					if (nrofUsed == times.length) {
+						double[] bigger = new double[nrofUsed * 2];
+						System.arraycopy(times, 0, bigger, 0, nrofUsed);
+						times = bigger;
+					}
+					i = nrofUsed++;
+				}
+				index.put(key, i);
+			}
+			times[i] = time;
+		}
+
+		public double remove(long key) {
+			int i = index.remove(key);
+			if (nrofFree == free.length) {
+				int[] bigger = new int[nrofFree * 2];
+				System.arraycopy(free, 0, bigger, 0, nrofFree);
+				free = bigger;
+			}
+			free[nrofFree++] = i;
+			return times[i];
+		}
+	}
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package report;
+
+import core.DTNHost;
+
+/**
+ * Reports both the contact time and the inter-contact time distributions
+ * (see {@link ContactTimesReport} and {@link InterContactTimesReport})
+ * using a single {@link ContactStatistics} engine. The report file has
+ * the two distributions one after another, each preceded by a comment
+ * line. Supports the settings of {@link ContactTimesReport}. Contacts that
+ * start, and inter-contact times that start, during the warm up period are
+ * ignored.
+ */
+public class ContactStatisticsReport extends ContactTimesReport {
+	/** Header of the contact time distribution */
+	public static final String CONTACT_TIMES_HEADER = "# contact times";
+	/** Header of the inter-contact time distribution */
+	public static final String INTER_CONTACT_TIMES_HEADER =
+		"# inter-contact times";
+
+	@Override
+	protected void init() {
+		super.init();
+		this.stats = new ContactStatistics(createHistogram(),
+				createHistogram());
+	}
+
+	@Override
+	public void hostsConnected(DTNHost host1, DTNHost host2) {
+		newEvent();
+		stats.connected(host1.getAddress(), host2.getAddress(), getSimTime(),
+				!isWarmup());
+	}
+
+	@Override
+	public void hostsDisconnected(DTNHost host1, DTNHost host2) {
+		newEvent();
+		stats.disconnected(host1.getAddress(), host2.getAddress(),
+				getSimTime(), !isWarmup());
+	}
+
+	@Override
+	protected void writeResults() {
+		write(CONTACT_TIMES_HEADER);
+		writeHistogram(stats.getContactTimes());
+		write(INTER_CONTACT_TIMES_HEADER);
+		writeHistogram(stats.getInterContactTimes());
+	}
+}
@@ -4,9 +4,6 @@
  */
 package report;
 
-import java.util.HashMap;
-import java.util.Vector;
-
 import core.ConnectionListener;
 import core.DTNHost;
 import core.Settings;
@@ -15,17 +12,32 @@ import core.Settings;
  * Reports the node contact time (i.e., how long they were in the range
  * of each other) distribution. Report file contains the count of connections
  * that lasted for certain amount of time. Syntax:<br>
- * <code>time nrofContacts</code>
+ * <code>time nrofContacts</code><br>
+ * By default, the times are grouped in intervals of the same length (see
+ * {@link #GRANULARITY}). With the {@link #LOG_BINS_S} setting, the
+ * intervals are log-scaled and there is a bounded number of them.
+ * The contacts are tracked by a {@link ContactStatistics} engine.
  */
 public class ContactTimesReport extends Report implements ConnectionListener {
-	protected HashMap<ConnectionInfo, ConnectionInfo> connections;
-	private Vector<Integer> nrofContacts;
-
 	/** Granularity -setting id ({@value}). Defines how many simulated seconds
 	 * are grouped in one reported interval. */
 	public static final String GRANULARITY = "granularity";
+	/** Log-scaled bins -setting id ({@value}). Defines the number of
+	 * reported intervals per decade (factor of 10) of time. The first
+	 * interval is below the granularity and the log-scaled intervals span
+	 * {@value #LOG_DECADES} decades from the granularity up, with the last
+	 * interval including all longer times. By default, the intervals are
+	 * not log-scaled. */
+	public static final String LOG_BINS_S = "logBinsPerDecade";
+	/** Number of decades covered by log-scaled intervals */
+	public static final int LOG_DECADES = 9;
+
 	/** How many seconds are grouped in one group */
 	protected double granularity;
+	/** Number of log-scaled intervals per decade (0 for linear intervals) */
+	protected int logBinsPerDecade;
+	/** The engine that tracks the contacts */
+	protected ContactStatistics stats;
 
 	/**
 	 * Constructor.
@@ -38,6 +50,8 @@ public class ContactTimesReport extends Report implements ConnectionListener {
 		else {
 			this.granularity = 1.0;
 		}
+		this.logBinsPerDecade = settings.getInt(LOG_BINS_S, 0);
+		settings.ensurePositiveValue(granularity, GRANULARITY);
 
 		init();
 	}
@@ -45,169 +59,53 @@ public class ContactTimesReport extends Report implements ConnectionListener {
 	@Override
 	protected void init() {
 		super.init();
-		this.connections = new HashMap<ConnectionInfo,ConnectionInfo>();
-		this.nrofContacts = new Vector<Integer>();
-	}
-
-	public void hostsConnected(DTNHost host1, DTNHost host2) {
-		if (isWarmup()) {
-			return;
-		}
-		addConnection(host1, host2);
+		this.stats = new ContactStatistics(createHistogram(), null);
 	}
 
-	public void hostsDisconnected(DTNHost host1, DTNHost host2) {
-		newEvent();
-		ConnectionInfo ci = removeConnection(host1, host2);
-
-		if (ci == null) {
-			return; /* the connection was started during the warm up period */
+	/**
+	 * Creates a histogram for durations according to the settings
+	 * @return A new histogram
+	 */
+	protected DurationHistogram createHistogram() {
+		if (logBinsPerDecade > 0) {
+			return DurationHistogram.logScaled(granularity, logBinsPerDecade,
+					2 + LOG_DECADES * logBinsPerDecade);
 		}
-
-		ci.connectionEnd();
-		increaseTimeCount(ci.getConnectionTime());
+		return DurationHistogram.linear(granularity);
 	}
 
-	protected void addConnection(DTNHost host1, DTNHost host2) {
-		ConnectionInfo ci = new ConnectionInfo(host1, host2);
-
-		assert !connections.containsKey(ci) : "Already contained "+
-			" a connection of " + host1 + " and " + host2;
-
-		connections.put(ci,ci);
+	public void hostsConnected(DTNHost host1, DTNHost host2) {
+		stats.connected(host1.getAddress(), host2.getAddress(), getSimTime(),
+				!isWarmup());
 	}
 
-	protected ConnectionInfo removeConnection(DTNHost host1, DTNHost host2) {
-		ConnectionInfo ci = new ConnectionInfo(host1, host2);
-		ci = connections.remove(ci);
-		return ci;
+	public void hostsDisconnected(DTNHost host1, DTNHost host2) {
+		newEvent();
+		stats.disconnected(host1.getAddress(), host2.getAddress(),
+				getSimTime(), false);
 	}
 
 	/**
-	 * Increases the amount of times a certain time value has been seen.
-	 * @param time The time value that was seen
+	 * Writes the intervals of a histogram as <code>time count</code> lines
+	 * @param histogram The histogram
 	 */
-	protected void increaseTimeCount(double time) {
-		int index = (int)(time/this.granularity);
-
-		if (index >= this.nrofContacts.size()) {
-			/* if biggest index so far, fill array with nulls up to
-			  index+2 to keep the last time count always zero */
-			this.nrofContacts.setSize(index + 2);
-		}
-
-		Integer curValue = this.nrofContacts.get(index);
-		if (curValue == null) { // no value found -> put the first
-			this.nrofContacts.set(index, 1);
-		}
-		else { // value found -> increase the number by one
-			this.nrofContacts.set(index, curValue+1);
-		}
-	}
-
-	@Override
-	public void done() {
-
-		for (int i=0, n=this.nrofContacts.size(); i<n; i++) {
-			Integer contacts = nrofContacts.get(i);
-			if (contacts == null) {
-				contacts = 0;
-			}
+	protected void writeHistogram(DurationHistogram histogram) {
+		for (int i=0, n=histogram.getNrofBins(); i<n; i++) {
 			//     time(interval)             nrofContacts
-			write((i*this.granularity) + " " + contacts);
+			write(histogram.getBinStart(i) + " " + histogram.getCount(i));
 		}
-
-		super.done();
 	}
 
-
 	/**
-	 * Objects of this class store time information about contacts.
+	 * Writes the results of the report in the end
 	 */
-	protected class ConnectionInfo {
-		private double startTime;
-		private double endTime;
-		private DTNHost h1;
-		private DTNHost h2;
-
-		public ConnectionInfo (DTNHost h1, DTNHost h2){
-			this.h1 = h1;
-			this.h2 = h2;
-			this.startTime = getSimTime();
-			this.endTime = -1;
-		}
-
-		/**
-		 * Should be called when the connection ended to record the time.
-		 * Otherwise {@link #getConnectionTime()} will use end time as
-		 * the time of the request.
-		 */
-		public void connectionEnd() {
-			this.endTime = getSimTime();
-		}
-
-		/**
-		 * Returns the time that passed between creation of this info
-		 * and call to {@link #connectionEnd()}. Unless connectionEnd() is
-		 * called, the difference between start time and current sim time
-		 * is returned.
-		 * @return The amount of simulated seconds passed between creation of
-		 * this info and calling connectionEnd()
-		 */
-		public double getConnectionTime() {
-			if (this.endTime == -1) {
-				return getSimTime() - this.startTime;
-			}
-			else {
-				return this.endTime - this.startTime;
-			}
-		}
-
-		/**
-		 * Returns true if the other connection info contains the same hosts.
-		 */
-		public boolean equals(Object other) {
-			if (!(other instanceof ConnectionInfo)) {
-				return false;
-			}
-
-			ConnectionInfo ci = (ConnectionInfo)other;
-
-			if ((h1 == ci.h1 && h2 == ci.h2)) {
-				return true;
-			}
-			else if ((h1 == ci.h2 && h2 == ci.h1)) {
-				// bidirectional connection the other way
-				return true;
-			}
-			return false;
-		}
-
-		/**
-		 * Returns the same hash for ConnectionInfos that have the
-		 * same two hosts.
-		 * @return Hash code
-		 */
-		public int hashCode() {
-			String hostString;
-
-			if (this.h1.compareTo(this.h2) < 0) {
-				hostString = h1.toString() + "-" + h2.toString();
-			}
-			else {
-				hostString = h2.toString() + "-" + h1.toString();
-			}
-
-			return hostString.hashCode();
-		}
+	protected void writeResults() {
+		writeHistogram(stats.getContactTimes());
+	}
 
-		/**
-		 * Returns a string representation of the info object
-		 * @return a string representation of the info object
-		 */
-		public String toString() {
-			return this.h1 + "<->" + this.h2 + " [" + this.startTime
-				+"-"+ (this.endTime >0 ? this.endTime : "n/a") + "]";
-		}
+	@Override
+	public void done() {
+		writeResults();
+		super.done();
 	}
 }
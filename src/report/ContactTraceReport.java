@@ -0,0 +1,161 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package report;
+
+import input.ContactTrace;
+import input.ContactTraceWriter;
+
+import java.io.File;
+import java.io.IOException;
+
+import core.ConnectionListener;
+import core.DTNHost;
+import core.Settings;
+import core.SimError;
+import util.SparsePairTable;
+
+/**
+ * Stores all contacts to an indexed {@link ContactTrace} file that can be
+ * queried per node and time range, and replayed as external events (see
+ * {@link input.ExternalEventsQueue}). The report file itself only contains
+ * a summary. Contacts that come up during the warm up period are not
+ * stored. Contacts that are still up at the end are stored as ending at
+ * the end of the simulation.
+ */
+public class ContactTraceReport extends Report implements ConnectionListener {
+	/** Size of the time windows of the trace -setting id ({@value}).
+	 * Default is {@value #DEF_WINDOW_SIZE} seconds */
+	public static final String WINDOW_SIZE_S = "windowSize";
+	/** Resolution of the stored contact times -setting id ({@value}).
+	 * Default is {@value #DEF_TIME_RESOLUTION} seconds */
+	public static final String TIME_RESOLUTION_S = "timeResolution";
+	/** Path of the trace file -setting id ({@value}). Default is the report's
+	 * output file name with the extension {@value ContactTrace#TRACE_EXT} */
+	public static final String TRACE_FILE_S = "traceFile";
+
+	/** Default window size */
+	public static final double DEF_WINDOW_SIZE = 3600;
+	/** Default time resolution */
+	public static final double DEF_TIME_RESOLUTION = 0.01;
+
+	private ContactTraceWriter writer;
+	private String traceFile;
+	/** index to {@link #startTimes} for each connected host pair */
+	private SparsePairTable upIndex;
+	private double[] startTimes;
+	/** unused indexes of {@link #startTimes} */
+	private int[] freeIndexes;
+	private int nrofFree;
+	private int nrofUsed;
+	private int nrofContacts;
+
+	public ContactTraceReport() {
+		Settings s = getSettings();
+		double windowSize = s.getDouble(WINDOW_SIZE_S, DEF_WINDOW_SIZE);
+		double resolution = s.getDouble(TIME_RESOLUTION_S,
+				DEF_TIME_RESOLUTION);
+		s.ensurePositiveValue(windowSize, WINDOW_SIZE_S);
+		s.ensurePositiveValue(resolution, TIME_RESOLUTION_S);
+
+		if (s.contains(TRACE_FILE_S)) {
+			this.traceFile = s.valueFillString(s.getSetting(TRACE_FILE_S));
+		} else {
+			this.traceFile = getOutFileName();
+			if (traceFile.endsWith(OUT_SUFFIX)) {
+				traceFile = traceFile.substring(0,
+						traceFile.length() - OUT_SUFFIX.length());
+			}
+			traceFile += ContactTrace.TRACE_EXT;
+		}
+
+		try {
+			this.writer = new ContactTraceWriter(new File(traceFile),
+					windowSize, resolution);
+		} catch (IOException e) {
+			throw new SimError("Can't create contact trace file " + traceFile,
+					e);
+		}
+
+		this.upIndex = new SparsePairTable();
+		this.startTimes = new double[64];
+		this.freeIndexes = new int[64];
+		init();
+	}
+
+	public void hostsConnected(DTNHost host1, DTNHost host2) {
+		if (isWarmup()) {
+			return;
+		}
+		int index;
+		if (nrofFree > 0) {
+			index = freeIndexes[--nrofFree];
+		} else {
+			if (nrofUsed == startTimes.length) {
+				double[] bigger = new double[nrofUsed * 2];
+				System.arraycopy(startTimes, 0, bigger, 0, nrofUsed);
+				startTimes = bigger;
+			}
+			index = nrofUsed++;
+		}
+		startTimes[index] = getSimTime();
+		upIndex.put(SparsePairTable.unordered(host1.getAddress(),
+				host2.getAddress()), index);
+	}
+
+	public void hostsDisconnected(DTNHost host1, DTNHost host2) {
+		long key = SparsePairTable.unordered(host1.getAddress(),
+				host2.getAddress());
+		if (!upIndex.contains(key)) {
+			return; /* came up during warm up */
+		}
+		storeContact(key, upIndex.remove(key));
+	}
+
+	private void storeContact(long key, int index) {
+		if (nrofFree == freeIndexes.length) {
+			int[] bigger = new int[nrofFree * 2];
+			System.arraycopy(freeIndexes, 0, bigger, 0, nrofFree);
+			freeIndexes = bigger;
+		}
+		freeIndexes[nrofFree++] = index;
+
+		try {
+			writer.addContact(SparsePairTable.first(key),
+					SparsePairTable.second(key), startTimes[index],
+					getSimTime());
+		} catch (IOException e) {
+			throw new SimError("Can't write contact trace " + traceFile, e);
+		}
+		nrofContacts++;
+	}
+
+	@Override
+	public void done() {
+		/* contacts that are still up end now */
+		final long[] keys = new long[upIndex.size()];
+		final int[] indexes = new int[upIndex.size()];
+		upIndex.forEach(new SparsePairTable.Visitor() {
+			private int i = 0;
+			public void visit(long key, int value) {
+				keys[i] = key;
+				indexes[i++] = value;
+			}
+		});
+		for (int i=0; i<keys.length; i++) {
+			storeContact(keys[i], indexes[i]);
+		}
+		upIndex.clear();
+
+		try {
+			writer.close();
+		} catch (IOException e) {
+			throw new SimError("Can't write contact trace " + traceFile, e);
+		}
+
+		write("trace: " + traceFile);
+		write("contacts: " + nrofContacts);
+		super.done();
+	}
+}
@@ -4,13 +4,12 @@
  */
 package report;
 
-import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
 
 import core.ConnectionListener;
 import core.DTNHost;
 import core.UpdateListener;
+import util.SparsePairTable;
 
 /**
  * The number of contacts during an inter-contact time metric is similar to
@@ -20,15 +19,25 @@ import core.UpdateListener;
  * of contacts during an inter-contact is not symmetric, i.e. during an
  * inter-contact both nodes wait the exact same time but will meet a different
  * number of nodes.
+ * <P>Instead of counting the contacts for every disconnected pair, each node
+ * has a running count of its contacts and the count is recorded for both
+ * nodes of a pair when they disconnect. The contacts during the
+ * inter-contact are then the difference of the counts when the pair meets
+ * again, so the disconnected pairs don't need to be scanned at every
+ * contact.</P>
  *
  * @author Frans Ekman
  */
 public class ContactsDuringAnICTReport extends Report
 	implements ConnectionListener, UpdateListener {
 
-	private boolean[][] areDisconnected;
-	private int[][] contactCount;
-	private LinkedList<Integer> contactsDuringIC;
+	/** number of contacts each node has had */
+	private int[] contacts;
+	/** contacts of the first node of each disconnected (ordered) pair when
+	 * the pair disconnected */
+	private SparsePairTable disconnectedAt;
+	/** number of inter-contacts with each number of contacts */
+	private int[] contactsDuringIC;
 
 	private boolean updateHasBeenCalled;
 
@@ -41,7 +50,7 @@ public class ContactsDuringAnICTReport extends Report
 	@Override
 	protected void init() {
 		super.init();
-		contactsDuringIC = new LinkedList<Integer>();
+		contactsDuringIC = new int[16];
 	}
 
 
@@ -51,65 +60,61 @@ public class ContactsDuringAnICTReport extends Report
 		}
 		int id1 = host1.getAddress();
 		int id2 = host2.getAddress();
-		if (areDisconnected[id1][id2]) {
-			areDisconnected[id1][id2] = false;
-			areDisconnected[id2][id1] = false;
-			contactsDuringIC.add(new Integer(contactCount[id1][id2]));
-			contactsDuringIC.add(new Integer(contactCount[id2][id1]));
-			contactCount[id1][id2] = 0;
-			contactCount[id2][id1] = 0;
+		long key12 = SparsePairTable.key(id1, id2);
+		if (disconnectedAt.contains(key12)) {
+			long key21 = SparsePairTable.key(id2, id1);
+			addContactsDuringIC(contacts[id1] - disconnectedAt.remove(key12));
+			addContactsDuringIC(contacts[id2] - disconnectedAt.remove(key21));
 		}
 
-		incContactForAllDisconnectedNodes(host1);
-		incContactForAllDisconnectedNodes(host2);
-
+		contacts[id1]++;
+		contacts[id2]++;
 	}
 
-	private void incContactForAllDisconnectedNodes(DTNHost host) {
-		int id = host.getAddress();
-		for (int i=0; i<contactCount[id].length; i++) {
-			if (areDisconnected[id][i]) {
-				contactCount[id][i]++;
-			}
+	private void addContactsDuringIC(int count) {
+		if (count >= contactsDuringIC.length) {
+			int[] bigger = new int[Math.max(count + 1,
+					contactsDuringIC.length * 2)];
+			System.arraycopy(contactsDuringIC, 0, bigger, 0,
+					contactsDuringIC.length);
+			contactsDuringIC = bigger;
 		}
+		contactsDuringIC[count]++;
 	}
 
 	public void hostsDisconnected(DTNHost host1, DTNHost host2) {
 		if (!updateHasBeenCalled) {
 			return;
 		}
-		areDisconnected[host1.getAddress()][host2.getAddress()] = true;
-		areDisconnected[host2.getAddress()][host1.getAddress()] = true;
+		int id1 = host1.getAddress();
+		int id2 = host2.getAddress();
+		long key12 = SparsePairTable.key(id1, id2);
+		if (!disconnectedAt.contains(key12)) {
+			disconnectedAt.put(key12, contacts[id1]);
+			disconnectedAt.put(SparsePairTable.key(id2, id1), contacts[id2]);
+		}
 	}
 
 	public void updated(List<DTNHost> hosts) {
-		if (areDisconnected == null || contactCount == null) {
-			areDisconnected = new boolean[hosts.size()][hosts.size()];
-			contactCount = new int[hosts.size()][hosts.size()];
+		if (contacts == null) {
+			contacts = new int[hosts.size()];
+			disconnectedAt = new SparsePairTable(hosts.size());
 		}
 		updateHasBeenCalled = true;
 	}
 
 	@Override
 	public void done() {
-		Integer[] contacts = (Integer[])contactsDuringIC.toArray(new Integer[0]);
-		Arrays.sort(contacts);
-
-		int count = 0;
-		int last = 0;
-		for (int i=0; i<contacts.length; i++) {
-			if (contacts[i].intValue() == last) {
-				count++;
-				if (i == contacts.length -1) {
-					write(last + "\t" + count);
-				}
-			} else {
-				write(last + "\t" + count);
-				last++;
-				i--;
-				count = 0;
+		int max = -1;
+		for (int i=0; i<contactsDuringIC.length; i++) {
+			if (contactsDuringIC[i] > 0) {
+				max = i;
 			}
 		}
+
+		for (int i=0; i<=max; i++) {
+			write(i + "\t" + contactsDuringIC[i]);
+		}
 		super.done();
 	}
 }
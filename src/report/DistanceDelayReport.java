@@ -6,7 +6,6 @@ package report;
 
 import java.util.HashMap;
 
-import core.Coord;
 import core.DTNHost;
 import core.Message;
 import core.MessageListener;
@@ -16,12 +15,15 @@ import core.MessageListener;
  * was sent and how long time & how many hops it took to deliver it.
  * Only messages created after the warm up period are counted.
  * If message is not delivered, its delivery time & hop count are reported as -1
+ * <P>Only the distance is kept for each message until it is delivered; the
+ * delivery time is computed from the message's creation time.</P>
  */
 public class DistanceDelayReport extends Report implements MessageListener {
 	/** Syntax of the report lines */
 	public static final String SYNTAX =
 		"distance at msg send, delivery time, hop count, MSG_ID";
-	private HashMap<String, InfoTuple> creationInfos;
+	/** distances at creation of the messages that are not delivered yet */
+	private HashMap<String, Double> creationDistances;
 
 	/**
 	 * Constructor.
@@ -33,7 +35,7 @@ public class DistanceDelayReport extends Report implements MessageListener {
 	@Override
 	protected void init() {
 		super.init();
-		this.creationInfos = new HashMap<String, InfoTuple>();
+		this.creationDistances = new HashMap<String, Double>();
 		printHeader();
 	}
 
@@ -46,13 +48,13 @@ public class DistanceDelayReport extends Report implements MessageListener {
 			return; // report is only interested of first deliveries
 		}
 
-		InfoTuple info = this.creationInfos.remove(m.getId());
-		if (info == null) {
+		Double distance = this.creationDistances.remove(m.getId());
+		if (distance == null) {
 			return; /* message was created before the warm up period */
 		}
 
-		report(m.getId(), info.getLoc1().distance(info.getLoc2()),
-				getSimTime() - info.getTime(), m.getHops().size()-1);
+		report(m.getId(), distance, getSimTime() - m.getCreationTime(),
+				m.getHops().size()-1);
 	}
 
 	/**
@@ -64,10 +66,8 @@ public class DistanceDelayReport extends Report implements MessageListener {
 			return;
 		}
 
-		this.creationInfos.put( m.getId(),
-				new InfoTuple(getSimTime(),
-						m.getFrom().getLocation().clone(),
-						m.getTo().getLocation().clone()) );
+		this.creationDistances.put(m.getId(),
+				m.getFrom().getLocation().distance(m.getTo().getLocation()));
 	}
 
 	/**
@@ -98,39 +98,11 @@ public class DistanceDelayReport extends Report implements MessageListener {
 
 	public void done() {
 		// report rest of the messages as 'not delivered' (time == -1)
-		for (String id : creationInfos.keySet()) {
-			InfoTuple info = creationInfos.get(id);
-			report(id, info.getLoc1().distance(info.getLoc2()), -1, -1);
+		for (String id : creationDistances.keySet()) {
+			report(id, creationDistances.get(id), -1, -1);
 		}
 
 		super.done();
 	}
 
-	/**
-	 * Private class that encapsulates time and location related information
-	 */
-	private class InfoTuple {
-		private double time;
-		private Coord loc1;
-		private Coord loc2;
-
-		public InfoTuple(double time, Coord loc1, Coord loc2) {
-			this.time = time;
-			this.loc1 = loc1;
-			this.loc2 = loc2;
-		}
-
-		public Coord getLoc1() {
-			return loc1;
-		}
-
-		public Coord getLoc2() {
-			return loc2;
-		}
-
-		public double getTime() {
-			return time;
-		}
-	}
-
 }
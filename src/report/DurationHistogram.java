@@ -0,0 +1,147 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package report;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of durations with either linear bins of fixed size or a
+ * bounded number of log-scaled bins. In a log-scaled histogram, the first
+ * bin holds the values below the minimum value, the following bins each
+ * cover 1/binsPerDecade of a decade starting from the minimum value, and the
+ * last bin also holds all the larger values.
+ */
+public class DurationHistogram {
+	/** size of the linear bins (0 for log-scaled bins) */
+	private double binSize;
+	private double minValue;
+	private int binsPerDecade;
+	/** maximum number of bins (log-scaled histograms) */
+	private int maxBins;
+
+	private int[] counts;
+	/** index of the largest bin that has values (-1 if none) */
+	private int maxIndex;
+	private long totalCount;
+
+	private DurationHistogram(double binSize, double minValue,
+			int binsPerDecade, int maxBins) {
+		this.binSize = binSize;
+		this.minValue = minValue;
+		this.binsPerDecade = binsPerDecade;
+		this.maxBins = maxBins;
+		this.counts = new int[binSize > 0 ? 16 : maxBins];
+		this.maxIndex = -1;
+	}
+
+	/**
+	 * Creates a histogram with linear bins
+	 * @param binSize Size of the bins
+	 * @return The histogram
+	 */
+	public static DurationHistogram linear(double binSize) {
+		return new DurationHistogram(binSize, 0, 0, 0);
+	}
+
+	/**
+	 * Creates a histogram with log-scaled bins
+	 * @param minValue Start of the first log-scaled bin
+	 * @param binsPerDecade Number of bins per decade (factor of 10)
+	 * @param nrofBins Number of bins (including the bin for values below
+	 * the minimum value)
+	 * @return The histogram
+	 */
+	public static DurationHistogram logScaled(double minValue,
+			int binsPerDecade, int nrofBins) {
+		if (minValue <= 0 || binsPerDecade < 1 || nrofBins < 2) {
+			throw new IllegalArgumentException("Invalid log-scaled " +
+					"histogram: min " + minValue + ", " + binsPerDecade +
+					" bins per decade, " + nrofBins + " bins");
+		}
+		return new DurationHistogram(0, minValue, binsPerDecade, nrofBins);
+	}
+
+	/**
+	 * Returns true if the bins are log-scaled
+	 * @return true for log-scaled bins, false for linear bins
+	 */
+	public boolean isLogScaled() {
+		return binSize == 0;
+	}
+
+	/**
+	 * Adds a value to the histogram
+	 * @param value The value
+	 */
+	public void add(double value) {
+		int index;
+		if (binSize > 0) {
+			index = (int)(value / binSize);
+			if (index >= counts.length) {
+				counts = Arrays.copyOf(counts,
+						Math.max(index + 1, counts.length * 2));
+			}
+		} else if (value < minValue) {
+			index = 0;
+		} else {
+			index = 1 + (int)Math.floor(Math.log10(value / minValue) *
+					binsPerDecade);
+			index = Math.min(index, maxBins - 1);
+		}
+
+		counts[index]++;
+		totalCount++;
+		if (index > maxIndex) {
+			maxIndex = index;
+		}
+	}
+
+	/**
+	 * Returns the number of bins up to the first empty bin after the bin
+	 * with the largest values (or the last bin of a log-scaled histogram).
+	 * @return The number of bins to report (0 if no values)
+	 */
+	public int getNrofBins() {
+		if (maxIndex < 0) {
+			return 0;
+		}
+		if (binSize > 0) {
+			return maxIndex + 2; /* the last reported bin is always empty */
+		}
+		return Math.min(maxIndex + 2, maxBins);
+	}
+
+	/**
+	 * Returns the smallest value of a bin
+	 * @param bin Index of the bin
+	 * @return The start of the bin
+	 */
+	public double getBinStart(int bin) {
+		if (binSize > 0) {
+			return bin * binSize;
+		}
+		if (bin == 0) {
+			return 0;
+		}
+		return minValue * Math.pow(10, (bin - 1) / (double)binsPerDecade);
+	}
+
+	/**
+	 * Returns the number of values in a bin
+	 * @param bin Index of the bin
+	 * @return The number of values
+	 */
+	public int getCount(int bin) {
+		return bin < counts.length ? counts[bin] : 0;
+	}
+
+	/**
+	 * Returns the number of values in the histogram
+	 * @return The number of values
+	 */
+	public long getTotalCount() {
+		return this.totalCount;
+	}
+}
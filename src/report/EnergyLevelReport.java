@@ -19,11 +19,16 @@ import core.UpdateListener;
 public class EnergyLevelReport extends SnapshotReport 
 	implements UpdateListener {
 
+	@Override
+	protected int[] getSampledMetrics() {
+		return new int[] {HostMetricSampler.ENERGY};
+	}
+
 	@Override
 	protected void writeSnapshot(DTNHost h) {
-		Double value = (Double)h.getComBus().
-				getProperty(routing.util.EnergyModel.ENERGY_VALUE_ID);
-			if (value == null) {
+		double value = sampler.getValue(HostMetricSampler.ENERGY,
+				h.getAddress());
+			if (Double.isNaN(value)) {
 				throw new SimError("Host " + h +
 						" is not using energy model");
 			}
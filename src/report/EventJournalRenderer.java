@@ -0,0 +1,132 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package report;
+
+import input.EventJournal;
+import input.StandardEventsReader;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+import core.SimError;
+
+/**
+ * Renders an {@link EventJournal} (written by {@link EventJournalReport})
+ * to the text format of {@link EventLogReport}. Can be run from the
+ * command line:<BR>
+ * <TT>java report.EventJournalRenderer &lt;journal file&gt;
+ * [&lt;output file&gt;]</TT><BR>
+ * If the output file is not given, the text is written to standard output.
+ */
+public class EventJournalRenderer {
+
+	/**
+	 * Writes all the events of a journal as text lines
+	 * @param journal The journal (that has not been read yet)
+	 * @param out Where the lines are written
+	 */
+	public static void render(EventJournal journal, PrintWriter out) {
+		while (journal.next()) {
+			out.println(getLine(journal));
+		}
+	}
+
+	/**
+	 * Returns the {@link EventLogReport} line of the journal's current event
+	 * @param journal The journal
+	 * @return The line
+	 */
+	public static String getLine(EventJournal journal) {
+		String action;
+		String extra = null;
+		switch (journal.getType()) {
+		case EventJournal.CONNECTION_UP:
+			action = StandardEventsReader.CONNECTION;
+			extra = StandardEventsReader.CONNECTION_UP;
+			break;
+		case EventJournal.CONNECTION_DOWN:
+			action = StandardEventsReader.CONNECTION;
+			extra = StandardEventsReader.CONNECTION_DOWN;
+			break;
+		case EventJournal.MESSAGE_CREATED:
+			action = StandardEventsReader.CREATE;
+			break;
+		case EventJournal.TRANSFER_STARTED:
+			action = StandardEventsReader.SEND;
+			break;
+		case EventJournal.TRANSFER_ABORTED:
+			action = StandardEventsReader.ABORT;
+			break;
+		case EventJournal.MESSAGE_RELAYED:
+			action = StandardEventsReader.DELIVERED;
+			extra = EventLogReport.MESSAGE_TRANS_RELAYED;
+			break;
+		case EventJournal.MESSAGE_DELIVERED:
+			action = StandardEventsReader.DELIVERED;
+			extra = EventLogReport.MESSAGE_TRANS_DELIVERED;
+			break;
+		case EventJournal.MESSAGE_DELIVERED_AGAIN:
+			action = StandardEventsReader.DELIVERED;
+			extra = EventLogReport.MESSAGE_TRANS_DELIVERED_AGAIN;
+			break;
+		case EventJournal.MESSAGE_DROPPED:
+			action = StandardEventsReader.DROP;
+			break;
+		case EventJournal.MESSAGE_REMOVED:
+			action = StandardEventsReader.REMOVE;
+			break;
+		default:
+			throw new SimError("Unknown event type " + journal.getType() +
+					" in event journal");
+		}
+
+		return EventLogReport.formatEvent(journal.getTime(), action,
+				hostName(journal, journal.getHost1()),
+				hostName(journal, journal.getHost2()),
+				journal.getMessage() != EventJournal.NONE ?
+						journal.getMessageId(journal.getMessage()) : null,
+				extra);
+	}
+
+	private static String hostName(EventJournal journal, int address) {
+		return address != EventJournal.NONE ?
+				journal.getHostName(address) : null;
+	}
+
+	/**
+	 * Renders a journal file to a text file or standard output
+	 * @param args The journal file and (optionally) the output file
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1 || args.length > 2) {
+			System.err.println("Usage: java " +
+					EventJournalRenderer.class.getName() +
+					" <journal file> [<output file>]");
+			System.exit(1);
+		}
+
+		EventJournal journal = new EventJournal(new File(args[0]));
+		PrintWriter out;
+		try {
+			if (args.length > 1) {
+				out = new PrintWriter(new BufferedWriter(
+						new FileWriter(args[1])));
+			} else {
+				out = new PrintWriter(new BufferedWriter(
+						new OutputStreamWriter(System.out)));
+			}
+		} catch (IOException e) {
+			throw new SimError("Can't create output file " + args[1], e);
+		}
+
+		render(journal, out);
+		out.close();
+		journal.close();
+	}
+}
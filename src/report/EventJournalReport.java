@@ -0,0 +1,144 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package report;
+
+import input.EventJournal;
+import input.EventJournalWriter;
+
+import java.io.File;
+import java.io.IOException;
+
+import core.ConnectionListener;
+import core.DTNHost;
+import core.Message;
+import core.MessageListener;
+import core.Settings;
+import core.SimError;
+
+/**
+ * Stores the same events as {@link EventLogReport} to a binary
+ * {@link EventJournal} with fixed-size records instead of formatting a text
+ * line for every event. The journal can be rendered to the text format of
+ * {@link EventLogReport} afterwards with {@link EventJournalRenderer}, and
+ * shown in the GUI's event log (see {@link gui.EventLogPanel}).
+ * The report file itself only contains a summary.
+ */
+public class EventJournalReport extends Report
+	implements ConnectionListener, MessageListener {
+	/** Path of the journal file -setting id ({@value}). Default is the
+	 * report's output file name with the extension
+	 * {@value EventJournal#JOURNAL_EXT} */
+	public static final String JOURNAL_FILE_S = "journalFile";
+
+	private EventJournalWriter writer;
+	private String journalFile;
+
+	public EventJournalReport() {
+		Settings s = getSettings();
+		if (s.contains(JOURNAL_FILE_S)) {
+			this.journalFile = s.valueFillString(s.getSetting(JOURNAL_FILE_S));
+		} else {
+			this.journalFile = getOutFileName();
+			if (journalFile.endsWith(OUT_SUFFIX)) {
+				journalFile = journalFile.substring(0,
+						journalFile.length() - OUT_SUFFIX.length());
+			}
+			journalFile += EventJournal.JOURNAL_EXT;
+		}
+
+		try {
+			this.writer = new EventJournalWriter(new File(journalFile));
+		} catch (IOException e) {
+			throw new SimError("Can't create event journal " + journalFile, e);
+		}
+		init();
+	}
+
+	/**
+	 * Adds an event to the journal
+	 * @param type Type of the event
+	 * @param host1 First host involved in the event
+	 * @param host2 Second host involved in the event (if any, or null)
+	 * @param message The message involved in the event (if any, or null)
+	 */
+	private void processEvent(int type, DTNHost host1, DTNHost host2,
+			Message message) {
+		try {
+			writer.addEvent(getSimTime(), type, address(host1),
+					address(host2), message != null ?
+						writer.getMessageIndex(message.getId()) :
+						EventJournal.NONE);
+		} catch (IOException e) {
+			throw new SimError("Can't write event journal " + journalFile, e);
+		}
+	}
+
+	/**
+	 * Returns the address of a host and makes sure its name is in the journal
+	 */
+	private int address(DTNHost host) {
+		if (host == null) {
+			return EventJournal.NONE;
+		}
+		int address = host.getAddress();
+		if (!writer.hasHostName(address)) {
+			writer.setHostName(address, host.toString());
+		}
+		return address;
+	}
+
+	public void hostsConnected(DTNHost host1, DTNHost host2) {
+		processEvent(EventJournal.CONNECTION_UP, host1, host2, null);
+	}
+
+	public void hostsDisconnected(DTNHost host1, DTNHost host2) {
+		processEvent(EventJournal.CONNECTION_DOWN, host1, host2, null);
+	}
+
+	public void messageDeleted(Message m, DTNHost where, boolean dropped) {
+		processEvent(dropped ? EventJournal.MESSAGE_DROPPED :
+			EventJournal.MESSAGE_REMOVED, where, null, m);
+	}
+
+	public void messageTransferred(Message m, DTNHost from, DTNHost to,
+			boolean firstDelivery) {
+		int type;
+		if (firstDelivery) {
+			type = EventJournal.MESSAGE_DELIVERED;
+		}
+		else if (to == m.getTo()) {
+			type = EventJournal.MESSAGE_DELIVERED_AGAIN;
+		}
+		else {
+			type = EventJournal.MESSAGE_RELAYED;
+		}
+		processEvent(type, from, to, m);
+	}
+
+	public void newMessage(Message m) {
+		processEvent(EventJournal.MESSAGE_CREATED, m.getFrom(), null, m);
+	}
+
+	public void messageTransferAborted(Message m, DTNHost from, DTNHost to) {
+		processEvent(EventJournal.TRANSFER_ABORTED, from, to, m);
+	}
+
+	public void messageTransferStarted(Message m, DTNHost from, DTNHost to) {
+		processEvent(EventJournal.TRANSFER_STARTED, from, to, m);
+	}
+
+	@Override
+	public void done() {
+		try {
+			writer.close();
+		} catch (IOException e) {
+			throw new SimError("Can't write event journal " + journalFile, e);
+		}
+
+		write("journal: " + journalFile);
+		write("events: " + writer.getNrofEvents());
+		super.done();
+	}
+}
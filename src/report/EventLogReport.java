@@ -16,6 +16,9 @@ import input.StandardEventsReader;
  * extra one-letter identifier to tell whether that message was delivered to
  * final destination, delivered there again, or just normally relayed
  * (see the public constants).
+ * For long simulations, see {@link EventJournalReport} that stores the
+ * same events in a binary journal which can be rendered to this format
+ * afterwards.
  */
 public class EventLogReport extends Report
 	implements ConnectionListener, MessageListener {
@@ -37,10 +40,25 @@ public class EventLogReport extends Report
 	 */
 	private void processEvent(final String action, final DTNHost host1,
 			final DTNHost host2, final Message message, final String extra) {
-		write(getSimTime() + " " + action + " " + (host1 != null ? host1 : "")
+		write(formatEvent(getSimTime(), action, host1, host2, message, extra));
+	}
+
+	/**
+	 * Returns the report line of a log event
+	 * @param time Time of the event
+	 * @param action The action as a string
+	 * @param host1 First host involved in the event (if any, or null)
+	 * @param host2 Second host involved in the event (if any, or null)
+	 * @param message The message involved in the event (if any, or null)
+	 * @param extra Extra info to append in the end of line (if any, or null)
+	 * @return The line
+	 */
+	public static String formatEvent(double time, String action,
+			Object host1, Object host2, Object message, String extra) {
+		return time + " " + action + " " + (host1 != null ? host1 : "")
 				+ (host2 != null ? (" " + host2) : "")
 				+ (message != null ? " " + message : "")
-				+ (extra != null ? " " + extra : ""));
+				+ (extra != null ? " " + extra : "");
 	}
 
 	public void hostsConnected(DTNHost host1, DTNHost host2) {
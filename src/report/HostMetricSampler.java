@@ -0,0 +1,332 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package report;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import core.DTNHost;
+import core.DTNSim;
+import core.SimClock;
+
+/**
+ * Shared sampler of per-host metrics for reports that take periodic
+ * snapshots of all the hosts. Reports subscribe to the sampler with the
+ * metrics they need and forward their {@link core.UpdateListener#updated(List)}
+ * calls to {@link #updated(List)}. On the first such call of each update
+ * round, the sampler asks every subscriber whether it wants a sample and, if
+ * some do, collects the metrics requested by them in a single pass over the
+ * hosts and then hands the sample to those subscribers. This way enabling
+ * several sampling reports doesn't multiply the host scans.
+ * <P>For every sampled metric, the sampler provides the per-host values and
+ * global aggregates (number of hosts with a value, sum, sum of squares,
+ * minimum and maximum) computed in the same pass.</P>
+ */
+public class HostMetricSampler {
+	/** Buffer occupancy (%) metric, see {@link DTNHost#getBufferOccupancy()} */
+	public static final int BUFFER_OCCUPANCY = 0;
+	/** Energy level metric, see {@link routing.util.EnergyModel}. NaN for
+	 * hosts that don't use the energy model. */
+	public static final int ENERGY = 1;
+	/** Number of connections metric */
+	public static final int CONNECTIONS = 2;
+	/** Number of messages in the buffer metric */
+	public static final int MESSAGES = 3;
+	/** Number of different metrics */
+	public static final int NROF_METRICS = 4;
+
+	private static HostMetricSampler instance;
+
+	static {
+		DTNSim.registerForReset(HostMetricSampler.class.getCanonicalName());
+		reset();
+	}
+
+	private List<Subscriber> subscribers;
+	private List<Integer> subscribedMetrics;
+	/** sim time of the latest update round (-1 if none yet) */
+	private double lastUpdate;
+	private List<DTNHost> hosts;
+
+	/** metrics of the latest sample (bit mask) */
+	private int sampledMetrics;
+	/** per host values of each metric */
+	private double[][] values;
+	private int[] count;
+	private double[] sum;
+	private double[] sumOfSquares;
+	private double[] min;
+	private double[] max;
+
+	/**
+	 * Interface for the subscribers of the sampler
+	 */
+	public interface Subscriber {
+		/**
+		 * Returns true if the subscriber wants a sample at this time
+		 * @param simTime The current simulation time
+		 * @return True if a sample should be taken for this subscriber
+		 */
+		public boolean isSampleDue(double simTime);
+
+		/**
+		 * Called when a sample requested by the subscriber has been taken
+		 * @param sampler The sampler whose values are up to date
+		 */
+		public void sampled(HostMetricSampler sampler);
+	}
+
+	/**
+	 * Creates a new sampler. Reports should normally use the shared
+	 * sampler returned by {@link #getInstance()}.
+	 */
+	public HostMetricSampler() {
+		this.subscribers = new ArrayList<Subscriber>();
+		this.subscribedMetrics = new ArrayList<Integer>();
+		this.lastUpdate = -1;
+		this.values = new double[NROF_METRICS][];
+		this.count = new int[NROF_METRICS];
+		this.sum = new double[NROF_METRICS];
+		this.sumOfSquares = new double[NROF_METRICS];
+		this.min = new double[NROF_METRICS];
+		this.max = new double[NROF_METRICS];
+	}
+
+	/**
+	 * Returns the sampler shared by all the reports of the simulation
+	 * @return the shared sampler
+	 */
+	public static HostMetricSampler getInstance() {
+		if (instance == null) {
+			instance = new HostMetricSampler();
+		}
+		return instance;
+	}
+
+	/**
+	 * Resets the shared sampler (for a new simulation run)
+	 */
+	public static void reset() {
+		instance = null;
+	}
+
+	/**
+	 * Subscribes to the samples
+	 * @param subscriber The subscriber
+	 * @param metrics The metrics the subscriber needs (e.g.,
+	 * {@link #BUFFER_OCCUPANCY}). No metrics is OK if the subscriber
+	 * only needs the sampling rounds.
+	 */
+	public void subscribe(Subscriber subscriber, int... metrics) {
+		int mask = 0;
+		for (int m : metrics) {
+			mask |= 1 << m;
+		}
+		this.subscribers.add(subscriber);
+		this.subscribedMetrics.add(mask);
+	}
+
+	/**
+	 * Takes a sample for the subscribers that want one, if this is the first
+	 * call of the update round. Subscribers should call this from their
+	 * {@link core.UpdateListener#updated(List)} methods.
+	 * @param hosts All the hosts in the world
+	 */
+	public void updated(List<DTNHost> hosts) {
+		double simTime = SimClock.getTime();
+		if (simTime == lastUpdate) {
+			return; /* already sampled in this round */
+		}
+		lastUpdate = simTime;
+
+		List<Subscriber> due = new ArrayList<Subscriber>();
+		int mask = 0;
+		for (int i=0, n=subscribers.size(); i<n; i++) {
+			Subscriber s = subscribers.get(i);
+			if (s.isSampleDue(simTime)) {
+				due.add(s);
+				mask |= subscribedMetrics.get(i);
+			}
+		}
+		if (due.isEmpty()) {
+			return;
+		}
+
+		sample(hosts, mask);
+		for (Subscriber s : due) {
+			s.sampled(this);
+		}
+	}
+
+	/**
+	 * Collects the metrics of the mask from all the hosts in one pass
+	 */
+	private void sample(List<DTNHost> hosts, int mask) {
+		this.hosts = hosts;
+		this.sampledMetrics = mask;
+		int nrofHosts = hosts.size();
+		for (int m=0; m<NROF_METRICS; m++) {
+			if (!isSampled(m)) {
+				continue;
+			}
+			if (values[m] == null || values[m].length != nrofHosts) {
+				values[m] = new double[nrofHosts];
+			}
+			count[m] = 0;
+			sum[m] = 0;
+			sumOfSquares[m] = 0;
+			min[m] = Double.NaN;
+			max[m] = Double.NaN;
+		}
+		if (mask == 0) {
+			return;
+		}
+
+		boolean buffer = isSampled(BUFFER_OCCUPANCY);
+		boolean energy = isSampled(ENERGY);
+		boolean connections = isSampled(CONNECTIONS);
+		boolean messages = isSampled(MESSAGES);
+		for (int i=0; i<nrofHosts; i++) {
+			DTNHost h = hosts.get(i);
+			if (buffer) {
+				add(BUFFER_OCCUPANCY, i, h.getBufferOccupancy());
+			}
+			if (energy) {
+				add(ENERGY, i, h.getComBus().getDouble(
+						routing.util.EnergyModel.ENERGY_VALUE_ID, Double.NaN));
+			}
+			if (connections) {
+				add(CONNECTIONS, i, h.getConnections().size());
+			}
+			if (messages) {
+				add(MESSAGES, i, h.getNrofMessages());
+			}
+		}
+	}
+
+	private void add(int metric, int index, double value) {
+		values[metric][index] = value;
+		if (Double.isNaN(value)) {
+			return;
+		}
+		if (count[metric] == 0 || value < min[metric]) {
+			min[metric] = value;
+		}
+		if (count[metric] == 0 || value > max[metric]) {
+			max[metric] = value;
+		}
+		count[metric]++;
+		sum[metric] += value;
+		sumOfSquares[metric] += value * value;
+	}
+
+	/**
+	 * Returns the sampled hosts
+	 * @return The hosts of the latest sample
+	 */
+	public List<DTNHost> getHosts() {
+		return this.hosts;
+	}
+
+	/**
+	 * Returns the sampled value of a metric for a host
+	 * @param metric The metric
+	 * @param index Index of the host in the host list (see
+	 * {@link #getHosts()})
+	 * @return The value of the metric
+	 * @throws IllegalStateException if the metric was not sampled
+	 */
+	public double getValue(int metric, int index) {
+		return checkSampled(metric)[index];
+	}
+
+	/**
+	 * Returns the sampled values of a metric for all hosts
+	 * @param metric The metric
+	 * @return The values in the order of the host list (must not be
+	 * modified)
+	 * @throws IllegalStateException if the metric was not sampled
+	 */
+	public double[] getValues(int metric) {
+		return checkSampled(metric);
+	}
+
+	/**
+	 * Returns the number of hosts that had a value for a metric
+	 * @param metric The metric
+	 * @return The number of (non-NaN) values
+	 */
+	public int getCount(int metric) {
+		checkSampled(metric);
+		return this.count[metric];
+	}
+
+	/**
+	 * Returns the sum of the values of a metric over all hosts
+	 * @param metric The metric
+	 * @return The sum
+	 */
+	public double getSum(int metric) {
+		checkSampled(metric);
+		return this.sum[metric];
+	}
+
+	/**
+	 * Returns the sum of the squared values of a metric over all hosts
+	 * @param metric The metric
+	 * @return The sum of squares
+	 */
+	public double getSumOfSquares(int metric) {
+		checkSampled(metric);
+		return this.sumOfSquares[metric];
+	}
+
+	/**
+	 * Returns the average of the values of a metric
+	 * @param metric The metric
+	 * @return The average (NaN if no host had a value)
+	 */
+	public double getAverage(int metric) {
+		checkSampled(metric);
+		return count[metric] == 0 ? Double.NaN : sum[metric] / count[metric];
+	}
+
+	/**
+	 * Returns the smallest value of a metric
+	 * @param metric The metric
+	 * @return The minimum (NaN if no host had a value)
+	 */
+	public double getMin(int metric) {
+		checkSampled(metric);
+		return this.min[metric];
+	}
+
+	/**
+	 * Returns the largest value of a metric
+	 * @param metric The metric
+	 * @return The maximum (NaN if no host had a value)
+	 */
+	public double getMax(int metric) {
+		checkSampled(metric);
+		return this.max[metric];
+	}
+
+	/**
+	 * Returns true if the latest sample contains the metric
+	 * @param metric The metric
+	 * @return True if the metric was sampled
+	 */
+	public boolean isSampled(int metric) {
+		return (sampledMetrics & (1 << metric)) != 0;
+	}
+
+	private double[] checkSampled(int metric) {
+		if (!isSampled(metric)) {
+			throw new IllegalStateException("Metric " + metric +
+					" was not sampled");
+		}
+		return values[metric];
+	}
+}
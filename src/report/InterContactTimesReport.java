@@ -13,14 +13,25 @@ import core.DTNHost;
  */
 public class InterContactTimesReport extends ContactTimesReport {
 
+	@Override
+	protected void init() {
+		super.init();
+		this.stats = new ContactStatistics(null, createHistogram());
+	}
+
 	@Override
 	public void hostsConnected(DTNHost host1, DTNHost host2) {
-		ConnectionInfo ci = this.removeConnection(host1, host2);
+		ContactStatistics current = this.stats;
+		int a = host1.getAddress();
+		int b = host2.getAddress();
 
-		if (ci != null) { // connected again
+		if (current.isDown(a, b)) { // connected again
 			newEvent();
-			ci.connectionEnd();
-			increaseTimeCount(ci.getConnectionTime());
+			double time = current.connected(a, b, getSimTime(), false);
+			if (current != this.stats) {
+				/* a new report interval started; count the time there */
+				stats.getInterContactTimes().add(time);
+			}
 		}
 	}
 
@@ -30,6 +41,12 @@ public class InterContactTimesReport extends ContactTimesReport {
 			return;
 		}
 		// start counting time to next connection
-		this.addConnection(host1, host2);
+		stats.disconnected(host1.getAddress(), host2.getAddress(),
+				getSimTime(), true);
+	}
+
+	@Override
+	protected void writeResults() {
+		writeHistogram(stats.getInterContactTimes());
 	}
 }
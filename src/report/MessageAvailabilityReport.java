@@ -11,7 +11,6 @@ import java.util.Set;
 
 import core.Connection;
 import core.DTNHost;
-import core.Message;
 import core.Settings;
 import core.SettingsError;
 
@@ -79,38 +78,23 @@ public class MessageAvailabilityReport extends MessageLocationReport {
 		}
 
 		for (DTNHost host : hosts) {
-			Set<String> msgIds = null;
-			String idString = "";
-
 			if (! this.trackedHosts.contains(host)) {
 				continue;
 			}
 
-			msgIds = new HashSet<String>();
-
-			/* add own messages */
-			for (Message m : host.getMessageCollection()) {
-				if (!isTracked(m)) {
-					continue;
-				}
-				msgIds.add(m.getId());
-			}
-			/* add all peer messages */
+			/* own messages and all peer messages */
+			Set<String> msgIds = new HashSet<String>();
+			msgIds.addAll(index.getMessages(host));
 			for (Connection c : host.getConnections()) {
-				DTNHost peer = c.getOtherNode(host);
-				for (Message m : peer.getMessageCollection()) {
-					if (!isTracked(m)) {
-						continue;
-					}
-					msgIds.add(m.getId());
-				}
+				msgIds.addAll(index.getMessages(c.getOtherNode(host)));
 			}
 
+			line.setLength(0);
+			line.append(host);
 			for (String id : msgIds) {
-				idString += " " + id;
+				line.append(' ').append(id);
 			}
-
-			write(host + idString);
+			write(line.toString());
 		}
 	}
 }
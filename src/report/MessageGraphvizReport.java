@@ -4,21 +4,33 @@
  */
 package report;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
 import java.util.List;
-import java.util.Vector;
 
 import core.DTNHost;
 import core.Message;
 import core.MessageListener;
+import core.SimError;
 
 /**
  * Creates a graphviz compatible graph of messages that were passed.
  * Messages created during the warm up period are ignored.
+ * The paths of the delivered messages are written to a temporary spill file
+ * as the messages are delivered, so the messages don't need to be kept in
+ * memory until the end of the simulation.
  */
 public class MessageGraphvizReport extends Report implements MessageListener {
 	/** Name of the graphviz report ({@value})*/
 	public static final String GRAPH_NAME = "msggraph";
-	private Vector<Message> deliveredMessages;
+	private int nrofDelivered;
+	/** file for the paths of the delivered messages (null if none yet) */
+	private File spillFile;
+	private BufferedWriter spill;
 
 	/**
 	 * Constructor.
@@ -29,7 +41,9 @@ public class MessageGraphvizReport extends Report implements MessageListener {
 
 	protected void init() {
 		super.init();
-		this.deliveredMessages = new Vector<Message>();
+		this.nrofDelivered = 0;
+		this.spillFile = null;
+		this.spill = null;
 	}
 
 	public void newMessage(Message m) {
@@ -42,7 +56,35 @@ public class MessageGraphvizReport extends Report implements MessageListener {
 			DTNHost to,	boolean firstDelivery) {
 		if (firstDelivery && !isWarmupID(m.getId())) {
 			newEvent();
-			this.deliveredMessages.add(m);
+			this.nrofDelivered++;
+			spillPath(m.getHops());
+		}
+	}
+
+	/**
+	 * Writes the path of a delivered message to the spill file
+	 * @param path The hops of the message
+	 */
+	private void spillPath(List<DTNHost> path) {
+		StringBuilder pathString = new StringBuilder();
+		for (DTNHost next : path) {
+			if (pathString.length() > 0) {
+				pathString.append("->");
+			}
+			pathString.append(next.toString());
+		}
+
+		try {
+			if (spill == null) {
+				spillFile = File.createTempFile(GRAPH_NAME, ".tmp");
+				spillFile.deleteOnExit();
+				spill = new BufferedWriter(new FileWriter(spillFile));
+			}
+			spill.write(pathString.toString());
+			spill.newLine();
+		} catch (IOException e) {
+			throw new SimError("Couldn't write message paths to a " +
+					"temporary file\n" + e.getMessage(), e);
 		}
 	}
 
@@ -54,20 +96,26 @@ public class MessageGraphvizReport extends Report implements MessageListener {
 	@Override
 	public void done() {
 		write("/* scenario " + getScenarioName() + "\n" +
-				deliveredMessages.size() + " messages delivered at " +
+				nrofDelivered + " messages delivered at " +
 				"sim time " + getSimTime() + " */") ;
 		write("digraph " + GRAPH_NAME + " {");
 		setPrefix("\t"); // indent following lines by one tab
 
-		for (Message m : deliveredMessages) {
-			List<DTNHost> path = m.getHops();
-			String pathString = path.remove(0).toString(); // start node
-
-			for (DTNHost next : path) {
-				pathString += "->" + next.toString();
+		if (spill != null) {
+			try {
+				spill.close();
+				BufferedReader reader = new BufferedReader(
+						new FileReader(spillFile));
+				String pathString;
+				while ((pathString = reader.readLine()) != null) {
+					write (pathString + ";");
+				}
+				reader.close();
+			} catch (IOException e) {
+				throw new SimError("Couldn't read message paths from " +
+						spillFile + "\n" + e.getMessage(), e);
 			}
-
-			write (pathString + ";");
+			spillFile.delete();
 		}
 
 		setPrefix(""); // don't indent anymore
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package report;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import core.DTNHost;
+import core.Message;
+import core.MessageListener;
+
+/**
+ * Index of the hosts' message buffers that is kept up to date from message
+ * events, so reports don't need to go through all the buffers to find out
+ * where the messages are. Only the tracked messages are indexed.
+ * <P>A message is in a host's buffer after it was created there or
+ * transferred there (unless the host didn't store it, e.g., because it was
+ * the final recipient), and until it is deleted from there.</P>
+ */
+public class MessageLocationIndex implements MessageListener {
+	/** IDs of the tracked messages or null if all messages are tracked */
+	private Set<String> trackedIds;
+	/** IDs of the tracked messages in each host's buffer, indexed by host
+	 * address, in the order they were received */
+	private List<Set<String>> messagesAt;
+	/** number of copies of each tracked message in the buffers */
+	private SortedMap<String, int[]> copies;
+
+	/**
+	 * Creates an empty index
+	 * @param trackedIds IDs of the messages to track or null to track all
+	 * messages
+	 */
+	public MessageLocationIndex(Set<String> trackedIds) {
+		this.trackedIds = trackedIds;
+		this.messagesAt = new ArrayList<Set<String>>();
+		this.copies = new TreeMap<String, int[]>();
+	}
+
+	/**
+	 * Returns true if the given message is tracked by the index
+	 * @param m The message
+	 * @return True if the message is tracked, false if not
+	 */
+	public boolean isTracked(Message m) {
+		return (this.trackedIds == null ||
+				this.trackedIds.contains(m.getId()));
+	}
+
+	/**
+	 * Returns the IDs of the tracked messages in a host's buffer
+	 * @param host The host
+	 * @return The message IDs in the order the host received the messages
+	 */
+	public Collection<String> getMessages(DTNHost host) {
+		int address = host.getAddress();
+		if (address >= messagesAt.size() || messagesAt.get(address) == null) {
+			return Collections.emptySet();
+		}
+		return Collections.unmodifiableSet(messagesAt.get(address));
+	}
+
+	/**
+	 * Returns the IDs of the tracked messages that are in some buffer
+	 * @return The message IDs in alphabetical order
+	 */
+	public Set<String> getMessageIds() {
+		return Collections.unmodifiableSet(this.copies.keySet());
+	}
+
+	/**
+	 * Returns the number of copies of a message in all the buffers
+	 * @param id ID of the message
+	 * @return The number of copies
+	 */
+	public int getCopyCount(String id) {
+		int[] count = this.copies.get(id);
+		return (count == null ? 0 : count[0]);
+	}
+
+	private void added(Message m, DTNHost host) {
+		int address = host.getAddress();
+		while (messagesAt.size() <= address) {
+			messagesAt.add(null);
+		}
+		Set<String> ids = messagesAt.get(address);
+		if (ids == null) {
+			ids = new LinkedHashSet<String>();
+			messagesAt.set(address, ids);
+		}
+
+		if (ids.add(m.getId())) {
+			int[] count = copies.get(m.getId());
+			if (count == null) {
+				count = new int[1];
+				copies.put(m.getId(), count);
+			}
+			count[0]++;
+		}
+	}
+
+	private void removed(Message m, DTNHost host) {
+		int address = host.getAddress();
+		if (address >= messagesAt.size() || messagesAt.get(address) == null) {
+			return;
+		}
+
+		if (messagesAt.get(address).remove(m.getId())) {
+			int[] count = copies.get(m.getId());
+			if (--count[0] == 0) {
+				copies.remove(m.getId());
+			}
+		}
+	}
+
+	public void newMessage(Message m) {
+		if (isTracked(m)) {
+			added(m, m.getFrom());
+		}
+	}
+
+	public void messageTransferred(Message m, DTNHost from, DTNHost to,
+			boolean firstDelivery) {
+		/* final recipients and applications may not store the message */
+		if (isTracked(m) && to.getRouter().hasMessage(m.getId())) {
+			added(m, to);
+		}
+	}
+
+	public void messageDeleted(Message m, DTNHost where, boolean dropped) {
+		if (isTracked(m)) {
+			removed(m, where);
+		}
+	}
+
+	public void messageTransferStarted(Message m, DTNHost from, DTNHost to) {}
+
+	public void messageTransferAborted(Message m, DTNHost from, DTNHost to) {}
+}
@@ -4,11 +4,13 @@
  */
 package report;
 
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 
 import core.DTNHost;
 import core.Message;
+import core.MessageListener;
 import core.Settings;
 import core.UpdateListener;
 
@@ -16,8 +18,13 @@ import core.UpdateListener;
 /**
  * Message location report. Reports the location (coordinates) of messages.
  * The messages that are reported and the reporting interval can be configured.
+ * The locations of the reported messages are kept in a
+ * {@link MessageLocationIndex}, so snapshots don't go through all the
+ * messages in all the buffers. Message IDs of a host are listed in the order
+ * the host received the messages.
  */
-public class MessageLocationReport extends Report implements UpdateListener {
+public class MessageLocationReport extends Report
+	implements UpdateListener, MessageListener {
 	/** Reporting granularity -setting id ({@value}).
 	 * Defines the interval how often (seconds) a new snapshot of message
 	 * locations is created */
@@ -32,6 +39,10 @@ public class MessageLocationReport extends Report implements UpdateListener {
 	protected double lastUpdate;
 	/** Identifiers of the message which are reported */
 	protected HashSet<String> reportedMessages;
+	/** Locations of the reported messages */
+	protected MessageLocationIndex index;
+	/** Buffer for building report lines */
+	protected StringBuilder line;
 
 	/**
 	 * Constructor. Reads the settings and initializes the report module.
@@ -49,6 +60,8 @@ public class MessageLocationReport extends Report implements UpdateListener {
 		} else {
 			this.reportedMessages = null; /* all messages */
 		}
+		this.index = new MessageLocationIndex(this.reportedMessages);
+		this.line = new StringBuilder();
 
 		init();
 	}
@@ -73,8 +86,7 @@ public class MessageLocationReport extends Report implements UpdateListener {
 	 * @return True if the message is tracked, false if not
 	 */
 	protected boolean isTracked(Message m) {
-		return (this.reportedMessages == null ||
-				this.reportedMessages.contains(m.getId()));
+		return index.isTracked(m);
 	}
 
 	/**
@@ -82,27 +94,37 @@ public class MessageLocationReport extends Report implements UpdateListener {
 	 * @param hosts The list of hosts in the world
 	 */
 	protected void createSnapshot(List<DTNHost> hosts) {
-		boolean isFirstMessage;
-		String reportLine;
-
 		write ("[" + (int)getSimTime() + "]"); /* write sim time stamp */
 
 		for (DTNHost host : hosts) {
-			isFirstMessage = true;
-			reportLine = "";
-			for (Message m : host.getMessageCollection()) {
-				if (isTracked(m)) {
-					if (isFirstMessage) {
-						reportLine = host.getLocation().toString();
-						isFirstMessage = false;
-					}
-					reportLine += " " + m.getId();
-				}
+			Collection<String> ids = index.getMessages(host);
+			if (ids.isEmpty()) {
+				continue;
 			}
-			if (reportLine.length() > 0) {
-				write(reportLine); /* write coordinate and message IDs */
+			line.setLength(0);
+			line.append(host.getLocation());
+			for (String id : ids) {
+				line.append(' ').append(id);
 			}
+			write(line.toString()); /* write coordinate and message IDs */
 		}
 	}
 
+	public void newMessage(Message m) {
+		index.newMessage(m);
+	}
+
+	public void messageTransferred(Message m, DTNHost from, DTNHost to,
+			boolean firstDelivery) {
+		index.messageTransferred(m, from, to, firstDelivery);
+	}
+
+	public void messageDeleted(Message m, DTNHost where, boolean dropped) {
+		index.messageDeleted(m, where, dropped);
+	}
+
+	public void messageTransferStarted(Message m, DTNHost from, DTNHost to) {}
+
+	public void messageTransferAborted(Message m, DTNHost from, DTNHost to) {}
+
 }
@@ -5,9 +5,7 @@
 package report;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import core.DTNHost;
 import core.Message;
@@ -22,7 +20,6 @@ import core.MessageListener;
  * double values and zero for integer median(s).
  */
 public class MessageStatsReport extends Report implements MessageListener {
-	private Map<String, Double> creationTimes;
 	private List<Double> latencies;
 	private List<Integer> hopCounts;
 	private List<Double> msgBufferTime;
@@ -48,7 +45,6 @@ public class MessageStatsReport extends Report implements MessageListener {
 	@Override
 	protected void init() {
 		super.init();
-		this.creationTimes = new HashMap<String, Double>();
 		this.latencies = new ArrayList<Double>();
 		this.msgBufferTime = new ArrayList<Double>();
 		this.hopCounts = new ArrayList<Integer>();
@@ -99,8 +95,7 @@ public class MessageStatsReport extends Report implements MessageListener {
 
 		this.nrofRelayed++;
 		if (finalTarget) {
-			this.latencies.add(getSimTime() -
-				this.creationTimes.get(m.getId()) );
+			this.latencies.add(getSimTime() - m.getCreationTime());
 			this.nrofDelivered++;
 			this.hopCounts.add(m.getHops().size() - 1);
 
@@ -118,7 +113,6 @@ public class MessageStatsReport extends Report implements MessageListener {
 			return;
 		}
 
-		this.creationTimes.put(m.getId(), getSimTime());
 		this.nrofCreated++;
 		if (m.getResponseSize() > 0) {
 			this.nrofResponseReqCreated++;
@@ -155,28 +149,62 @@ public class MessageStatsReport extends Report implements MessageListener {
 				this.nrofResponseReqCreated;
 		}
 
-		String statsText = "created: " + this.nrofCreated +
-			"\nstarted: " + this.nrofStarted +
-			"\nrelayed: " + this.nrofRelayed +
-			"\naborted: " + this.nrofAborted +
-			"\ndropped: " + this.nrofDropped +
-			"\nremoved: " + this.nrofRemoved +
-			"\ndelivered: " + this.nrofDelivered +
-			"\ndelivery_prob: " + format(deliveryProb) +
-			"\nresponse_prob: " + format(responseProb) +
-			"\noverhead_ratio: " + format(overHead) +
-			"\nlatency_avg: " + getAverage(this.latencies) +
-			"\nlatency_med: " + getMedian(this.latencies) +
-			"\nhopcount_avg: " + getIntAverage(this.hopCounts) +
-			"\nhopcount_med: " + getIntMedian(this.hopCounts) +
-			"\nbuffertime_avg: " + getAverage(this.msgBufferTime) +
-			"\nbuffertime_med: " + getMedian(this.msgBufferTime) +
-			"\nrtt_avg: " + getAverage(this.rtt) +
-			"\nrtt_med: " + getMedian(this.rtt)
-			;
-
-		write(statsText);
+		StringBuilder statsText = new StringBuilder();
+		addStat(statsText, "created", this.nrofCreated);
+		addStat(statsText, "started", this.nrofStarted);
+		addStat(statsText, "relayed", this.nrofRelayed);
+		addStat(statsText, "aborted", this.nrofAborted);
+		addStat(statsText, "dropped", this.nrofDropped);
+		addStat(statsText, "removed", this.nrofRemoved);
+		addStat(statsText, "delivered", this.nrofDelivered);
+		addStat(statsText, "delivery_prob", deliveryProb);
+		addStat(statsText, "response_prob", responseProb);
+		addStat(statsText, "overhead_ratio", overHead);
+		addStat(statsText, "latency_avg", getAverageValue(this.latencies));
+		addStat(statsText, "latency_med", getMedianValue(this.latencies));
+		addStat(statsText, "hopcount_avg", getIntAverageValue(this.hopCounts));
+		addStat(statsText, "hopcount_med", getIntMedian(this.hopCounts));
+		addStat(statsText, "buffertime_avg",
+				getAverageValue(this.msgBufferTime));
+		addStat(statsText, "buffertime_med",
+				getMedianValue(this.msgBufferTime));
+		addStat(statsText, "rtt_avg", getAverageValue(this.rtt));
+		addStat(statsText, "rtt_med", getMedianValue(this.rtt));
+
+		write(statsText.toString());
 		super.done();
 	}
 
+	/**
+	 * Appends a "name: value" line with a formatted value to the statistics
+	 * text and adds the exact value to the report's metrics
+	 * @param statsText The statistics text
+	 * @param name Name of the statistic
+	 * @param value Value of the statistic
+	 */
+	private void addStat(StringBuilder statsText, String name, double value) {
+		appendStat(statsText, name, format(value));
+		addMetric(name, value);
+	}
+
+	/**
+	 * Appends a "name: value" line with an integer value to the statistics
+	 * text and adds the value to the report's metrics
+	 * @param statsText The statistics text
+	 * @param name Name of the statistic
+	 * @param value Value of the statistic
+	 */
+	private void addStat(StringBuilder statsText, String name, int value) {
+		appendStat(statsText, name, "" + value);
+		addMetric(name, value);
+	}
+
+	private void appendStat(StringBuilder statsText, String name,
+			String text) {
+		if (statsText.length() > 0) {
+			statsText.append('\n');
+		}
+		statsText.append(name).append(": ").append(text);
+	}
+
 }
@@ -7,6 +7,7 @@ import core.SettingsError;
 import core.SimScenario;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -18,6 +19,14 @@ import java.util.List;
  * <p>The report can be configured to output a gnuplot script file that
  * produces a heat map graph of the node densities.
  *
+ * <p>In the streaming mode, the samples are not stored but folded into
+ * running sums, so the memory use doesn't grow with the simulated time.
+ * Output format is then: G_x G_y average standard_deviation. Optionally,
+ * the average densities of every window of N samples are written as soon as
+ * the window is full, each window preceded by a line "window index
+ * start_time end_time". The samples are folded into running sums also when
+ * only the average is requested.
+ *
  * @author teemuk
  */
 public class NodeDensityReport
@@ -38,6 +47,12 @@ extends SamplingReport {
 			"gnuplotFileExtension";
 	/** Boolean setting to output only the average ({@value}). */
 	public static final String ONLY_AVERAGE_SETTING = "onlyAverage";
+	/** Boolean setting to aggregate the samples as they are taken
+	 * ({@value}). */
+	public static final String STREAMING_SETTING = "streaming";
+	/** Number of samples per window in streaming mode, 0 for no windows
+	 * ({@value}). */
+	public static final String WINDOW_SAMPLES_SETTING = "windowSamples";
 
 	/** Default number of divisions along the x-axis ({@value}). */
 	public static final int DEFAULT_X_COUNT = 10;
@@ -51,6 +66,10 @@ extends SamplingReport {
 	public static final String DEFAULT_GNUPLOT_FILE_EXTENSION = "png";
 	/** Default value for outputting only the average density ({@value}). */
 	public static final boolean DEFAULT_ONLY_AVERAGE = false;
+	/** Default value for the streaming mode ({@value}). */
+	public static final boolean DEFAULT_STREAMING = false;
+	/** Default number of samples per window ({@value}). */
+	public static final int DEFAULT_WINDOW_SAMPLES = 0;
 	//========================================================================//
 
 
@@ -67,8 +86,21 @@ extends SamplingReport {
 	private final String gnuplotFileExtension;
 
 	private final boolean onlyAverage;
+	private final boolean streaming;
+	private final int windowSamples;
 	private final String runName;
+	/** all the samples, or null if the samples are only aggregated */
 	private final List<int[][]> samples;
+
+	/** bucket array reused for each sample when samples are not stored */
+	private final int[][] buckets;
+	private final long[][] sums;
+	private final long[][] sumsOfSquares;
+	private int sampleCount;
+	private final long[][] windowSums;
+	private int windowSampleCount;
+	private int windowIndex;
+	private double windowStart;
 	//========================================================================//
 
 
@@ -84,6 +116,19 @@ extends SamplingReport {
 				DEFAULT_GNUPLOT);
 		this.onlyAverage = settings.getBoolean(ONLY_AVERAGE_SETTING,
 				DEFAULT_ONLY_AVERAGE);
+		this.streaming = settings.getBoolean(STREAMING_SETTING,
+				DEFAULT_STREAMING);
+		this.windowSamples = settings.getInt(WINDOW_SAMPLES_SETTING,
+				DEFAULT_WINDOW_SAMPLES);
+		if (this.windowSamples < 0) {
+			throw new SettingsError("Setting '" + WINDOW_SAMPLES_SETTING
+					+ "' can't be negative. Found " + this.windowSamples + ".");
+		}
+		if (this.windowSamples > 0 && (!this.streaming || this.gnuplot)) {
+			throw new SettingsError("Setting '" + WINDOW_SAMPLES_SETTING
+					+ "' requires '" + STREAMING_SETTING + "' and can't be "
+					+ "used with '" + GNUPLOT_SETTING + "'.");
+		}
 		this.gnuplotTerminal = settings.getSetting(GNUPLOT_TERMINAL_SETTING,
 				DEFAULT_GNUPLOT_TERMINAL);
 		this.gnuplotFileExtension = settings.getSetting(
@@ -108,10 +153,27 @@ extends SamplingReport {
 		this.divisionWidth = 1.0 * worldWidth / this.horizontalCount;
 		this.divisionHeight = 1.0 * worldHeight / this.verticalCount;
 
-		final double duration = scenario.getEndTime();
-		final int sampleCount = (int) (duration / super.interval + 1);
-
-		this.samples = new ArrayList<int[][]>(sampleCount);
+		this.sums = new long[this.horizontalCount][this.verticalCount];
+		if (this.streaming || this.onlyAverage) {
+			this.samples = null;
+			this.buckets = new int[this.horizontalCount][this.verticalCount];
+		} else {
+			final double duration = scenario.getEndTime();
+			final int sampleCount = (int) (duration / super.interval + 1);
+			this.samples = new ArrayList<int[][]>(sampleCount);
+			this.buckets = null;
+		}
+		if (this.streaming) {
+			this.sumsOfSquares
+					= new long[this.horizontalCount][this.verticalCount];
+		} else {
+			this.sumsOfSquares = null;
+		}
+		if (this.windowSamples > 0) {
+			this.windowSums = new long[this.horizontalCount][this.verticalCount];
+		} else {
+			this.windowSums = null;
+		}
 
 		this.runName = scenario.getName();
 	}
@@ -123,8 +185,15 @@ extends SamplingReport {
 	//========================================================================//
 	@Override
 	protected void sample(final List<DTNHost> hosts) {
-		final int[][] sample
-				= new int[this.horizontalCount][this.verticalCount];
+		final int[][] sample;
+		if (this.samples != null) {
+			sample = new int[this.horizontalCount][this.verticalCount];
+		} else {
+			sample = this.buckets;
+			for (final int[] column : sample) {
+				Arrays.fill(column, 0);
+			}
+		}
 
 		for (final DTNHost host : hosts) {
 			final Coord location = host.getLocation();
@@ -133,7 +202,32 @@ extends SamplingReport {
 			sample[xBucket][yBucket]++;
 		}
 
-		this.samples.add(sample);
+		if (this.windowSums != null && this.windowSampleCount == 0) {
+			this.windowStart = getSimTime();
+		}
+
+		for (int g_x = 0; g_x < this.horizontalCount; g_x++) {
+			for (int g_y = 0; g_y < this.verticalCount; g_y++) {
+				final int count = sample[g_x][g_y];
+				this.sums[g_x][g_y] += count;
+				if (this.sumsOfSquares != null) {
+					this.sumsOfSquares[g_x][g_y] += (long) count * count;
+				}
+				if (this.windowSums != null) {
+					this.windowSums[g_x][g_y] += count;
+				}
+			}
+		}
+		this.sampleCount++;
+
+		if (this.samples != null) {
+			this.samples.add(sample);
+		}
+
+		if (this.windowSums != null
+				&& ++this.windowSampleCount == this.windowSamples) {
+			this.outputWindow();
+		}
 	}
 	//========================================================================//
 
@@ -148,14 +242,21 @@ extends SamplingReport {
 			this.outputGnuplotPrefix();
 		}
 
-		final double[][] averages = getAverageDensities(this.samples,
-				this.horizontalCount, this.verticalCount);
+		if (this.windowSums != null && this.windowSampleCount > 0) {
+			this.outputWindow(); /* the last, partial window */
+		}
 
 		for (int g_x = 0; g_x < this.horizontalCount; g_x++) {
 			for (int g_y = 0; g_y < this.verticalCount; g_y++) {
-				String line = "" + g_x + " " + g_y + " "
-						+ averages[g_x][g_y];
-				if (!this.onlyAverage) {
+				final double average
+						= (double) this.sums[g_x][g_y] / this.sampleCount;
+				String line = "" + g_x + " " + g_y + " " + average;
+				if (this.streaming) {
+					final double variance = (double)
+							this.sumsOfSquares[g_x][g_y] / this.sampleCount
+							- average * average;
+					line += " " + Math.sqrt(Math.max(variance, 0));
+				} else if (!this.onlyAverage) {
 					for (final int[][] sample : this.samples) {
 						line += " " + sample[g_x][g_y];
 					}
@@ -165,7 +266,7 @@ extends SamplingReport {
 		}
 
 		if (this.gnuplot) {
-			this.outputGnuplotSuffix(this.samples.size());
+			this.outputGnuplotSuffix(this.sampleCount);
 		}
 
 		super.done();
@@ -176,30 +277,19 @@ extends SamplingReport {
 	//========================================================================//
 	// Private
 	//========================================================================//
-	private static double[][] getAverageDensities(
-			final List<int[][]> samples,
-			final int horizontalCount,
-			final int verticalCount) {
-		final double[][] averages = new double[horizontalCount][verticalCount];
-
-		// Get total count
-		for (final int[][] sample : samples) {
-			for (int g_x = 0; g_x < horizontalCount; g_x++) {
-				for (int g_y = 0; g_y < verticalCount; g_y++) {
-					averages[g_x][g_y] += sample[g_x][g_y];
-				}
-			}
-		}
-
-		// Calculate average
-		final int count = samples.size();
-		for (int g_x = 0; g_x < horizontalCount; g_x++) {
-			for (int g_y = 0; g_y < verticalCount; g_y++) {
-				averages[g_x][g_y] /= count;
+	private void outputWindow() {
+		super.write("window " + this.windowIndex + " "
+				+ format(this.windowStart) + " " + format(getSimTime()));
+		for (int g_x = 0; g_x < this.horizontalCount; g_x++) {
+			for (int g_y = 0; g_y < this.verticalCount; g_y++) {
+				super.write("" + g_x + " " + g_y + " "
+						+ (double) this.windowSums[g_x][g_y]
+						/ this.windowSampleCount);
+				this.windowSums[g_x][g_y] = 0;
 			}
 		}
-
-		return averages;
+		this.windowIndex++;
+		this.windowSampleCount = 0;
 	}
 	//========================================================================//
 
@@ -221,7 +311,7 @@ extends SamplingReport {
 				+ "-avrg." + this.gnuplotFileExtension + "')");
 		super.write("plot '$data' using 2:1:3 with image");
 
-		if (!this.onlyAverage) {
+		if (this.samples != null) {
 			super.write("do for [ii=4:" + (3 + sampleCount) + "] {");
 			super.write("set output sprintf('" + this.runName
 					+ "%04.0f." + this.gnuplotFileExtension + "',ii-3)");
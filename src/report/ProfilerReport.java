@@ -0,0 +1,83 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package report;
+
+import java.util.List;
+
+import core.DTNHost;
+import core.SimProfiler;
+
+/**
+ * Reports the real time spent in the different phases of the world update
+ * and the event counters collected by the {@link SimProfiler}. Loading this
+ * report enables the profiler. Every sample interval (see
+ * {@link SamplingReport#SAMPLE_INTERVAL_SETTING}) a line with format
+ * <p>
+ * [simTime] [events] [movement] [interfaces] [routers] [listeners]
+ * [connections] [transfers] [drops]
+ * </p>
+ * is written, where the phase times are milliseconds and the counters are
+ * amounts since the previous sample. At the end of the simulation the
+ * cumulative times of every profiled class are written with format
+ * "phase className nanoseconds calls".
+ */
+public class ProfilerReport extends SamplingReport {
+	private SimProfiler profiler;
+	private long[] lastPhaseNanos;
+	private long lastConnections;
+	private long lastTransfers;
+	private long lastDrops;
+
+	/**
+	 * Constructor.
+	 */
+	public ProfilerReport() {
+		super();
+		SimProfiler.setEnabled(true);
+		this.profiler = SimProfiler.getInstance();
+		this.lastPhaseNanos = new long[SimProfiler.PHASE_NAMES.length];
+	}
+
+	@Override
+	protected void init() {
+		super.init();
+		StringBuilder header = new StringBuilder("# time");
+		for (String phase : SimProfiler.PHASE_NAMES) {
+			header.append(' ').append(phase);
+		}
+		header.append(" connections transfers drops");
+		write(header.toString());
+	}
+
+	@Override
+	protected void sample(List<DTNHost> hosts) {
+		StringBuilder line = new StringBuilder(format(getSimTime()));
+
+		for (int i=0; i < lastPhaseNanos.length; i++) {
+			long nanos = profiler.getPhaseNanos(i);
+			line.append(' ').append(format((nanos - lastPhaseNanos[i]) / 1e6));
+			lastPhaseNanos[i] = nanos;
+		}
+
+		line.append(' ').append(
+				profiler.getConnectionsCreated() - lastConnections);
+		line.append(' ').append(profiler.getTransfersStarted() - lastTransfers);
+		line.append(' ').append(profiler.getMessagesDropped() - lastDrops);
+		lastConnections = profiler.getConnectionsCreated();
+		lastTransfers = profiler.getTransfersStarted();
+		lastDrops = profiler.getMessagesDropped();
+
+		write(line.toString());
+	}
+
+	@Override
+	public void done() {
+		write("# update rounds " + profiler.getUpdateRounds());
+		for (String classTime : profiler.getClassTimes()) {
+			write(classTime);
+		}
+		super.done();
+	}
+}
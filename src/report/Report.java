@@ -9,9 +9,12 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import core.Settings;
@@ -67,6 +70,8 @@ public abstract class Report {
 	private double lastReportTime;
 	private String outFileName;
 	private String scenarioName;
+	/** numeric results of the report, see {@link #getMetrics()} */
+	private Map<String, Double> metrics;
 
 	/**
 	 * Constructor.
@@ -264,6 +269,15 @@ public abstract class Report {
 		return this.scenarioName;
 	}
 
+	/**
+	 * Returns the name of the report's output file (without the suffix of
+	 * intervalled reports)
+	 * @return the name of the output file
+	 */
+	protected String getOutFileName() {
+		return this.outFileName;
+	}
+
 	/**
 	 * Returns the current simulation time from the SimClock
 	 * @return the current simulation time from the SimClock
@@ -324,10 +338,56 @@ public abstract class Report {
 		return s;
 	}
 
+	/**
+	 * Adds a numeric result of the report to the metrics that can be
+	 * aggregated over several runs (see {@link RunAggregator}). The value
+	 * should be the exact value and not one parsed from formatted output.
+	 * The metric is namespaced with the report's class name, i.e., it is
+	 * named "ReportClassName.name".
+	 * @param name Name of the metric
+	 * @param value Value of the metric
+	 */
+	protected void addMetric(String name, double value) {
+		if (this.metrics == null) {
+			this.metrics = new LinkedHashMap<String, Double>();
+		}
+		this.metrics.put(getClass().getSimpleName() + "." + name, value);
+	}
+
+	/**
+	 * Returns the numeric results the report has added with
+	 * {@link #addMetric(String, double)}. Usually the metrics are available
+	 * only after the report is done.
+	 * @return The metrics by (namespaced) name in the order they were added
+	 */
+	public Map<String, Double> getMetrics() {
+		if (this.metrics == null) {
+			return Collections.emptyMap();
+		}
+		return Collections.unmodifiableMap(this.metrics);
+	}
+
+	/**
+	 * Returns the reports that must be finalized before this report
+	 * (see {@link ReportFinalizer}). Reports that are not finalized by the
+	 * same finalizer, e.g., reports used internally by another report, are
+	 * ignored. Default implementation returns an empty collection.
+	 * @return The reports this report depends on
+	 */
+	public Collection<Report> getDependencies() {
+		return Collections.emptyList();
+	}
+
 	/**
 	 * Called when the simulation is done, user requested
 	 * premature termination or intervalled report generating decided
 	 * that it's time for the next report.
+	 * <P>If the reports are finalized with more than one thread (see
+	 * {@link ui.DTNSimUI#FINALIZE_THREADS_S}), this method can be called
+	 * concurrently with other reports' done methods. Implementations must
+	 * then not modify state shared with other reports (e.g., static
+	 * fields); data of other reports may be read only if those reports are
+	 * declared as dependencies ({@link #getDependencies()}).</P>
 	 */
 	public void done() {
 		if (out != null) {
@@ -342,16 +402,28 @@ public abstract class Report {
 	 * @return average of double values stored in the List in a formatted String
 	 */
 	public String getAverage(List<Double> values) {
-		double sum = 0;
 		if (values.size() == 0) {
 			return NAN;
 		}
+		return format(getAverageValue(values));
+	}
+
+	/**
+	 * Returns the average of double values stored in a List
+	 * @param values The list of values
+	 * @return average of the values or NaN for empty lists
+	 */
+	public double getAverageValue(List<Double> values) {
+		double sum = 0;
+		if (values.size() == 0) {
+			return Double.NaN;
+		}
 
 		for (double dValue : values) {
 			sum += dValue;
 		}
 
-		return format(sum / values.size());
+		return sum / values.size();
 	}
 
 	/**
@@ -368,6 +440,24 @@ public abstract class Report {
 		return getAverage(dValues);
 	}
 
+	/**
+	 * Returns the average of integer values stored in a List
+	 * @param values The list of values
+	 * @return average of the values or NaN for empty lists
+	 */
+	public double getIntAverageValue(List<Integer> values) {
+		double sum = 0;
+		if (values.size() == 0) {
+			return Double.NaN;
+		}
+
+		for (int value : values) {
+			sum += value;
+		}
+
+		return sum / values.size();
+	}
+
 	/**
 	 * Returns the median of double values stored in a List
 	 * @param values The list of double values
@@ -378,9 +468,22 @@ public abstract class Report {
 		if (values.size() == 0) {
 			return NAN;
 		}
+		return format(getMedianValue(values));
+	}
+
+	/**
+	 * Returns the median of double values stored in a List. The list is
+	 * sorted.
+	 * @param values The list of double values
+	 * @return median of the values or NaN for empty lists
+	 */
+	public double getMedianValue(List<Double> values) {
+		if (values.size() == 0) {
+			return Double.NaN;
+		}
 
 		Collections.sort(values);
-		return format(values.get(values.size()/2));
+		return values.get(values.size()/2);
 	}
 
 	/**
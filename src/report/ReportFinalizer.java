@@ -0,0 +1,183 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package report;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import core.SimError;
+
+/**
+ * Finalizes reports at the end of a simulation by calling their
+ * {@link Report#done()} methods. Reports are independent of each other
+ * unless they declare dependencies ({@link Report#getDependencies()}), so
+ * their finalization can run in parallel on a fork-join pool. A report is
+ * finalized only after all the (finalized) reports it depends on.
+ * The time each report's finalization took is recorded.
+ */
+public class ReportFinalizer {
+	private List<Report> reports;
+	private int parallelism;
+	/** finalization time (seconds) of each report */
+	private Map<Report, Double> times;
+	private double totalTime;
+
+	/**
+	 * Constructor.
+	 * @param reports The reports to finalize
+	 * @param parallelism Number of threads to use. If 1, the reports are
+	 * finalized in the calling thread in the order of the list (or later if
+	 * they depend on a report that is later in the list).
+	 */
+	public ReportFinalizer(List<Report> reports, int parallelism) {
+		if (parallelism < 1) {
+			throw new SimError("Report finalization needs at least one " +
+					"thread, not " + parallelism);
+		}
+		this.reports = reports;
+		this.parallelism = parallelism;
+		this.times = new IdentityHashMap<Report, Double>();
+		checkDependencies();
+	}
+
+	/**
+	 * Makes sure the dependencies of the reports don't form a cycle
+	 */
+	private void checkDependencies() {
+		Set<Report> done = new HashSet<Report>();
+		for (Report r : reports) {
+			checkDependencies(r, done, new HashSet<Report>());
+		}
+	}
+
+	private void checkDependencies(Report r, Set<Report> done,
+			Set<Report> path) {
+		if (done.contains(r)) {
+			return;
+		}
+		if (!path.add(r)) {
+			throw new SimError("Cyclic dependency between reports " +
+					"involving " + r.getClass().getSimpleName());
+		}
+		for (Report dep : r.getDependencies()) {
+			checkDependencies(dep, done, path);
+		}
+		path.remove(r);
+		done.add(r);
+	}
+
+	/**
+	 * Finalizes all the reports. Returns after all of them are done.
+	 * If some report's finalization fails, the first failure is re-thrown
+	 * after the other reports are finalized.
+	 */
+	public void finalizeReports() {
+		long start = System.nanoTime();
+		final Map<Report, FinalizeTask> tasks =
+			new IdentityHashMap<Report, FinalizeTask>();
+		for (Report r : reports) {
+			tasks.put(r, new FinalizeTask(r, tasks));
+		}
+
+		if (parallelism == 1) {
+			for (Report r : reports) {
+				tasks.get(r).invoke();
+			}
+		} else {
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				pool.invoke(new RecursiveAction() {
+					private static final long serialVersionUID = 1L;
+					@Override
+					protected void compute() {
+						invokeAll(tasks.values());
+					}
+				});
+			} finally {
+				pool.shutdown();
+			}
+		}
+
+		this.totalTime = (System.nanoTime() - start) / 1e9;
+
+		for (Report r : reports) {
+			Throwable t = tasks.get(r).failure;
+			if (t instanceof RuntimeException) {
+				throw (RuntimeException)t;
+			} else if (t instanceof Error) {
+				throw (Error)t;
+			}
+		}
+	}
+
+	/**
+	 * Returns the time it took to finalize a report
+	 * @param r The report
+	 * @return The time in seconds (0 if the report has not been finalized)
+	 */
+	public double getTime(Report r) {
+		synchronized (times) {
+			Double t = times.get(r);
+			return (t == null ? 0 : t);
+		}
+	}
+
+	/**
+	 * Returns the real time it took to finalize all the reports
+	 * @return The time in seconds
+	 */
+	public double getTotalTime() {
+		return this.totalTime;
+	}
+
+	/**
+	 * Task that finalizes one report after its dependencies
+	 */
+	private class FinalizeTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private Report report;
+		private Map<Report, FinalizeTask> tasks;
+		private Throwable failure;
+
+		private FinalizeTask(Report report, Map<Report, FinalizeTask> tasks) {
+			this.report = report;
+			this.tasks = tasks;
+		}
+
+		@Override
+		protected void compute() {
+			Collection<Report> deps = report.getDependencies();
+			for (Report dep : deps) {
+				FinalizeTask t = tasks.get(dep);
+				if (t != null) { /* only reports that are finalized here */
+					if (parallelism == 1) {
+						t.invoke();
+					} else {
+						t.join();
+					}
+				}
+			}
+
+			long start = System.nanoTime();
+			try {
+				report.done();
+			} catch (RuntimeException e) {
+				this.failure = e;
+			} catch (Error e) {
+				this.failure = e;
+			}
+			double time = (System.nanoTime() - start) / 1e9;
+			synchronized (times) {
+				times.put(report, time);
+			}
+		}
+	}
+}
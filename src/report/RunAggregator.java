@@ -0,0 +1,271 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package report;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import core.Settings;
+import core.SimError;
+
+/**
+ * Aggregates the metrics of reports (see {@link Report#getMetrics()}) over
+ * the runs of a batch. After every run, the aggregate file is rewritten
+ * with the statistics of the runs done so far, so the results can be
+ * followed while the batch is still running.
+ * <P>For every metric, the file contains the number of runs, mean,
+ * standard deviation and 95% confidence interval (Student's t) over all
+ * the runs. For every run-specific setting (a setting with a run array
+ * value, see {@link Settings#setRunIndex(int)}), there is also a table of
+ * the metrics over the runs that had the same value for the setting.
+ * Metrics are named "ReportClassName.metricName" (see
+ * {@link Report#addMetric(String, double)}); if several reports of the same
+ * class are loaded, the metrics of the second one are suffixed with "#2"
+ * etc. NaN values are not included in the statistics.</P>
+ */
+public class RunAggregator {
+	/** Run aggregation -setting id ({@value}). Boolean setting that enables
+	 * the aggregation. Default is false. */
+	public static final String AGGREGATE_S = "Report.aggregateRuns";
+	/** Aggregate file path -setting id ({@value}). Default is the
+	 * report directory and the first run's scenario name suffixed with
+	 * {@value #DEF_FILE_SUFFIX} */
+	public static final String AGGREGATE_FILE_S = "Report.aggregateFile";
+	/** Suffix of the default aggregate file name */
+	public static final String DEF_FILE_SUFFIX = "_RunAggregate.txt";
+
+	/** two-sided 95% t-distribution values for 1..30 degrees of freedom */
+	private static final double[] T_95 = {12.706, 4.303, 3.182, 2.776,
+		2.571, 2.447, 2.365, 2.306, 2.262, 2.228, 2.201, 2.179, 2.160, 2.145,
+		2.131, 2.120, 2.110, 2.101, 2.093, 2.086, 2.080, 2.074, 2.069, 2.064,
+		2.060, 2.056, 2.052, 2.048, 2.045, 2.042};
+	/** 95% value of the normal distribution (for large degrees of freedom) */
+	private static final double Z_95 = 1.960;
+
+	private static RunAggregator instance;
+
+	private String fileName;
+	private List<Integer> runIndexes;
+	/** values of the run-specific settings of each run */
+	private List<Map<String, String>> runParameters;
+	/** values of each metric in each run (NaN if not available) */
+	private Map<String, List<Double>> metrics;
+
+	/**
+	 * Constructor.
+	 * @param fileName Path of the file where the results are written
+	 */
+	public RunAggregator(String fileName) {
+		this.fileName = fileName;
+		this.runIndexes = new ArrayList<Integer>();
+		this.runParameters = new ArrayList<Map<String, String>>();
+		this.metrics = new LinkedHashMap<String, List<Double>>();
+	}
+
+	/**
+	 * Returns the aggregator of the current batch, or null if run
+	 * aggregation is not enabled. The aggregator is created on the first
+	 * call and it is kept over all the runs of the batch.
+	 * @param reportDir Report directory of the current run
+	 * @param scenarioName Name of the current run's scenario
+	 * @return The aggregator or null
+	 */
+	public static RunAggregator getInstance(String reportDir,
+			String scenarioName) {
+		Settings s = new Settings();
+		if (!s.getBoolean(AGGREGATE_S, false)) {
+			return null;
+		}
+		if (instance == null) {
+			String file;
+			if (s.contains(AGGREGATE_FILE_S)) {
+				file = s.valueFillString(s.getSetting(AGGREGATE_FILE_S));
+			} else {
+				file = new File(reportDir, scenarioName + DEF_FILE_SUFFIX)
+					.getPath();
+			}
+			instance = new RunAggregator(file);
+		}
+		return instance;
+	}
+
+	/**
+	 * Adds the metrics of all the reports of a finished run and rewrites
+	 * the aggregate file
+	 * @param runIndex Index of the run
+	 * @param reports The (finalized) reports of the run
+	 */
+	public void runDone(int runIndex, List<Report> reports) {
+		Map<String, Double> runMetrics = new LinkedHashMap<String, Double>();
+		Map<Class<?>, Integer> instances = new HashMap<Class<?>, Integer>();
+		for (Report r : reports) {
+			Integer n = instances.get(r.getClass());
+			n = (n == null ? 1 : n + 1);
+			instances.put(r.getClass(), n);
+			/* suffix for the second etc. report of the same class */
+			String suffix = (n == 1 ? "" : "#" + n);
+			for (Map.Entry<String, Double> e : r.getMetrics().entrySet()) {
+				runMetrics.put(e.getKey() + suffix, e.getValue());
+			}
+		}
+		addRun(runIndex, Settings.getRunSettings(), runMetrics);
+		write();
+	}
+
+	/**
+	 * Adds the metrics of a run
+	 * @param runIndex Index of the run
+	 * @param parameters Values of the run-specific settings of the run
+	 * @param runMetrics Values of the metrics of the run
+	 */
+	public void addRun(int runIndex, SortedMap<String, String> parameters,
+			Map<String, Double> runMetrics) {
+		int run = runIndexes.size();
+		runIndexes.add(runIndex);
+		runParameters.add(parameters);
+
+		for (Map.Entry<String, Double> e : runMetrics.entrySet()) {
+			List<Double> values = metrics.get(e.getKey());
+			if (values == null) {
+				values = new ArrayList<Double>();
+				metrics.put(e.getKey(), values);
+			}
+			while (values.size() < run) { /* metric missing in earlier runs */
+				values.add(Double.NaN);
+			}
+			values.add(e.getValue());
+		}
+		for (List<Double> values : metrics.values()) {
+			while (values.size() <= run) { /* metric missing in this run */
+				values.add(Double.NaN);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of runs added so far
+	 * @return the number of runs
+	 */
+	public int getNrofRuns() {
+		return this.runIndexes.size();
+	}
+
+	/**
+	 * Returns the statistics of a metric over all runs
+	 * @param metric Name of the metric
+	 * @return {n, mean, standard deviation, half-width of the 95%
+	 * confidence interval}, or null if there is no such metric
+	 */
+	public double[] getStatistics(String metric) {
+		List<Double> values = metrics.get(metric);
+		if (values == null) {
+			return null;
+		}
+		return statistics(values, null, null);
+	}
+
+	/**
+	 * Computes the statistics of the values of the runs that have the
+	 * given value for the given parameter (or of all runs if the parameter
+	 * is null)
+	 */
+	private double[] statistics(List<Double> values, String parameter,
+			String parameterValue) {
+		int n = 0;
+		double sum = 0;
+		double sumOfSquares = 0;
+		for (int i=0; i<values.size(); i++) {
+			double v = values.get(i);
+			if (Double.isNaN(v) || (parameter != null &&
+					!parameterValue.equals(
+							runParameters.get(i).get(parameter)))) {
+				continue;
+			}
+			n++;
+			sum += v;
+			sumOfSquares += v * v;
+		}
+
+		double mean = (n > 0 ? sum / n : Double.NaN);
+		double stdDev = Double.NaN;
+		double ci = Double.NaN;
+		if (n > 1) {
+			double variance = (sumOfSquares - n * mean * mean) / (n - 1);
+			stdDev = Math.sqrt(Math.max(variance, 0));
+			double t = (n - 1 <= T_95.length ? T_95[n - 2] : Z_95);
+			ci = t * stdDev / Math.sqrt(n);
+		}
+		return new double[] {n, mean, stdDev, ci};
+	}
+
+	/**
+	 * Writes the statistics of the runs so far to the aggregate file
+	 */
+	public void write() {
+		PrintWriter out;
+		try {
+			File f = new File(fileName);
+			if (f.getParentFile() != null) {
+				f.getParentFile().mkdirs();
+			}
+			out = new PrintWriter(new FileWriter(f));
+		} catch (IOException e) {
+			throw new SimError("Couldn't write run aggregate '" + fileName +
+					"'\n" + e.getMessage(), e);
+		}
+
+		out.println("# Aggregate of " + runIndexes.size() + " runs " +
+				runIndexes);
+		out.println("# metric n mean std_dev ci95_low ci95_high");
+		for (Map.Entry<String, List<Double>> e : metrics.entrySet()) {
+			out.println(e.getKey() + " " +
+					format(statistics(e.getValue(), null, null)));
+		}
+
+		/* per parameter value tables */
+		List<String> parameters = new ArrayList<String>();
+		for (Map<String, String> p : runParameters) {
+			for (String name : p.keySet()) {
+				if (!parameters.contains(name)) {
+					parameters.add(name);
+				}
+			}
+		}
+		for (String parameter : parameters) {
+			List<String> parameterValues = new ArrayList<String>();
+			for (Map<String, String> p : runParameters) {
+				String value = p.get(parameter);
+				if (value != null && !parameterValues.contains(value)) {
+					parameterValues.add(value);
+				}
+			}
+
+			out.println();
+			out.println("# by " + parameter);
+			out.println("# value metric n mean std_dev ci95_low ci95_high");
+			for (String value : parameterValues) {
+				for (Map.Entry<String, List<Double>> e : metrics.entrySet()) {
+					out.println(value + " " + e.getKey() + " " + format(
+							statistics(e.getValue(), parameter, value)));
+				}
+			}
+		}
+
+		out.close();
+	}
+
+	private static String format(double[] stats) {
+		return String.format("%d %.4f %.4f %.4f %.4f", (int)stats[0],
+				stats[1], stats[2], stats[1] - stats[3], stats[1] + stats[3]);
+	}
+}
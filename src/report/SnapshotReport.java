@@ -15,8 +15,12 @@ import core.UpdateListener;
  * Node snapshot report superclass. Reports some characteristic of all 
  * (or only some, see {@link #REPORTED_NODES}) nodes every 
  * configurable-amount-of seconds (see {@link #GRANULARITY}).
+ * Snapshots are taken using the shared {@link HostMetricSampler}, so
+ * subclasses that report sampled metrics (see {@link #getSampledMetrics()})
+ * can read them from {@link #sampler} instead of querying the hosts.
  */
-public abstract class SnapshotReport extends Report implements UpdateListener {
+public abstract class SnapshotReport extends Report implements UpdateListener,
+	HostMetricSampler.Subscriber {
 	/** Reporting granularity -setting id ({@value}).
 	 * Defines the interval how often (seconds) a new snapshot is created */
 	public static final String GRANULARITY = "granularity";
@@ -29,6 +33,8 @@ public abstract class SnapshotReport extends Report implements UpdateListener {
 	protected double lastUpdate;
 	/** Networks addresses (integers) of the nodes which are reported */
 	protected HashSet<Integer> reportedNodes;
+	/** the sampler whose values are up to date while a snapshot is written */
+	protected HostMetricSampler sampler;
 
 	/**
 	 * Constructor. Reads the settings and initializes the report module.
@@ -49,6 +55,16 @@ public abstract class SnapshotReport extends Report implements UpdateListener {
 		}
 
 		init();
+		HostMetricSampler.getInstance().subscribe(this, getSampledMetrics());
+	}
+
+	/**
+	 * Returns the metrics (see {@link HostMetricSampler}) this report needs
+	 * in the snapshots. The default is none.
+	 * @return The metrics
+	 */
+	protected int[] getSampledMetrics() {
+		return new int[0];
 	}
 
 	/**
@@ -57,15 +73,23 @@ public abstract class SnapshotReport extends Report implements UpdateListener {
 	 * @param hosts All the hosts in the world
 	 */
 	public void updated(List<DTNHost> hosts) {
-		double simTime = getSimTime();
+		HostMetricSampler.getInstance().updated(hosts);
+	}
+
+	public boolean isSampleDue(double simTime) {
 		if (isWarmup()) {
-			return; /* warmup period is on */
+			return false; /* warmup period is on */
 		}
 		/* one snapshot once every granularity seconds */
-		if (simTime - lastUpdate >= granularity) {
-			createSnapshot(hosts);
-			this.lastUpdate = simTime - simTime % granularity;
-		}
+		return simTime - lastUpdate >= granularity;
+	}
+
+	public void sampled(HostMetricSampler sampler) {
+		double simTime = getSimTime();
+		this.sampler = sampler;
+		createSnapshot(sampler.getHosts());
+		this.sampler = null;
+		this.lastUpdate = simTime - simTime % granularity;
 	}
 	
 	
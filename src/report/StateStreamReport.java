@@ -0,0 +1,444 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package report;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import core.ConnectionListener;
+import core.DTNHost;
+import core.Settings;
+import core.SimError;
+import core.UpdateListener;
+
+/**
+ * Streams the state of the simulation to local viewers over a TCP socket
+ * bound to the loopback address. Nothing is written to the report file.
+ * After every update round, a binary frame with the changes since the
+ * previous round is sent to every connected client. A client that has just
+ * connected first gets a full frame that contains all the hosts.
+ * <P>All values are big-endian (as written by {@link DataOutputStream}).
+ * Frame format:
+ * <pre>
+ * int    length of the rest of the frame (bytes)
+ * byte   frame type ({@link #FRAME_DELTA} or {@link #FRAME_FULL})
+ * double simulation time
+ * int    number of hosts in the simulation
+ * int    n, followed by n times: int address, float x, float y
+ * int    n, followed by n times: int address, int address (connections up)
+ * int    n, followed by n times: int address, int address (connections down)
+ * int    n, followed by n times: int address, int nrof messages in buffer
+ * </pre>
+ * Positions and message counts are included only for hosts whose values
+ * changed (all hosts in full frames). Connections are address pairs with
+ * the smaller address first. A delta frame contains the net connection
+ * changes of the round: a connection that went down and up again (or vice
+ * versa) during the round isn't included. A full frame replaces the
+ * client's whole state: its connections up are all the open connections and
+ * it has no connections down.</P>
+ * <P>Every client has its own bounded frame queue and a sender thread. If a
+ * client can't keep up and its queue gets full, all its queued frames are
+ * dropped and it gets a full frame in the next round. This way a slow viewer
+ * never slows down the simulation and its state is never built on missing
+ * deltas.</P>
+ */
+public class StateStreamReport extends Report
+	implements UpdateListener, ConnectionListener {
+	/** TCP port to listen to -setting id ({@value}). Default is
+	 * {@value #DEF_PORT}. Zero uses any free port (see {@link #getPort()})*/
+	public static final String PORT_S = "port";
+	/** Default port */
+	public static final int DEF_PORT = 9520;
+	/** Maximum number of queued frames per client -setting id ({@value}).
+	 * Default is {@value #DEF_CLIENT_BUFFER} */
+	public static final String CLIENT_BUFFER_S = "clientBuffer";
+	/** Default size of the client frame queue */
+	public static final int DEF_CLIENT_BUFFER = 64;
+
+	/** frame type of frames that contain only changes */
+	public static final byte FRAME_DELTA = 1;
+	/** frame type of frames that contain all hosts */
+	public static final byte FRAME_FULL = 2;
+
+	private ServerSocket server;
+	private int clientBufferSize;
+	private List<Client> clients;
+
+	private float[] lastX;
+	private float[] lastY;
+	private int[] lastMsgCount;
+	/** currently open connections (see {@link #pairKey(int, int)}) */
+	private Set<Long> openConnections;
+	/** connection changes of the current round as address pairs */
+	private int[] conUps;
+	private int nrofConUps;
+	private int[] conDowns;
+	private int nrofConDowns;
+
+	private ByteArrayOutputStream frameBytes;
+	private DataOutputStream frame;
+
+	/**
+	 * Constructor. Starts listening to the configured port.
+	 */
+	public StateStreamReport() {
+		super();
+		Settings s = getSettings();
+		int port = s.getInt(PORT_S, DEF_PORT);
+		this.clientBufferSize = s.getInt(CLIENT_BUFFER_S, DEF_CLIENT_BUFFER);
+		s.ensurePositiveValue(clientBufferSize, CLIENT_BUFFER_S);
+
+		this.clients = new CopyOnWriteArrayList<Client>();
+		this.lastX = new float[0];
+		this.lastY = new float[0];
+		this.lastMsgCount = new int[0];
+		this.conUps = new int[32];
+		this.conDowns = new int[32];
+		this.openConnections = new HashSet<Long>();
+		this.frameBytes = new ByteArrayOutputStream();
+		this.frame = new DataOutputStream(frameBytes);
+
+		try {
+			this.server = new ServerSocket(port, 0,
+					InetAddress.getLoopbackAddress());
+		} catch (IOException e) {
+			throw new SimError("Can't listen to port " + port + ": " +
+					e.getMessage(), e);
+		}
+
+		Thread acceptor = new Thread(new Runnable() {
+			public void run() {
+				acceptClients();
+			}
+		}, getClass().getSimpleName() + " acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	/**
+	 * Returns the TCP port this report listens to
+	 * @return The port
+	 */
+	public int getPort() {
+		return server.getLocalPort();
+	}
+
+	/**
+	 * Accepts new clients until the server socket is closed
+	 */
+	private void acceptClients() {
+		while (!server.isClosed()) {
+			try {
+				Socket socket = server.accept();
+				socket.setTcpNoDelay(true);
+				Client c = new Client(socket);
+				clients.add(c);
+				c.start();
+			} catch (IOException e) {
+				/* server closed or accept failed; try again if still open */
+			}
+		}
+	}
+
+	public void hostsConnected(DTNHost host1, DTNHost host2) {
+		int a = Math.min(host1.getAddress(), host2.getAddress());
+		int b = Math.max(host1.getAddress(), host2.getAddress());
+		openConnections.add(pairKey(a, b));
+
+		if (removePair(conDowns, nrofConDowns, a, b)) {
+			nrofConDowns--; /* went down and up again during this round */
+			return;
+		}
+		if (nrofConUps * 2 + 1 >= conUps.length) {
+			conUps = grow(conUps);
+		}
+		conUps[nrofConUps * 2] = a;
+		conUps[nrofConUps * 2 + 1] = b;
+		nrofConUps++;
+	}
+
+	public void hostsDisconnected(DTNHost host1, DTNHost host2) {
+		int a = Math.min(host1.getAddress(), host2.getAddress());
+		int b = Math.max(host1.getAddress(), host2.getAddress());
+		openConnections.remove(pairKey(a, b));
+
+		if (removePair(conUps, nrofConUps, a, b)) {
+			nrofConUps--; /* went up and down again during this round */
+			return;
+		}
+		if (nrofConDowns * 2 + 1 >= conDowns.length) {
+			conDowns = grow(conDowns);
+		}
+		conDowns[nrofConDowns * 2] = a;
+		conDowns[nrofConDowns * 2 + 1] = b;
+		nrofConDowns++;
+	}
+
+	private static long pairKey(int a, int b) {
+		return ((long)a << 32) | (b & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Removes an address pair from a pair array by moving the last pair to
+	 * its place
+	 * @param pairs The pairs
+	 * @param nrofPairs Number of pairs in the array
+	 * @param a The first address of the pair
+	 * @param b The second address of the pair
+	 * @return true if the pair was found and removed (the caller must
+	 * decrement the number of pairs), false if not
+	 */
+	private static boolean removePair(int[] pairs, int nrofPairs, int a,
+			int b) {
+		for (int i=0; i < nrofPairs * 2; i += 2) {
+			if (pairs[i] == a && pairs[i + 1] == b) {
+				int last = (nrofPairs - 1) * 2;
+				pairs[i] = pairs[last];
+				pairs[i + 1] = pairs[last + 1];
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int[] grow(int[] array) {
+		int[] bigger = new int[array.length * 2];
+		System.arraycopy(array, 0, bigger, 0, array.length);
+		return bigger;
+	}
+
+	public void updated(List<DTNHost> hosts) {
+		if (clients.isEmpty()) {
+			/* nobody to send to; keep only the latest state */
+			updateLastValues(hosts);
+			nrofConUps = 0;
+			nrofConDowns = 0;
+			return;
+		}
+
+		boolean fullNeeded = false;
+		for (Client c : clients) {
+			if (c.needsFullFrame) {
+				fullNeeded = true;
+				break;
+			}
+		}
+
+		byte[] full = (fullNeeded ? encodeFrame(hosts, true) : null);
+		byte[] delta = encodeFrame(hosts, false);
+		updateLastValues(hosts);
+		nrofConUps = 0;
+		nrofConDowns = 0;
+
+		for (Client c : clients) {
+			if (c.needsFullFrame) {
+				if (full != null) { /* else connected just now; next round */
+					c.needsFullFrame = false;
+					c.send(full);
+				}
+			} else {
+				c.send(delta);
+			}
+		}
+	}
+
+	/**
+	 * Encodes a frame of the current state
+	 * @param hosts All hosts
+	 * @param full If true, all hosts' positions and message counts are
+	 * included; otherwise only the changed ones
+	 * @return The frame
+	 */
+	private byte[] encodeFrame(List<DTNHost> hosts, boolean full) {
+		int n = hosts.size();
+		boolean sizeChanged = lastX.length != n;
+		frameBytes.reset();
+
+		try {
+			frame.writeInt(0); /* length placeholder */
+			frame.writeByte(full ? FRAME_FULL : FRAME_DELTA);
+			frame.writeDouble(getSimTime());
+			frame.writeInt(n);
+
+			int count = 0;
+			for (int i=0; i<n; i++) {
+				if (full || sizeChanged || moved(hosts.get(i), i)) {
+					count++;
+				}
+			}
+			frame.writeInt(count);
+			for (int i=0; i<n; i++) {
+				DTNHost h = hosts.get(i);
+				if (full || sizeChanged || moved(h, i)) {
+					frame.writeInt(h.getAddress());
+					frame.writeFloat((float)h.getLocation().getX());
+					frame.writeFloat((float)h.getLocation().getY());
+				}
+			}
+
+			if (full) {
+				frame.writeInt(openConnections.size());
+				for (long key : openConnections) {
+					frame.writeInt((int)(key >>> 32));
+					frame.writeInt((int)key);
+				}
+				frame.writeInt(0);
+			} else {
+				writePairs(conUps, nrofConUps);
+				writePairs(conDowns, nrofConDowns);
+			}
+
+			count = 0;
+			for (int i=0; i<n; i++) {
+				if (full || sizeChanged ||
+						hosts.get(i).getNrofMessages() != lastMsgCount[i]) {
+					count++;
+				}
+			}
+			frame.writeInt(count);
+			for (int i=0; i<n; i++) {
+				DTNHost h = hosts.get(i);
+				if (full || sizeChanged ||
+						h.getNrofMessages() != lastMsgCount[i]) {
+					frame.writeInt(h.getAddress());
+					frame.writeInt(h.getNrofMessages());
+				}
+			}
+			frame.flush();
+		} catch (IOException e) {
+			/* can't happen with a byte array */
+			throw new SimError(e);
+		}
+
+		byte[] bytes = frameBytes.toByteArray();
+		int length = bytes.length - 4;
+		bytes[0] = (byte)(length >>> 24);
+		bytes[1] = (byte)(length >>> 16);
+		bytes[2] = (byte)(length >>> 8);
+		bytes[3] = (byte)length;
+		return bytes;
+	}
+
+	private boolean moved(DTNHost h, int i) {
+		return (float)h.getLocation().getX() != lastX[i] ||
+			(float)h.getLocation().getY() != lastY[i];
+	}
+
+	private void writePairs(int[] pairs, int nrofPairs) throws IOException {
+		frame.writeInt(nrofPairs);
+		for (int i=0; i < nrofPairs * 2; i++) {
+			frame.writeInt(pairs[i]);
+		}
+	}
+
+	/**
+	 * Stores the values that were sent to clients for comparison in the
+	 * next round
+	 * @param hosts All hosts
+	 */
+	private void updateLastValues(List<DTNHost> hosts) {
+		int n = hosts.size();
+		if (lastX.length != n) {
+			lastX = new float[n];
+			lastY = new float[n];
+			lastMsgCount = new int[n];
+		}
+		for (int i=0; i<n; i++) {
+			DTNHost h = hosts.get(i);
+			lastX[i] = (float)h.getLocation().getX();
+			lastY[i] = (float)h.getLocation().getY();
+			lastMsgCount[i] = h.getNrofMessages();
+		}
+	}
+
+	@Override
+	public void done() {
+		try {
+			server.close();
+		} catch (IOException e) {
+			/* closing anyway */
+		}
+		for (Client c : clients) {
+			c.close();
+		}
+		super.done();
+	}
+
+	/**
+	 * A connected viewer with its own frame queue and sender thread
+	 */
+	private class Client implements Runnable {
+		private final Socket socket;
+		private final BlockingQueue<byte[]> queue;
+		private volatile boolean needsFullFrame;
+
+		private Client(Socket socket) {
+			this.socket = socket;
+			this.queue = new ArrayBlockingQueue<byte[]>(clientBufferSize);
+			this.needsFullFrame = true;
+		}
+
+		private void start() {
+			Thread t = new Thread(this, StateStreamReport.class.getSimpleName()
+					+ " " + socket.getRemoteSocketAddress());
+			t.setDaemon(true);
+			t.start();
+		}
+
+		/**
+		 * Queues a frame for sending. If the queue is full, the frame and
+		 * all the queued frames are dropped and the client gets a full frame
+		 * in the next round (the later deltas would be applied to a wrong
+		 * state). Never blocks.
+		 * @param frame The frame
+		 */
+		private void send(byte[] frame) {
+			if (!queue.offer(frame)) {
+				queue.clear();
+				needsFullFrame = true;
+			}
+		}
+
+		public void run() {
+			try {
+				OutputStream out = new BufferedOutputStream(
+						socket.getOutputStream());
+				while (!socket.isClosed()) {
+					byte[] frame = queue.take();
+					out.write(frame);
+					if (queue.isEmpty()) {
+						out.flush();
+					}
+				}
+			} catch (IOException e) {
+				/* client went away */
+			} catch (InterruptedException e) {
+				/* stopped */
+			}
+			close();
+		}
+
+		private void close() {
+			clients.remove(this);
+			try {
+				socket.close();
+			} catch (IOException e) {
+				/* closing anyway */
+			}
+		}
+	}
+}
@@ -40,13 +40,14 @@ public class TotalContactTimeReport extends ContactTimesReport implements
 	@Override
 	public void hostsDisconnected(DTNHost host1, DTNHost host2) {
 		newEvent();
-		ConnectionInfo ci = removeConnection(host1, host2);
+		double contactTime = stats.disconnected(host1.getAddress(),
+				host2.getAddress(), getSimTime(), false);
 
-		if (ci == null) {
+		if (contactTime < 0) {
 			return; // connection started during the warm up period
 		}
 
-		oldContactTimes += ci.getConnectionTime();
+		oldContactTimes += contactTime;
 	}
 
 	/**
@@ -62,10 +63,7 @@ public class TotalContactTimeReport extends ContactTimesReport implements
 		lastWrite = simTime;
 
 		// count also the times for connections that are still up
-		double othersTime = 0;
-		for (ConnectionInfo oth : this.connections.values()) {
-			othersTime += oth.getConnectionTime();
-		}
+		double othersTime = stats.getOpenContactTime(simTime);
 
 		double totalTime = oldContactTimes + othersTime;
 
@@ -76,4 +74,9 @@ public class TotalContactTimeReport extends ContactTimesReport implements
 		write(format(simTime) + " " + format(totalTime));
 		lastReportedTime = totalTime;
 	}
+
+	@Override
+	protected void writeResults() {
+		/* only the total times are reported */
+	}
 }
@@ -9,6 +9,7 @@ import java.util.List;
 import core.ConnectionListener;
 import core.DTNHost;
 import core.UpdateListener;
+import util.SparsePairTable;
 
 /**
  * UniqueEncountersReport class creates a report of the distribution of how
@@ -19,7 +20,10 @@ import core.UpdateListener;
 public class UniqueEncountersReport extends Report implements
 	ConnectionListener, UpdateListener {
 
-	private int[][] nodeRelationships;
+	/** number of encounters of each (unordered) pair of nodes */
+	private SparsePairTable nodeRelationships;
+	/** number of different nodes each node has encountered */
+	private int[] uniqueEncounters;
 
 	public UniqueEncountersReport() {
 
@@ -29,36 +33,36 @@ public class UniqueEncountersReport extends Report implements
 		if (nodeRelationships == null) {
 			return;
 		}
-		nodeRelationships[host1.getAddress()][host2.getAddress()]++;
-		nodeRelationships[host2.getAddress()][host1.getAddress()]++;
+		int id1 = host1.getAddress();
+		int id2 = host2.getAddress();
+		if (nodeRelationships.increment(
+				SparsePairTable.unordered(id1, id2)) == 1) {
+			uniqueEncounters[id1]++;
+			uniqueEncounters[id2]++;
+		}
 	}
 
 	public void hostsDisconnected(DTNHost host1, DTNHost host2) {}
 
 	public void updated(List<DTNHost> hosts) {
 		if (nodeRelationships == null) {
-			nodeRelationships = new int[hosts.size()][hosts.size()];
+			nodeRelationships = new SparsePairTable(hosts.size());
+			uniqueEncounters = new int[hosts.size()];
 		}
 	}
 
 	@Override
 	public void done() {
 		int[] distribution = new int[1000];
-		
+
 		if (nodeRelationships == null) {
 			super.done();
 			return;
 		}
 
-		for (int i=0; i<nodeRelationships.length; i++) {
-			int count = 0;
-			for (int j=0; j<nodeRelationships.length; j++) {
-				if (nodeRelationships[i][j] > 0) {
-					count++;
-				}
-			}
-
-			int promille = (count * 1000)/nodeRelationships.length;
+		for (int i=0; i<uniqueEncounters.length; i++) {
+			int promille = (uniqueEncounters[i] * 1000) /
+				uniqueEncounters.length;
 			distribution[promille]++;
 		}
 
@@ -70,12 +74,23 @@ public class UniqueEncountersReport extends Report implements
 		super.done();
 	}
 
-	public int[][] getNodeRelationships() {
+	/**
+	 * Returns the number of encounters of each pair of nodes. The pairs are
+	 * keyed with {@link SparsePairTable#unordered(int, int)}.
+	 * @return the number of encounters per node pair or null if the report
+	 * has not been updated yet
+	 */
+	public SparsePairTable getNodeRelationships() {
 		return nodeRelationships;
 	}
 
-	public void setNodeRelationships(int[][] nodeRelationships) {
-		this.nodeRelationships = nodeRelationships;
+	/**
+	 * Returns the number of different nodes each node has encountered
+	 * @return the number of unique encounters indexed by node address or null
+	 * if the report has not been updated yet
+	 */
+	public int[] getUniqueEncounters() {
+		return uniqueEncounters;
 	}
 
 }
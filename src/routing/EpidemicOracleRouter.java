@@ -7,6 +7,7 @@ package routing;
 import java.util.ArrayList;
 import java.util.List;
 
+import routing.util.MessageReplicaIndex;
 import core.*;
 
 import static core.Constants.DEBUG;
@@ -21,14 +22,6 @@ import static core.Constants.DEBUG;
  */
 public class EpidemicOracleRouter extends ActiveRouter {
 
-	/** List of all routers in this node group */
-	private static List<EpidemicOracleRouter> allRouters;
-
-	static {
-		DTNSim.registerForReset(EpidemicOracleRouter.class.getCanonicalName());
-		reset();
-	}
-
 	/**
 	 * Constructor. Creates a new message router based on the settings in
 	 * the given Settings object.
@@ -44,7 +37,7 @@ public class EpidemicOracleRouter extends ActiveRouter {
 	 */
 	protected EpidemicOracleRouter(EpidemicOracleRouter r) {
 		super(r);
-		allRouters.add(this);
+		MessageReplicaIndex.enable();
 	}
 
 	@Override
@@ -114,9 +107,12 @@ public class EpidemicOracleRouter extends ActiveRouter {
 		Message m = super.messageTransferred(id, from);
 
 		if (m.getTo() == this.getHost()) {
-			for (EpidemicOracleRouter r : allRouters) {
-				if (r != this && r != from.getRouter()) {
-					r.removeDeliveredMessage(id);
+			/* remove the message only from the hosts that have a replica */
+			for (DTNHost h : MessageReplicaIndex.getHolders(id)) {
+				MessageRouter r = h.getRouter();
+				if (r != this && h != from &&
+						r instanceof EpidemicOracleRouter) {
+					((EpidemicOracleRouter)r).removeDeliveredMessage(id);
 				}
 			}
 		} else {
@@ -172,12 +168,4 @@ public class EpidemicOracleRouter extends ActiveRouter {
 	public EpidemicOracleRouter replicate() {
 		return new EpidemicOracleRouter(this);
 	}
-
-	/**
-	 * Resets the static router list
-	 */
-	public static void reset() {
-		allRouters = new ArrayList<EpidemicOracleRouter>();
-	}
-
 }
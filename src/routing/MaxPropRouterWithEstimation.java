@@ -16,13 +16,13 @@ import java.util.Set;
 
 import routing.maxprop.MaxPropDijkstra;
 import routing.maxprop.MeetingProbabilitySet;
+import routing.util.EncounterStatistics;
 import routing.util.RoutingInfo;
 import util.Tuple;
 import core.Connection;
 import core.DTNHost;
 import core.Message;
 import core.Settings;
-import core.SimClock;
 
 /**
  * Implementation of MaxProp router as described in
@@ -86,16 +86,8 @@ public class MaxPropRouterWithEstimation extends ActiveRouter {
 	/** value of time scale variable */
 	private int timescale;
 
-	/** last meeting time with a node */
-	private Map<DTNHost, Double> meetings;
-	private int nrofSamplesIET;
-	private double meanIET;
-
-	/** number of encounters between encounters */
-	private Map<DTNHost, Integer> encounters;
-	private int nrofSamplesENC;
-	private double meanENC;
-	private int nrofTotENC;
+	/** encounter statistics of all hosts */
+	private EncounterStatistics encounters;
 
 	/**
 	 * Constructor. Creates a new prototype router based on the settings in
@@ -107,7 +99,6 @@ public class MaxPropRouterWithEstimation extends ActiveRouter {
 		Settings maxPropSettings = new Settings(MAXPROP_NS);
 		alpha = DEFAULT_ALPHA;
 		timescale = maxPropSettings.getInt(TIME_SCALE_S);
-		initMeetings();
 	}
 
 	/**
@@ -124,20 +115,7 @@ public class MaxPropRouterWithEstimation extends ActiveRouter {
 		this.dijkstra = new MaxPropDijkstra(this.allProbs);
 		this.ackedMessageIds = new HashSet<String>();
 		this.avgSamples = new int[BYTES_TRANSFERRED_AVG_SAMPLES];
-		initMeetings();
-	}
-
-	/**
-	 * Initializes interencounter estimators
-	 */
-	private void initMeetings() {
-		this.meetings = new HashMap<DTNHost, Double>();
-		this.encounters = new HashMap<DTNHost, Integer>();
-		this.meanIET = 0;
-		this.nrofSamplesIET = 0;
-		this.meanENC = 0;
-		this.nrofSamplesENC = 0;
-		this.nrofTotENC = 0;
+		this.encounters = EncounterStatistics.getInstance();
 	}
 
 	@Override
@@ -158,11 +136,12 @@ public class MaxPropRouterWithEstimation extends ActiveRouter {
 				" with other routers of same type";
 				MaxPropRouterWithEstimation otherRouter = (MaxPropRouterWithEstimation)mRouter;
 
-				/* update the estimators */
-				if (this.updateEstimators(otherHost)) {
+				/* update the estimators (of both hosts); the parameters
+				 * change only if the hosts have met before */
+				encounters.connectionUp(con, getHost());
+				encounters.connectionUp(con, otherHost);
+				if (encounters.getNrofMeetings(getHost(), otherHost) > 1) {
 					this.updateParam();
-				}
-				if (otherRouter.updateEstimators(getHost())) {
 					otherRouter.updateParam();
 				}
 
@@ -207,50 +186,13 @@ public class MaxPropRouterWithEstimation extends ActiveRouter {
 		}
 	}
 
-	/**
-	 * Updates the MaxPROP estimators
-	 * @param host
-	 */
-	protected boolean updateEstimators(DTNHost host) {
-		/* First estimate the mean InterEncounter Time */
-		double currentTime = SimClock.getTime();
-		if (meetings.containsKey(host)) {
-			double timeDiff = currentTime - meetings.get(host);
-			// System.out.printf("current time: %f\t last time:  %f\n",currentTime,meetings.get(host));
-
-			nrofSamplesIET++;
-			meanIET = (((double)nrofSamplesIET -1) / (double)nrofSamplesIET) * meanIET
-			+ (1 / (double)nrofSamplesIET) * timeDiff;
-			meetings.put(host, currentTime);
-		} else {
-			/* nothing to update */
-			meetings.put(host,currentTime);
-		}
-		/* Then estimate the number of encounters
-		 *
-		 */
-		nrofTotENC++; // the number of encounter
-		if (encounters.containsKey(host)) {
-			int encounterNro = nrofTotENC - encounters.get(host);
-			// System.out.printf("current time: %f\t last time:  %f\n",currentTime,meetings.get(host));
-
-			nrofSamplesENC++;
-			meanENC = (((double)nrofSamplesENC -1) / (double)nrofSamplesENC) * meanENC
-			+ (1 / (double)nrofSamplesENC) * (double)encounterNro;
-			encounters.put(host,nrofTotENC);
-			return true;
-		} else {
-			/* nothing to update */
-			encounters.put(host,nrofTotENC);
-			return false;
-		}
-	}
-
 	/**
 	 * update the alpha parameter based on the estimators
 	 */
 	protected void updateParam()
 	{
+		double meanIET = encounters.getMeanInterEncounterTime(getHost());
+		double meanENC = encounters.getMeanEncounters(getHost());
 		double err = .01;
 		double ntarg = Math.ceil(timescale/meanIET);
 		double ee = 1;
@@ -703,8 +645,12 @@ public class MaxPropRouterWithEstimation extends ActiveRouter {
 					host, value)));
 		}
 
-		ri.addMoreInfo(new RoutingInfo(String.format("meanIET: %f\t from %d samples",meanIET,nrofSamplesIET)));
-		ri.addMoreInfo(new RoutingInfo(String.format("meanENC: %f\t from %d samples",meanENC,nrofSamplesENC)));
+		ri.addMoreInfo(new RoutingInfo(String.format("meanIET: %f\t from %d samples",
+				encounters.getMeanInterEncounterTime(getHost()),
+				encounters.getNrofIETSamples(getHost()))));
+		ri.addMoreInfo(new RoutingInfo(String.format("meanENC: %f\t from %d samples",
+				encounters.getMeanEncounters(getHost()),
+				encounters.getNrofENCSamples(getHost()))));
 		ri.addMoreInfo(new RoutingInfo(String.format("current alpha: %f",alpha)));
 
 		top.addMoreInfo(ri);
@@ -20,6 +20,8 @@ import core.Settings;
 import core.SettingsError;
 import core.SimClock;
 import core.SimError;
+import core.SimProfiler;
+import routing.util.MessageReplicaIndex;
 import routing.util.RoutingInfo;
 import util.Tuple;
 
@@ -342,6 +344,7 @@ public abstract class MessageRouter {
 		this.putToIncomingBuffer(newMessage, from);
 		newMessage.addNodeOnPath(this.host);
 
+		SimProfiler.transferStarted();
 		for (MessageListener ml : this.mListeners) {
 			ml.messageTransferStarted(newMessage, from, getHost());
 		}
@@ -446,6 +449,7 @@ public abstract class MessageRouter {
 	 */
 	protected void addToMessages(Message m, boolean newMessage) {
 		this.messages.put(m.getId(), m);
+		MessageReplicaIndex.messageAdded(m.getId(), this.host);
 
 		if (newMessage) {
 			for (MessageListener ml : this.mListeners) {
@@ -461,6 +465,9 @@ public abstract class MessageRouter {
 	 */
 	protected Message removeFromMessages(String id) {
 		Message m = this.messages.remove(id);
+		if (m != null) {
+			MessageReplicaIndex.messageRemoved(id, this.host);
+		}
 		return m;
 	}
 
@@ -509,6 +516,9 @@ public abstract class MessageRouter {
 		if (removed == null) throw new SimError("no message for id " +
 				id + " to remove at " + this.host);
 
+		if (drop) {
+			SimProfiler.messageDropped();
+		}
 		for (MessageListener ml : this.mListeners) {
 			ml.messageDeleted(removed, this.host, drop);
 		}
@@ -12,6 +12,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import routing.util.EncounterStatistics;
 import routing.util.RoutingInfo;
 
 import util.Tuple;
@@ -74,10 +75,8 @@ public class ProphetRouterWithEstimation extends ActiveRouter {
 	/** delivery predictabilities */
 	private Map<DTNHost, Double> preds;
 
-	/** last meeting time with a node */
-	private Map<DTNHost, Double> meetings;
-	private int nrofSamples;
-	private double meanIET;
+	/** encounter statistics of all hosts */
+	private EncounterStatistics encounters;
 
 	/** last delivery predictability update (sim)time */
 	private double lastAgeUpdate;
@@ -106,7 +105,6 @@ public class ProphetRouterWithEstimation extends ActiveRouter {
 		pinit = P_INIT;
 
 		initPreds();
-		initMeetings();
 	}
 
 	/**
@@ -119,7 +117,7 @@ public class ProphetRouterWithEstimation extends ActiveRouter {
 		this.ptavg = r.ptavg;
 		this.beta = r.beta;
 		initPreds();
-		initMeetings();
+		this.encounters = EncounterStatistics.getInstance();
 	}
 
 	/**
@@ -129,22 +127,15 @@ public class ProphetRouterWithEstimation extends ActiveRouter {
 		this.preds = new HashMap<DTNHost, Double>();
 	}
 
-	/**
-	 * Initializes inter-encounter time estimator
-	 */
-	private void initMeetings() {
-		this.meetings = new HashMap<DTNHost, Double>();
-		this.meanIET = 0;
-		this.nrofSamples = 0;
-	}
-
 	@Override
 	public void changedConnection(Connection con) {
 		super.changedConnection(con);
 
 		if (con.isUp()) {
 			DTNHost otherHost = con.getOtherNode(getHost());
-			if (updateIET(otherHost)) {
+			encounters.connectionUp(con, getHost());
+			if (encounters.getNrofMeetings(getHost(), otherHost) > 1) {
+				/* met before -> the inter-encounter time estimate changed */
 				updateParams();
 			}
 			updateDeliveryPredFor(otherHost);
@@ -152,29 +143,6 @@ public class ProphetRouterWithEstimation extends ActiveRouter {
 		}
 	}
 
-	/**
-	 * Updates the interencounter time estimates
-	 * @param host
-	 */
-	private boolean updateIET(DTNHost host) {
-		/* First estimate the mean InterEncounter Time */
-		double currentTime = SimClock.getTime();
-		if (meetings.containsKey(host)) {
-			double timeDiff = currentTime - meetings.get(host);
-			// System.out.printf("current time: %f\t last time:  %f\n",currentTime,meetings.get(host));
-
-			nrofSamples++;
-			meanIET = (((double)nrofSamples -1) / (double)nrofSamples) * meanIET
-			+ (1 / (double)nrofSamples) * timeDiff;
-			meetings.put(host, currentTime);
-			return true;
-		} else {
-			/* nothing to update */
-			meetings.put(host,currentTime);
-			return false;
-		}
-	}
-
 	/**
 	 * update PROPHET parameters
 	 *
@@ -199,6 +167,7 @@ public class ProphetRouterWithEstimation extends ActiveRouter {
 		double pnone;
 		double eezero;
 		double eeone;
+		double meanIET = encounters.getMeanInterEncounterTime(getHost());
 
 		/*
 		 * the estimation algorith does not work for timescales
@@ -505,7 +474,9 @@ public class ProphetRouterWithEstimation extends ActiveRouter {
 					host, value)));
 		}
 
-		ri.addMoreInfo(new RoutingInfo(String.format("meanIET: %f\t from %d samples",meanIET,nrofSamples)));
+		ri.addMoreInfo(new RoutingInfo(String.format("meanIET: %f\t from %d samples",
+				encounters.getMeanInterEncounterTime(getHost()),
+				encounters.getNrofIETSamples(getHost()))));
 		ri.addMoreInfo(new RoutingInfo(String.format("current gamma: %f",gamma)));
 		ri.addMoreInfo(new RoutingInfo(String.format("current Pinit: %f",pinit)));
 
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package routing.schedule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Earliest arrival path finder for schedule data that uses the connection
+ * scan algorithm: all schedule entries are scanned once in the order of
+ * their start times, starting from the first entry after the start time and
+ * stopping when no later entry can improve the arrival time at the
+ * destination. Unlike {@link ScheduleDijkstra}, no priority queue or
+ * per-node schedule queries are needed.
+ */
+public class ScheduleConnectionScan implements SchedulePathFinder {
+	/** Oracle that know all schedules */
+	private ScheduleOracle oracle;
+	/** Connection table the work arrays were allocated for */
+	private ScheduleOracle.ConnectionTable table;
+	/** Earliest known arrival times at the nodes (by dense index) */
+	private double[] arrivalTimes;
+	/** Connection used to reach the nodes (or -1 if not reached) */
+	private int[] prevConnections;
+
+	/**
+	 * Constructor.
+	 * @param oracle The schedule oracle
+	 */
+	public ScheduleConnectionScan(ScheduleOracle oracle) {
+		this.oracle = oracle;
+	}
+
+	public List<ScheduleEntry> getShortestPath(Integer from, Integer to,
+			double time) {
+		List<ScheduleEntry> path = new ArrayList<ScheduleEntry>();
+		assert time >= 0.0 : "Can't use negative start time";
+
+		if (from.compareTo(to) == 0) {
+			return path;
+		}
+
+		ScheduleOracle.ConnectionTable ct = oracle.getConnections();
+		int source = ct.getNodeIndex(from);
+		int target = ct.getNodeIndex(to);
+		if (source < 0 || target < 0) {
+			return path; /* no connections from source or to target */
+		}
+
+		initWith(ct, source, time);
+		scan(ct, target, time);
+
+		int c = prevConnections[target];
+		if (c < 0) {
+			return path; /* not reachable */
+		}
+		while (true) {
+			path.add(0, ct.getEntry(c));
+			int node = ct.fromNodes[c];
+			if (node == source) {
+				break;
+			}
+			c = prevConnections[node];
+		}
+
+		return path;
+	}
+
+	/**
+	 * Returns the earliest time the destination can be reached at
+	 * @param from The source of the path
+	 * @param to The destination of the path
+	 * @param time The time when the path starts
+	 * @return The earliest arrival time or Double.MAX_VALUE if the
+	 * destination can't be reached
+	 */
+	public double getEarliestArrival(int from, int to, double time) {
+		if (from == to) {
+			return time;
+		}
+		ScheduleOracle.ConnectionTable ct = oracle.getConnections();
+		int source = ct.getNodeIndex(from);
+		int target = ct.getNodeIndex(to);
+		if (source < 0 || target < 0) {
+			return Double.MAX_VALUE;
+		}
+
+		initWith(ct, source, time);
+		scan(ct, target, time);
+		return arrivalTimes[target];
+	}
+
+	/**
+	 * Initializes a new search with a source node
+	 * @param ct The connection table to scan
+	 * @param source Dense index of the source node
+	 * @param time The time when the path starts
+	 */
+	private void initWith(ScheduleOracle.ConnectionTable ct, int source,
+			double time) {
+		if (ct != this.table) { /* schedules changed */
+			this.table = ct;
+			this.arrivalTimes = new double[ct.getNrofNodes()];
+			this.prevConnections = new int[ct.getNrofNodes()];
+		}
+		Arrays.fill(arrivalTimes, Double.MAX_VALUE);
+		Arrays.fill(prevConnections, -1);
+		arrivalTimes[source] = time;
+	}
+
+	/**
+	 * Scans the connections that start after the given time and updates
+	 * the arrival times of the nodes they reach
+	 * @param ct The connection table
+	 * @param target Dense index of the destination node
+	 * @param time The time when the path starts
+	 */
+	private void scan(ScheduleOracle.ConnectionTable ct, int target,
+			double time) {
+		double[] departures = ct.departures;
+		double[] arrivals = ct.arrivals;
+		int[] fromNodes = ct.fromNodes;
+		int[] toNodes = ct.toNodes;
+
+		for (int i = ct.getFirstIndex(time), n = ct.size(); i < n; i++) {
+			double departure = departures[i];
+			if (departure >= arrivalTimes[target]) {
+				break; /* later connections can't arrive any earlier */
+			}
+			if (arrivalTimes[fromNodes[i]] <= departure &&
+					arrivals[i] < arrivalTimes[toNodes[i]]) {
+				arrivalTimes[toNodes[i]] = arrivals[i];
+				prevConnections[toNodes[i]] = i;
+			}
+		}
+	}
+}
@@ -16,10 +16,12 @@ import java.util.Queue;
 import java.util.Set;
 
 /**
- * Dijkstra's shortest path implementation for schedule data
+ * Dijkstra's shortest path implementation for schedule data.
+ * {@link ScheduleConnectionScan} finds the same earliest arrival times
+ * with a single scan over the time-sorted schedule.
  */
 /* TODO: combine this with movement.map.DijkstraPathFinder? */
-public class ScheduleDijkstra {
+public class ScheduleDijkstra implements SchedulePathFinder {
 	/** Value for infinite distance  */
 	private static final Double INFINITY = Double.MAX_VALUE;
 	/** Initial size of the priority queue */
@@ -4,16 +4,48 @@
  */
 package routing.schedule;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Oracle that knows the schedules of all nodes. The entries of each node are
+ * indexed to time-sorted arrays when they are first queried after a change,
+ * so the connections from a node after some time are found with a binary
+ * search.
+ * <P>Schedules can be saved to and loaded from binary schedule files
+ * (big-endian):
+ * <pre>
+ * int MAGIC, int VERSION, int nrof entries
+ * nrof entries times: double time (including delta), int from, int via,
+ *   int to, double duration
+ * </pre></P>
+ */
 public class ScheduleOracle implements Serializable{
 	private static final long serialVersionUID = 42L;
+	/** Identifier in the beginning of binary schedule files */
+	public static final int MAGIC = 0x4F4E5343;
+	/** Version of the schedule file format */
+	public static final int VERSION = 1;
 
 	Map<Integer, List<ScheduleEntry>> schedules;
+	/** time-sorted entries of the nodes (null if not indexed) */
+	private transient Map<Integer, NodeSchedule> index;
+	/** all entries sorted by departure time (null if not indexed) */
+	private transient ConnectionTable connections;
 
 	public ScheduleOracle() {
 		this.schedules = new HashMap<Integer, List<ScheduleEntry>>();
@@ -37,6 +69,7 @@ public class ScheduleOracle implements Serializable{
 		}
 
 		list.add(new ScheduleEntry(start, from, via, to, duration));
+		entriesChanged();
 	}
 
 	/**
@@ -50,28 +83,34 @@ public class ScheduleOracle implements Serializable{
 		addEntry(start, from, -1, to, duration);
 	}
 
+	/**
+	 * Drops the time indexes of the entries. Must be called if the times
+	 * of existing entries are changed (e.g., with
+	 * {@link ScheduleEntry#setDelta(double)}).
+	 */
+	public void entriesChanged() {
+		this.index = null;
+		this.connections = null;
+	}
+
 	/**
 	 * Returns a list of schedule entries for nodes reachable after given time
 	 * from the given node
 	 * @param from The source node
 	 * @param time Time to start
-	 * @return List of reachable nodes
+	 * @return List of reachable nodes in the order of their start times. The
+	 * list is a read-only view to the oracle's index.
 	 */
 	public List<ScheduleEntry> getConnected(int from, double time) {
-		List<ScheduleEntry> connected = new ArrayList<ScheduleEntry>();
-		List<ScheduleEntry> all = schedules.get(from);
+		NodeSchedule ns = getIndex().get(from);
 
-		if (all == null) {
-			return connected;
+		if (ns == null) {
+			return Collections.emptyList();
 		}
 
-		for (ScheduleEntry s : all) {
-			if (s.getTime() >= time) {
-				connected.add(s);
-			}
-		}
-
-		return connected;
+		int first = ns.getFirstIndex(time);
+		return Collections.unmodifiableList(
+				Arrays.asList(ns.entries).subList(first, ns.entries.length));
 	}
 
 	/**
@@ -88,4 +127,260 @@ public class ScheduleOracle implements Serializable{
 
 		return entries;
 	}
+
+	/**
+	 * Returns all schedule entries sorted by their start times (ties sorted
+	 * by destination times)
+	 * @return The connection table
+	 */
+	ConnectionTable getConnections() {
+		if (this.connections == null) {
+			this.connections = new ConnectionTable(getEntries());
+		}
+		return this.connections;
+	}
+
+	private Map<Integer, NodeSchedule> getIndex() {
+		if (this.index == null) {
+			this.index = new HashMap<Integer, NodeSchedule>();
+			for (Map.Entry<Integer, List<ScheduleEntry>> e :
+					schedules.entrySet()) {
+				index.put(e.getKey(), new NodeSchedule(e.getValue()));
+			}
+		}
+		return this.index;
+	}
+
+	/**
+	 * Saves all schedule entries to a binary schedule file
+	 * @param file The file to write
+	 * @throws IOException if writing fails
+	 */
+	public void save(File file) throws IOException {
+		List<ScheduleEntry> entries = getConnections().getEntries();
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(entries.size());
+			for (ScheduleEntry se : entries) {
+				out.writeDouble(se.getTime());
+				out.writeInt(se.getFrom());
+				out.writeInt(se.getVia());
+				out.writeInt(se.getTo());
+				out.writeDouble(se.getDuration());
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Loads a schedule oracle from a binary schedule file
+	 * @param file The file to read
+	 * @return The oracle with the entries of the file
+	 * @throws IOException if reading fails or the file is not a schedule
+	 * file of a supported version
+	 */
+	public static ScheduleOracle load(File file) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(file)));
+		ScheduleOracle oracle = new ScheduleOracle();
+		try {
+			if (in.readInt() != MAGIC) {
+				throw new IOException(file + " is not a schedule file");
+			}
+			int version = in.readInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported schedule file version " +
+						version + " in " + file);
+			}
+			int nrofEntries = in.readInt();
+			for (int i=0; i<nrofEntries; i++) {
+				double time = in.readDouble();
+				int from = in.readInt();
+				int via = in.readInt();
+				int to = in.readInt();
+				double duration = in.readDouble();
+				oracle.addEntry(time, from, via, to, duration);
+			}
+		} finally {
+			in.close();
+		}
+		return oracle;
+	}
+
+	/**
+	 * Orders schedule entries by their start times and then by their
+	 * destination times
+	 */
+	private static final Comparator<ScheduleEntry> TIME_ORDER =
+		new Comparator<ScheduleEntry>() {
+		public int compare(ScheduleEntry e1, ScheduleEntry e2) {
+			int c = Double.compare(e1.getTime(), e2.getTime());
+			if (c == 0) {
+				c = Double.compare(e1.getDestinationTime(),
+						e2.getDestinationTime());
+			}
+			return c;
+		}
+	};
+
+	/**
+	 * Time-sorted schedule entries of a node
+	 */
+	private static class NodeSchedule {
+		private ScheduleEntry[] entries;
+		private double[] times;
+
+		public NodeSchedule(List<ScheduleEntry> list) {
+			this.entries = list.toArray(new ScheduleEntry[list.size()]);
+			Arrays.sort(entries, TIME_ORDER); /* stable */
+			this.times = new double[entries.length];
+			for (int i=0; i<entries.length; i++) {
+				times[i] = entries[i].getTime();
+			}
+		}
+
+		/**
+		 * Returns the index of the first entry that starts at or after
+		 * the given time
+		 * @param time The time
+		 * @return Index of the entry or the number of entries if none
+		 */
+		public int getFirstIndex(double time) {
+			return lowerBound(times, times.length, time);
+		}
+	}
+
+	/**
+	 * Returns the index of the first value that is not smaller than the
+	 * given value in a sorted array
+	 * @param values The sorted values
+	 * @param size Number of values in the array
+	 * @param value The value to look for
+	 * @return Index of the value or size if all values are smaller
+	 */
+	static int lowerBound(double[] values, int size, double value) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (values[mid] < value) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * All schedule entries of the oracle in primitive arrays that are sorted
+	 * by the entries' start times. Node IDs are mapped to dense indexes.
+	 */
+	static class ConnectionTable {
+		/** the entries in the order of the arrays */
+		private ScheduleEntry[] entries;
+		/** start times */
+		double[] departures;
+		/** destination times */
+		double[] arrivals;
+		/** dense indexes of the source nodes */
+		int[] fromNodes;
+		/** dense indexes of the destination nodes */
+		int[] toNodes;
+		/** dense indexes of the node IDs */
+		private Map<Integer, Integer> nodeIndexes;
+
+		private ConnectionTable(List<ScheduleEntry> list) {
+			int n = list.size();
+			this.entries = list.toArray(new ScheduleEntry[n]);
+			Arrays.sort(entries, TIME_ORDER);
+			this.departures = new double[n];
+			this.arrivals = new double[n];
+			this.fromNodes = new int[n];
+			this.toNodes = new int[n];
+			this.nodeIndexes = new HashMap<Integer, Integer>();
+
+			for (int i=0; i<n; i++) {
+				ScheduleEntry se = entries[i];
+				departures[i] = se.getTime();
+				arrivals[i] = se.getDestinationTime();
+				fromNodes[i] = getNodeIndex(se.getFrom(), true);
+				toNodes[i] = getNodeIndex(se.getTo(), true);
+			}
+		}
+
+		/**
+		 * Returns the dense index of a node
+		 * @param node ID of the node
+		 * @param create If true, an index is created for unknown nodes
+		 * @return The index of the node or -1 if the node is not known
+		 */
+		private int getNodeIndex(int node, boolean create) {
+			Integer i = nodeIndexes.get(node);
+			if (i == null) {
+				if (!create) {
+					return -1;
+				}
+				i = nodeIndexes.size();
+				nodeIndexes.put(node, i);
+			}
+			return i;
+		}
+
+		/**
+		 * Returns the dense index of a node
+		 * @param node ID of the node
+		 * @return The index of the node or -1 if the node has no entries
+		 */
+		int getNodeIndex(int node) {
+			return getNodeIndex(node, false);
+		}
+
+		/**
+		 * Returns the number of nodes that have entries
+		 * @return The number of nodes
+		 */
+		int getNrofNodes() {
+			return nodeIndexes.size();
+		}
+
+		/**
+		 * Returns the number of connections (entries)
+		 * @return The number of connections
+		 */
+		int size() {
+			return entries.length;
+		}
+
+		/**
+		 * Returns the index of the first connection that starts at or after
+		 * the given time
+		 * @param time The time
+		 * @return Index of the connection or {@link #size()} if none
+		 */
+		int getFirstIndex(double time) {
+			return lowerBound(departures, departures.length, time);
+		}
+
+		/**
+		 * Returns the schedule entry of a connection
+		 * @param i Index of the connection
+		 * @return The entry
+		 */
+		ScheduleEntry getEntry(int i) {
+			return entries[i];
+		}
+
+		/**
+		 * Returns all entries in the order of the table
+		 * @return The entries
+		 */
+		List<ScheduleEntry> getEntries() {
+			return Arrays.asList(entries);
+		}
+	}
 }
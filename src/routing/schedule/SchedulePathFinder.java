@@ -0,0 +1,24 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package routing.schedule;
+
+import java.util.List;
+
+/**
+ * Interface for classes that find the fastest paths in schedule data
+ */
+public interface SchedulePathFinder {
+
+	/**
+	 * Finds and returns the fastest path between two destinations
+	 * @param from The source of the path
+	 * @param to The destination of the path
+	 * @param time The time when the path starts
+	 * @return The schedule entries of a fastest path from the source to the
+	 * destination or an empty list if such path is not available
+	 */
+	public List<ScheduleEntry> getShortestPath(Integer from, Integer to,
+			double time);
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package routing.util;
+
+import java.util.Arrays;
+
+import util.SparsePairTable;
+import core.Connection;
+import core.DTNHost;
+import core.DTNSim;
+import core.SimClock;
+
+/**
+ * World-level encounter statistics engine for routers that estimate their
+ * parameters from the encounters of their host (e.g.,
+ * {@link routing.ProphetRouterWithEstimation} and
+ * {@link routing.MaxPropRouterWithEstimation}). The routers feed every new
+ * connection to {@link #connectionUp(Connection, DTNHost)} once for each
+ * host whose statistics they keep up to date; each call records the
+ * encounter only for the given host.
+ * <P>For each host, the engine keeps the running means of the
+ * inter-encounter times (time between two encounters with the same peer)
+ * and of the number of encounters between two encounters with the same
+ * peer. For each host-peer pair it keeps the last meeting time, the host's
+ * encounter count at that meeting, the number of meetings and the running
+ * mean of the pair's inter-encounter times. All values are stored in
+ * primitive arrays indexed by host address or, for host-peer pairs, by a
+ * {@link SparsePairTable}.</P>
+ */
+public class EncounterStatistics {
+	private static EncounterStatistics instance;
+
+	static {
+		DTNSim.registerForReset(EncounterStatistics.class.getCanonicalName());
+		reset();
+	}
+
+	/* per host values, indexed by address */
+	private int[] nrofEncounters;
+	private int[] nrofIETSamples;
+	private double[] meanIET;
+	private int[] nrofENCSamples;
+	private double[] meanENC;
+
+	/** indexes of (host, peer) pairs in the pair arrays */
+	private SparsePairTable pairIndexes;
+	private int nrofPairs;
+	/* per pair values */
+	private double[] lastMeetings;
+	private int[] lastEncounters;
+	private int[] nrofMeetings;
+	private double[] pairMeanIET;
+
+	private EncounterStatistics() {
+		this.nrofEncounters = new int[0];
+		this.nrofIETSamples = new int[0];
+		this.meanIET = new double[0];
+		this.nrofENCSamples = new int[0];
+		this.meanENC = new double[0];
+
+		this.pairIndexes = new SparsePairTable();
+		this.lastMeetings = new double[64];
+		this.lastEncounters = new int[64];
+		this.nrofMeetings = new int[64];
+		this.pairMeanIET = new double[64];
+	}
+
+	/**
+	 * Returns the engine of the current simulation run
+	 * @return The engine
+	 */
+	public static EncounterStatistics getInstance() {
+		if (instance == null) {
+			instance = new EncounterStatistics();
+		}
+		return instance;
+	}
+
+	/**
+	 * Records the encounter of a new connection for one of its hosts. Must
+	 * be called only once per connection and host.
+	 * @param con The connection that went up
+	 * @param host The host at either end of the connection whose encounter
+	 * is recorded (e.g., the host of the calling router)
+	 */
+	public void connectionUp(Connection con, DTNHost host) {
+		encountered(host.getAddress(), con.getOtherNode(host).getAddress(),
+				SimClock.getTime());
+	}
+
+	/**
+	 * Records an encounter of a host with a peer
+	 * @param host Address of the host
+	 * @param peer Address of the peer
+	 * @param time Time of the encounter
+	 */
+	public void encountered(int host, int peer, double time) {
+		ensureHostCapacity(host);
+		nrofEncounters[host]++;
+
+		long key = SparsePairTable.key(host, peer);
+		if (!pairIndexes.contains(key)) {
+			int i = newPair(key);
+			lastMeetings[i] = time;
+			lastEncounters[i] = nrofEncounters[host];
+			nrofMeetings[i] = 1;
+			return;
+		}
+
+		int i = pairIndexes.get(key);
+		double timeDiff = time - lastMeetings[i];
+		int n = ++nrofIETSamples[host];
+		meanIET[host] = (((double)n - 1) / (double)n) * meanIET[host] +
+			(1 / (double)n) * timeDiff;
+
+		int encounterNro = nrofEncounters[host] - lastEncounters[i];
+		n = ++nrofENCSamples[host];
+		meanENC[host] = (((double)n - 1) / (double)n) * meanENC[host] +
+			(1 / (double)n) * (double)encounterNro;
+
+		int meetings = nrofMeetings[i]++;
+		pairMeanIET[i] = ((double)(meetings - 1) * pairMeanIET[i] + timeDiff) /
+			(double)meetings;
+		lastMeetings[i] = time;
+		lastEncounters[i] = nrofEncounters[host];
+	}
+
+	/**
+	 * Returns the number of times a host has met a peer
+	 * @param host The host
+	 * @param peer The peer
+	 * @return The number of meetings
+	 */
+	public int getNrofMeetings(DTNHost host, DTNHost peer) {
+		int i = getPairIndex(host, peer);
+		return i < 0 ? 0 : nrofMeetings[i];
+	}
+
+	/**
+	 * Returns the time a host last met a peer
+	 * @param host The host
+	 * @param peer The peer
+	 * @return The time of the last meeting or -1 if they haven't met
+	 */
+	public double getLastMeeting(DTNHost host, DTNHost peer) {
+		int i = getPairIndex(host, peer);
+		return i < 0 ? -1 : lastMeetings[i];
+	}
+
+	/**
+	 * Returns the mean time between the meetings of a host and a peer
+	 * @param host The host
+	 * @param peer The peer
+	 * @return The mean inter-encounter time or 0 if they have met less than
+	 * twice
+	 */
+	public double getMeanInterEncounterTime(DTNHost host, DTNHost peer) {
+		int i = getPairIndex(host, peer);
+		return i < 0 ? 0 : pairMeanIET[i];
+	}
+
+	/**
+	 * Returns the total number of encounters of a host
+	 * @param host The host
+	 * @return The number of encounters
+	 */
+	public int getNrofEncounters(DTNHost host) {
+		int a = host.getAddress();
+		return a < nrofEncounters.length ? nrofEncounters[a] : 0;
+	}
+
+	/**
+	 * Returns the mean inter-encounter time of a host, i.e., the mean time
+	 * between two encounters with the same peer over all the peers
+	 * @param host The host
+	 * @return The mean inter-encounter time or 0 if there are no samples
+	 */
+	public double getMeanInterEncounterTime(DTNHost host) {
+		int a = host.getAddress();
+		return a < meanIET.length ? meanIET[a] : 0;
+	}
+
+	/**
+	 * Returns the number of inter-encounter time samples of a host
+	 * @param host The host
+	 * @return The number of samples
+	 */
+	public int getNrofIETSamples(DTNHost host) {
+		int a = host.getAddress();
+		return a < nrofIETSamples.length ? nrofIETSamples[a] : 0;
+	}
+
+	/**
+	 * Returns the mean number of encounters a host has between two
+	 * encounters with the same peer (including the latter encounter)
+	 * @param host The host
+	 * @return The mean number of encounters or 0 if there are no samples
+	 */
+	public double getMeanEncounters(DTNHost host) {
+		int a = host.getAddress();
+		return a < meanENC.length ? meanENC[a] : 0;
+	}
+
+	/**
+	 * Returns the number of encounter count samples of a host
+	 * @param host The host
+	 * @return The number of samples
+	 */
+	public int getNrofENCSamples(DTNHost host) {
+		int a = host.getAddress();
+		return a < nrofENCSamples.length ? nrofENCSamples[a] : 0;
+	}
+
+	private int getPairIndex(DTNHost host, DTNHost peer) {
+		long key = SparsePairTable.key(host.getAddress(), peer.getAddress());
+		return pairIndexes.contains(key) ? pairIndexes.get(key) : -1;
+	}
+
+	private int newPair(long key) {
+		int i = nrofPairs++;
+		if (i == lastMeetings.length) {
+			int size = i * 2;
+			lastMeetings = Arrays.copyOf(lastMeetings, size);
+			lastEncounters = Arrays.copyOf(lastEncounters, size);
+			nrofMeetings = Arrays.copyOf(nrofMeetings, size);
+			pairMeanIET = Arrays.copyOf(pairMeanIET, size);
+		}
+		pairIndexes.put(key, i);
+		return i;
+	}
+
+	private void ensureHostCapacity(int address) {
+		if (address < nrofEncounters.length) {
+			return;
+		}
+		int size = Math.max(address + 1, nrofEncounters.length * 2);
+		nrofEncounters = Arrays.copyOf(nrofEncounters, size);
+		nrofIETSamples = Arrays.copyOf(nrofIETSamples, size);
+		meanIET = Arrays.copyOf(meanIET, size);
+		nrofENCSamples = Arrays.copyOf(nrofENCSamples, size);
+		meanENC = Arrays.copyOf(meanENC, size);
+	}
+
+	/**
+	 * Discards the engine of the previous run
+	 */
+	public static void reset() {
+		instance = null;
+	}
+}
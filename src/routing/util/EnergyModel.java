@@ -13,8 +13,12 @@ import core.*;
  * discovery), scan responses, and data transmission. If scanning is done more
  * often than 1/s, constant scanning is assumed (and power consumption does not
  * increase from {@link #scanEnergy} value).
+ * <P>The energy level is kept in a coalesced double channel of the host's
+ * {@link ModuleCommunicationBus}, so the listeners of the energy value are
+ * notified at most once per update round (at the end of the round). The
+ * current value can always be read from the bus.</P>
  */
-public class EnergyModel implements ModuleCommunicationListener {
+public class EnergyModel {
 	/** Initial units of energy -setting id ({@value}). Can be either a
 	 * single value, or a range of two values. In the latter case, the used
 	 * value is a uniformly distributed random value between the two values. */
@@ -46,8 +50,10 @@ public class EnergyModel implements ModuleCommunicationListener {
 	/** Initial energy levels from the settings */
 	private final double[] initEnergy;
 	private double warmupTime;
-	/** current energy level */
+	/** current energy level (until the energy channel is created) */
 	private double currentEnergy;
+	/** the energy channel of the host's combus (or null if not created) */
+	private ModuleCommunicationChannel energy;
 	/** energy usage per scan */
 	private double scanEnergy;
 	/** energy usage per transmitted byte */
@@ -100,6 +106,7 @@ public class EnergyModel implements ModuleCommunicationListener {
 		this.warmupTime  = proto.warmupTime;
 		this.scanResponseEnergy = proto.scanResponseEnergy;
 		this.comBus = null;
+		this.energy = null;
 		this.lastUpdate = 0;
 	}
 
@@ -131,6 +138,9 @@ public class EnergyModel implements ModuleCommunicationListener {
 	 * @return the current energy level
 	 */
 	public double getEnergy() {
+		if (this.energy != null) {
+			return this.energy.getDouble();
+		}
 		return this.currentEnergy;
 	}
 
@@ -149,10 +159,10 @@ public class EnergyModel implements ModuleCommunicationListener {
 			return; /* model not initialized (via update) yet */
 		}
 
-		if (amount >= this.currentEnergy) {
-			comBus.updateProperty(ENERGY_VALUE_ID, 0.0);
+		if (amount >= this.energy.getDouble()) {
+			this.energy.setDouble(0.0);
 		} else {
-			comBus.updateDouble(ENERGY_VALUE_ID, -amount);
+			this.energy.addDouble(-amount);
 		}
 
 	}
@@ -175,8 +185,8 @@ public class EnergyModel implements ModuleCommunicationListener {
 
 		if (this.comBus == null) {
 			this.comBus = comBus;
-			this.comBus.addProperty(ENERGY_VALUE_ID, this.currentEnergy);
-			this.comBus.subscribe(ENERGY_VALUE_ID, this);
+			this.energy = this.comBus.addDoubleChannel(ENERGY_VALUE_ID,
+					this.currentEnergy, true);
 		}
 
 		if (simTime > this.lastUpdate && iface.isTransferring()) {
@@ -197,13 +207,4 @@ public class EnergyModel implements ModuleCommunicationListener {
 		}
 	}
 
-	/**
-	 * Called by the combus if the energy value is changed
-	 * @param key The energy ID
-	 * @param newValue The new energy value
-	 */
-	public void moduleValueChanged(String key, Object newValue) {
-		this.currentEnergy = (Double)newValue;
-	}
-
 }
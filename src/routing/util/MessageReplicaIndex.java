@@ -0,0 +1,125 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package routing.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import core.DTNHost;
+import core.DTNSim;
+
+/**
+ * World-level index of the hosts that have a replica of a message in their
+ * message buffer. The index is kept up to date by the routers' buffer
+ * add and remove operations (see {@link routing.MessageRouter}), but only
+ * after some router has enabled it with {@link #enable()}. This way,
+ * routers that need to act on all the replicas of a message (e.g., to purge
+ * delivered messages) can touch only the hosts that have a replica instead
+ * of all the hosts in the world.
+ */
+public class MessageReplicaIndex {
+	private static boolean enabled;
+	/** holders of each message (only messages that have holders) */
+	private static Map<String, Set<DTNHost>> holders;
+
+	static {
+		DTNSim.registerForReset(MessageReplicaIndex.class.getCanonicalName());
+		reset();
+	}
+
+	private MessageReplicaIndex() { }
+
+	/**
+	 * Enables the index. Should be called before any messages are created,
+	 * e.g., when the routers that use the index are created.
+	 */
+	public static void enable() {
+		enabled = true;
+	}
+
+	/**
+	 * Returns true if the index is enabled
+	 * @return true if the index is enabled
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Records that a host has added a message to its message buffer
+	 * @param id ID of the message
+	 * @param host The host
+	 */
+	public static void messageAdded(String id, DTNHost host) {
+		if (!enabled) {
+			return;
+		}
+		Set<DTNHost> set = holders.get(id);
+		if (set == null) {
+			set = new HashSet<DTNHost>();
+			holders.put(id, set);
+		}
+		set.add(host);
+	}
+
+	/**
+	 * Records that a host has removed a message from its message buffer
+	 * @param id ID of the message
+	 * @param host The host
+	 */
+	public static void messageRemoved(String id, DTNHost host) {
+		if (!enabled) {
+			return;
+		}
+		Set<DTNHost> set = holders.get(id);
+		if (set != null && set.remove(host) && set.isEmpty()) {
+			holders.remove(id);
+		}
+	}
+
+	/**
+	 * Returns the hosts that have a message in their message buffer
+	 * @param id ID of the message
+	 * @return The hosts ordered by their addresses. The list is a copy, so
+	 * the buffers can be modified while iterating it.
+	 */
+	public static List<DTNHost> getHolders(String id) {
+		Set<DTNHost> set = holders.get(id);
+		if (set == null) {
+			return new ArrayList<DTNHost>(0);
+		}
+		List<DTNHost> list = new ArrayList<DTNHost>(set);
+		Collections.sort(list, new Comparator<DTNHost>() {
+			public int compare(DTNHost h1, DTNHost h2) {
+				return h1.getAddress() - h2.getAddress();
+			}
+		});
+		return list;
+	}
+
+	/**
+	 * Returns the number of hosts that have a message in their buffer
+	 * @param id ID of the message
+	 * @return The number of replicas
+	 */
+	public static int getNrofReplicas(String id) {
+		Set<DTNHost> set = holders.get(id);
+		return set == null ? 0 : set.size();
+	}
+
+	/**
+	 * Disables and clears the index
+	 */
+	public static void reset() {
+		enabled = false;
+		holders = new HashMap<String, Set<DTNHost>>();
+	}
+}
@@ -50,6 +50,21 @@ public class AllTests {
 		suite.addTestSuite(MessageTest.class);
 		suite.addTestSuite(ModuleCommunicationBusTest.class);
 		suite.addTestSuite(DTNHostTest.class);
+		suite.addTestSuite(SparsePairTableTest.class);
+		suite.addTestSuite(ContactTraceTest.class);
+		suite.addTestSuite(ReportFinalizerTest.class);
+		suite.addTestSuite(RunAggregatorTest.class);
+		suite.addTestSuite(HostMetricSamplerTest.class);
+		suite.addTestSuite(EventJournalTest.class);
+		suite.addTestSuite(ContactStatisticsTest.class);
+		suite.addTestSuite(MessageReplicaIndexTest.class);
+		suite.addTestSuite(ScheduleConnectionScanTest.class);
+		suite.addTestSuite(EncounterStatisticsTest.class);
+		suite.addTestSuite(MobilityEngineTest.class);
+		suite.addTestSuite(FastForwardTest.class);
+		suite.addTestSuite(StateStreamReportTest.class);
+		suite.addTestSuite(PathTest.class);
+		suite.addTestSuite(CachingPathFinderTest.class);
 		//$JUnit-END$
 		return suite;
 	}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import java.util.List;
+
+import movement.map.CachingPathFinder;
+import movement.map.DijkstraPathFinder;
+import movement.map.MapNode;
+
+/**
+ * Tests for the caching path finder (runs also all the Dijkstra path
+ * finder tests).
+ */
+public class CachingPathFinderTest extends DijkstraPathFinderTest {
+
+	@Override
+	protected DijkstraPathFinder createPathFinder() {
+		return new CachingPathFinder(null);
+	}
+
+	public void testPlannedPaths() {
+		CachingPathFinder finder = (CachingPathFinder)r;
+		finder.planPath(n4, n8);
+		finder.planPath(n8, n4);
+		finder.planPath(n4, n8); /* planned only once */
+		checkPath(getPath(n4, n8), n4, n5, n6, n7, n8);
+		checkPath(getPath(n8, n4), n8, n7, n6, n5, n4);
+		assertSame(getPath(n4, n8), getPath(n4, n8));
+		try {
+			getPath(n4, n8).add(n1);
+			fail("Planned paths should be unmodifiable");
+		} catch (UnsupportedOperationException e) {
+			/* expected */
+		}
+	}
+
+	public void testUnplannedPathsNotStored() {
+		List<MapNode> path = getPath(n1, n6);
+		assertNotSame(path, getPath(n1, n6));
+		checkPath(getPath(n6, n1), n6, n5, n2, n1);
+	}
+
+	public void testReset() {
+		CachingPathFinder finder = (CachingPathFinder)r;
+		finder.planPath(n4, n8);
+		CachingPathFinder.reset();
+		checkPath(getPath(n4, n8), n4, n5, n6, n7, n8);
+		finder.planPath(n8, n4); /* planner is recreated after the reset */
+		checkPath(getPath(n8, n4), n8, n7, n6, n5, n4);
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import report.ContactStatistics;
+import report.DurationHistogram;
+
+/**
+ * Tests for the contact statistics engine and duration histograms
+ */
+public class ContactStatisticsTest extends TestCase {
+
+	public void testLinearHistogram() {
+		DurationHistogram h = DurationHistogram.linear(10);
+		assertEquals(0, h.getNrofBins());
+		h.add(5);
+		h.add(25);
+		h.add(29.9);
+		assertEquals(4, h.getNrofBins()); /* last reported bin is empty */
+		assertEquals(1, h.getCount(0));
+		assertEquals(0, h.getCount(1));
+		assertEquals(2, h.getCount(2));
+		assertEquals(0, h.getCount(3));
+		assertEquals(20.0, h.getBinStart(2));
+		assertEquals(3, h.getTotalCount());
+	}
+
+	public void testLogScaledHistogram() {
+		DurationHistogram h = DurationHistogram.logScaled(1, 2, 5);
+		h.add(0.5);  /* below minimum */
+		h.add(1);    /* [1, 3.16) */
+		h.add(5);    /* [3.16, 10) */
+		h.add(50);   /* [10, 31.6) is bin 3, [31.6, ...) is the last bin */
+		h.add(1e6);  /* last bin */
+		assertEquals(5, h.getNrofBins());
+		assertEquals(1, h.getCount(0));
+		assertEquals(1, h.getCount(1));
+		assertEquals(1, h.getCount(2));
+		assertEquals(0, h.getCount(3));
+		assertEquals(2, h.getCount(4));
+		assertEquals(0.0, h.getBinStart(0));
+		assertEquals(1.0, h.getBinStart(1));
+		assertEquals(10.0, h.getBinStart(3), 1e-9);
+	}
+
+	public void testContactAndInterContactTimes() {
+		DurationHistogram ct = DurationHistogram.linear(1);
+		DurationHistogram ict = DurationHistogram.linear(1);
+		ContactStatistics s = new ContactStatistics(ct, ict);
+
+		assertEquals(-1.0, s.connected(1, 2, 0, true));
+		s.connected(3, 2, 1, true);
+		assertTrue(s.isUp(2, 1));
+		assertEquals(2, s.getNrofOpenContacts());
+		assertEquals(5.0 + 4.0, s.getOpenContactTime(5));
+
+		assertEquals(5.0, s.disconnected(2, 1, 5, true));
+		assertTrue(s.isDown(1, 2));
+		assertEquals(3.0, s.connected(1, 2, 8, false));
+		assertFalse(s.isDown(1, 2));
+		assertFalse(s.isUp(1, 2)); /* contact not started */
+		assertEquals(-1.0, s.disconnected(1, 2, 9, false));
+
+		assertEquals(1, ct.getTotalCount());
+		assertEquals(1, ct.getCount(5));
+		assertEquals(1, ict.getTotalCount());
+		assertEquals(1, ict.getCount(3));
+		assertEquals(7.0, s.getOpenContactTime(8)); /* the 2-3 contact */
+	}
+
+	public void testOpenContactTimeOverLongRun() {
+		ContactStatistics s = new ContactStatistics(
+				DurationHistogram.linear(1), null);
+		Random rng = new Random(1);
+		int nrofPairs = 100;
+		double[] starts = new double[nrofPairs];
+		double time = 1e5;
+
+		/* pair 0 stays up so that the sum is never reset */
+		s.connected(0, 1, time, true);
+		starts[0] = time;
+		for (int i=1; i<nrofPairs; i++) {
+			starts[i] = -1;
+		}
+		for (int i=0; i<1000000; i++) {
+			time += rng.nextDouble() * 0.1;
+			int pair = 1 + rng.nextInt(nrofPairs - 1);
+			if (starts[pair] < 0) {
+				s.connected(0, pair + 1, time, true);
+				starts[pair] = time;
+			} else {
+				s.disconnected(0, pair + 1, time, false);
+				starts[pair] = -1;
+			}
+		}
+
+		BigDecimal exact = BigDecimal.ZERO;
+		for (int i=0; i<nrofPairs; i++) {
+			if (starts[i] >= 0) {
+				exact = exact.add(new BigDecimal(time).subtract(
+						new BigDecimal(starts[i])));
+			}
+		}
+		assertEquals(exact.doubleValue(), s.getOpenContactTime(time), 1e-8);
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import input.ConnectionEvent;
+import input.ContactTrace;
+import input.ContactTraceEventsReader;
+import input.ContactTraceWriter;
+import input.ExternalEvent;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.List;
+
+import junit.framework.TestCase;
+import core.SimError;
+
+/**
+ * Tests for writing, querying and replaying contact traces
+ */
+public class ContactTraceTest extends TestCase {
+	private File traceFile;
+	private ContactTrace trace;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		traceFile = File.createTempFile("cttest", ContactTrace.TRACE_EXT);
+		traceFile.deleteOnExit();
+
+		ContactTraceWriter w = new ContactTraceWriter(traceFile, 100, 0.1);
+		w.addContact(1, 2, 10, 20);
+		w.addContact(3, 1, 15, 30);
+		w.addContact(2, 1, 40, 50.5);
+		w.addContact(4, 5, 20, 150); /* spans windows 0 and 1 */
+		w.addContact(2, 3, 160, 170);
+		w.addContact(1, 2, 90, 350); /* window 3; window 2 is empty */
+		w.close();
+
+		trace = new ContactTrace(traceFile);
+	}
+
+	protected void tearDown() throws Exception {
+		trace.close();
+		super.tearDown();
+	}
+
+	public void testInvalidFile() throws Exception {
+		File f = File.createTempFile("cttest", ContactTrace.TRACE_EXT);
+		f.deleteOnExit();
+		FileOutputStream out = new FileOutputStream(f);
+		out.write(new byte[64]);
+		out.close();
+		try {
+			new ContactTrace(f);
+			fail("Invalid trace file was accepted");
+		} catch (SimError e) {
+			/* expected */
+		}
+		assertFalse(ContactTrace.isContactTraceFile(f));
+	}
+
+	public void testWindows() {
+		assertEquals(3, trace.getNrofWindows());
+		assertEquals(0.0, trace.getWindowStart(0));
+		assertEquals(100.0, trace.getWindowStart(1));
+		assertEquals(300.0, trace.getWindowStart(2));
+		assertEquals(3, trace.getNrofContacts(0));
+		assertEquals(2, trace.getNrofContacts(1));
+		assertEquals(20.0, trace.getMinStartTime(1), 0.001);
+
+		List<ContactTrace.Contact> c = trace.getContactsInWindow(0);
+		assertEquals(3, c.size());
+		/* run-length coded intervals of the same pair */
+		assertContact(c.get(0), 1, 2, 10, 20);
+		assertContact(c.get(1), 1, 2, 40, 50.5);
+		assertContact(c.get(2), 1, 3, 15, 30);
+	}
+
+	public void testNodeQuery() {
+		List<ContactTrace.Contact> c = trace.getContacts(1, 0, 1000);
+		assertEquals(4, c.size());
+
+		c = trace.getContacts(1, 25, 45);
+		assertEquals(2, c.size());
+		assertContact(c.get(0), 1, 2, 40, 50.5);
+		assertContact(c.get(1), 1, 3, 15, 30);
+
+		c = trace.getContacts(1, 300, 400);
+		assertEquals(1, c.size());
+		assertContact(c.get(0), 1, 2, 90, 350);
+
+		c = trace.getContacts(5, 140, 145);
+		assertEquals(1, c.size());
+		assertContact(c.get(0), 4, 5, 20, 150);
+
+		assertEquals(0, trace.getContacts(6, 0, 1000).size());
+		assertEquals(0, trace.getContacts(3, 31, 159).size());
+	}
+
+	public void testRangeQuery() {
+		assertEquals(6, trace.getContacts(0, 1000).size());
+		assertEquals(2, trace.getContacts(155, 165).size());
+		assertEquals(1, trace.getContacts(200, 300).size());
+	}
+
+	public void testReplay() {
+		ContactTraceEventsReader r = new ContactTraceEventsReader(traceFile);
+		List<ExternalEvent> events = r.readEvents(5);
+		assertEquals(5, events.size());
+		events.addAll(r.readEvents(100));
+		assertEquals(12, events.size());
+		assertEquals(0, r.readEvents(100).size());
+		r.close();
+
+		double last = 0;
+		for (ExternalEvent e : events) {
+			assertTrue(e instanceof ConnectionEvent);
+			assertTrue(e.getTime() >= last);
+			last = e.getTime();
+		}
+		assertEquals(10.0, events.get(0).getTime(), 0.001);
+		assertEquals(350.0, events.get(11).getTime(), 0.001);
+	}
+
+	private void assertContact(ContactTrace.Contact c, int h1, int h2,
+			double start, double end) {
+		assertEquals(h1, c.getHost1());
+		assertEquals(h2, c.getHost2());
+		assertEquals(start, c.getStartTime(), 0.001);
+		assertEquals(end, c.getEndTime(), 0.001);
+	}
+}
@@ -18,6 +18,7 @@ import routing.MessageRouter;
 import routing.PassiveRouter;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import junit.framework.TestCase;
 
@@ -67,6 +68,77 @@ public class DTNHostTest extends TestCase {
     assertFalse("Radio reported as active.", host.isRadioActive());
   }
 
+  /**
+   * Tests that the destinations given to movement listeners don't change
+   * when the host moves on to the next waypoints.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testListenerDestinations()
+  throws Exception {
+    final List<Coord> destinations = new ArrayList<Coord>();
+    List<MovementListener> movLs = new ArrayList<MovementListener>();
+    movLs.add(new MovementListener() {
+      public void newDestination(DTNHost host, Coord destination,
+          double speed) {
+        destinations.add(destination);
+      }
+
+      public void initialLocation(DTNHost host, Coord location) {
+      }
+    });
+    final DTNHost host = new DTNHost(
+            new ArrayList<MessageListener>(),
+            movLs,
+            "",
+            new ArrayList<NetworkInterface>(),
+            null,
+            makePathMovementModel(),
+            makeMessageRouter());
+
+    host.move(15);
+    assertEquals(3, destinations.size());
+    assertEquals(new Coord(0, 0), destinations.get(0));
+    assertEquals(new Coord(10, 0), destinations.get(1));
+    assertEquals(new Coord(20, 0), destinations.get(2));
+    assertEquals(new Coord(15, 0), host.getLocation());
+  }
+
+  private static MovementModel makePathMovementModel() {
+    return new MovementModel() {
+      private boolean pathGiven;
+
+      @Override
+      public Path getPath() {
+        if (pathGiven) {
+          return null;
+        }
+        pathGiven = true;
+        Path p = new Path(1);
+        p.addWaypoint(new Coord(0, 0));
+        p.addWaypoint(new Coord(10, 0));
+        p.addWaypoint(new Coord(20, 0));
+        return p;
+      }
+
+      @Override
+      public Coord getInitialLocation() {
+        return new Coord(0, 0);
+      }
+
+      @Override
+      public boolean isActive() {
+        return true;
+      }
+
+      @Override
+      public MovementModel replicate() {
+        return makePathMovementModel();
+      }
+    };
+  }
+
   private static MovementModel makeMovementModel() {
     return new MovementModel() {
       @Override
@@ -12,23 +12,31 @@ import movement.map.MapNode;
 import core.Coord;
 
 public class DijkstraPathFinderTest extends TestCase {
-	private DijkstraPathFinder r;
+	protected DijkstraPathFinder r;
 
-	private final MapNode n1 = newNode(0,0);
-	private final MapNode n2 = newNode(10,0);
-	private final MapNode n3 = newNode(20,0);
-	private final MapNode n4 = newNode(0,10);
-	private final MapNode n5 = newNode(10,10);
-	private final MapNode n6 = newNode(15,10);
-	private final MapNode n7 = newNode(20,10);
-	private final MapNode n8 = newNode(25,10);
+	protected final MapNode n1 = newNode(0,0);
+	protected final MapNode n2 = newNode(10,0);
+	protected final MapNode n3 = newNode(20,0);
+	protected final MapNode n4 = newNode(0,10);
+	protected final MapNode n5 = newNode(10,10);
+	protected final MapNode n6 = newNode(15,10);
+	protected final MapNode n7 = newNode(20,10);
+	protected final MapNode n8 = newNode(25,10);
 
 	protected void setUp() throws Exception {
 		super.setUp();
-		r = new DijkstraPathFinder(null);
+		r = createPathFinder();
 		createTopology();
 	}
 
+	/**
+	 * Creates the path finder to test
+	 * @return The path finder
+	 */
+	protected DijkstraPathFinder createPathFinder() {
+		return new DijkstraPathFinder(null);
+	}
+
 	/**
 	 * Creates a topology:
 	 *
@@ -73,7 +81,7 @@ public class DijkstraPathFinderTest extends TestCase {
 		checkPath(getPath(n8,n4), n8, n7, n6, n5, n4);
 	}
 
-	private void checkPath(List<MapNode> path, MapNode ... nodes) {
+	protected void checkPath(List<MapNode> path, MapNode ... nodes) {
 		assertEquals(nodes.length,path.size());
 
 		for (int i=0; i< nodes.length; i++) {
@@ -81,7 +89,7 @@ public class DijkstraPathFinderTest extends TestCase {
 		}
 	}
 
-	private List<MapNode> getPath(MapNode from, MapNode to) {
+	protected List<MapNode> getPath(MapNode from, MapNode to) {
 		List<MapNode> path = r.getShortestPath(from, to);
 		return path;
 	}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+import routing.util.EncounterStatistics;
+import core.Connection;
+import core.ConnectionListener;
+import core.Coord;
+import core.DTNHost;
+import core.MessageListener;
+import core.SimClock;
+
+/**
+ * Tests for the shared encounter statistics engine
+ */
+public class EncounterStatisticsTest extends TestCase {
+	private EncounterStatistics stats;
+	private DTNHost h0;
+	private DTNHost h1;
+	private DTNHost h2;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		SimClock.reset();
+		DTNHost.reset();
+		EncounterStatistics.reset();
+		stats = EncounterStatistics.getInstance();
+
+		TestUtils utils = new TestUtils(new ArrayList<ConnectionListener>(),
+				new ArrayList<MessageListener>(), new TestSettings());
+		h0 = utils.createHost(new Coord(0,0));
+		h1 = utils.createHost(new Coord(0,0));
+		h2 = utils.createHost(new Coord(0,0));
+	}
+
+	public void testEncounters() {
+		stats.encountered(0, 1, 10);
+		stats.encountered(0, 2, 20);
+		assertEquals(0, stats.getNrofIETSamples(h0));
+		assertEquals(1, stats.getNrofMeetings(h0, h1));
+		assertEquals(0, stats.getNrofMeetings(h1, h0)); /* directed */
+
+		stats.encountered(0, 1, 40); /* IET 30, 2 encounters */
+		stats.encountered(0, 2, 100); /* IET 80, 2 encounters */
+		stats.encountered(0, 1, 50); /* IET 10, 2 encounters */
+		assertEquals(5, stats.getNrofEncounters(h0));
+		assertEquals(3, stats.getNrofIETSamples(h0));
+		assertEquals(40.0, stats.getMeanInterEncounterTime(h0), 1e-9);
+		assertEquals(2.0, stats.getMeanEncounters(h0), 1e-9);
+		assertEquals(3, stats.getNrofMeetings(h0, h1));
+		assertEquals(20.0, stats.getMeanInterEncounterTime(h0, h1), 1e-9);
+		assertEquals(50.0, stats.getLastMeeting(h0, h1));
+		assertEquals(-1.0, stats.getLastMeeting(h1, h2));
+		assertEquals(0.0, stats.getMeanInterEncounterTime(h2));
+	}
+
+	public void testConnectionUp() {
+		h0.connect(h1);
+		h2.connect(h1);
+		Connection con01 = h0.getConnections().get(0);
+		Connection con21 = h2.getConnections().get(0);
+		stats.connectionUp(con01, h0);
+		stats.connectionUp(con21, h2); /* other connections in between */
+		stats.connectionUp(con01, h1); /* the other end */
+		assertEquals(1, stats.getNrofEncounters(h0));
+		assertEquals(1, stats.getNrofEncounters(h1));
+		assertEquals(1, stats.getNrofMeetings(h1, h0));
+		assertEquals(1, stats.getNrofEncounters(h2));
+		assertEquals(0, stats.getNrofMeetings(h1, h2)); /* not recorded */
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import input.EventJournal;
+import input.EventJournalWriter;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Vector;
+
+import junit.framework.TestCase;
+import report.EventJournalRenderer;
+import report.EventJournalReport;
+import report.EventLogReport;
+import core.ConnectionListener;
+import core.Coord;
+import core.DTNHost;
+import core.Message;
+import core.MessageListener;
+import core.SimClock;
+
+/**
+ * Tests for event journals and their rendering
+ */
+public class EventJournalTest extends TestCase {
+	private File journalFile;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		SimClock.reset();
+		journalFile = File.createTempFile("ejtest", EventJournal.JOURNAL_EXT);
+		journalFile.deleteOnExit();
+	}
+
+	public void testWriteAndRead() throws IOException {
+		EventJournalWriter w = new EventJournalWriter(journalFile);
+		w.setHostName(0, "n0");
+		w.setHostName(2, "n2");
+		int m1 = w.getMessageIndex("M1");
+		assertEquals(m1, w.getMessageIndex("M1"));
+		int m2 = w.getMessageIndex("M2");
+		assertTrue(m1 != m2);
+
+		/* enough events to need several buffers */
+		int nrofEvents = 10000;
+		for (int i=0; i<nrofEvents; i++) {
+			w.addEvent(i * 0.5, EventJournal.MESSAGE_RELAYED, 0, 2,
+					i % 2 == 0 ? m1 : m2);
+		}
+		w.close();
+
+		assertTrue(EventJournal.isEventJournalFile(journalFile));
+		EventJournal j = new EventJournal(journalFile);
+		assertEquals(nrofEvents, j.getNrofEvents());
+		assertEquals("n0", j.getHostName(0));
+		assertEquals("n2", j.getHostName(2));
+		for (int i=0; i<nrofEvents; i++) {
+			assertTrue(j.next());
+			assertEquals(i * 0.5, j.getTime());
+			assertEquals(EventJournal.MESSAGE_RELAYED, j.getType());
+			assertEquals(0, j.getHost1());
+			assertEquals(2, j.getHost2());
+			assertEquals(i % 2 == 0 ? "M1" : "M2",
+					j.getMessageId(j.getMessage()));
+		}
+		assertFalse(j.next());
+		j.close();
+	}
+
+	public void testRenderingMatchesEventLog() throws IOException {
+		File logFile = File.createTempFile("ejtest", ".txt");
+		logFile.deleteOnExit();
+		File summaryFile = File.createTempFile("ejtest", ".txt");
+		summaryFile.deleteOnExit();
+
+		TestSettings ts = new TestSettings();
+		ts.putSetting("EventLogReport.output", logFile.getAbsolutePath());
+		ts.putSetting("EventJournalReport.output",
+				summaryFile.getAbsolutePath());
+		ts.putSetting("EventJournalReport." +
+				EventJournalReport.JOURNAL_FILE_S,
+				journalFile.getAbsolutePath());
+
+		EventLogReport log = new EventLogReport();
+		EventJournalReport journalReport = new EventJournalReport();
+		Vector<ConnectionListener> cl = new Vector<ConnectionListener>();
+		Vector<MessageListener> ml = new Vector<MessageListener>();
+		cl.add(log);
+		cl.add(journalReport);
+		ml.add(log);
+		ml.add(journalReport);
+		TestUtils utils = new TestUtils(cl, ml, ts);
+		utils.setTransmitRange(2);
+
+		SimClock clock = SimClock.getInstance();
+		DTNHost h1 = utils.createHost(new Coord(0,0));
+		DTNHost h2 = utils.createHost(new Coord(1,0));
+		DTNHost h3 = utils.createHost(new Coord(2,0));
+
+		clock.advance(1.5);
+		h1.connect(h2);
+		h2.connect(h3);
+		h1.createNewMessage(new Message(h1, h3, "M1", 1));
+		clock.advance(0.25);
+		h1.sendMessage("M1", h2);
+		h2.messageTransferred("M1", h1);
+		h2.sendMessage("M1", h3);
+		h3.messageTransferred("M1", h2);
+		h2.sendMessage("M1", h3);
+		h3.messageTransferred("M1", h2);
+		clock.advance(10);
+		h2.deleteMessage("M1", true);
+		h1.deleteMessage("M1", false);
+		h1.setLocation(new Coord(100,100)); /* disconnect */
+		h1.update(true);
+
+		log.done();
+		journalReport.done();
+
+		StringWriter rendered = new StringWriter();
+		PrintWriter out = new PrintWriter(rendered);
+		EventJournal journal = new EventJournal(journalFile);
+		EventJournalRenderer.render(journal, out);
+		out.close();
+		journal.close();
+
+		BufferedReader expected = new BufferedReader(new FileReader(logFile));
+		BufferedReader actual = new BufferedReader(new StringReader(
+				rendered.toString()));
+		int nrofLines = 0;
+		String line;
+		while ((line = expected.readLine()) != null) {
+			assertEquals(line, actual.readLine());
+			nrofLines++;
+		}
+		assertNull(actual.readLine());
+		expected.close();
+		assertTrue(nrofLines >= 10);
+	}
+}
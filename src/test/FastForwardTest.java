@@ -0,0 +1,75 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+import movement.MovementModel;
+import movement.RandomWaypoint;
+import movement.StationaryMovement;
+import core.ConnectionListener;
+import core.Coord;
+import core.DTNHost;
+import core.MessageListener;
+import core.SimClock;
+
+/**
+ * Tests for fast-forwarding the movement of hosts
+ */
+public class FastForwardTest extends TestCase {
+	private static final double FF_TIME = 5000;
+	private static final double SMALL_STEP = 0.001;
+
+	private TestUtils utils;
+
+	private DTNHost createRwpHost() {
+		TestSettings ts = new TestSettings();
+		ts.putSetting("speed", "1.0, 1.0");
+		ts.putSetting("waitTime", "0, 0");
+		SimClock.reset();
+		DTNHost.reset();
+		MovementModel.reset();
+		/* the hosts are created at the start of the warm-up */
+		SimClock.getInstance().setTime(-FF_TIME);
+		utils = new TestUtils(new ArrayList<ConnectionListener>(),
+				new ArrayList<MessageListener>(), ts);
+		MovementModel rwp = new RandomWaypoint(ts);
+		assertTrue(rwp.canFastForward());
+		return utils.createHost(rwp, null);
+	}
+
+	public void testSameAsSmallSteps() {
+		DTNHost host = createRwpHost();
+		SimClock clock = SimClock.getInstance();
+		for (int i=0, n=(int)(FF_TIME / SMALL_STEP); i<n; i++) {
+			host.move(SMALL_STEP);
+			clock.advance(SMALL_STEP);
+		}
+		Coord expected = host.getLocation().clone();
+
+		host = createRwpHost();
+		Coord start = host.getLocation().clone();
+		host.fastForward(FF_TIME);
+		assertEquals(-FF_TIME, SimClock.getTime());
+		assertFalse(start.equals(host.getLocation()));
+		/* the small steps lose at most one step's movement per path */
+		assertTrue("Expected " + expected + " but was " + host.getLocation(),
+				expected.distance(host.getLocation()) < 0.1);
+	}
+
+	public void testStationary() {
+		createRwpHost();
+		TestSettings ts = new TestSettings();
+		ts.putSetting(StationaryMovement.LOCATION_S, "10, 20");
+		Coord c = new Coord(10, 20);
+		StationaryMovement sm = new StationaryMovement(ts);
+		assertTrue(sm.canFastForward());
+		DTNHost host = utils.createHost(sm, null);
+		host.fastForward(FF_TIME);
+		assertEquals(c, host.getLocation());
+		assertEquals(-FF_TIME, SimClock.getTime());
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import report.HostMetricSampler;
+import core.ConnectionListener;
+import core.Coord;
+import core.DTNHost;
+import core.Message;
+import core.MessageListener;
+import core.SimClock;
+
+/**
+ * Tests for the shared host metric sampler
+ */
+public class HostMetricSamplerTest extends TestCase {
+	private SimClock clock;
+	private HostMetricSampler sampler;
+	private List<DTNHost> hosts;
+	private DTNHost h1, h2, h3;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		SimClock.reset();
+		clock = SimClock.getInstance();
+		sampler = new HostMetricSampler();
+
+		TestSettings ts = new TestSettings();
+		TestUtils utils = new TestUtils(new ArrayList<ConnectionListener>(),
+				new ArrayList<MessageListener>(), ts);
+		utils.setTransmitRange(3);
+		h1 = utils.createHost(new Coord(0,0));
+		h2 = utils.createHost(new Coord(1,0));
+		h3 = utils.createHost(new Coord(100,0));
+		hosts = new ArrayList<DTNHost>();
+		hosts.add(h1);
+		hosts.add(h2);
+		hosts.add(h3);
+	}
+
+	public void testSharedRounds() {
+		TestSubscriber every = new TestSubscriber(1);
+		TestSubscriber third = new TestSubscriber(3);
+		sampler.subscribe(every, HostMetricSampler.MESSAGES);
+		sampler.subscribe(third, HostMetricSampler.CONNECTIONS);
+
+		for (int i=0; i<6; i++) {
+			clock.advance(1);
+			sampler.updated(hosts); /* e.g., called by both subscribers */
+			sampler.updated(hosts);
+		}
+
+		assertEquals(6, every.nrofSamples);
+		assertEquals(2, third.nrofSamples);
+	}
+
+	public void testValues() {
+		TestSubscriber s = new TestSubscriber(1);
+		sampler.subscribe(s, HostMetricSampler.CONNECTIONS,
+				HostMetricSampler.MESSAGES);
+		h1.connect(h2);
+		h1.createNewMessage(new Message(h1, h3, "M1", 1));
+		h1.createNewMessage(new Message(h1, h2, "M2", 1));
+		h2.createNewMessage(new Message(h2, h3, "M3", 1));
+
+		clock.advance(1);
+		sampler.updated(hosts);
+		assertEquals(1, s.nrofSamples);
+
+		assertTrue(sampler.isSampled(HostMetricSampler.CONNECTIONS));
+		assertFalse(sampler.isSampled(HostMetricSampler.BUFFER_OCCUPANCY));
+		assertEquals(1.0, sampler.getValue(HostMetricSampler.CONNECTIONS, 0));
+		assertEquals(0.0, sampler.getValue(HostMetricSampler.CONNECTIONS, 2));
+		assertEquals(2.0, sampler.getSum(HostMetricSampler.CONNECTIONS));
+
+		assertEquals(3, sampler.getCount(HostMetricSampler.MESSAGES));
+		assertEquals(3.0, sampler.getSum(HostMetricSampler.MESSAGES));
+		assertEquals(5.0, sampler.getSumOfSquares(HostMetricSampler.MESSAGES));
+		assertEquals(1.0, sampler.getAverage(HostMetricSampler.MESSAGES));
+		assertEquals(0.0, sampler.getMin(HostMetricSampler.MESSAGES));
+		assertEquals(2.0, sampler.getMax(HostMetricSampler.MESSAGES));
+
+		try {
+			sampler.getValues(HostMetricSampler.ENERGY);
+			fail("Energy was not sampled");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+	public void testNoDueSubscribers() {
+		TestSubscriber s = new TestSubscriber(10);
+		sampler.subscribe(s, HostMetricSampler.MESSAGES);
+		clock.advance(5);
+		sampler.updated(hosts);
+		assertEquals(0, s.nrofSamples);
+		assertNull(sampler.getHosts());
+		clock.advance(5);
+		sampler.updated(hosts);
+		assertEquals(1, s.nrofSamples);
+		assertSame(hosts, sampler.getHosts());
+	}
+
+	private static class TestSubscriber implements HostMetricSampler.Subscriber {
+		private double interval;
+		private double lastSample;
+		private int nrofSamples;
+
+		public TestSubscriber(double interval) {
+			this.interval = interval;
+		}
+
+		public boolean isSampleDue(double simTime) {
+			return simTime - lastSample >= interval;
+		}
+
+		public void sampled(HostMetricSampler sampler) {
+			lastSample = SimClock.getTime();
+			nrofSamples++;
+		}
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import java.util.List;
+
+import routing.EpidemicOracleRouter;
+import routing.MessageRouter;
+import routing.util.MessageReplicaIndex;
+import core.DTNHost;
+import core.Message;
+
+/**
+ * Tests for the message replica index and the delivered message purge of
+ * EpidemicOracleRouter that uses it.
+ */
+public class MessageReplicaIndexTest extends AbstractRouterTest {
+
+	@Override
+	public void setUp() throws Exception {
+		MessageReplicaIndex.reset();
+		ts.putSetting(MessageRouter.B_SIZE_S, ""+BUFFER_SIZE);
+		setRouterProto(new EpidemicOracleRouter(ts));
+		super.setUp();
+	}
+
+	public void testHolders() {
+		assertTrue(MessageReplicaIndex.isEnabled());
+		h3.createNewMessage(new Message(h3, h6, msgId1, 1));
+		assertEquals(1, MessageReplicaIndex.getNrofReplicas(msgId1));
+
+		h3.connect(h2);
+		h3.connect(h1);
+		List<DTNHost> holders = MessageReplicaIndex.getHolders(msgId1);
+		assertEquals(3, holders.size());
+		/* ordered by address */
+		assertEquals(h1, holders.get(0));
+		assertEquals(h2, holders.get(1));
+		assertEquals(h3, holders.get(2));
+
+		h2.deleteMessage(msgId1, true);
+		assertEquals(2, MessageReplicaIndex.getNrofReplicas(msgId1));
+		assertFalse(MessageReplicaIndex.getHolders(msgId1).contains(h2));
+		assertEquals(0, MessageReplicaIndex.getNrofReplicas(msgId2));
+	}
+
+	public void testDeliveredMessagePurge() {
+		h1.createNewMessage(new Message(h1, h4, msgId1, 1));
+		h1.connect(h2);
+		h2.connect(h3);
+		assertTrue(h3.getRouter().hasMessage(msgId1));
+		assertEquals(3, MessageReplicaIndex.getNrofReplicas(msgId1));
+
+		h3.connect(h4); /* delivers the message */
+		assertFalse(h1.getRouter().hasMessage(msgId1));
+		assertFalse(h2.getRouter().hasMessage(msgId1));
+		assertFalse(h4.getRouter().hasMessage(msgId1));
+		/* the previous hop is not purged by the oracle */
+		assertTrue(h3.getRouter().hasMessage(msgId1));
+		assertEquals(1, MessageReplicaIndex.getNrofReplicas(msgId1));
+	}
+
+	public void testReset() {
+		h1.createNewMessage(new Message(h1, h4, msgId1, 1));
+		MessageReplicaIndex.reset();
+		assertFalse(MessageReplicaIndex.isEnabled());
+		assertEquals(0, MessageReplicaIndex.getNrofReplicas(msgId1));
+		h2.createNewMessage(new Message(h2, h4, msgId2, 1));
+		assertEquals(0, MessageReplicaIndex.getNrofReplicas(msgId2));
+	}
+}
@@ -11,7 +11,9 @@ import org.junit.Test;
 
 import core.DTNHost;
 import core.Message;
+import core.MessageSlot;
 import core.SimClock;
+import core.SimError;
 
 public class MessageTest extends TestCase {
 
@@ -60,5 +62,47 @@ public class MessageTest extends TestCase {
 		assertEquals(value2, msg.getProperty("bar"));
 	}
 
+	@Test
+	public void testSlots() {
+		MessageSlot intSlot = MessageSlot.intSlot("MessageTest.int");
+		MessageSlot longSlot = MessageSlot.longSlot("MessageTest.long");
+		MessageSlot doubleSlot = MessageSlot.doubleSlot("MessageTest.double");
+		assertSame(intSlot, MessageSlot.intSlot("MessageTest.int"));
+
+		assertFalse(msg.hasValue(intSlot));
+		assertEquals(0, msg.getInt(intSlot));
+		msg.setInt(intSlot, -5);
+		msg.setLong(longSlot, Long.MAX_VALUE);
+		msg.setDouble(doubleSlot, 0.25);
+		assertTrue(msg.hasValue(intSlot));
+		assertEquals(-5, msg.getInt(intSlot));
+		assertEquals(Long.MAX_VALUE, msg.getLong(longSlot));
+		assertEquals(0.25, msg.getDouble(doubleSlot));
+
+		/* replicas get a copy of the values */
+		Message copy = msg.replicate();
+		copy.setInt(intSlot, 3);
+		assertEquals(3, copy.getInt(intSlot));
+		assertEquals(-5, msg.getInt(intSlot));
+		assertEquals(0.25, copy.getDouble(doubleSlot));
+
+		/* slot registered after the values were set */
+		MessageSlot lateSlot = MessageSlot.intSlot("MessageTest.late");
+		assertFalse(copy.hasValue(lateSlot));
+		copy.setInt(lateSlot, 7);
+		assertEquals(7, copy.getInt(lateSlot));
+		assertEquals(3, copy.getInt(intSlot));
+	}
+
+	@Test
+	public void testSlotTypeClash() {
+		MessageSlot.intSlot("MessageTest.clash");
+		try {
+			MessageSlot.doubleSlot("MessageTest.clash");
+			fail("Registering a slot with other type should fail");
+		} catch (SimError e) {
+			/* expected */
+		}
+	}
 
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import movement.ModifiedRandomDirection;
+import movement.MovementModel;
+import movement.RandomWalk;
+import movement.RandomWaypoint;
+import core.ConnectionListener;
+import core.Coord;
+import core.DTNHost;
+import core.MessageListener;
+import core.MobilityEngine;
+import core.SimClock;
+
+/**
+ * Tests that the mobility engine moves the hosts exactly like the hosts
+ * move themselves.
+ */
+public class MobilityEngineTest extends TestCase {
+	private static final double UP_INT = 0.5;
+	private static final int NROF_ROUNDS = 5000;
+
+	private List<DTNHost> createHosts() {
+		TestSettings ts = new TestSettings();
+		ts.putSetting("speed", "0.5, 5.0");
+		ts.putSetting("waitTime", "0, 20");
+		SimClock.reset();
+		DTNHost.reset();
+		MovementModel.reset();
+		TestUtils utils = new TestUtils(new ArrayList<ConnectionListener>(),
+				new ArrayList<MessageListener>(), ts);
+		MovementModel rwp = new RandomWaypoint(ts);
+		MovementModel walk = new RandomWalk(ts);
+		/* not supported by the engine */
+		MovementModel mrd = new ModifiedRandomDirection(ts);
+
+		for (int i=0; i<10; i++) {
+			utils.createHost(rwp, null);
+			utils.createHost(i % 2 == 0 ? walk : mrd, null);
+		}
+		return utils.getAllHosts();
+	}
+
+	public void testSameTrajectories() {
+		List<DTNHost> hosts = createHosts();
+		List<Coord> expected = new ArrayList<Coord>();
+		for (int i=0; i<NROF_ROUNDS; i++) {
+			for (DTNHost h : hosts) {
+				h.move(UP_INT);
+				expected.add(h.getLocation().clone());
+			}
+			SimClock.getInstance().advance(UP_INT);
+		}
+
+		hosts = createHosts();
+		MobilityEngine engine = new MobilityEngine(hosts);
+		assertEquals(15, engine.getNrofHosts());
+		int index = 0;
+		for (int i=0; i<NROF_ROUNDS; i++) {
+			engine.move(UP_INT);
+			for (DTNHost h : hosts) {
+				assertEquals("Round " + i + " host " + h, expected.get(index++),
+						h.getLocation());
+			}
+			SimClock.getInstance().advance(UP_INT);
+		}
+	}
+
+	public void testSetLocation() {
+		List<DTNHost> hosts = createHosts();
+		MobilityEngine engine = new MobilityEngine(hosts);
+		Coord c = new Coord(10, 10);
+		for (int i=0; i<100; i++) {
+			engine.move(UP_INT);
+			SimClock.getInstance().advance(UP_INT);
+		}
+		DTNHost host = hosts.get(0);
+		host.setLocation(c);
+		engine.move(UP_INT);
+		/* moved from the new location (max speed 5.0) */
+		assertTrue(host.getLocation().distance(c) <= 5.0 * UP_INT);
+	}
+}
@@ -10,7 +10,9 @@ import org.junit.Before;
 import org.junit.Test;
 
 import core.ModuleCommunicationBus;
+import core.ModuleCommunicationChannel;
 import core.ModuleCommunicationListener;
+import core.SimError;
 
 public class ModuleCommunicationBusTest extends TestCase {
 
@@ -18,6 +20,7 @@ public class ModuleCommunicationBusTest extends TestCase {
 	private static final String TST_VAL = "test-value";
 	private String notifyKey;
 	private Object notifyValue;
+	private int nrofNotifications;
 	private ModuleCommunicationListener mcl;
 
 	@Before
@@ -30,6 +33,7 @@ public class ModuleCommunicationBusTest extends TestCase {
 			public void moduleValueChanged(String key, Object newValue) {
 				notifyKey = key;
 				notifyValue = newValue;
+				nrofNotifications++;
 			}
 		};
 
@@ -103,4 +107,65 @@ public class ModuleCommunicationBusTest extends TestCase {
 		assertEquals(-16.7, b.getDouble(key, -1.0));
 	}
 
+	@Test
+	public void testChannel() {
+		String key = "channeltst";
+		b.subscribe(key, mcl); /* subscribed before the channel exists */
+		ModuleCommunicationChannel c = b.addDoubleChannel(key, 15.5, false);
+		assertSame(c, b.getChannel(key));
+		assertTrue(b.containsProperty(key));
+		assertEquals(15.5, b.getProperty(key));
+
+		assertEquals(16.5, c.addDouble(1.0));
+		assertEquals(16.5, notifyValue);
+		assertEquals(13.3, b.updateDouble(key, -3.2));
+		assertEquals(13.3, c.getDouble());
+		assertEquals(13.3, notifyValue);
+		b.updateProperty(key, 2.0);
+		assertEquals(2.0, b.getDouble(key, -1.0));
+		assertEquals(3, nrofNotifications);
+
+		ModuleCommunicationChannel ic = b.addIntChannel("inttst", 3, false);
+		assertEquals(3, b.getInt("inttst", -1));
+		ic.setInt(4);
+		assertEquals(4, b.getProperty("inttst"));
+
+		try {
+			b.updateProperty(key, "not a double");
+			fail("Non-Double value should not be accepted");
+		} catch (SimError e) {
+			/* expected */
+		}
+		try {
+			b.addDoubleChannel(key, 0, false);
+			fail("Duplicate channel should not be accepted");
+		} catch (SimError e) {
+			/* expected */
+		}
+	}
+
+	@Test
+	public void testCoalescedChannel() {
+		String key = "coalescedtst";
+		ModuleCommunicationChannel c = b.addDoubleChannel(key, 10, true);
+		b.subscribe(key, mcl);
+
+		c.addDouble(-1);
+		c.addDouble(-2);
+		c.setDouble(5);
+		assertEquals(5.0, b.getDouble(key, -1));
+		assertEquals(0, nrofNotifications);
+
+		b.notifyPendingChanges();
+		assertEquals(1, nrofNotifications);
+		assertEquals(5.0, notifyValue);
+
+		b.notifyPendingChanges(); /* nothing changed */
+		assertEquals(1, nrofNotifications);
+
+		b.unsubscribe(key, mcl);
+		c.setDouble(1);
+		b.notifyPendingChanges();
+		assertEquals(1, nrofNotifications);
+	}
 }
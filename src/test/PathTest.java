@@ -0,0 +1,89 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import junit.framework.TestCase;
+import movement.Path;
+import core.Coord;
+
+/**
+ * Tests for the Path class
+ */
+public class PathTest extends TestCase {
+
+	public void testWaypointsAndSpeeds() {
+		Path p = new Path();
+		for (int i=0; i<20; i++) {
+			p.addWaypoint(new Coord(i, 2*i), i + 0.5);
+		}
+		assertEquals(20, p.getCoords().size());
+		assertEquals(new Coord(19, 38), p.getCoords().get(19));
+		assertEquals(20, p.getSpeeds().size());
+
+		for (int i=0; i<20; i++) {
+			assertTrue(p.hasNext());
+			assertEquals(new Coord(i, 2*i), p.getNextWaypoint());
+			assertEquals(i + 0.5, p.getSpeed());
+		}
+		assertFalse(p.hasNext());
+
+		p = new Path(3);
+		p.addWaypoint(new Coord(1, 1));
+		p.addWaypoint(new Coord(2, 2));
+		p.getNextWaypoint();
+		p.getNextWaypoint();
+		assertEquals(3.0, p.getSpeed());
+	}
+
+	public void testSharedWaypoints() {
+		Path route = new Path(0);
+		for (int i=0; i<10; i++) {
+			route.addWaypoint(new Coord(i, 0));
+		}
+
+		Path leg = new Path(route, 2, 5, 1.5);
+		assertEquals(3, leg.getNrofWaypoints());
+		assertEquals(new Coord(2, 0), leg.getNextWaypoint());
+		assertEquals(1.5, leg.getSpeed());
+
+		/* modifications don't affect the other paths */
+		Path copy = new Path(leg);
+		leg.addWaypoint(new Coord(99, 0));
+		assertEquals(4, leg.getNrofWaypoints());
+		assertEquals(new Coord(99, 0), leg.getCoords().get(3));
+		assertEquals(3, copy.getNrofWaypoints());
+		assertEquals(new Coord(3, 0), copy.getNextWaypoint());
+		assertEquals(new Coord(5, 0), route.getCoords().get(5));
+
+		route.addWaypoint(new Coord(10, 0));
+		assertEquals(11, route.getNrofWaypoints());
+		assertEquals(new Coord(4, 0), copy.getCoords().get(2));
+	}
+
+	public void testReadOnlyAccess() {
+		Path p = new Path(1);
+		p.addWaypoint(new Coord(1, 2));
+		p.addWaypoint(new Coord(3, 4));
+		assertEquals(3.0, p.getX(1));
+		assertEquals(4.0, p.getY(1));
+
+		/* changes to the returned coordinates don't affect the path */
+		p.getCoords().get(0).setLocation(9, 9);
+		assertEquals(new Coord(1, 2), p.getCoords().get(0));
+		try {
+			p.getCoords().add(new Coord(5, 6));
+			fail("Path's coordinates were modified");
+		} catch (UnsupportedOperationException e) {
+			/* expected */
+		}
+
+		Coord wp = new Coord(0, 0);
+		p.getNextWaypoint(wp);
+		assertEquals(new Coord(1, 2), wp);
+		p.getNextWaypoint(wp);
+		assertEquals(new Coord(3, 4), wp);
+		assertFalse(p.hasNext());
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+import report.Report;
+import report.ReportFinalizer;
+import core.SimError;
+
+/**
+ * Tests for finalizing reports in parallel
+ */
+public class ReportFinalizerTest extends TestCase {
+	private List<String> finalized;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		File outFile = File.createTempFile("rftest", ".tmp");
+		outFile.deleteOnExit();
+		TestSettings ts = new TestSettings();
+		for (Class<?> c : new Class<?>[] {OrderReport.class,
+				SortingReport.class, MedianReport.class}) {
+			ts.putSetting(c.getSimpleName() + "." + Report.OUTPUT_SETTING,
+					outFile.getAbsolutePath());
+		}
+		finalized = Collections.synchronizedList(new ArrayList<String>());
+	}
+
+	public void testDependencies() {
+		for (int threads : new int[] {1, 4}) {
+			finalized.clear();
+			OrderReport a = new OrderReport("a");
+			OrderReport b = new OrderReport("b", a);
+			OrderReport c = new OrderReport("c", b);
+			OrderReport d = new OrderReport("d");
+			/* dependencies later in the list than the dependent report */
+			List<Report> reports = Arrays.<Report>asList(c, d, b, a);
+
+			ReportFinalizer rf = new ReportFinalizer(reports, threads);
+			rf.finalizeReports();
+
+			assertEquals(4, finalized.size());
+			assertTrue(finalized.indexOf("a") < finalized.indexOf("b"));
+			assertTrue(finalized.indexOf("b") < finalized.indexOf("c"));
+			assertTrue(rf.getTime(a) > 0);
+			assertTrue(rf.getTotalTime() > 0);
+		}
+	}
+
+	public void testDataDependency() {
+		for (int threads : new int[] {1, 4}) {
+			SortingReport sorting = new SortingReport();
+			for (int i=0; i<1000; i++) {
+				sorting.values.add((i * 7919) % 1000);
+			}
+			MedianReport median = new MedianReport(sorting);
+			/* the dependent report first and independent ones in between */
+			List<Report> reports = Arrays.<Report>asList(median,
+					new OrderReport("a"), new OrderReport("b"), sorting);
+
+			new ReportFinalizer(reports, threads).finalizeReports();
+			assertEquals(500, median.median);
+		}
+	}
+
+	public void testCycle() {
+		OrderReport a = new OrderReport("a");
+		OrderReport b = new OrderReport("b", a);
+		a.deps = Arrays.<Report>asList(b);
+
+		try {
+			new ReportFinalizer(Arrays.<Report>asList(a, b), 2);
+			fail("Cyclic dependency not detected");
+		} catch (SimError e) {
+			/* expected */
+		}
+	}
+
+	public void testFailure() {
+		OrderReport a = new OrderReport("a");
+		OrderReport b = new OrderReport("fail");
+		ReportFinalizer rf = new ReportFinalizer(
+				Arrays.<Report>asList(b, a), 2);
+		try {
+			rf.finalizeReports();
+			fail("Failure not re-thrown");
+		} catch (SimError e) {
+			/* the other report is still finalized */
+			assertTrue(finalized.contains("a"));
+		}
+	}
+
+	/**
+	 * Report that sorts its values when it is finalized
+	 */
+	private static class SortingReport extends Report {
+		private List<Integer> values = new ArrayList<Integer>();
+		private List<Integer> sorted;
+
+		@Override
+		public void done() {
+			List<Integer> list = new ArrayList<Integer>(values);
+			try {
+				Thread.sleep(20); /* give the dependent a chance to run */
+			} catch (InterruptedException e) {
+				/* just finish sooner */
+			}
+			Collections.sort(list);
+			sorted = list;
+			super.done();
+		}
+	}
+
+	/**
+	 * Report that uses the results of a SortingReport when it's finalized
+	 */
+	private static class MedianReport extends Report {
+		private SortingReport sorting;
+		private int median = -1;
+
+		private MedianReport(SortingReport sorting) {
+			this.sorting = sorting;
+		}
+
+		@Override
+		public Collection<Report> getDependencies() {
+			return Arrays.<Report>asList(sorting);
+		}
+
+		@Override
+		public void done() {
+			median = sorting.sorted.get(sorting.sorted.size() / 2);
+			super.done();
+		}
+	}
+
+	private class OrderReport extends Report {
+		private String name;
+		private Collection<Report> deps;
+
+		private OrderReport(String name, Report... deps) {
+			this.name = name;
+			this.deps = Arrays.asList(deps);
+		}
+
+		@Override
+		public Collection<Report> getDependencies() {
+			return deps;
+		}
+
+		@Override
+		public void done() {
+			if (name.equals("fail")) {
+				throw new SimError("failed");
+			}
+			try {
+				Thread.sleep(5);
+			} catch (InterruptedException e) {
+				/* just finish sooner */
+			}
+			finalized.add(name);
+			super.done();
+		}
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+import report.Report;
+import report.RunAggregator;
+
+/**
+ * Tests for aggregating report metrics over runs
+ */
+public class RunAggregatorTest extends TestCase {
+	private static final double DELTA = 0.00001;
+	private File outFile;
+	private RunAggregator ra;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		outFile = File.createTempFile("ratest", ".tmp");
+		outFile.deleteOnExit();
+		ra = new RunAggregator(outFile.getAbsolutePath());
+
+		double[] values = {1, 2, 3, 6};
+		for (int i=0; i<values.length; i++) {
+			TreeMap<String, String> params = new TreeMap<String, String>();
+			params.put("Group.router", i % 2 == 0 ? "A" : "B");
+			Map<String, Double> metrics = new HashMap<String, Double>();
+			metrics.put("R.x", values[i]);
+			if (i > 0) {
+				metrics.put("R.y", i == 2 ? Double.NaN : 10.0);
+			}
+			ra.addRun(i, params, metrics);
+		}
+	}
+
+	public void testStatistics() {
+		assertEquals(4, ra.getNrofRuns());
+		double[] s = ra.getStatistics("R.x");
+		assertEquals(4, (int)s[0]);
+		assertEquals(3.0, s[1], DELTA);
+		assertEquals(Math.sqrt(14.0 / 3), s[2], DELTA);
+		assertEquals(3.182 * Math.sqrt(14.0 / 3) / 2, s[3], DELTA);
+
+		/* missing and NaN values are skipped */
+		s = ra.getStatistics("R.y");
+		assertEquals(2, (int)s[0]);
+		assertEquals(10.0, s[1], DELTA);
+		assertEquals(0.0, s[2], DELTA);
+
+		assertNull(ra.getStatistics("R.z"));
+	}
+
+	public void testRunDone() throws Exception {
+		TestSettings ts = new TestSettings();
+		ts.putSetting(MetricReport.class.getSimpleName() + "." +
+				Report.OUTPUT_SETTING, outFile.getAbsolutePath());
+		ra = new RunAggregator(outFile.getAbsolutePath());
+
+		MetricReport r1 = new MetricReport(1.0 / 3);
+		MetricReport r2 = new MetricReport(2.0 / 3);
+		r1.done();
+		r2.done();
+		ra.runDone(0, Arrays.<Report>asList(r1, r2));
+
+		/* exact values, not the ones formatted to the report precision */
+		assertEquals(1.0 / 3, ra.getStatistics("MetricReport.x")[1]);
+		assertEquals(2.0 / 3, ra.getStatistics("MetricReport.x#2")[1]);
+	}
+
+	public void testWrite() throws Exception {
+		ra.write();
+		BufferedReader reader = new BufferedReader(new FileReader(outFile));
+		String line;
+		boolean foundA = false;
+		while ((line = reader.readLine()) != null) {
+			if (line.startsWith("A R.x ")) {
+				/* runs 0 and 2: values 1 and 3 */
+				assertTrue(line.startsWith("A R.x 2 2.0000 1.4142"));
+				foundA = true;
+			}
+		}
+		reader.close();
+		assertTrue(foundA);
+	}
+
+	private static class MetricReport extends Report {
+		private double value;
+
+		private MetricReport(double value) {
+			this.value = value;
+		}
+
+		@Override
+		public void done() {
+			write("x: " + format(value));
+			addMetric("x", value);
+			super.done();
+		}
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import routing.schedule.ScheduleConnectionScan;
+import routing.schedule.ScheduleDijkstra;
+import routing.schedule.ScheduleEntry;
+import routing.schedule.ScheduleOracle;
+import routing.schedule.SchedulePathFinder;
+
+/**
+ * Tests for the connection scan path finder (runs also all the Dijkstra
+ * path tests) and the schedule oracle's index and schedule files.
+ */
+public class ScheduleConnectionScanTest extends ScheduleDijkstraTest {
+
+	@Override
+	protected SchedulePathFinder createPathFinder(ScheduleOracle oracle) {
+		return new ScheduleConnectionScan(oracle);
+	}
+
+	public void testGetConnected() {
+		oracle.addEntry(15, 1, 6, 1); /* added last but starts second */
+		List<ScheduleEntry> list = oracle.getConnected(1, 11);
+		assertEquals(4, list.size());
+		assertEquals(15.0, list.get(0).getTime());
+		assertEquals(30.0, list.get(3).getTime());
+
+		assertEquals(5, oracle.getConnected(1, 10).size());
+		assertEquals(0, oracle.getConnected(1, 31).size());
+		assertEquals(0, oracle.getConnected(99, 0).size());
+	}
+
+	public void testSameArrivalTimesAsDijkstra() {
+		Random rng = new Random(42);
+		ScheduleOracle o = new ScheduleOracle();
+		for (int i=0; i<2000; i++) {
+			o.addEntry(rng.nextInt(1000), rng.nextInt(50), rng.nextInt(50),
+					1 + rng.nextInt(30));
+		}
+		ScheduleDijkstra dijkstra = new ScheduleDijkstra(o);
+		ScheduleConnectionScan csa = new ScheduleConnectionScan(o);
+
+		for (int i=0; i<200; i++) {
+			int from = rng.nextInt(50);
+			int to = rng.nextInt(50);
+			double time = rng.nextInt(500);
+			List<ScheduleEntry> p1 = dijkstra.getShortestPath(from, to, time);
+			List<ScheduleEntry> p2 = csa.getShortestPath(from, to, time);
+			assertEquals(p1.isEmpty(), p2.isEmpty());
+			if (p1.isEmpty()) {
+				continue;
+			}
+			double arrival = p2.get(p2.size() - 1).getDestinationTime();
+			assertEquals(p1.get(p1.size() - 1).getDestinationTime(), arrival);
+			assertEquals(arrival, csa.getEarliestArrival(from, to, time));
+			checkPath(from, to, time, p2);
+		}
+	}
+
+	public void testScheduleFile() throws IOException {
+		oracle.addEntry(40, 3, 7, 10, 5);
+		File f = File.createTempFile("schedtest", ".bin");
+		f.deleteOnExit();
+		oracle.save(f);
+
+		ScheduleOracle loaded = ScheduleOracle.load(f);
+		assertEquals(oracle.getEntries().size(), loaded.getEntries().size());
+		List<ScheduleEntry> list = loaded.getConnected(3, 0);
+		assertEquals(1, list.size());
+		assertEquals(40.0, list.get(0).getTime());
+		assertEquals(7, list.get(0).getVia());
+		assertEquals(10, list.get(0).getTo());
+		assertEquals(5.0, list.get(0).getDuration());
+		assertEquals(oracle.getConnected(1, 0).toString(),
+				loaded.getConnected(1, 0).toString());
+
+		try {
+			ScheduleOracle.load(File.createTempFile("schedtest", ".bin"));
+			fail("Loading an empty file should fail");
+		} catch (IOException e) {
+			/* expected */
+		}
+	}
+
+	private void checkPath(int from, int to, double time,
+			List<ScheduleEntry> path) {
+		assertEquals(from, path.get(0).getFrom());
+		assertEquals(to, path.get(path.size() - 1).getTo());
+		for (ScheduleEntry se : path) {
+			assertTrue(se.getTime() >= time);
+			time = se.getDestinationTime();
+		}
+	}
+}
@@ -9,17 +9,18 @@ import java.util.List;
 import routing.schedule.ScheduleDijkstra;
 import routing.schedule.ScheduleOracle;
 import routing.schedule.ScheduleEntry;
+import routing.schedule.SchedulePathFinder;
 import junit.framework.TestCase;
 
 public class ScheduleDijkstraTest extends TestCase {
 
 	ScheduleOracle oracle;
-	ScheduleDijkstra d;
+	SchedulePathFinder d;
 
 	protected void setUp() throws Exception {
 		super.setUp();
 		oracle = new ScheduleOracle();
-		d = new ScheduleDijkstra(oracle);
+		d = createPathFinder(oracle);
 
 		oracle.addEntry(10, 1, 2, 10);
 		oracle.addEntry(20, 1, 3, 10);
@@ -27,6 +28,15 @@ public class ScheduleDijkstraTest extends TestCase {
 		oracle.addEntry(30, 1, 5, 10);
 	}
 
+	/**
+	 * Creates the path finder to test
+	 * @param oracle The oracle the path finder should use
+	 * @return The path finder
+	 */
+	protected SchedulePathFinder createPathFinder(ScheduleOracle oracle) {
+		return new ScheduleDijkstra(oracle);
+	}
+
 	private void comparePaths(int realPath[], List<ScheduleEntry> path) {
 		int i;
 		assertEquals(realPath.length, path.size() + 1);
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import util.SparsePairTable;
+
+/**
+ * Tests for the sparse pair table used by the contact reports
+ */
+public class SparsePairTableTest extends TestCase {
+	private SparsePairTable table;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		table = new SparsePairTable();
+	}
+
+	public void testKeys() {
+		long k = SparsePairTable.key(7, 123456);
+		assertEquals(7, SparsePairTable.first(k));
+		assertEquals(123456, SparsePairTable.second(k));
+		assertTrue(k != SparsePairTable.key(123456, 7));
+		assertEquals(SparsePairTable.unordered(3, 9),
+				SparsePairTable.unordered(9, 3));
+	}
+
+	public void testPutGetRemove() {
+		long k = SparsePairTable.key(1, 2);
+		assertFalse(table.contains(k));
+		assertEquals(0, table.get(k));
+
+		assertEquals(0, table.put(k, 5));
+		assertTrue(table.contains(k));
+		assertEquals(5, table.get(1, 2));
+		assertEquals(0, table.get(2, 1));
+		assertEquals(1, table.size());
+
+		assertEquals(6, table.increment(k));
+		assertEquals(4, table.add(SparsePairTable.key(2, 1), 4));
+		assertEquals(2, table.size());
+
+		assertEquals(6, table.remove(k));
+		assertFalse(table.contains(k));
+		assertEquals(0, table.remove(k));
+		assertEquals(1, table.size());
+		assertEquals(4, table.get(2, 1));
+	}
+
+	public void testRandomOperations() {
+		Map<Long, Integer> reference = new HashMap<Long, Integer>();
+		Random rng = new Random(42);
+
+		for (int i=0; i<20000; i++) {
+			long k = SparsePairTable.key(rng.nextInt(50), rng.nextInt(50));
+			int op = rng.nextInt(3);
+			if (op == 0) {
+				Integer old = reference.remove(k);
+				assertEquals(old == null ? 0 : old.intValue(), table.remove(k));
+			} else {
+				Integer old = reference.get(k);
+				int value = (old == null ? 0 : old.intValue()) + 1;
+				reference.put(k, value);
+				assertEquals(value, table.increment(k));
+			}
+			assertEquals(reference.size(), table.size());
+		}
+
+		for (int a=0; a<50; a++) {
+			for (int b=0; b<50; b++) {
+				long k = SparsePairTable.key(a, b);
+				Integer value = reference.get(k);
+				assertEquals(value != null, table.contains(k));
+				assertEquals(value == null ? 0 : value.intValue(),
+						table.get(k));
+			}
+		}
+
+		final int[] visited = {0};
+		table.forEach(new SparsePairTable.Visitor() {
+			public void visit(long key, int value) {
+				visited[0]++;
+			}
+		});
+		assertEquals(reference.size(), visited[0]);
+	}
+}
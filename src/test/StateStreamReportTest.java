@@ -0,0 +1,218 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+import report.Report;
+import report.StateStreamReport;
+import core.ConnectionListener;
+import core.Coord;
+import core.DTNHost;
+import core.Message;
+import core.MessageListener;
+import core.SimClock;
+
+/**
+ * Tests that a client of the StateStreamReport can reconstruct the state
+ * of the simulation from the frames, also when it can't keep up.
+ */
+public class StateStreamReportTest extends TestCase {
+	private static final String NS = "StateStreamReport.";
+	private static final int NROF_HOSTS = 500;
+	private static final int NROF_FLOOD_ROUNDS = 2000;
+
+	private StateStreamReport report;
+	private List<DTNHost> hosts;
+	private Set<Long> connections;
+	private SimClock clock;
+	private Random rng;
+	private int msgCount;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		TestSettings ts = new TestSettings();
+		File outFile = File.createTempFile("sstest", ".tmp");
+		outFile.deleteOnExit();
+		ts.putSetting(NS + Report.OUTPUT_SETTING, outFile.getAbsolutePath());
+		ts.putSetting(NS + StateStreamReport.PORT_S, "0");
+		ts.putSetting(NS + StateStreamReport.CLIENT_BUFFER_S, "2");
+
+		SimClock.reset();
+		DTNHost.reset();
+		clock = SimClock.getInstance();
+		rng = new Random(1);
+		connections = new HashSet<Long>();
+		report = new StateStreamReport();
+
+		TestUtils utils = new TestUtils(new ArrayList<ConnectionListener>(),
+				new ArrayList<MessageListener>(), ts);
+		for (int i=0; i<NROF_HOSTS; i++) {
+			utils.createHost(new Coord(0, 0));
+		}
+		hosts = utils.getAllHosts();
+	}
+
+	protected void tearDown() throws Exception {
+		report.done();
+		super.tearDown();
+	}
+
+	/**
+	 * Changes the state of the simulation randomly and lets the report send
+	 * the changes
+	 */
+	private void round() {
+		clock.advance(1);
+		for (DTNHost h : hosts) {
+			h.setLocation(new Coord(rng.nextInt(1000), rng.nextInt(1000)));
+		}
+		for (int i=0; i<5; i++) {
+			DTNHost from = hosts.get(rng.nextInt(NROF_HOSTS));
+			DTNHost to = hosts.get(rng.nextInt(NROF_HOSTS));
+			from.createNewMessage(new Message(from, to, "M" + msgCount++, 1));
+		}
+		for (int i=0; i<10; i++) {
+			int a = rng.nextInt(NROF_HOSTS - 1);
+			int b = a + 1 + rng.nextInt(NROF_HOSTS - a - 1);
+			toggle(a, b);
+			if (i % 3 == 0) {
+				toggle(a, b); /* changes that cancel out during the round */
+			}
+		}
+		report.updated(hosts);
+	}
+
+	private void toggle(int a, int b) {
+		Long key = key(a, b);
+		if (connections.remove(key)) {
+			report.hostsDisconnected(hosts.get(b), hosts.get(a));
+		} else {
+			connections.add(key);
+			report.hostsConnected(hosts.get(b), hosts.get(a));
+		}
+	}
+
+	private static Long key(int a, int b) {
+		return ((long)a << 32) | b;
+	}
+
+	public void testSlowClient() throws Exception {
+		Socket socket = new Socket();
+		socket.setReceiveBufferSize(4096);
+		socket.connect(new InetSocketAddress(
+				InetAddress.getLoopbackAddress(), report.getPort()));
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				socket.getInputStream()));
+		/* wait for the first (full) frame, i.e., until the client is known */
+		for (int i=0; in.available() == 0; i++) {
+			assertTrue("No frames received", i < 500);
+			report.updated(hosts);
+			Thread.sleep(10);
+		}
+
+		/* the client doesn't read while the state changes */
+		for (int i=0; i<NROF_FLOOD_ROUNDS; i++) {
+			round();
+		}
+
+		ClientState client = new ClientState(in);
+		Thread reader = new Thread(client);
+		reader.setDaemon(true);
+		reader.start();
+		/* unchanged rounds until the client is up to date */
+		for (int i=0; client.time != SimClock.getTime(); i++) {
+			assertNull(client.error);
+			assertTrue("Client didn't catch up", i < 1000);
+			clock.advance(1);
+			report.updated(hosts);
+			Thread.sleep(10);
+		}
+		socket.close();
+
+		assertTrue("Client queue didn't overflow", client.nrofFullFrames > 1);
+		for (DTNHost h : hosts) {
+			int i = h.getAddress();
+			assertEquals((float)h.getLocation().getX(), client.x[i]);
+			assertEquals((float)h.getLocation().getY(), client.y[i]);
+			assertEquals(h.getNrofMessages(), client.msgs[i]);
+		}
+		assertEquals(connections, client.connections);
+	}
+
+	/**
+	 * State of the simulation as reconstructed by a client
+	 */
+	private static class ClientState implements Runnable {
+		private DataInputStream in;
+		private float[] x = new float[0];
+		private float[] y = new float[0];
+		private int[] msgs = new int[0];
+		private Set<Long> connections = new HashSet<Long>();
+		private int nrofFullFrames;
+		private volatile double time = -1;
+		private volatile Exception error;
+
+		private ClientState(DataInputStream in) {
+			this.in = in;
+		}
+
+		public void run() {
+			try {
+				while (true) {
+					readFrame();
+				}
+			} catch (IOException e) {
+				if (time < 0) {
+					error = e;
+				} /* else socket closed at the end of the test */
+			}
+		}
+
+		private void readFrame() throws IOException {
+			in.readInt(); /* length */
+			boolean full = in.readByte() == StateStreamReport.FRAME_FULL;
+			double frameTime = in.readDouble();
+			int n = in.readInt();
+			if (x.length != n) {
+				x = new float[n];
+				y = new float[n];
+				msgs = new int[n];
+			}
+			if (full) {
+				nrofFullFrames++;
+				connections.clear();
+			}
+			for (int i=0, count=in.readInt(); i<count; i++) {
+				int address = in.readInt();
+				x[address] = in.readFloat();
+				y[address] = in.readFloat();
+			}
+			for (int i=0, count=in.readInt(); i<count; i++) {
+				connections.add(key(in.readInt(), in.readInt()));
+			}
+			for (int i=0, count=in.readInt(); i<count; i++) {
+				connections.remove(key(in.readInt(), in.readInt()));
+			}
+			for (int i=0, count=in.readInt(); i<count; i++) {
+				int address = in.readInt();
+				msgs[address] = in.readInt();
+			}
+			time = frameTime;
+		}
+	}
+}
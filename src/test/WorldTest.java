@@ -12,6 +12,8 @@ import java.util.List;
 import junit.framework.TestCase;
 import core.DTNHost;
 import core.ModuleCommunicationBus;
+import core.ModuleCommunicationChannel;
+import core.ModuleCommunicationListener;
 import core.NetworkInterface;
 import core.SimClock;
 import core.UpdateListener;
@@ -101,6 +103,25 @@ public class WorldTest extends TestCase {
 
 	}
 
+	public void testCoalescedChangesNotifiedOncePerRound() {
+		final int[] nrofNotifications = {0};
+		ModuleCommunicationBus comBus = testHosts.get(0).getComBus();
+		ModuleCommunicationChannel c = comBus.addDoubleChannel("tst", 0, true);
+		comBus.subscribe("tst", new ModuleCommunicationListener() {
+			public void moduleValueChanged(String key, Object newValue) {
+				nrofNotifications[0]++;
+			}
+		});
+
+		c.addDouble(1);
+		c.addDouble(1);
+		assertEquals(0, nrofNotifications[0]);
+		world.update();
+		assertEquals(1, nrofNotifications[0]);
+		world.update(); /* nothing changed */
+		assertEquals(1, nrofNotifications[0]);
+	}
+
 
 	/** Dummy scenario for providing test values for the World */
 	@SuppressWarnings("serial")
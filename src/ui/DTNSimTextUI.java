@@ -4,6 +4,8 @@
  */
 package ui;
 
+import report.Report;
+import core.HostFactory;
 import core.SimClock;
 
 /**
@@ -20,6 +22,7 @@ public class DTNSimTextUI extends DTNSimUI {
 		double endTime = scen.getEndTime();
 
 		print("Running simulation '" + scen.getName()+"'");
+		printStartupTimes();
 
 		startTime = System.currentTimeMillis();
 		lastUpdateRt = startTime;
@@ -43,6 +46,7 @@ public class DTNSimTextUI extends DTNSimUI {
 		this.update(true); // force final UI update
 
 		print("Simulation done in " + String.format("%.2f", duration) + "s");
+		printReportTimes();
 
 	}
 
@@ -67,6 +71,34 @@ public class DTNSimTextUI extends DTNSimUI {
 		}
 	}
 
+	/**
+	 * Prints how long (real time) the startup phases took
+	 */
+	private void printStartupTimes() {
+		HostFactory hf = scen.getHostFactory();
+		print(String.format("Startup: scenario %.2fs (prototypes %.2fs, " +
+				"hosts %.2fs), reports %.2fs, warmup %.2fs",
+				startupTimes[0], hf.getPrototypeTime(),
+				hf.getHostCreationTime(), startupTimes[1], startupTimes[2]));
+	}
+
+	/**
+	 * Prints how long (real time) finalizing the reports took
+	 */
+	private void printReportTimes() {
+		if (reports.isEmpty()) {
+			return;
+		}
+		StringBuilder sb = new StringBuilder(String.format(
+				"Reports done in %.2fs (", reportFinalizer.getTotalTime()));
+		for (int i=0; i<reports.size(); i++) {
+			Report r = reports.get(i);
+			sb.append(i > 0 ? ", " : "").append(r.getClass().getSimpleName());
+			sb.append(String.format(" %.2fs", reportFinalizer.getTime(r)));
+		}
+		print(sb.append(")").toString());
+	}
+
 	private void print(String txt) {
 		System.out.println(txt);
 	}
@@ -7,6 +7,8 @@ package ui;
 import java.util.Vector;
 
 import report.Report;
+import report.ReportFinalizer;
+import report.RunAggregator;
 import core.ApplicationListener;
 import core.ConnectionListener;
 import core.MessageListener;
@@ -35,6 +37,14 @@ public abstract class DTNSimUI {
 	 * one.
 	 */
 	public static final String REPORT_S = "Report.report";
+	/**
+	 * Number of threads used for finalizing the reports -setting id
+	 * ({@value}). Default is 1: the reports are finalized one at a time in
+	 * the order they were loaded. More threads should be used only if all
+	 * the loaded reports can be finalized concurrently (see
+	 * {@link Report#done()}).
+	 */
+	public static final String FINALIZE_THREADS_S = "Report.finalizeThreads";
 	/**
 	 * Movement model warmup time -setting id ({@value}). Defines how many
 	 * seconds of movement simulation is run without connectivity etc. checks
@@ -58,6 +68,11 @@ public abstract class DTNSimUI {
 	protected SimScenario scen;
 	/** simtime of last UI update */
 	protected double lastUpdate;
+	/** real time (seconds) spent in the startup phases: scenario creation,
+	 * report creation and movement model warm up */
+	protected double[] startupTimes;
+	/** finalizer of the reports (null until the simulation is done) */
+	protected ReportFinalizer reportFinalizer;
 
 	/**
 	 * Constructor.
@@ -67,6 +82,7 @@ public abstract class DTNSimUI {
 		this.reports = new Vector<Report>();
 		this.simDone = false;
 		this.simCancelled = false;
+		this.startupTimes = new double[3];
 	}
 
 	/**
@@ -101,17 +117,23 @@ public abstract class DTNSimUI {
 				}
 			}
 			
+			long phaseStart = System.nanoTime();
 			this.scen = SimScenario.getInstance();
+			this.startupTimes[0] = (System.nanoTime() - phaseStart) / 1e9;
 
 			// add reports
+			phaseStart = System.nanoTime();
 			for (int i=1, n = settings.getInt(NROF_REPORT_S); i<=n; i++){
 				String reportClass = settings.getSetting(REPORT_S + i);
 				addReport((Report)settings.createObject(REPORT_PAC +
 						reportClass));
 			}
+			this.startupTimes[1] = (System.nanoTime() - phaseStart) / 1e9;
 
 			this.world = this.scen.getWorld();
+			phaseStart = System.nanoTime();
 			world.warmupMovementModel(warmupTime);
+			this.startupTimes[2] = (System.nanoTime() - phaseStart) / 1e9;
 		}
 		catch (SettingsError se) {
 			System.err.println("Can't start: error in configuration file(s)");
@@ -129,8 +151,15 @@ public abstract class DTNSimUI {
 	 * Runs maintenance jobs that are needed before exiting.
 	 */
 	public void done() {
-		for (Report r : this.reports) {
-			r.done();
+		Settings s = new Settings();
+		int threads = s.getInt(FINALIZE_THREADS_S, 1);
+		this.reportFinalizer = new ReportFinalizer(this.reports, threads);
+		this.reportFinalizer.finalizeReports();
+
+		RunAggregator aggregator = RunAggregator.getInstance(
+				s.getSetting(Report.REPORTDIR_SETTING, "."), scen.getName());
+		if (aggregator != null) {
+			aggregator.runDone(Settings.getRunIndex(), this.reports);
 		}
 	}
 
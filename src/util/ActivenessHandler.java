@@ -101,6 +101,14 @@ public class ActivenessHandler {
 		return timesList;
 	}
 
+	/**
+	 * Returns true if there are no inactive times or periods
+	 * @return true if node is always active
+	 */
+	public boolean isAlwaysActive() {
+		return this.activeTimes == null && this.activePeriods == null;
+	}
+
 	/**
 	 * Returns true if node should be active at the moment
 	 * @return true if node should be active at the moment
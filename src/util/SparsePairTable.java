@@ -0,0 +1,281 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Sparse table of int values indexed by ordered pairs of non-negative ints
+ * (e.g., host addresses). Replaces n*n matrices where only a small
+ * fraction of all the pairs ever get a value. The pairs are packed to long
+ * keys and stored in an open addressing (linear probing) hash table of
+ * primitive arrays, so no objects are created per pair.
+ * <P>The pairs are ordered, i.e., (a,b) and (b,a) are different entries.
+ * Use {@link #unordered(int, int)} to store symmetric values only once.</P>
+ */
+public class SparsePairTable {
+	/** key of empty slots; can't be a valid key since pairs are >= 0 */
+	private static final long EMPTY = -1L;
+	private static final int DEF_CAPACITY = 64;
+
+	private long[] keys;
+	private int[] values;
+	private int size;
+	/** size after which the table is grown (load factor 0.5) */
+	private int threshold;
+
+	/**
+	 * Creates an empty table
+	 */
+	public SparsePairTable() {
+		this(DEF_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty table with room for the given number of entries
+	 * before the table has to grow
+	 * @param expectedSize The expected number of entries
+	 */
+	public SparsePairTable(int expectedSize) {
+		int capacity = DEF_CAPACITY;
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	private void allocate(int capacity) {
+		this.keys = new long[capacity];
+		this.values = new int[capacity];
+		Arrays.fill(keys, EMPTY);
+		this.size = 0;
+		this.threshold = capacity / 2;
+	}
+
+	/**
+	 * Packs a pair to a key
+	 * @param a The first value of the pair
+	 * @param b The second value of the pair
+	 * @return The key
+	 */
+	public static long key(int a, int b) {
+		return ((long)a << 32) | (b & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Returns the first value of a pair packed with {@link #key(int, int)}
+	 * @param key The key
+	 * @return The first value
+	 */
+	public static int first(long key) {
+		return (int)(key >>> 32);
+	}
+
+	/**
+	 * Returns the second value of a pair packed with {@link #key(int, int)}
+	 * @param key The key
+	 * @return The second value
+	 */
+	public static int second(long key) {
+		return (int)key;
+	}
+
+	/**
+	 * Returns the key of an unordered pair, i.e., the key is the same for
+	 * (a,b) and (b,a)
+	 * @param a One value of the pair
+	 * @param b The other value of the pair
+	 * @return The key
+	 */
+	public static long unordered(int a, int b) {
+		return a < b ? key(a, b) : key(b, a);
+	}
+
+	/**
+	 * Returns the slot where probing for the given key starts
+	 */
+	private static int home(long key, int mask) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 32)) & mask;
+	}
+
+	/**
+	 * Returns the slot of the given key or the empty slot where it would be
+	 */
+	private int slot(long key) {
+		int mask = keys.length - 1;
+		int i = home(key, mask);
+		while (keys[i] != EMPTY && keys[i] != key) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	/**
+	 * Returns the value of a pair
+	 * @param key Key of the pair
+	 * @return The value or 0 if the pair is not in the table
+	 */
+	public int get(long key) {
+		int i = slot(key);
+		return keys[i] == EMPTY ? 0 : values[i];
+	}
+
+	/**
+	 * Returns the value of a pair
+	 * @param a The first value of the pair
+	 * @param b The second value of the pair
+	 * @return The value or 0 if the pair is not in the table
+	 */
+	public int get(int a, int b) {
+		return get(key(a, b));
+	}
+
+	/**
+	 * Returns true if the pair is in the table
+	 * @param key Key of the pair
+	 * @return true if the pair is in the table
+	 */
+	public boolean contains(long key) {
+		return keys[slot(key)] != EMPTY;
+	}
+
+	/**
+	 * Sets the value of a pair
+	 * @param key Key of the pair
+	 * @param value The new value
+	 * @return The previous value or 0 if the pair was not in the table
+	 */
+	public int put(long key, int value) {
+		int i = slot(key);
+		if (keys[i] != EMPTY) {
+			int old = values[i];
+			values[i] = value;
+			return old;
+		}
+		keys[i] = key;
+		values[i] = value;
+		if (++size > threshold) {
+			grow();
+		}
+		return 0;
+	}
+
+	/**
+	 * Adds to the value of a pair. A pair that is not in the table is
+	 * added with the value 0 first.
+	 * @param key Key of the pair
+	 * @param delta How much to add
+	 * @return The new value
+	 */
+	public int add(long key, int delta) {
+		int i = slot(key);
+		if (keys[i] != EMPTY) {
+			values[i] += delta;
+			return values[i];
+		}
+		keys[i] = key;
+		values[i] = delta;
+		if (++size > threshold) {
+			grow();
+		}
+		return delta;
+	}
+
+	/**
+	 * Increments the value of a pair by one
+	 * @param key Key of the pair
+	 * @return The new value
+	 */
+	public int increment(long key) {
+		return add(key, 1);
+	}
+
+	/**
+	 * Removes a pair from the table
+	 * @param key Key of the pair
+	 * @return The removed value or 0 if the pair was not in the table
+	 */
+	public int remove(long key) {
+		int i = slot(key);
+		if (keys[i] == EMPTY) {
+			return 0;
+		}
+		int old = values[i];
+		int mask = keys.length - 1;
+
+		/* shift the following entries of the probe chain backwards so that
+		 * no tombstones are needed */
+		int hole = i;
+		int j = (i + 1) & mask;
+		while (keys[j] != EMPTY) {
+			int home = home(keys[j], mask);
+			/* can the entry at j be moved to the hole? */
+			if (((j - home) & mask) >= ((j - hole) & mask)) {
+				keys[hole] = keys[j];
+				values[hole] = values[j];
+				hole = j;
+			}
+			j = (j + 1) & mask;
+		}
+		keys[hole] = EMPTY;
+		size--;
+		return old;
+	}
+
+	/**
+	 * Returns the number of pairs in the table
+	 * @return the number of pairs in the table
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Removes all pairs from the table
+	 */
+	public void clear() {
+		Arrays.fill(keys, EMPTY);
+		this.size = 0;
+	}
+
+	/**
+	 * Calls the visitor for every pair in the table (in no specific order)
+	 * @param visitor The visitor
+	 */
+	public void forEach(Visitor visitor) {
+		for (int i=0; i<keys.length; i++) {
+			if (keys[i] != EMPTY) {
+				visitor.visit(keys[i], values[i]);
+			}
+		}
+	}
+
+	private void grow() {
+		long[] oldKeys = this.keys;
+		int[] oldValues = this.values;
+		allocate(oldKeys.length * 2);
+		for (int i=0; i<oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				int j = slot(oldKeys[i]);
+				keys[j] = oldKeys[i];
+				values[j] = oldValues[i];
+				size++;
+			}
+		}
+	}
+
+	/**
+	 * Interface for visiting all the pairs of a table
+	 */
+	public interface Visitor {
+		/**
+		 * Called for each pair in the table
+		 * @param key Key of the pair
+		 * @param value Value of the pair
+		 */
+		public void visit(long key, int value);
+	}
+}